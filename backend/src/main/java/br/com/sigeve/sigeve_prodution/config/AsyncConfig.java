@@ -0,0 +1,45 @@
+package br.com.sigeve.sigeve_prodution.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executores usados por processamentos em lote fora da thread da requisição
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Pool do recálculo em massa de custos de composições. Cada tarefa ocupa uma conexão
+     * durante o processamento de um lote, por isso o tamanho deve ficar abaixo do pool do Hikari.
+     */
+    @Bean(name = "compositionCostExecutor")
+    public ThreadPoolTaskExecutor compositionCostExecutor(
+            @Value("${app.composition-cost.pool-size:4}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("composition-cost-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Entrega dos alertas de ponto de pedido aos clientes SSE. Uma única thread mantém a ordem dos
+     * eventos e impede que um cliente lento segure a thread que lançou o movimento.
+     */
+    @Bean(name = "reorderAlertExecutor")
+    public ThreadPoolTaskExecutor reorderAlertExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("reorder-alert-");
+        executor.initialize();
+        return executor;
+    }
+}
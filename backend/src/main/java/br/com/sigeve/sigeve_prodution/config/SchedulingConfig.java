@@ -0,0 +1,12 @@
+package br.com.sigeve.sigeve_prodution.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita as rotinas agendadas (ex.: MRP noturno)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
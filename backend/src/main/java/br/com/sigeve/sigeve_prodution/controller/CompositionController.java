@@ -1,8 +1,13 @@
 package br.com.sigeve.sigeve_prodution.controller;
 
+import br.com.sigeve.sigeve_prodution.dto.BomExplosionDTO;
 import br.com.sigeve.sigeve_prodution.dto.CompositionDTO;
+import br.com.sigeve.sigeve_prodution.dto.CostRecalculationJobDTO;
 import br.com.sigeve.sigeve_prodution.dto.CreateCompositionDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateCompositionDTO;
+import br.com.sigeve.sigeve_prodution.enums.RecalculationJobStatus;
+import br.com.sigeve.sigeve_prodution.service.BomExplosionService;
+import br.com.sigeve.sigeve_prodution.service.CompositionCostRecalculationService;
 import br.com.sigeve.sigeve_prodution.service.CompositionService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
@@ -16,6 +21,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.List;
@@ -30,6 +36,8 @@ import java.util.UUID;
 public class CompositionController {
 
     private final CompositionService compositionService;
+    private final CompositionCostRecalculationService compositionCostRecalculationService;
+    private final BomExplosionService bomExplosionService;
 
     @GetMapping
     public ResponseEntity<List<CompositionDTO>> getAllByCompany(
@@ -76,6 +84,43 @@ public class CompositionController {
         }
     }
 
+    @GetMapping("/{id}/explosion")
+    public ResponseEntity<BomExplosionDTO> explodeComposition(
+            @PathVariable UUID id,
+            @RequestParam(required = false, defaultValue = "1") BigDecimal quantity,
+            @RequestParam(required = false, defaultValue = "false") Boolean includeOptional) {
+        try {
+            log.info("Explodindo estrutura da composição: {} para quantidade: {}", id, quantity);
+
+            return ResponseEntity.ok(bomExplosionService.explodeComposition(id, quantity, includeOptional));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            log.error("Erro ao explodir estrutura: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao explodir estrutura da composição: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/product/{productId}/explosion")
+    public ResponseEntity<BomExplosionDTO> explodeProduct(
+            @PathVariable UUID productId,
+            @RequestParam UUID companyId,
+            @RequestParam(required = false, defaultValue = "1") BigDecimal quantity,
+            @RequestParam(required = false, defaultValue = "false") Boolean includeOptional) {
+        try {
+            log.info("Explodindo estrutura do produto: {} para quantidade: {}", productId, quantity);
+
+            return ResponseEntity.ok(bomExplosionService.explodeProduct(companyId, productId, quantity, includeOptional));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            log.error("Erro ao explodir estrutura: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao explodir estrutura do produto: {}", productId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<CompositionDTO> create(
             @Valid @RequestBody CreateCompositionDTO request,
@@ -158,21 +203,16 @@ public class CompositionController {
     }
 
     @PostMapping("/recalculate-costs")
-    public ResponseEntity<String> recalculateAllCosts(@RequestParam UUID companyId) {
+    public ResponseEntity<String> recalculateAllCosts(@RequestParam UUID companyId, Principal principal) {
         try {
             log.info("Recalculando custos de todas as composições da empresa: {}", companyId);
 
-            List<CompositionDTO> compositions = compositionService.findAllByCompany(companyId);
-            int count = 0;
-            
-            for (CompositionDTO comp : compositions) {
-                try {
-                    compositionService.recalculateTotalCost(comp.getId());
-                    count++;
-                } catch (Exception e) {
-                    log.warn("Erro ao recalcular composição {}: {}", comp.getId(), e.getMessage());
-                }
+            CostRecalculationJobDTO job = compositionCostRecalculationService.recalculateCompany(companyId, principal.getName());
+            if (job.getStatus() == RecalculationJobStatus.FAILED) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Erro ao recalcular custos: " + job.getErrorMessage());
             }
+            int count = job.getProcessedCompositions();
 
             String message = String.format("Recalculados custos de %d composições", count);
             log.info(message);
@@ -184,5 +224,29 @@ public class CompositionController {
         }
     }
 
-}
+    @PostMapping("/recalculate-costs/async")
+    public ResponseEntity<CostRecalculationJobDTO> recalculateAllCostsAsync(@RequestParam UUID companyId, Principal principal) {
+        try {
+            log.info("Disparando recálculo assíncrono de custos da empresa: {}", companyId);
+
+            CostRecalculationJobDTO job = compositionCostRecalculationService.recalculateCompanyAsync(companyId, principal.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            log.error("Erro ao disparar recálculo de custos", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 
+    @GetMapping("/recalculate-costs/jobs/{jobId}")
+    public ResponseEntity<CostRecalculationJobDTO> getRecalculationJob(@PathVariable UUID jobId) {
+        try {
+            return compositionCostRecalculationService.findJob(jobId)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            log.error("Erro ao buscar job de recálculo: {}", jobId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package br.com.sigeve.sigeve_prodution.controller;
 
 import br.com.sigeve.sigeve_prodution.dto.CompositionItemDTO;
+import br.com.sigeve.sigeve_prodution.dto.CompositionItemVariantDTO;
 import br.com.sigeve.sigeve_prodution.dto.CompositionCostSummaryDTO;
 import br.com.sigeve.sigeve_prodution.dto.CreateCompositionItemDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateCompositionItemDTO;
@@ -60,6 +61,38 @@ public class CompositionItemController {
         }
     }
 
+    @GetMapping("/{id}/variants")
+    public ResponseEntity<List<CompositionItemVariantDTO>> getVariants(@PathVariable UUID id) {
+        try {
+            log.info("Listando variações do item de composição: {}", id);
+
+            return ResponseEntity.ok(compositionItemService.findVariants(id));
+        } catch (Exception e) {
+            log.error("Erro ao listar variações do item: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PutMapping("/{id}/variants")
+    public ResponseEntity<List<CompositionItemVariantDTO>> replaceVariants(
+            @PathVariable UUID id,
+            @Valid @RequestBody List<@Valid CompositionItemVariantDTO> request,
+            Principal principal) {
+        try {
+            String username = principal.getName();
+
+            log.info("Gravando variações do item de composição: {} por usuário: {}", id, username);
+
+            return ResponseEntity.ok(compositionItemService.replaceVariants(id, request, username));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao gravar variações: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao gravar variações do item: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/composition/{compositionId}/costs")
     public ResponseEntity<CompositionCostSummaryDTO> calculateCosts(@PathVariable UUID compositionId) {
         try {
@@ -0,0 +1,50 @@
+package br.com.sigeve.sigeve_prodution.controller;
+
+import br.com.sigeve.sigeve_prodution.dto.MrpRunDTO;
+import br.com.sigeve.sigeve_prodution.service.MrpService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/mrp")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class MrpController {
+
+    private final MrpService mrpService;
+
+    @PostMapping("/run")
+    public ResponseEntity<MrpRunDTO> run(@RequestParam UUID companyId) {
+        try {
+            log.info("Executando MRP da empresa: {}", companyId);
+
+            return ResponseEntity.ok(mrpService.run(companyId));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            log.error("Erro ao executar MRP: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao executar MRP da empresa: {}", companyId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/last")
+    public ResponseEntity<MrpRunDTO> getLastRun(@RequestParam UUID companyId) {
+        try {
+            log.info("Buscando última execução do MRP da empresa: {}", companyId);
+
+            return mrpService.findLastRun(companyId)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            log.error("Erro ao buscar última execução do MRP da empresa: {}", companyId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package br.com.sigeve.sigeve_prodution.controller;
 
 import br.com.sigeve.sigeve_prodution.dto.CreateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ExecutionCaptureResultDTO;
 import br.com.sigeve.sigeve_prodution.dto.ProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionKpiDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionKpiRebuildDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.enums.KpiDimension;
+import br.com.sigeve.sigeve_prodution.service.ProductionExecutionCaptureService;
 import br.com.sigeve.sigeve_prodution.service.ProductionExecutionService;
+import br.com.sigeve.sigeve_prodution.service.ProductionKpiService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
@@ -12,11 +18,13 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,6 +37,8 @@ import java.util.UUID;
 public class ProductionExecutionController {
 
     private final ProductionExecutionService productionExecutionService;
+    private final ProductionExecutionCaptureService productionExecutionCaptureService;
+    private final ProductionKpiService productionKpiService;
 
     @Value("${app.jwt.secret}")
     private String jwtSecret;
@@ -59,6 +69,44 @@ public class ProductionExecutionController {
         }
     }
 
+    @GetMapping("/kpis")
+    public ResponseEntity<List<ProductionKpiDTO>> getKpis(
+            @RequestParam UUID companyId,
+            @RequestParam(defaultValue = "STEP") KpiDimension dimension,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            log.info("Calculando indicadores de produção da empresa: {} por {} de {} a {}", companyId, dimension, from, to);
+
+            return ResponseEntity.ok(productionKpiService.findKpis(companyId, dimension, from, to));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao calcular indicadores: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao calcular indicadores de produção", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/kpis/rebuild")
+    public ResponseEntity<ProductionKpiRebuildDTO> rebuildKpis(
+            @RequestParam UUID companyId,
+            HttpServletRequest httpRequest) {
+        try {
+            String username = extractUsernameFromToken(httpRequest);
+
+            log.info("Reconstruindo indicadores de produção da empresa: {} por usuário: {}", companyId, username);
+
+            return ResponseEntity.ok(productionKpiService.rebuild(companyId));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao reconstruir indicadores: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao reconstruir indicadores de produção da empresa: {}", companyId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductionExecutionDTO> getById(@PathVariable UUID id) {
         try {
@@ -93,6 +141,30 @@ public class ProductionExecutionController {
         }
     }
 
+    /**
+     * Lote de eventos dos coletores do chão de fábrica. Cada evento é confirmado individualmente
+     * (aceito, já recebido ou rejeitado); reenviar o lote é seguro.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ExecutionCaptureResultDTO> captureBatch(
+            @RequestBody List<CreateProductionExecutionDTO> events,
+            HttpServletRequest httpRequest) {
+        try {
+            String username = extractUsernameFromToken(httpRequest);
+
+            log.debug("Recebendo lote de {} eventos de execução por usuário: {}", events.size(), username);
+
+            ExecutionCaptureResultDTO result = productionExecutionCaptureService.capture(events, username);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação no lote de execuções: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao registrar lote de execuções", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ProductionExecutionDTO> update(
             @PathVariable UUID id,
@@ -1,10 +1,25 @@
 package br.com.sigeve.sigeve_prodution.controller;
 
 import br.com.sigeve.sigeve_prodution.dto.CreateProductionOrderDTO;
+import br.com.sigeve.sigeve_prodution.dto.CursorPageDTO;
+import br.com.sigeve.sigeve_prodution.dto.OrderLeadTimeDTO;
+import br.com.sigeve.sigeve_prodution.dto.GridRequirementDTO;
 import br.com.sigeve.sigeve_prodution.dto.ProductionOrderDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionGridDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderFilterDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderProgressRebuildDTO;
+import br.com.sigeve.sigeve_prodution.dto.ScheduledOrderDTO;
+import br.com.sigeve.sigeve_prodution.dto.StockReservationDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionGridDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateProductionOrderDTO;
 import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.service.LeadTimeEstimatorService;
+import br.com.sigeve.sigeve_prodution.service.ProductionGridRequirementService;
+import br.com.sigeve.sigeve_prodution.service.ProductionGridService;
 import br.com.sigeve.sigeve_prodution.service.ProductionOrderService;
+import br.com.sigeve.sigeve_prodution.service.ProductionOrderProgressService;
+import br.com.sigeve.sigeve_prodution.service.ProductionScheduleService;
+import br.com.sigeve.sigeve_prodution.service.StockReservationService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
@@ -30,6 +45,12 @@ import java.util.UUID;
 public class ProductionOrderController {
 
     private final ProductionOrderService productionOrderService;
+    private final StockReservationService stockReservationService;
+    private final ProductionGridService productionGridService;
+    private final ProductionGridRequirementService productionGridRequirementService;
+    private final ProductionScheduleService productionScheduleService;
+    private final LeadTimeEstimatorService leadTimeEstimatorService;
+    private final ProductionOrderProgressService productionOrderProgressService;
 
     @Value("${app.jwt.secret}")
     private String jwtSecret;
@@ -56,6 +77,81 @@ public class ProductionOrderController {
         }
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<ProductionOrderDTO>> getPage(
+            @ModelAttribute ProductionOrderFilterDTO filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            log.info("Listando página de ordens de produção da empresa: {}", filter.getCompanyId());
+
+            return ResponseEntity.ok(productionOrderService.findPage(filter, cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao listar ordens: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao listar página de ordens de produção", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/schedule")
+    public ResponseEntity<List<ScheduledOrderDTO>> getSchedule(
+            @RequestParam UUID companyId,
+            @RequestParam(defaultValue = "false") boolean lateOnly) {
+        try {
+            log.info("Listando programação de produção da empresa: {}", companyId);
+
+            return ResponseEntity.ok(productionScheduleService.findSchedule(companyId, lateOnly));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao listar programação: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao listar programação de produção", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Previsão de término das ordens em aberto pelos tempos históricos das etapas
+     */
+    @GetMapping("/lead-times")
+    public ResponseEntity<List<OrderLeadTimeDTO>> getLeadTimes(@RequestParam UUID companyId) {
+        try {
+            log.info("Estimando término das ordens em aberto da empresa: {}", companyId);
+
+            return ResponseEntity.ok(leadTimeEstimatorService.findOrderLeadTimes(companyId));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao estimar término das ordens: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao estimar término das ordens", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Recalcula a quantidade produzida e as perdas de todas as ordens da empresa a partir das execuções
+     */
+    @PostMapping("/progress/rebuild")
+    public ResponseEntity<ProductionOrderProgressRebuildDTO> rebuildProgress(
+            @RequestParam UUID companyId,
+            HttpServletRequest httpRequest) {
+        try {
+            String username = extractUsernameFromToken(httpRequest);
+
+            log.info("Reconstruindo progresso das ordens da empresa: {} por usuário: {}", companyId, username);
+
+            return ResponseEntity.ok(productionOrderProgressService.rebuild(companyId));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao reconstruir progresso das ordens: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao reconstruir progresso das ordens da empresa: {}", companyId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductionOrderDTO> getById(@PathVariable UUID id) {
         try {
@@ -70,6 +166,86 @@ public class ProductionOrderController {
         }
     }
 
+    @GetMapping("/{id}/reservations")
+    public ResponseEntity<List<StockReservationDTO>> getReservations(@PathVariable UUID id) {
+        try {
+            log.info("Listando reservas de estoque da ordem: {}", id);
+
+            return ResponseEntity.ok(stockReservationService.findByOrder(id));
+        } catch (Exception e) {
+            log.error("Erro ao listar reservas da ordem: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{id}/grid")
+    public ResponseEntity<ProductionGridDTO> getGrid(@PathVariable UUID id) {
+        try {
+            log.info("Buscando grade da ordem: {}", id);
+
+            return productionGridService.findByOrder(id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            log.error("Erro ao buscar grade da ordem: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PutMapping("/{id}/grid")
+    public ResponseEntity<ProductionGridDTO> saveGrid(
+            @PathVariable UUID id,
+            @Valid @RequestBody UpdateProductionGridDTO request,
+            HttpServletRequest httpRequest) {
+        try {
+            String username = extractUsernameFromToken(httpRequest);
+
+            log.info("Gravando grade da ordem: {} por usuário: {}", id, username);
+
+            return ResponseEntity.ok(productionGridService.save(id, request, username));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            log.error("Erro de validação ao gravar grade: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao gravar grade da ordem: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{id}/requirements")
+    public ResponseEntity<GridRequirementDTO> getRequirements(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "false") boolean includeOptional) {
+        try {
+            log.info("Calculando necessidade de materiais da ordem: {}", id);
+
+            return ResponseEntity.ok(productionGridRequirementService.calculate(id, includeOptional));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            log.error("Erro ao calcular necessidade da ordem: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao calcular necessidade da ordem: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{id}/schedule")
+    public ResponseEntity<ScheduledOrderDTO> getOrderSchedule(@PathVariable UUID id) {
+        try {
+            log.info("Buscando programação da ordem: {}", id);
+
+            return productionScheduleService.findByOrder(id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            log.error("Erro ao buscar programação da ordem: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao buscar programação da ordem: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/code/{code}")
     public ResponseEntity<ProductionOrderDTO> getByCode(
             @PathVariable String code,
@@ -118,7 +294,7 @@ public class ProductionOrderController {
 
             ProductionOrderDTO updated = productionOrderService.update(id, request, username);
             return ResponseEntity.ok(updated);
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalStateException | IllegalArgumentException e) {
             log.error("Erro de validação ao atualizar ordem: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
         } catch (Exception e) {
@@ -2,8 +2,14 @@ package br.com.sigeve.sigeve_prodution.controller;
 
 import br.com.sigeve.sigeve_prodution.dto.CreateProductionStepDTO;
 import br.com.sigeve.sigeve_prodution.dto.ProductionStepDTO;
+import br.com.sigeve.sigeve_prodution.dto.StepCapacityDTO;
+import br.com.sigeve.sigeve_prodution.dto.StepLeadTimeDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateProductionStepDTO;
+import br.com.sigeve.sigeve_prodution.dto.WipBoardDTO;
+import br.com.sigeve.sigeve_prodution.service.LeadTimeEstimatorService;
+import br.com.sigeve.sigeve_prodution.service.ProductionScheduleService;
 import br.com.sigeve.sigeve_prodution.service.ProductionStepService;
+import br.com.sigeve.sigeve_prodution.service.WipBoardService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
@@ -29,6 +35,9 @@ import java.util.UUID;
 public class ProductionStepController {
 
     private final ProductionStepService productionStepService;
+    private final ProductionScheduleService productionScheduleService;
+    private final WipBoardService wipBoardService;
+    private final LeadTimeEstimatorService leadTimeEstimatorService;
 
     @Value("${app.jwt.secret}")
     private String jwtSecret;
@@ -51,6 +60,61 @@ public class ProductionStepController {
         }
     }
 
+    @GetMapping("/capacity")
+    public ResponseEntity<List<StepCapacityDTO>> getCapacity(
+            @RequestParam UUID companyId,
+            @RequestParam(defaultValue = "30") int days) {
+        try {
+            log.info("Listando carga programada das etapas da empresa: {}", companyId);
+
+            return ResponseEntity.ok(productionScheduleService.findCapacity(companyId, days));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao listar carga das etapas: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao listar carga das etapas", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Quadro de WIP por etapa, consultado a cada poucos segundos pelos painéis do chão de fábrica
+     */
+    @GetMapping("/wip-board")
+    public ResponseEntity<WipBoardDTO> getWipBoard(@RequestParam UUID companyId) {
+        try {
+            log.debug("Consultando quadro de WIP da empresa: {}", companyId);
+
+            return ResponseEntity.ok(wipBoardService.findBoard(companyId));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao consultar quadro de WIP: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao consultar quadro de WIP", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Percentis do tempo por peça das etapas, de todos os produtos ou só do informado
+     */
+    @GetMapping("/lead-times")
+    public ResponseEntity<List<StepLeadTimeDTO>> getLeadTimes(
+            @RequestParam UUID companyId,
+            @RequestParam(required = false) UUID productId) {
+        try {
+            log.info("Listando tempos históricos das etapas da empresa: {}", companyId);
+
+            return ResponseEntity.ok(leadTimeEstimatorService.findStepLeadTimes(companyId, productId));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao listar tempos das etapas: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao listar tempos das etapas", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductionStepDTO> getById(@PathVariable UUID id) {
         try {
@@ -1,8 +1,10 @@
 package br.com.sigeve.sigeve_prodution.controller;
 
+import br.com.sigeve.sigeve_prodution.dto.AverageCostRebuildDTO;
 import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialDTO;
 import br.com.sigeve.sigeve_prodution.dto.RawMaterialDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateRawMaterialDTO;
+import br.com.sigeve.sigeve_prodution.service.RawMaterialAverageCostService;
 import br.com.sigeve.sigeve_prodution.service.RawMaterialService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
@@ -29,6 +31,7 @@ import java.util.UUID;
 public class RawMaterialController {
 
     private final RawMaterialService rawMaterialService;
+    private final RawMaterialAverageCostService rawMaterialAverageCostService;
 
     @Value("${app.jwt.secret}")
     private String jwtSecret;
@@ -192,6 +195,30 @@ public class RawMaterialController {
         }
     }
 
+    /**
+     * Reconstrói o custo médio a partir do histórico de movimentos (uma matéria-prima ou a empresa inteira)
+     */
+    @PostMapping("/average-cost/rebuild")
+    public ResponseEntity<AverageCostRebuildDTO> rebuildAverageCost(
+            @RequestParam UUID companyId,
+            @RequestParam(required = false) UUID rawMaterialId,
+            HttpServletRequest httpRequest) {
+        try {
+            String username = extractUsernameFromToken(httpRequest);
+
+            log.info("Reconstruindo custo médio da empresa: {} (matéria-prima: {}) por usuário: {}",
+                    companyId, rawMaterialId, username);
+
+            return ResponseEntity.ok(rawMaterialAverageCostService.rebuild(companyId, rawMaterialId));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao reconstruir custo médio: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao reconstruir custo médio da empresa: {}", companyId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Extrai username do token JWT
      */
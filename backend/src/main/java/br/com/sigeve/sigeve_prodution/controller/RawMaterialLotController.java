@@ -0,0 +1,60 @@
+package br.com.sigeve.sigeve_prodution.controller;
+
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialLotAllocationDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialLotDTO;
+import br.com.sigeve.sigeve_prodution.service.RawMaterialLotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/raw-material-lots")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class RawMaterialLotController {
+
+    private final RawMaterialLotService rawMaterialLotService;
+
+    @GetMapping("/raw-material/{rawMaterialId}")
+    public ResponseEntity<List<RawMaterialLotDTO>> getByRawMaterial(@PathVariable UUID rawMaterialId,
+                                                                    @RequestParam(defaultValue = "false") boolean includeEmpty) {
+        try {
+            log.info("Listando lotes da matéria-prima: {}", rawMaterialId);
+
+            return ResponseEntity.ok(rawMaterialLotService.findByRawMaterial(rawMaterialId, includeEmpty));
+        } catch (Exception e) {
+            log.error("Erro ao listar lotes: {}", rawMaterialId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{id}/allocations")
+    public ResponseEntity<List<RawMaterialLotAllocationDTO>> getAllocationsByLot(@PathVariable UUID id) {
+        try {
+            log.info("Listando consumos do lote: {}", id);
+
+            return ResponseEntity.ok(rawMaterialLotService.findAllocationsByLot(id));
+        } catch (Exception e) {
+            log.error("Erro ao listar consumos do lote: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/movement/{movementId}/allocations")
+    public ResponseEntity<List<RawMaterialLotAllocationDTO>> getAllocationsByMovement(@PathVariable UUID movementId) {
+        try {
+            log.info("Listando lotes consumidos pelo movimento: {}", movementId);
+
+            return ResponseEntity.ok(rawMaterialLotService.findAllocationsByMovement(movementId));
+        } catch (Exception e) {
+            log.error("Erro ao listar lotes consumidos pelo movimento: {}", movementId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
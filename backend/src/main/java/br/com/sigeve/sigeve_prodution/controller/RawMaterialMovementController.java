@@ -1,7 +1,14 @@
 package br.com.sigeve.sigeve_prodution.controller;
 
+import br.com.sigeve.sigeve_prodution.dto.BulkMovementResultDTO;
 import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.CursorPageDTO;
 import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementFilterDTO;
+import br.com.sigeve.sigeve_prodution.dto.TransferRawMaterialDTO;
+import br.com.sigeve.sigeve_prodution.enums.ExportFormat;
+import br.com.sigeve.sigeve_prodution.service.RawMaterialMovementBulkService;
+import br.com.sigeve.sigeve_prodution.service.RawMaterialMovementExportService;
 import br.com.sigeve.sigeve_prodution.service.RawMaterialMovementService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
@@ -11,10 +18,16 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
@@ -27,6 +40,8 @@ import java.util.UUID;
 public class RawMaterialMovementController {
 
     private final RawMaterialMovementService rawMaterialMovementService;
+    private final RawMaterialMovementBulkService rawMaterialMovementBulkService;
+    private final RawMaterialMovementExportService rawMaterialMovementExportService;
 
     @Value("${app.jwt.secret}")
     private String jwtSecret;
@@ -57,6 +72,47 @@ public class RawMaterialMovementController {
         }
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<RawMaterialMovementDTO>> getPage(
+            @ModelAttribute RawMaterialMovementFilterDTO filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            log.info("Listando página de movimentos da empresa: {}", filter.getCompanyId());
+
+            return ResponseEntity.ok(rawMaterialMovementService.findPage(filter, cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao listar movimentos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao listar página de movimentos", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @ModelAttribute RawMaterialMovementFilterDTO filter,
+            @RequestParam(required = false, defaultValue = "CSV") ExportFormat format) {
+        try {
+            log.info("Exportando movimentos da empresa: {} em {}", filter.getCompanyId(), format);
+
+            rawMaterialMovementExportService.validate(filter);
+            StreamingResponseBody body = output -> rawMaterialMovementExportService.export(filter, format, output);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_TYPE, format.getContentType() + ";charset=UTF-8")
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"movimentos." + format.getExtension() + "\"")
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao exportar movimentos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao exportar movimentos", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<RawMaterialMovementDTO> create(
             @Valid @RequestBody CreateRawMaterialMovementDTO request,
@@ -77,6 +133,76 @@ public class RawMaterialMovementController {
         }
     }
 
+    @PostMapping("/transfer")
+    public ResponseEntity<List<RawMaterialMovementDTO>> transfer(
+            @Valid @RequestBody TransferRawMaterialDTO request,
+            HttpServletRequest httpRequest) {
+        try {
+            String username = extractUsernameFromToken(httpRequest);
+
+            log.info("Transferindo matéria-prima {} entre depósitos por usuário: {}", request.getRawMaterialId(), username);
+
+            List<RawMaterialMovementDTO> movements = rawMaterialMovementService.transfer(request, username);
+            return ResponseEntity.status(HttpStatus.CREATED).body(movements);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            log.error("Erro ao transferir matéria-prima: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao transferir matéria-prima entre depósitos", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkMovementResultDTO> createBulk(
+            @RequestBody List<CreateRawMaterialMovementDTO> requests,
+            HttpServletRequest httpRequest) {
+        try {
+            String username = extractUsernameFromToken(httpRequest);
+
+            log.info("Importando {} movimentos de estoque por usuário: {}", requests.size(), username);
+
+            BulkMovementResultDTO result = rawMaterialMovementBulkService.importMovements(requests, username);
+            return result.getCommitted()
+                    ? ResponseEntity.status(HttpStatus.CREATED).body(result)
+                    : ResponseEntity.badRequest().body(result);
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao importar movimentos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao importar movimentos de estoque", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping(value = "/bulk/csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BulkMovementResultDTO> createBulkCsv(
+            @RequestParam UUID tenantId,
+            @RequestParam UUID companyId,
+            @RequestParam("file") MultipartFile file,
+            HttpServletRequest httpRequest) {
+        try {
+            String username = extractUsernameFromToken(httpRequest);
+
+            log.info("Importando arquivo de movimentos {} da empresa: {} por usuário: {}",
+                    file.getOriginalFilename(), companyId, username);
+
+            BulkMovementResultDTO result;
+            try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+                result = rawMaterialMovementBulkService.importCsv(tenantId, companyId, reader, username);
+            }
+            return result.getCommitted()
+                    ? ResponseEntity.status(HttpStatus.CREATED).body(result)
+                    : ResponseEntity.badRequest().body(result);
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao importar arquivo de movimentos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao importar arquivo de movimentos", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     private String extractUsernameFromToken(HttpServletRequest request) {
         String token = extractTokenFromRequest(request);
         Claims claims = Jwts.parser()
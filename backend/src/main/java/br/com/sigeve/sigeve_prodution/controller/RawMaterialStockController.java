@@ -1,14 +1,27 @@
 package br.com.sigeve.sigeve_prodution.controller;
 
+import br.com.sigeve.sigeve_prodution.dto.LowStockDTO;
 import br.com.sigeve.sigeve_prodution.dto.RawMaterialStockDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialStockTotalDTO;
+import br.com.sigeve.sigeve_prodution.dto.ReorderAlertDTO;
+import br.com.sigeve.sigeve_prodution.dto.StockBalanceDTO;
+import br.com.sigeve.sigeve_prodution.dto.StockValuationDTO;
+import br.com.sigeve.sigeve_prodution.enums.LowStockBasis;
 import br.com.sigeve.sigeve_prodution.service.RawMaterialStockService;
+import br.com.sigeve.sigeve_prodution.service.RawMaterialStockSnapshotService;
+import br.com.sigeve.sigeve_prodution.service.ReorderAlertService;
+import br.com.sigeve.sigeve_prodution.service.StockValuationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,6 +34,9 @@ import java.util.UUID;
 public class RawMaterialStockController {
 
     private final RawMaterialStockService rawMaterialStockService;
+    private final RawMaterialStockSnapshotService rawMaterialStockSnapshotService;
+    private final StockValuationService stockValuationService;
+    private final ReorderAlertService reorderAlertService;
 
     @GetMapping("/company/{companyId}")
     public ResponseEntity<List<RawMaterialStockDTO>> getByCompany(@PathVariable UUID companyId) {
@@ -49,6 +65,50 @@ public class RawMaterialStockController {
         }
     }
 
+    @GetMapping("/raw-material/{rawMaterialId}/warehouses")
+    public ResponseEntity<List<RawMaterialStockDTO>> getByRawMaterialPerWarehouse(@PathVariable UUID rawMaterialId) {
+        try {
+            log.info("Buscando estoque por depósito da matéria-prima: {}", rawMaterialId);
+
+            return ResponseEntity.ok(rawMaterialStockService.findByRawMaterialPerWarehouse(rawMaterialId));
+        } catch (Exception e) {
+            log.error("Erro ao buscar estoque por depósito: {}", rawMaterialId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/warehouse/{warehouseId}")
+    public ResponseEntity<List<RawMaterialStockDTO>> getByWarehouse(
+            @PathVariable UUID warehouseId,
+            @RequestParam UUID companyId) {
+        try {
+            log.info("Listando estoques do depósito: {} da empresa: {}", warehouseId, companyId);
+
+            return ResponseEntity.ok(rawMaterialStockService.findByWarehouse(companyId, warehouseId));
+        } catch (Exception e) {
+            log.error("Erro ao listar estoques do depósito: {}", warehouseId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Saldo consolidado por matéria-prima, somando o estoque padrão e todos os depósitos
+     */
+    @GetMapping("/totals")
+    public ResponseEntity<List<RawMaterialStockTotalDTO>> getTotals(@RequestParam UUID companyId) {
+        try {
+            log.info("Buscando saldo consolidado da empresa: {}", companyId);
+
+            return ResponseEntity.ok(rawMaterialStockService.findTotals(companyId));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao buscar saldo consolidado: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao buscar saldo consolidado", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/low-stock")
     public ResponseEntity<List<RawMaterialStockDTO>> getLowStock(
             @RequestParam UUID companyId,
@@ -63,4 +123,122 @@ public class RawMaterialStockController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Estoque baixo comparando cada matéria-prima ao próprio ponto de pedido ou estoque mínimo
+     */
+    @GetMapping("/low-stock/by-material")
+    public ResponseEntity<List<LowStockDTO>> getLowStockByMaterialLimit(
+            @RequestParam UUID companyId,
+            @RequestParam(defaultValue = "REORDER_POINT") LowStockBasis basis) {
+        try {
+            log.info("Buscando estoques abaixo do limite ({}) da empresa: {}", basis, companyId);
+
+            return ResponseEntity.ok(rawMaterialStockService.findBelowMaterialLimit(companyId, basis));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao buscar estoques baixos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao buscar estoques abaixo do limite", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/reorder-alerts")
+    public ResponseEntity<List<ReorderAlertDTO>> getReorderAlerts(@RequestParam UUID companyId) {
+        try {
+            log.info("Buscando alertas de ponto de pedido da empresa: {}", companyId);
+
+            return ResponseEntity.ok(reorderAlertService.findAlerts(companyId));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao buscar alertas: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao buscar alertas de ponto de pedido", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping(value = "/reorder-alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamReorderAlerts(@RequestParam UUID companyId) {
+        try {
+            log.info("Inscrevendo cliente nos alertas de ponto de pedido da empresa: {}", companyId);
+
+            return ResponseEntity.ok(reorderAlertService.subscribe(companyId));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao inscrever nos alertas: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao inscrever nos alertas de ponto de pedido", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/as-of")
+    public ResponseEntity<List<StockBalanceDTO>> getBalancesAsOf(
+            @RequestParam UUID companyId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            log.info("Buscando saldos da empresa: {} em {}", companyId, date);
+
+            return ResponseEntity.ok(rawMaterialStockSnapshotService.findBalancesAsOf(companyId, date));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao buscar saldos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao buscar saldos em data", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/raw-material/{rawMaterialId}/as-of")
+    public ResponseEntity<StockBalanceDTO> getBalanceAsOf(
+            @PathVariable UUID rawMaterialId,
+            @RequestParam UUID companyId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            log.info("Buscando saldo da matéria-prima: {} em {}", rawMaterialId, date);
+
+            return rawMaterialStockSnapshotService.findBalanceAsOf(companyId, rawMaterialId, date)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao buscar saldo: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao buscar saldo em data: {}", rawMaterialId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/valuation")
+    public ResponseEntity<StockValuationDTO> getValuation(
+            @RequestParam UUID companyId,
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        try {
+            log.info("Buscando valorização do estoque da empresa: {}", companyId);
+
+            return ResponseEntity.ok(stockValuationService.getValuation(companyId, refresh));
+        } catch (IllegalArgumentException e) {
+            log.error("Erro de validação ao buscar valorização: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao buscar valorização do estoque", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/snapshots")
+    public ResponseEntity<String> createSnapshots(@RequestParam UUID companyId) {
+        try {
+            log.info("Gerando fotografias de saldo da empresa: {}", companyId);
+
+            int written = rawMaterialStockSnapshotService.createMissingSnapshots(companyId, LocalDate.now());
+            return ResponseEntity.ok(String.format("Gravadas %d fotografias de saldo", written));
+        } catch (Exception e) {
+            log.error("Erro ao gerar fotografias de saldo", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao gerar fotografias de saldo: " + e.getMessage());
+        }
+    }
 }
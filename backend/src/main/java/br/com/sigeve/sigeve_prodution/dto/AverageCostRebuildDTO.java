@@ -0,0 +1,19 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AverageCostRebuildDTO {
+    private UUID companyId;
+    private UUID rawMaterialId;
+    private Integer updatedMaterials;
+    private BigDecimal averageCost;
+    private Long elapsedMillis;
+}
@@ -0,0 +1,23 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BomExplosionDTO {
+    private UUID compositionId;
+    private String compositionName;
+    private UUID productionProductId;
+    private BigDecimal quantity;
+    private Integer levels;
+    private BigDecimal unitCost;
+    private BigDecimal totalCost;
+    private List<BomRequirementDTO> requirements;
+}
@@ -0,0 +1,21 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BomRequirementDTO {
+    private CompositionItemType itemType;
+    private UUID referenceId;
+    private UnitType unitType;
+    private BigDecimal quantity;
+    private BigDecimal totalCost;
+}
@@ -0,0 +1,17 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkMovementLineResultDTO {
+    private Integer line;
+    private Boolean success;
+    private UUID movementId;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkMovementResultDTO {
+    private Integer totalLines;
+    private Integer importedLines;
+    private Integer rejectedLines;
+    private Boolean committed;
+    private Integer affectedMaterials;
+    private Long elapsedMillis;
+    private List<BulkMovementLineResultDTO> lines;
+}
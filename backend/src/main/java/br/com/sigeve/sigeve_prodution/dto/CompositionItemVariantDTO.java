@@ -0,0 +1,33 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Variação de um item da composição por tamanho e/ou cor; sem fator informado o consumo não muda
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompositionItemVariantDTO {
+    private UUID id;
+
+    @Size(max = 50, message = "Tamanho deve ter no máximo 50 caracteres")
+    private String size;
+
+    @Size(max = 50, message = "Cor deve ter no máximo 50 caracteres")
+    private String color;
+
+    @DecimalMin(value = "0.0001", message = "Fator de consumo deve ser positivo")
+    @Digits(integer = 5, fraction = 4)
+    private BigDecimal consumptionFactor;
+
+    private UUID substituteReferenceId;
+}
@@ -0,0 +1,25 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.RecalculationJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CostRecalculationJobDTO {
+    private UUID jobId;
+    private UUID companyId;
+    private RecalculationJobStatus status;
+    private Integer totalCompositions;
+    private Integer processedCompositions;
+    private Integer updatedCompositions;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long elapsedMillis;
+    private String errorMessage;
+}
@@ -2,6 +2,7 @@ package br.com.sigeve.sigeve_prodution.dto;
 
 import br.com.sigeve.sigeve_prodution.enums.QualityStatus;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -46,4 +47,8 @@ public class CreateProductionExecutionDTO {
     private String rejectionReason;
     
     private String notes;
+    
+    // Identificador do evento no coletor: reenvios com o mesmo identificador não duplicam a execução
+    @Size(max = 100, message = "Identificador do evento deve ter no máximo 100 caracteres")
+    private String clientEventId;
 }
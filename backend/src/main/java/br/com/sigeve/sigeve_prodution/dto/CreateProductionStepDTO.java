@@ -1,5 +1,6 @@
 package br.com.sigeve.sigeve_prodution.dto;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -30,6 +31,9 @@ public class CreateProductionStepDTO {
     
     private Integer sequence = 1;
     private Integer estimatedTime = 0;
+
+    @Min(value = 1, message = "Capacidade diária deve ser de pelo menos 1 minuto")
+    private Integer dailyCapacityMinutes;
     
     private UUID costCenterId;
     
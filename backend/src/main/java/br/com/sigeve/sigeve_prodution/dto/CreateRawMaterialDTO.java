@@ -1,5 +1,6 @@
 package br.com.sigeve.sigeve_prodution.dto;
 
+import br.com.sigeve.sigeve_prodution.enums.LotPickingPolicy;
 import br.com.sigeve.sigeve_prodution.enums.UnitType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -45,6 +46,8 @@ public class CreateRawMaterialDTO {
     private BigDecimal maxStock;
     private BigDecimal reorderPoint;
     private Integer leadTimeDays;
+    private Boolean lotControl;
+    private LotPickingPolicy lotPickingPolicy;
     
     private UUID categoryId;
     
@@ -30,6 +30,8 @@ public class CreateRawMaterialMovementDTO {
     @NotNull(message = "Matéria-prima é obrigatória")
     private UUID rawMaterialId;
     
+    private UUID warehouseId;
+    
     @NotNull(message = "Tipo de movimento é obrigatório")
     private StockMovementType movementType;
     
@@ -43,6 +45,10 @@ public class CreateRawMaterialMovementDTO {
     
     private LocalDate movementDate;
     
+    @Size(max = 100, message = "Número do lote deve ter no máximo 100 caracteres")
+    private String lotNumber;
+    private LocalDate lotExpirationDate;
+    
     @NotNull(message = "Quantidade é obrigatória")
     @Positive(message = "Quantidade deve ser positiva")
     private BigDecimal quantity;
@@ -0,0 +1,24 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Página de resultados com paginação por cursor (keyset).
+ * O cursor é opaco para o cliente: basta reenviá-lo para obter a próxima página.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
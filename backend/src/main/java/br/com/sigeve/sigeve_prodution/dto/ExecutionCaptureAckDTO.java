@@ -0,0 +1,19 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.ExecutionCaptureStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionCaptureAckDTO {
+    private Integer line;
+    private String clientEventId;
+    private ExecutionCaptureStatus status;
+    private UUID executionId;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionCaptureResultDTO {
+    private Integer receivedEvents;
+    private Integer acceptedEvents;
+    private Integer duplicateEvents;
+    private Integer rejectedEvents;
+    private Long elapsedMillis;
+    private List<ExecutionCaptureAckDTO> events;
+}
@@ -0,0 +1,25 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Necessidade de materiais e serviços da ordem, somando todas as células da grade
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GridRequirementDTO {
+    private UUID productionOrderId;
+    private UUID productionProductId;
+    private UUID compositionId;
+    private BigDecimal quantity;
+    private Integer cellCount;
+    private BigDecimal totalCost;
+    private List<BomRequirementDTO> requirements;
+}
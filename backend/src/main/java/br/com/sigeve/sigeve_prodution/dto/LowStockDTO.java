@@ -0,0 +1,27 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockDTO {
+    private UUID rawMaterialId;
+    private String rawMaterialCode;
+    private String rawMaterialName;
+    private UnitType unitType;
+    private BigDecimal quantity;
+    private BigDecimal reservedQuantity;
+    private BigDecimal availableQuantity;
+    private BigDecimal minStock;
+    private BigDecimal reorderPoint;
+    private BigDecimal threshold;
+    private BigDecimal shortage;
+    private Integer leadTimeDays;
+}
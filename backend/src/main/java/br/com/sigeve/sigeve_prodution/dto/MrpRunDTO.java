@@ -0,0 +1,22 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MrpRunDTO {
+    private UUID companyId;
+    private LocalDateTime executedAt;
+    private Long elapsedMillis;
+    private Long ordersCount;
+    private Integer productsCount;
+    private List<UUID> productsWithoutComposition;
+    private List<MrpSuggestionDTO> suggestions;
+}
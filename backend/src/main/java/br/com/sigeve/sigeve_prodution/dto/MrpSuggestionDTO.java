@@ -0,0 +1,35 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MrpSuggestionDTO {
+    private UUID rawMaterialId;
+    private String rawMaterialCode;
+    private String rawMaterialName;
+    private UnitType unitType;
+
+    private BigDecimal grossRequirement;
+    private BigDecimal availableQuantity;
+    private BigDecimal projectedBalance;
+    private BigDecimal netRequirement;
+
+    private BigDecimal minStock;
+    private BigDecimal maxStock;
+    private BigDecimal reorderPoint;
+    private Integer leadTimeDays;
+
+    private LocalDate needDate;
+    private LocalDate orderByDate;
+    private BigDecimal suggestedPurchaseQuantity;
+    private Boolean late;
+}
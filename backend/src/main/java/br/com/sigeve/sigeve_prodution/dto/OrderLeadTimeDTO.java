@@ -0,0 +1,30 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLeadTimeDTO {
+    private UUID productionOrderId;
+    private String code;
+    private ProductionOrderStatus status;
+    private UUID productId;
+    private BigDecimal remainingQuantity;
+
+    // Término pela mediana (p50) e pelo percentil 90 dos tempos históricos
+    private LocalDate expectedCompletion;
+    private LocalDate pessimisticCompletion;
+    private LocalDate deadline;
+    private boolean late;
+
+    // Etapas estimadas pelo histórico; as demais usam o tempo padrão
+    private int stepsFromHistory;
+}
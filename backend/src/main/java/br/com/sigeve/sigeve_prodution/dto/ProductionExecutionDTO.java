@@ -36,6 +36,7 @@ public class ProductionExecutionDTO {
     private String rejectionReason;
     
     private String notes;
+    private String clientEventId;
     
     // Auditoria
     private OffsetDateTime createdAt;
@@ -0,0 +1,24 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Grade de produção em forma de matriz: uma linha de {@code quantities} por cor e uma coluna por tamanho
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionGridDTO {
+    private UUID productionOrderId;
+    private BigDecimal quantityPlanned;
+    private BigDecimal total;
+    private List<String> sizes;
+    private List<String> colors;
+    private List<List<BigDecimal>> quantities;
+}
@@ -0,0 +1,37 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.KpiDimension;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionKpiDTO {
+    private KpiDimension dimension;
+    private UUID referenceId;
+    private String referenceName;
+
+    private int executionCount;
+    private BigDecimal quantityDone;
+    private BigDecimal lossQuantity;
+    private BigDecimal rejectedQuantity;
+    private BigDecimal goodQuantity;
+    private long runMinutes;
+    private int activeHours;
+
+    // Tempo médio por peça (segundos) e peças boas por hora com apontamento
+    private BigDecimal cycleTimeSeconds;
+    private BigDecimal throughputPerHour;
+
+    // Percentuais; desempenho e OEE ficam nulos sem tempo padrão cadastrado na etapa
+    private BigDecimal scrapRate;
+    private BigDecimal availability;
+    private BigDecimal performance;
+    private BigDecimal quality;
+    private BigDecimal oee;
+}
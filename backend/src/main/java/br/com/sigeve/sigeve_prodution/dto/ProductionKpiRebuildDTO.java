@@ -0,0 +1,16 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionKpiRebuildDTO {
+    private UUID companyId;
+    private Integer buckets;
+    private Long elapsedMillis;
+}
@@ -28,6 +28,8 @@ public class ProductionOrderDTO {
     
     private BigDecimal quantityPlanned;
     private BigDecimal quantityProduced;
+    private BigDecimal quantityLost;
+    private BigDecimal productionPercentage;
     
     private ProductionOrderStatus status;
     private PriorityLevel priority;
@@ -0,0 +1,36 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.PriorityLevel;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Filtros da listagem paginada de ordens de produção.
+ * Campos nulos são ignorados.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionOrderFilterDTO {
+
+    private UUID companyId;
+    private ProductionOrderStatus status;
+    private PriorityLevel priority;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDateFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDateTo;
+
+    private UUID productId;
+    private UUID customerId;
+}
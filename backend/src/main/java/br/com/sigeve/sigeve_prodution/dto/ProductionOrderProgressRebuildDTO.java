@@ -0,0 +1,17 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionOrderProgressRebuildDTO {
+    private UUID companyId;
+    private Integer orders;
+    private Integer updatedOrders;
+    private Long elapsedMillis;
+}
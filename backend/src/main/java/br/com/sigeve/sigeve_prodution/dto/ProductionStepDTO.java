@@ -23,6 +23,7 @@ public class ProductionStepDTO {
     private Integer sequence;
     
     private Integer estimatedTime;
+    private Integer dailyCapacityMinutes;
     private UUID costCenterId;
     
     private Boolean isOutsourced;
@@ -1,5 +1,6 @@
 package br.com.sigeve.sigeve_prodution.dto;
 
+import br.com.sigeve.sigeve_prodution.enums.LotPickingPolicy;
 import br.com.sigeve.sigeve_prodution.enums.UnitType;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -40,6 +41,8 @@ public class RawMaterialDTO {
     private BigDecimal maxStock;
     private BigDecimal reorderPoint;
     private Integer leadTimeDays;
+    private Boolean lotControl;
+    private LotPickingPolicy lotPickingPolicy;
     
     // Categoria
     private UUID categoryId;
@@ -0,0 +1,25 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Parte de uma saída atendida por um lote, com o custo do lote
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RawMaterialLotAllocationDTO {
+    private UUID id;
+    private UUID rawMaterialMovementId;
+    private UUID rawMaterialLotId;
+    private BigDecimal quantity;
+    private BigDecimal unitCost;
+    private BigDecimal totalCost;
+    private OffsetDateTime createdAt;
+}
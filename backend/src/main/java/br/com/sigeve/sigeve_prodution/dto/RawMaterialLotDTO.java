@@ -0,0 +1,28 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RawMaterialLotDTO {
+    private UUID id;
+    private UUID companyId;
+    private UUID rawMaterialId;
+    private UUID warehouseId;
+    private String lotNumber;
+    private LocalDate receiptDate;
+    private LocalDate expirationDate;
+    private BigDecimal initialQuantity;
+    private BigDecimal remainingQuantity;
+    private BigDecimal unitCost;
+    private UUID receiptMovementId;
+    private OffsetDateTime createdAt;
+}
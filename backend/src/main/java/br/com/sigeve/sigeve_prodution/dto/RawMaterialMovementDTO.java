@@ -21,12 +21,14 @@ public class RawMaterialMovementDTO {
     private UUID tenantId;
     private UUID companyId;
     private UUID rawMaterialId;
+    private UUID warehouseId;
     
     private StockMovementType movementType;
     private MovementOrigin movementOrigin;
     private UUID originId;
     
     private String documentNumber;
+    private String lotNumber;
     private OffsetDateTime movementDate;
     
     private BigDecimal quantity;
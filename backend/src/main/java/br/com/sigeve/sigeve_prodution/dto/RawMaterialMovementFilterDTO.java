@@ -0,0 +1,36 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Filtros do histórico de movimentos de estoque (listagem paginada e exportação).
+ * Campos nulos são ignorados; o período é inclusivo nas duas pontas.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RawMaterialMovementFilterDTO {
+
+    private UUID companyId;
+    private UUID rawMaterialId;
+    private UUID warehouseId;
+    private StockMovementType movementType;
+    private MovementOrigin movementOrigin;
+    private UUID originId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateTo;
+}
@@ -0,0 +1,22 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Saldo consolidado de uma matéria-prima, somando o estoque padrão e todos os depósitos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RawMaterialStockTotalDTO {
+    private UUID rawMaterialId;
+    private BigDecimal quantity;
+    private BigDecimal reservedQuantity;
+    private BigDecimal availableQuantity;
+    private Long locationCount;
+}
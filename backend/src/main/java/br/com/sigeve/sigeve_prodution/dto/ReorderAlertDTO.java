@@ -0,0 +1,25 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderAlertDTO {
+    private UUID rawMaterialId;
+    private String rawMaterialCode;
+    private String rawMaterialName;
+    private BigDecimal quantity;
+    private BigDecimal reservedQuantity;
+    private BigDecimal availableQuantity;
+    private BigDecimal reorderPoint;
+    private BigDecimal minStock;
+    private Integer leadTimeDays;
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,30 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.PriorityLevel;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledOrderDTO {
+    private UUID productionOrderId;
+    private String code;
+    private ProductionOrderStatus status;
+    private PriorityLevel priority;
+    private BigDecimal remainingQuantity;
+    private int position;
+    private LocalDate plannedStart;
+    private LocalDate plannedEnd;
+    private LocalDate deadline;
+    private boolean late;
+    private long daysLate;
+    private List<ScheduledStepDTO> steps;
+}
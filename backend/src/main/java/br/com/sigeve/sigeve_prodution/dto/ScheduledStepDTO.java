@@ -0,0 +1,21 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledStepDTO {
+    private UUID stepId;
+    private String stepName;
+    private Integer sequence;
+    private boolean outsourced;
+    private long minutes;
+    private LocalDate start;
+    private LocalDate end;
+}
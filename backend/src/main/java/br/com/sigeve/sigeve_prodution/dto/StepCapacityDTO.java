@@ -0,0 +1,21 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepCapacityDTO {
+    private UUID stepId;
+    private String stepName;
+    private Integer sequence;
+    private int dailyCapacityMinutes;
+    private LocalDate from;
+    private List<Integer> loadedMinutes;
+}
@@ -0,0 +1,25 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepLeadTimeDTO {
+    private UUID stepId;
+    private String stepName;
+    private Integer sequence;
+
+    // Tempo padrão cadastrado na etapa (minutos por peça)
+    private Integer estimatedTime;
+
+    // Execuções encerradas na janela e percentis do tempo por peça (minutos); nulos sem amostras
+    private long samples;
+    private BigDecimal p50MinutesPerUnit;
+    private BigDecimal p90MinutesPerUnit;
+}
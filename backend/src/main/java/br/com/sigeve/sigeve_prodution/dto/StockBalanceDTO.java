@@ -0,0 +1,23 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBalanceDTO {
+    private UUID rawMaterialId;
+    private String rawMaterialCode;
+    private String rawMaterialName;
+    private LocalDate asOfDate;
+    private LocalDate baseSnapshotDate;
+    private Long movementsAfterSnapshot;
+    private BigDecimal quantity;
+    private BigDecimal totalValue;
+}
@@ -0,0 +1,31 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import br.com.sigeve.sigeve_prodution.enums.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDTO {
+
+    private UUID id;
+    private UUID companyId;
+    private UUID productionOrderId;
+    private UUID rawMaterialId;
+    private UUID warehouseId;
+    private BigDecimal quantity;
+    private ReservationStatus status;
+
+    private OffsetDateTime createdAt;
+    private String createdBy;
+    private OffsetDateTime closedAt;
+    private String closedBy;
+}
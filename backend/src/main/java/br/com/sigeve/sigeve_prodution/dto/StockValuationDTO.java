@@ -0,0 +1,23 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockValuationDTO {
+    private UUID companyId;
+    private LocalDateTime calculatedAt;
+    private Long materialCount;
+    private BigDecimal quantity;
+    private BigDecimal totalValue;
+    private List<StockValuationGroupDTO> byCategory;
+    private List<StockValuationGroupDTO> bySupplier;
+}
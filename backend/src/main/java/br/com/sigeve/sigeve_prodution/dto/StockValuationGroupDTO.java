@@ -0,0 +1,18 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockValuationGroupDTO {
+    private UUID groupId;
+    private Long materialCount;
+    private BigDecimal quantity;
+    private BigDecimal totalValue;
+}
@@ -0,0 +1,47 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Transferência de matéria-prima entre depósitos. Depósito nulo representa o estoque padrão.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferRawMaterialDTO {
+
+    @NotNull(message = "Tenant ID é obrigatório")
+    private UUID tenantId;
+
+    @NotNull(message = "Company ID é obrigatório")
+    private UUID companyId;
+
+    @NotNull(message = "Matéria-prima é obrigatória")
+    private UUID rawMaterialId;
+
+    private UUID fromWarehouseId;
+    private UUID toWarehouseId;
+
+    @NotNull(message = "Quantidade é obrigatória")
+    @Positive(message = "Quantidade deve ser positiva")
+    private BigDecimal quantity;
+
+    @Size(max = 100, message = "Número do documento deve ter no máximo 100 caracteres")
+    private String documentNumber;
+
+    private LocalDate movementDate;
+
+    private UUID userId;
+    private String notes;
+}
@@ -0,0 +1,33 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Grade completa da ordem: {@code quantities[c][s]} é a quantidade da cor {@code colors[c]} no tamanho
+ * {@code sizes[s]}. Substitui a grade anterior; a soma deve ser igual à quantidade planejada.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpdateProductionGridDTO {
+
+    @NotEmpty(message = "Tamanhos são obrigatórios")
+    @Size(max = 100, message = "A grade deve ter no máximo 100 tamanhos")
+    private List<@NotEmpty(message = "Tamanho não pode ser vazio") @Size(max = 50) String> sizes;
+
+    @NotEmpty(message = "Cores são obrigatórias")
+    @Size(max = 200, message = "A grade deve ter no máximo 200 cores")
+    private List<@NotEmpty(message = "Cor não pode ser vazia") @Size(max = 50) String> colors;
+
+    @NotEmpty(message = "Quantidades são obrigatórias")
+    private List<List<BigDecimal>> quantities;
+}
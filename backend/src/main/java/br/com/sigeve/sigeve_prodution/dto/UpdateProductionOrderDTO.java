@@ -27,9 +27,6 @@ public class UpdateProductionOrderDTO {
     @Positive(message = "Quantidade planejada deve ser positiva")
     private BigDecimal quantityPlanned;
     
-    @Positive(message = "Quantidade produzida deve ser positiva ou zero")
-    private BigDecimal quantityProduced;
-    
     private ProductionOrderStatus status;
     private PriorityLevel priority;
     
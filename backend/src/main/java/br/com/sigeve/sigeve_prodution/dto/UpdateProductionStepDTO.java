@@ -1,5 +1,6 @@
 package br.com.sigeve.sigeve_prodution.dto;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -20,6 +21,9 @@ public class UpdateProductionStepDTO {
     private String description;
     private Integer sequence;
     private Integer estimatedTime;
+
+    @Min(value = 1, message = "Capacidade diária deve ser de pelo menos 1 minuto")
+    private Integer dailyCapacityMinutes;
     
     private UUID costCenterId;
     
@@ -1,5 +1,6 @@
 package br.com.sigeve.sigeve_prodution.dto;
 
+import br.com.sigeve.sigeve_prodution.enums.LotPickingPolicy;
 import br.com.sigeve.sigeve_prodution.enums.UnitType;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -34,6 +35,8 @@ public class UpdateRawMaterialDTO {
     private BigDecimal maxStock;
     private BigDecimal reorderPoint;
     private Integer leadTimeDays;
+    private Boolean lotControl;
+    private LotPickingPolicy lotPickingPolicy;
     
     private UUID categoryId;
     
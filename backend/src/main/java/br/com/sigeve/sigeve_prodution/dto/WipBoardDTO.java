@@ -0,0 +1,19 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WipBoardDTO {
+    private UUID companyId;
+    private int openOrders;
+    private OffsetDateTime updatedAt;
+    private List<WipStepDTO> steps;
+}
@@ -0,0 +1,26 @@
+package br.com.sigeve.sigeve_prodution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WipStepDTO {
+    private UUID stepId;
+    private String stepName;
+    private Integer sequence;
+    private boolean outsourced;
+
+    // Peças aguardando a etapa, em execução e concluídas (boas) nela
+    private BigDecimal queueQuantity;
+    private BigDecimal inProcessQuantity;
+    private BigDecimal doneQuantity;
+
+    private int ordersInQueue;
+    private int ordersInProcess;
+}
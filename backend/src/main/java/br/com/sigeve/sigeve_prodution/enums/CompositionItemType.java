@@ -5,7 +5,8 @@ package br.com.sigeve.sigeve_prodution.enums;
  */
 public enum CompositionItemType {
     RAW_MATERIAL("Matéria-Prima"),
-    SERVICE("Serviço Terceirizado");
+    SERVICE("Serviço Terceirizado"),
+    PRODUCT("Produto Semiacabado");
 
     private final String displayName;
 
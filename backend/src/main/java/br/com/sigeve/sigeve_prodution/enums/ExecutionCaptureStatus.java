@@ -0,0 +1,20 @@
+package br.com.sigeve.sigeve_prodution.enums;
+
+/**
+ * Resultado de cada evento na captura de execuções do chão de fábrica
+ */
+public enum ExecutionCaptureStatus {
+    ACCEPTED("Aceito"),
+    DUPLICATE("Já recebido"),
+    REJECTED("Rejeitado");
+
+    private final String displayName;
+
+    ExecutionCaptureStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,31 @@
+package br.com.sigeve.sigeve_prodution.enums;
+
+/**
+ * Formato de exportação em streaming
+ */
+public enum ExportFormat {
+    CSV("CSV", "text/csv", "csv"),
+    NDJSON("JSON por linha", "application/x-ndjson", "ndjson");
+
+    private final String displayName;
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String displayName, String contentType, String extension) {
+        this.displayName = displayName;
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.sigeve.sigeve_prodution.enums;
+
+/**
+ * Agrupamento dos indicadores de produção
+ */
+public enum KpiDimension {
+    STEP("Etapa"),
+    MACHINE("Máquina"),
+    EMPLOYEE("Funcionário");
+
+    private final String displayName;
+
+    KpiDimension(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.sigeve.sigeve_prodution.enums;
+
+/**
+ * Ordem de consumo dos lotes de uma matéria-prima nas saídas sem lote informado
+ */
+public enum LotPickingPolicy {
+    FIFO("Primeiro a entrar, primeiro a sair"),
+    FEFO("Primeiro a vencer, primeiro a sair");
+
+    private final String displayName;
+
+    LotPickingPolicy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.sigeve.sigeve_prodution.enums;
+
+/**
+ * Limite de cada matéria-prima usado na consulta de estoque baixo
+ */
+public enum LowStockBasis {
+    REORDER_POINT("Ponto de pedido"),
+    MIN_STOCK("Estoque mínimo");
+
+    private final String displayName;
+
+    LowStockBasis(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
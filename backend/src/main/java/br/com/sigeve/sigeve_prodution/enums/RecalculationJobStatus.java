@@ -0,0 +1,20 @@
+package br.com.sigeve.sigeve_prodution.enums;
+
+/**
+ * Status de um job de recálculo em massa
+ */
+public enum RecalculationJobStatus {
+    RUNNING("Em Execução"),
+    COMPLETED("Concluído"),
+    FAILED("Falhou");
+
+    private final String displayName;
+
+    RecalculationJobStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
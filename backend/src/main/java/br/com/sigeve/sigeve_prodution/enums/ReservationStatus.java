@@ -0,0 +1,20 @@
+package br.com.sigeve.sigeve_prodution.enums;
+
+/**
+ * Status da Reserva de Estoque
+ */
+public enum ReservationStatus {
+    ACTIVE("Ativa"),
+    RELEASED("Liberada"),
+    CONSUMED("Consumida");
+
+    private final String displayName;
+
+    ReservationStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.sigeve.sigeve_prodution.enums;
+
+/**
+ * Regra de desempate da programação entre ordens de mesma prioridade
+ */
+public enum SchedulingRule {
+    EARLIEST_DUE_DATE("Menor prazo"),
+    CRITICAL_RATIO("Razão crítica");
+
+    private final String displayName;
+
+    SchedulingRule(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
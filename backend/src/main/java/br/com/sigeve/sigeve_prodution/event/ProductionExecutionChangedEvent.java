@@ -0,0 +1,15 @@
+package br.com.sigeve.sigeve_prodution.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Publicado quando execuções das ordens informadas são registradas, alteradas ou removidas.
+ * Como nos demais eventos, ouvintes só devem reagir após o commit.
+ */
+public record ProductionExecutionChangedEvent(UUID companyId, Set<UUID> productionOrderIds) {
+
+    public static ProductionExecutionChangedEvent of(UUID companyId, UUID productionOrderId) {
+        return new ProductionExecutionChangedEvent(companyId, Set.of(productionOrderId));
+    }
+}
@@ -0,0 +1,15 @@
+package br.com.sigeve.sigeve_prodution.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Publicado quando execuções passam a ter término (registradas já encerradas ou encerradas depois).
+ * Como nos demais eventos, ouvintes só devem reagir após o commit.
+ */
+public record ProductionExecutionCompletedEvent(UUID companyId, Set<UUID> executionIds) {
+
+    public static ProductionExecutionCompletedEvent of(UUID companyId, UUID executionId) {
+        return new ProductionExecutionCompletedEvent(companyId, Set.of(executionId));
+    }
+}
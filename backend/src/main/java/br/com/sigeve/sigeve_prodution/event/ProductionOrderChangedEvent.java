@@ -0,0 +1,15 @@
+package br.com.sigeve.sigeve_prodution.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Publicado quando ordens de produção de uma empresa são criadas, alteradas, mudam de status ou são removidas.
+ * Ouvintes que mantêm dados derivados (programação, painéis) devem reagir somente após o commit.
+ */
+public record ProductionOrderChangedEvent(UUID companyId, Set<UUID> productionOrderIds) {
+
+    public static ProductionOrderChangedEvent of(UUID companyId, UUID productionOrderId) {
+        return new ProductionOrderChangedEvent(companyId, Set.of(productionOrderId));
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.sigeve.sigeve_prodution.event;
+
+import java.util.UUID;
+
+/**
+ * Publicado quando o roteiro (etapas de produção) de uma empresa muda. Todas as ordens dependem do roteiro,
+ * portanto ouvintes devem descartar o que derivaram dele, após o commit.
+ */
+public record ProductionStepChangedEvent(UUID companyId) {
+}
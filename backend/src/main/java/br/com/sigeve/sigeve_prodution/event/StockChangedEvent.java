@@ -0,0 +1,15 @@
+package br.com.sigeve.sigeve_prodution.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Publicado quando saldo, custo ou cadastro de matérias-primas de uma empresa mudam.
+ * Ouvintes que mantêm dados derivados (caches, alertas) devem reagir somente após o commit.
+ */
+public record StockChangedEvent(UUID companyId, Set<UUID> rawMaterialIds) {
+
+    public static StockChangedEvent of(UUID companyId, UUID rawMaterialId) {
+        return new StockChangedEvent(companyId, Set.of(rawMaterialId));
+    }
+}
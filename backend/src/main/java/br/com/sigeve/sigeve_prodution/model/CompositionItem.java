@@ -57,7 +57,7 @@ public class CompositionItem extends AuditFull {
 
     @NotNull
     @Column(name = "reference_id", nullable = false, columnDefinition = "uuid")
-    private UUID referenceId;  // ID da matéria-prima ou serviço
+    private UUID referenceId;  // ID da matéria-prima, serviço ou produto semiacabado
 
     // Quantidade
     @NotNull
@@ -110,6 +110,10 @@ public class CompositionItem extends AuditFull {
         return CompositionItemType.SERVICE.equals(this.itemType);
     }
 
+    public boolean isProduct() {
+        return CompositionItemType.PRODUCT.equals(this.itemType);
+    }
+
     public boolean isOptional() {
         return Boolean.TRUE.equals(this.isOptional);
     }
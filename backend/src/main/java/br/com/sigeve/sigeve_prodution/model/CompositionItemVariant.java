@@ -0,0 +1,73 @@
+package br.com.sigeve.sigeve_prodution.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Entidade de Variação do Item da Composição
+ * Ajuste do item para um tamanho e/ou cor da grade: fator de consumo (tamanhos maiores consomem mais)
+ * e substituição do material (cada cor usa um tecido). A variação de tamanho e cor juntos prevalece;
+ * sem ela, os fatores de tamanho e de cor se multiplicam e o substituto da cor prevalece sobre o do tamanho.
+ */
+@Entity
+@Table(name = "tab_composition_item_variants", indexes = {
+    @Index(name = "idx_composition_item_variants_item", columnList = "composition_item_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompositionItemVariant extends AuditSingle {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "composition_item_variant_id", columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @NotNull
+    @Column(name = "company_id", nullable = false, columnDefinition = "uuid")
+    private UUID companyId;
+
+    // Item da composição
+    @NotNull
+    @Column(name = "composition_item_id", nullable = false, columnDefinition = "uuid")
+    private UUID compositionItemId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "composition_item_id", insertable = false, updatable = false)
+    private CompositionItem compositionItem;
+
+    // Tamanho e/ou cor da grade (nulo = qualquer)
+    @Size(max = 50)
+    @Column(name = "size", length = 50)
+    private String size;
+
+    @Size(max = 50)
+    @Column(name = "color", length = 50)
+    private String color;
+
+    // Multiplicador da quantidade do item
+    @NotNull
+    @DecimalMin(value = "0.0001")
+    @Digits(integer = 5, fraction = 4)
+    @Column(name = "consumption_factor", nullable = false, precision = 9, scale = 4)
+    private BigDecimal consumptionFactor = BigDecimal.ONE;
+
+    // Material (ou serviço/semiacabado) usado no lugar da referência do item
+    @Column(name = "substitute_reference_id", columnDefinition = "uuid")
+    private UUID substituteReferenceId;
+
+    @Column(name = "created_by", updatable = false)
+    private String createdBy;
+}
@@ -0,0 +1,69 @@
+package br.com.sigeve.sigeve_prodution.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entidade de Esboço de Durações de Produção
+ * Distribuição do tempo por peça das execuções encerradas, por etapa e, opcionalmente, por produto. Compartilhada
+ * pelas instâncias: cada uma soma as amostras que marcou nas execuções ({@code duration_sampled_at}); não é
+ * alterada por outras rotinas.
+ */
+@Entity
+@Table(name = "tab_production_duration_sketches", indexes = {
+    @Index(name = "idx_production_duration_sketches_company", columnList = "company_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionDurationSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "production_duration_sketch_id", columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @NotNull
+    @Column(name = "company_id", nullable = false, columnDefinition = "uuid")
+    private UUID companyId;
+
+    @NotNull
+    @Column(name = "step_id", nullable = false, columnDefinition = "uuid")
+    private UUID stepId;
+
+    // Nulo no esboço da etapa (todos os produtos)
+    @Column(name = "product_id", columnDefinition = "uuid")
+    private UUID productId;
+
+    // Início do período corrente da janela móvel
+    @NotNull
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "current_sketch", columnDefinition = "bytea")
+    private byte[] currentSketch;
+
+    @Column(name = "previous_sketch", columnDefinition = "bytea")
+    private byte[] previousSketch;
+
+    @NotNull
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount = 0L;
+
+    // Momento da última gravação
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -99,6 +99,16 @@ public class ProductionExecution extends AuditFull {
     @Column(name = "notes", columnDefinition = "TEXT")
     private String notes;
 
+    // Identificador do evento no coletor (leitor de código de barras, terminal), único por empresa:
+    // reenvios do mesmo evento não geram nova execução
+    @Size(max = 100)
+    @Column(name = "client_event_id", length = 100)
+    private String clientEventId;
+
+    // Momento em que a execução entrou nos esboços de lead time; gravado só pelo estimador
+    @Column(name = "duration_sampled_at", insertable = false, updatable = false)
+    private LocalDateTime durationSampledAt;
+
     // Métodos auxiliares
     public boolean isCompleted() {
         return endTime != null;
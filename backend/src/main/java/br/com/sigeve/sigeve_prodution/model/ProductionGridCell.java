@@ -0,0 +1,93 @@
+package br.com.sigeve.sigeve_prodution.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entidade de Célula da Grade de Produção
+ * Quantidade de um tamanho em uma cor dentro da ordem de produção; as células da ordem somam a quantidade planejada
+ */
+@Entity
+@Table(name = "tab_production_grid_cells", indexes = {
+    @Index(name = "idx_production_grid_cells_company", columnList = "company_id")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uq_production_grid_cells_order_size_color", columnNames = {"production_order_id", "size", "color"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionGridCell {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "production_grid_cell_id", columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @NotNull
+    @Column(name = "company_id", nullable = false, columnDefinition = "uuid")
+    private UUID companyId;
+
+    // Ordem de produção
+    @NotNull
+    @Column(name = "production_order_id", nullable = false, columnDefinition = "uuid")
+    private UUID productionOrderId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "production_order_id", insertable = false, updatable = false)
+    private ProductionOrder productionOrder;
+
+    // Tamanho e cor, com a posição de cada um na grade
+    @NotBlank
+    @Size(max = 50)
+    @Column(name = "size", nullable = false, length = 50)
+    private String size;
+
+    @NotNull
+    @Column(name = "size_position", nullable = false)
+    private Integer sizePosition;
+
+    @NotBlank
+    @Size(max = 50)
+    @Column(name = "color", nullable = false, length = 50)
+    private String color;
+
+    @NotNull
+    @Column(name = "color_position", nullable = false)
+    private Integer colorPosition;
+
+    @NotNull
+    @DecimalMin(value = "0.0000")
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "quantity", nullable = false, precision = 15, scale = 4)
+    private BigDecimal quantity = BigDecimal.ZERO;
+
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "created_by", updatable = false)
+    private String createdBy;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "updated_by")
+    private String updatedBy;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.sigeve.sigeve_prodution.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entidade de Balde Horário de Indicadores de Produção
+ * Totais das execuções iniciadas em uma hora, por etapa, máquina e funcionário; mantida pelas próprias execuções.
+ * A chave única (com máquina e funcionário opcionais) fica em db/init/production-kpi.sql.
+ */
+@Entity
+@Table(name = "tab_production_kpi_buckets", indexes = {
+    @Index(name = "idx_production_kpi_buckets_company_start", columnList = "company_id, bucket_start")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionKpiBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "production_kpi_bucket_id", columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @NotNull
+    @Column(name = "company_id", nullable = false, columnDefinition = "uuid")
+    private UUID companyId;
+
+    // Início da hora (hora cheia do início das execuções)
+    @NotNull
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @NotNull
+    @Column(name = "step_id", nullable = false, columnDefinition = "uuid")
+    private UUID stepId;
+
+    @Column(name = "machine_id", columnDefinition = "uuid")
+    private UUID machineId;
+
+    @Column(name = "employee_id", columnDefinition = "uuid")
+    private UUID employeeId;
+
+    // Totais
+    @NotNull
+    @Column(name = "execution_count", nullable = false)
+    private Integer executionCount = 0;
+
+    @NotNull
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "quantity_done", nullable = false, precision = 15, scale = 4)
+    private BigDecimal quantityDone = BigDecimal.ZERO;
+
+    @NotNull
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "loss_quantity", nullable = false, precision = 15, scale = 4)
+    private BigDecimal lossQuantity = BigDecimal.ZERO;
+
+    // Quantidade boa (realizada menos perda) das execuções reprovadas na qualidade
+    @NotNull
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "rejected_quantity", nullable = false, precision = 15, scale = 4)
+    private BigDecimal rejectedQuantity = BigDecimal.ZERO;
+
+    // Quantidade realizada e tempo das execuções encerradas (base do tempo de ciclo)
+    @NotNull
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "completed_quantity", nullable = false, precision = 15, scale = 4)
+    private BigDecimal completedQuantity = BigDecimal.ZERO;
+
+    @NotNull
+    @Column(name = "run_seconds", nullable = false)
+    private Long runSeconds = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
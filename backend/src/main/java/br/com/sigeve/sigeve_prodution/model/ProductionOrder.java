@@ -69,11 +69,18 @@ public class ProductionOrder extends AuditFull {
     @Column(name = "quantity_planned", nullable = false, precision = 15, scale = 4)
     private BigDecimal quantityPlanned;
 
+    // Produzida e perdas são recalculadas a partir das execuções (ProductionOrderProgressService), nunca pelo cadastro
     @DecimalMin(value = "0.0000")
     @Digits(integer = 15, fraction = 4)
-    @Column(name = "quantity_produced", precision = 15, scale = 4)
+    @Column(name = "quantity_produced", precision = 15, scale = 4, updatable = false)
     private BigDecimal quantityProduced = BigDecimal.ZERO;
 
+    // Perdas apontadas nas execuções de todas as etapas
+    @DecimalMin(value = "0.0000")
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "quantity_lost", precision = 15, scale = 4, updatable = false)
+    private BigDecimal quantityLost = BigDecimal.ZERO;
+
     // Status e prioridade
     @NotNull
     @Enumerated(EnumType.STRING)
@@ -95,6 +102,17 @@ public class ProductionOrder extends AuditFull {
     @Column(name = "deadline")
     private LocalDate deadline;
 
+    // Chaves da listagem paginada (ver ProductionOrderKeyset), calculadas pelo banco a partir de priority e deadline;
+    // somente leitura, podem estar desatualizadas na instância até a próxima leitura
+    @Column(name = "priority_rank", insertable = false, updatable = false,
+            columnDefinition = "smallint GENERATED ALWAYS AS (CASE priority WHEN 'URGENT' THEN 0 WHEN 'HIGH' THEN 1 " +
+                    "WHEN 'MEDIUM' THEN 2 ELSE 3 END) STORED")
+    private Integer priorityRank;
+
+    @Column(name = "deadline_key", insertable = false, updatable = false,
+            columnDefinition = "date GENERATED ALWAYS AS (COALESCE(deadline, DATE '9999-12-31')) STORED")
+    private LocalDate deadlineKey;
+
     // Relacionamentos
     @Column(name = "customer_id", columnDefinition = "uuid")
     private UUID customerId;
@@ -24,6 +24,11 @@ import java.util.UUID;
 @AllArgsConstructor
 public class ProductionStep extends AuditFull {
 
+    /**
+     * Um turno de 8 horas
+     */
+    public static final int DEFAULT_DAILY_CAPACITY_MINUTES = 480;
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     @Column(name = "production_step_id", columnDefinition = "uuid")
@@ -56,6 +61,11 @@ public class ProductionStep extends AuditFull {
     @Column(name = "estimated_time")
     private Integer estimatedTime = 0;
 
+    // Capacidade diária da etapa (em minutos), usada pela programação de capacidade finita
+    @Min(1)
+    @Column(name = "daily_capacity_minutes")
+    private Integer dailyCapacityMinutes = DEFAULT_DAILY_CAPACITY_MINUTES;
+
     // Centro de custo
     @Column(name = "cost_center_id", columnDefinition = "uuid")
     private UUID costCenterId;
@@ -85,4 +95,8 @@ public class ProductionStep extends AuditFull {
     public boolean isActive() {
         return Boolean.TRUE.equals(this.isActive);
     }
+
+    public int getEffectiveDailyCapacityMinutes() {
+        return dailyCapacityMinutes != null && dailyCapacityMinutes > 0 ? dailyCapacityMinutes : DEFAULT_DAILY_CAPACITY_MINUTES;
+    }
 }
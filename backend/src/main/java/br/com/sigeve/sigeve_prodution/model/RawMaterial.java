@@ -1,5 +1,6 @@
 package br.com.sigeve.sigeve_prodution.model;
 
+import br.com.sigeve.sigeve_prodution.enums.LotPickingPolicy;
 import br.com.sigeve.sigeve_prodution.enums.UnitType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
@@ -101,6 +102,14 @@ public class RawMaterial extends AuditFull {
     @Column(name = "lead_time_days")
     private Integer leadTimeDays = 0;
 
+    // Controle por lote (rolos, lotes de tingimento)
+    @Column(name = "lot_control")
+    private Boolean lotControl = false;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "lot_picking_policy")
+    private LotPickingPolicy lotPickingPolicy = LotPickingPolicy.FIFO;
+
     // Categoria
     @Column(name = "category_id", columnDefinition = "uuid")
     private UUID categoryId;
@@ -119,6 +128,10 @@ public class RawMaterial extends AuditFull {
         return Boolean.TRUE.equals(this.stockControl);
     }
 
+    public boolean isLotControlled() {
+        return Boolean.TRUE.equals(this.lotControl);
+    }
+
     public boolean isActive() {
         return Boolean.TRUE.equals(this.isActive);
     }
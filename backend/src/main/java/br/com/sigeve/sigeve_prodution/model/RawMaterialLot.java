@@ -0,0 +1,104 @@
+package br.com.sigeve.sigeve_prodution.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entidade de Lote de Matéria-Prima
+ * Saldo de uma entrada (rolo de tecido, lote de tingimento) com o seu custo, consumido pelas saídas
+ * em ordem FIFO ou FEFO. A fila de lotes abertos é servida pelos índices parciais de
+ * db/init/raw-material-lots.sql.
+ */
+@Entity
+@Table(name = "tab_raw_material_lots", indexes = {
+    @Index(name = "idx_raw_material_lots_material_number", columnList = "raw_material_id, lot_number"),
+    @Index(name = "idx_raw_material_lots_receipt_movement", columnList = "receipt_movement_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RawMaterialLot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "raw_material_lot_id", columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @NotNull
+    @Column(name = "company_id", nullable = false, columnDefinition = "uuid")
+    private UUID companyId;
+
+    @NotNull
+    @Column(name = "raw_material_id", nullable = false, columnDefinition = "uuid")
+    private UUID rawMaterialId;
+
+    // Localização (opcional; nulo = estoque padrão)
+    @Column(name = "warehouse_id", columnDefinition = "uuid")
+    private UUID warehouseId;
+
+    @NotBlank
+    @Size(max = 100)
+    @Column(name = "lot_number", nullable = false, length = 100)
+    private String lotNumber;
+
+    @NotNull
+    @Column(name = "receipt_date", nullable = false)
+    private LocalDate receiptDate;
+
+    @Column(name = "expiration_date")
+    private LocalDate expirationDate;
+
+    // Quantidades
+    @NotNull
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "initial_quantity", nullable = false, precision = 15, scale = 4)
+    private BigDecimal initialQuantity;
+
+    @NotNull
+    @DecimalMin(value = "0.0000")
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "remaining_quantity", nullable = false, precision = 15, scale = 4)
+    private BigDecimal remainingQuantity;
+
+    @DecimalMin(value = "0.0000")
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "unit_cost", precision = 15, scale = 4)
+    private BigDecimal unitCost;
+
+    // Movimento de entrada que originou o lote
+    @Column(name = "receipt_movement_id", columnDefinition = "uuid")
+    private UUID receiptMovementId;
+
+    // Auditoria simples
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.sigeve.sigeve_prodution.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entidade de Consumo de Lote
+ * Quanto de cada lote uma saída de estoque consumiu, ao custo do lote (rastreabilidade de tonalidade e custo)
+ */
+@Entity
+@Table(name = "tab_raw_material_lot_allocations", indexes = {
+    @Index(name = "idx_raw_material_lot_allocations_movement", columnList = "raw_material_movement_id"),
+    @Index(name = "idx_raw_material_lot_allocations_lot", columnList = "raw_material_lot_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RawMaterialLotAllocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "raw_material_lot_allocation_id", columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @NotNull
+    @Column(name = "company_id", nullable = false, columnDefinition = "uuid")
+    private UUID companyId;
+
+    @NotNull
+    @Column(name = "raw_material_movement_id", nullable = false, columnDefinition = "uuid")
+    private UUID rawMaterialMovementId;
+
+    @NotNull
+    @Column(name = "raw_material_lot_id", nullable = false, columnDefinition = "uuid")
+    private UUID rawMaterialLotId;
+
+    @NotNull
+    @DecimalMin(value = "0.0001")
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "quantity", nullable = false, precision = 15, scale = 4)
+    private BigDecimal quantity;
+
+    @DecimalMin(value = "0.0000")
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "unit_cost", precision = 15, scale = 4)
+    private BigDecimal unitCost;
+
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -10,6 +10,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -20,7 +21,9 @@ import java.util.UUID;
 @Entity
 @Table(name = "tab_raw_material_movements", indexes = {
     @Index(name = "idx_raw_material_movements_material_date", columnList = "raw_material_id, movement_date"),
-    @Index(name = "idx_raw_material_movements_company_date", columnList = "company_id, movement_date")
+    @Index(name = "idx_raw_material_movements_company_date", columnList = "company_id, movement_date"),
+    @Index(name = "idx_raw_material_movements_company_date_id", columnList = "company_id, movement_date DESC, raw_material_movement_id DESC"),
+    @Index(name = "idx_raw_material_movements_warehouse_date", columnList = "warehouse_id, movement_date")
 })
 @Getter
 @Setter
@@ -50,6 +53,10 @@ public class RawMaterialMovement {
     @JoinColumn(name = "raw_material_id", insertable = false, updatable = false)
     private RawMaterial rawMaterial;
 
+    // Localização (opcional; nulo = estoque padrão)
+    @Column(name = "warehouse_id", columnDefinition = "uuid")
+    private UUID warehouseId;
+
     // Tipo de movimento
     @NotNull
     @Enumerated(EnumType.STRING)
@@ -69,6 +76,15 @@ public class RawMaterialMovement {
     @Column(name = "document_number", length = 100)
     private String documentNumber;
 
+    // Lote (matérias-primas com controle por lote): criado na entrada, consumido na saída
+    @Size(max = 100)
+    @Column(name = "lot_number", length = 100)
+    private String lotNumber;
+
+    // Validade informada na entrada; gravada somente no lote
+    @Transient
+    private LocalDate lotExpirationDate;
+
     @NotNull
     @Column(name = "movement_date", nullable = false)
     private LocalDateTime movementDate;
@@ -14,11 +14,10 @@ import java.util.UUID;
 /**
  * Entidade de Estoque de Matéria-Prima
  * Controla a quantidade disponível de cada material
+ * O índice por matéria-prima (com quantidade e reservado) fica em db/init/low-stock.sql.
  */
 @Entity
-@Table(name = "tab_raw_material_stocks", indexes = {
-    @Index(name = "idx_raw_material_stocks_material", columnList = "raw_material_id")
-}, uniqueConstraints = {
+@Table(name = "tab_raw_material_stocks", uniqueConstraints = {
     @UniqueConstraint(name = "uq_stock_material_warehouse", columnNames = {"company_id", "raw_material_id", "warehouse_id"})
 })
 @Getter
@@ -0,0 +1,74 @@
+package br.com.sigeve.sigeve_prodution.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entidade de Fotografia de Saldo de Estoque
+ * Saldo acumulado de uma matéria-prima ao final do dia {@code snapshotDate} (fechamento de mês),
+ * ponto de partida das consultas de saldo em data passada
+ */
+@Entity
+@Table(name = "tab_raw_material_stock_snapshots",
+    uniqueConstraints = @UniqueConstraint(name = "uq_raw_material_stock_snapshots_material_date",
+            columnNames = {"company_id", "raw_material_id", "snapshot_date"}),
+    indexes = @Index(name = "idx_raw_material_stock_snapshots_company_date", columnList = "company_id, snapshot_date"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RawMaterialStockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "raw_material_stock_snapshot_id", columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @NotNull
+    @Column(name = "company_id", nullable = false, columnDefinition = "uuid")
+    private UUID companyId;
+
+    @NotNull
+    @Column(name = "raw_material_id", nullable = false, columnDefinition = "uuid")
+    private UUID rawMaterialId;
+
+    @NotNull
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    // Saldo acumulado até o fim do dia (entradas - saídas)
+    @NotNull
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "quantity", nullable = false, precision = 15, scale = 4)
+    private BigDecimal quantity = BigDecimal.ZERO;
+
+    // Valor acumulado dos movimentos (custo das entradas - custo das saídas)
+    @NotNull
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "total_value", nullable = false, precision = 15, scale = 4)
+    private BigDecimal totalValue = BigDecimal.ZERO;
+
+    // Auditoria simples
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package br.com.sigeve.sigeve_prodution.model;
+
+import br.com.sigeve.sigeve_prodution.enums.ReservationStatus;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entidade de Reserva de Estoque
+ * Quantidade de matéria-prima comprometida com uma ordem de produção, do início até a baixa ou cancelamento
+ */
+@Entity
+@Table(name = "tab_stock_reservations", indexes = {
+    @Index(name = "idx_stock_reservations_order_status", columnList = "production_order_id, status"),
+    @Index(name = "idx_stock_reservations_company_material", columnList = "company_id, raw_material_id, status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "stock_reservation_id", columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @NotNull
+    @Column(name = "company_id", nullable = false, columnDefinition = "uuid")
+    private UUID companyId;
+
+    // Ordem de produção
+    @NotNull
+    @Column(name = "production_order_id", nullable = false, columnDefinition = "uuid")
+    private UUID productionOrderId;
+
+    // Material e depósito reservados
+    @NotNull
+    @Column(name = "raw_material_id", nullable = false, columnDefinition = "uuid")
+    private UUID rawMaterialId;
+
+    @Column(name = "warehouse_id", columnDefinition = "uuid")
+    private UUID warehouseId;
+
+    @NotNull
+    @DecimalMin(value = "0.0001")
+    @Digits(integer = 15, fraction = 4)
+    @Column(name = "quantity", nullable = false, precision = 15, scale = 4)
+    private BigDecimal quantity;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReservationStatus status = ReservationStatus.ACTIVE;
+
+    // Auditoria simples
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "created_by", updatable = false)
+    private String createdBy;
+
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+
+    @Column(name = "closed_by")
+    private String closedBy;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+
+    // Métodos auxiliares
+    public boolean isActive() {
+        return ReservationStatus.ACTIVE.equals(this.status);
+    }
+}
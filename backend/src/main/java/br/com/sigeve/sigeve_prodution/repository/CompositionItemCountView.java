@@ -0,0 +1,13 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import java.util.UUID;
+
+/**
+ * Projeção da contagem de itens agrupada por composição
+ */
+public interface CompositionItemCountView {
+
+    UUID getCompositionId();
+
+    Long getItemsCount();
+}
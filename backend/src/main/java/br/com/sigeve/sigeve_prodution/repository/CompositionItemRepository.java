@@ -2,8 +2,11 @@ package br.com.sigeve.sigeve_prodution.repository;
 
 import br.com.sigeve.sigeve_prodution.model.CompositionItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,4 +22,28 @@ public interface CompositionItemRepository extends JpaRepository<CompositionItem
      * Busca itens ordenados por sequência
      */
     List<CompositionItem> findByCompositionIdAndDeletedAtIsNullOrderBySequence(UUID compositionId);
+
+    /**
+     * Busca itens (não deletados) de várias composições
+     */
+    List<CompositionItem> findByCompositionIdInAndDeletedAtIsNull(Collection<UUID> compositionIds);
+
+    /**
+     * Conta os itens (não deletados) de uma composição
+     */
+    long countByCompositionIdAndDeletedAtIsNull(UUID compositionId);
+
+    /**
+     * Conta os itens (não deletados) de todas as composições de uma empresa, agrupados por composição
+     */
+    @Query("SELECT i.compositionId AS compositionId, COUNT(i) AS itemsCount FROM CompositionItem i " +
+           "WHERE i.companyId = :companyId AND i.deletedAt IS NULL GROUP BY i.compositionId")
+    List<CompositionItemCountView> countItemsByCompany(@Param("companyId") UUID companyId);
+
+    /**
+     * Conta os itens (não deletados) das composições informadas, agrupados por composição
+     */
+    @Query("SELECT i.compositionId AS compositionId, COUNT(i) AS itemsCount FROM CompositionItem i " +
+           "WHERE i.compositionId IN :compositionIds AND i.deletedAt IS NULL GROUP BY i.compositionId")
+    List<CompositionItemCountView> countItemsByCompositionIds(@Param("compositionIds") Collection<UUID> compositionIds);
 }
@@ -0,0 +1,35 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.model.CompositionItemVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CompositionItemVariantRepository extends JpaRepository<CompositionItemVariant, UUID> {
+
+    /**
+     * Busca as variações de um item da composição
+     */
+    List<CompositionItemVariant> findByCompositionItemIdOrderBySizeAscColorAsc(UUID compositionItemId);
+
+    /**
+     * Busca as variações dos itens ativos das composições informadas
+     */
+    @Query("SELECT v FROM CompositionItemVariant v WHERE v.compositionItemId IN " +
+           "(SELECT i.id FROM CompositionItem i WHERE i.compositionId IN :compositionIds AND i.deletedAt IS NULL)")
+    List<CompositionItemVariant> findByCompositionIds(@Param("compositionIds") Collection<UUID> compositionIds);
+
+    /**
+     * Remove as variações de um item da composição
+     */
+    @Modifying
+    @Query("DELETE FROM CompositionItemVariant v WHERE v.compositionItemId = :compositionItemId")
+    int deleteByCompositionItemId(@Param("compositionItemId") UUID compositionItemId);
+}
@@ -4,6 +4,7 @@ import br.com.sigeve.sigeve_prodution.model.Composition;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -36,4 +37,10 @@ public interface CompositionRepository extends JpaRepository<Composition, UUID>
      */
     Optional<Composition> findByCompanyIdAndProductionProductIdAndVersionAndDeletedAtIsNull(
             UUID companyId, UUID productionProductId, Integer version);
+
+    /**
+     * Busca composições ativas de vários produtos de uma empresa (explosão de estrutura)
+     */
+    List<Composition> findByCompanyIdAndProductionProductIdInAndIsActiveTrueAndDeletedAtIsNull(
+            UUID companyId, Collection<UUID> productionProductIds);
 }
@@ -0,0 +1,30 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Projeção de matéria-prima abaixo do seu limite de estoque (todos os depósitos)
+ */
+public interface LowStockView {
+
+    UUID getRawMaterialId();
+
+    String getCode();
+
+    String getName();
+
+    String getUnitType();
+
+    BigDecimal getQuantity();
+
+    BigDecimal getReservedQuantity();
+
+    BigDecimal getMinStock();
+
+    BigDecimal getReorderPoint();
+
+    BigDecimal getThreshold();
+
+    Integer getLeadTimeDays();
+}
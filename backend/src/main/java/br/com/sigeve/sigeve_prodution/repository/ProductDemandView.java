@@ -0,0 +1,19 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Projeção da demanda em aberto agrupada por produto (saldo a produzir das ordens)
+ */
+public interface ProductDemandView {
+
+    UUID getProductId();
+
+    BigDecimal getRemainingQuantity();
+
+    LocalDate getNeedDate();
+
+    Long getOrdersCount();
+}
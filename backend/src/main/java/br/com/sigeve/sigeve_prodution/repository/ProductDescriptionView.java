@@ -0,0 +1,13 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import java.util.UUID;
+
+/**
+ * Projeção mínima de produto de produção (id e descrição) para listagens
+ */
+public interface ProductDescriptionView {
+
+    UUID getId();
+
+    String getDescription();
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -24,4 +25,9 @@ public interface ProductionExecutionRepository extends JpaRepository<ProductionE
      * Busca execuções de um funcionário
      */
     List<ProductionExecution> findByEmployeeIdAndDeletedAtIsNull(UUID employeeId);
+
+    /**
+     * Busca execução pelo identificador do evento no coletor
+     */
+    Optional<ProductionExecution> findByCompanyIdAndClientEventId(UUID companyId, String clientEventId);
 }
@@ -0,0 +1,22 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.model.ProductionGridCell;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ProductionGridCellRepository extends JpaRepository<ProductionGridCell, UUID> {
+
+    /**
+     * Busca as células da grade de uma ordem, na ordem das linhas (cores) e colunas (tamanhos)
+     */
+    List<ProductionGridCell> findByProductionOrderIdOrderByColorPositionAscSizePositionAsc(UUID productionOrderId);
+
+    /**
+     * Verifica se a ordem possui grade
+     */
+    boolean existsByProductionOrderId(UUID productionOrderId);
+}
@@ -0,0 +1,59 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.enums.PriorityLevel;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posição (keyset) de uma ordem na listagem ordenada por prioridade, prazo e código.
+ * O código é único por empresa, portanto a tupla identifica a linha de forma estável.
+ */
+public record ProductionOrderKeyset(int priorityRank, LocalDate deadline, String code) {
+
+    /**
+     * Ordens sem prazo vão para o final da listagem (mesmo valor da coluna gerada deadline_key)
+     */
+    public static final LocalDate NO_DEADLINE = LocalDate.of(9999, 12, 31);
+
+    /**
+     * Mesmo cálculo da coluna gerada priority_rank: urgentes primeiro
+     */
+    public static int rankOf(PriorityLevel priority) {
+        if (priority == null) return 3;
+        return switch (priority) {
+            case URGENT -> 0;
+            case HIGH -> 1;
+            case MEDIUM -> 2;
+            case LOW -> 3;
+        };
+    }
+
+    public static ProductionOrderKeyset of(ProductionOrder order) {
+        return new ProductionOrderKeyset(
+                rankOf(order.getPriority()),
+                order.getDeadline() != null ? order.getDeadline() : NO_DEADLINE,
+                order.getCode());
+    }
+
+    public String encode() {
+        String raw = priorityRank + "|" + deadline + "|" + code;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductionOrderKeyset decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new ProductionOrderKeyset(Integer.parseInt(parts[0]), LocalDate.parse(parts[1]), parts[2]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
@@ -1,25 +1,34 @@
 package br.com.sigeve.sigeve_prodution.repository;
 
 import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.enums.ReservationStatus;
 import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import org.springframework.data.jpa.repository.EntityGraph;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ProductionOrderRepository extends JpaRepository<ProductionOrder, UUID> {
+public interface ProductionOrderRepository extends JpaRepository<ProductionOrder, UUID>, ProductionOrderRepositoryCustom {
 
     /**
-     * Busca todas as ordens de produção de uma empresa (não deletadas)
+     * Busca todas as ordens de produção de uma empresa (não deletadas), já com o produto carregado
      */
+    @EntityGraph(attributePaths = "product")
     List<ProductionOrder> findByCompanyIdAndDeletedAtIsNull(UUID companyId);
 
     /**
-     * Busca ordens por status
+     * Busca ordens por status, já com o produto carregado
      */
+    @EntityGraph(attributePaths = "product")
     List<ProductionOrder> findByCompanyIdAndStatusAndDeletedAtIsNull(UUID companyId, ProductionOrderStatus status);
 
     /**
@@ -32,6 +41,14 @@ public interface ProductionOrderRepository extends JpaRepository<ProductionOrder
      */
     Optional<ProductionOrder> findByIdAndDeletedAtIsNull(UUID id);
 
+    /**
+     * Busca ordem por ID (não deletada) travando a linha até o fim da transação,
+     * para que transições de status concorrentes da mesma ordem sejam serializadas
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM ProductionOrder o WHERE o.id = :id AND o.deletedAt IS NULL")
+    Optional<ProductionOrder> findByIdForUpdate(@Param("id") UUID id);
+
     /**
      * Busca ordens por produto
      */
@@ -46,4 +63,26 @@ public interface ProductionOrderRepository extends JpaRepository<ProductionOrder
      * Busca ordens por pedido
      */
     List<ProductionOrder> findByOrderIdAndDeletedAtIsNull(UUID orderId);
+
+    /**
+     * Soma o saldo a produzir das ordens nos status informados que não possuem reservas no status
+     * {@code reserved}, agrupado por produto, com a data de necessidade mais cedo (início ou, na falta, prazo)
+     */
+    @Query("SELECT o.productId AS productId, " +
+           "SUM(o.quantityPlanned - COALESCE(o.quantityProduced, 0)) AS remainingQuantity, " +
+           "MIN(COALESCE(o.startDate, o.deadline)) AS needDate, COUNT(o) AS ordersCount " +
+           "FROM ProductionOrder o " +
+           "WHERE o.companyId = :companyId AND o.status IN :statuses AND o.deletedAt IS NULL " +
+           "AND o.quantityPlanned > COALESCE(o.quantityProduced, 0) " +
+           "AND NOT EXISTS (SELECT 1 FROM StockReservation r WHERE r.productionOrderId = o.id AND r.status = :reserved) " +
+           "GROUP BY o.productId")
+    List<ProductDemandView> sumUnreservedOpenDemandByProduct(@Param("companyId") UUID companyId,
+                                                             @Param("statuses") Collection<ProductionOrderStatus> statuses,
+                                                             @Param("reserved") ReservationStatus reserved);
+
+    /**
+     * Busca as empresas que possuem ordens nos status informados
+     */
+    @Query("SELECT DISTINCT o.companyId FROM ProductionOrder o WHERE o.status IN :statuses AND o.deletedAt IS NULL")
+    List<UUID> findCompanyIdsWithStatus(@Param("statuses") Collection<ProductionOrderStatus> statuses);
 }
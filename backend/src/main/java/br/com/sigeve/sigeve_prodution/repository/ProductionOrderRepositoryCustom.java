@@ -0,0 +1,15 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderFilterDTO;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+
+import java.util.List;
+
+public interface ProductionOrderRepositoryCustom {
+
+    /**
+     * Busca uma página de ordens (não deletadas) ordenadas por prioridade, prazo e código,
+     * começando após o keyset informado (ou do início quando nulo)
+     */
+    List<ProductionOrder> findPage(ProductionOrderFilterDTO filter, ProductionOrderKeyset after, int limit);
+}
@@ -0,0 +1,72 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderFilterDTO;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementação da listagem paginada por keyset.
+ * Os filtros são montados dinamicamente para que apenas os informados entrem no WHERE.
+ * A ordenação e a posição usam as colunas geradas priority_rank e deadline_key, na mesma ordem dos índices
+ * idx_production_orders_company_keyset / idx_production_orders_company_status_keyset (db/init/production-orders.sql):
+ * a página seguinte começa por comparação de tupla direto no índice, sem ordenar as ordens da empresa, e o custo
+ * não cresce com a profundidade. O produto vem no mesmo SELECT (fetch join) para que a conversão em DTO não
+ * dispare uma consulta por ordem.
+ */
+public class ProductionOrderRepositoryImpl implements ProductionOrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductionOrder> findPage(ProductionOrderFilterDTO filter, ProductionOrderKeyset after, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT o FROM ProductionOrder o LEFT JOIN FETCH o.product")
+                .append(" WHERE o.companyId = :companyId AND o.deletedAt IS NULL");
+        Map<String, Object> params = new HashMap<>();
+        params.put("companyId", filter.getCompanyId());
+
+        if (filter.getStatus() != null) {
+            jpql.append(" AND o.status = :status");
+            params.put("status", filter.getStatus());
+        }
+        if (filter.getPriority() != null) {
+            jpql.append(" AND o.priority = :priority");
+            params.put("priority", filter.getPriority());
+        }
+        if (filter.getStartDateFrom() != null) {
+            jpql.append(" AND o.startDate >= :startDateFrom");
+            params.put("startDateFrom", filter.getStartDateFrom());
+        }
+        if (filter.getStartDateTo() != null) {
+            jpql.append(" AND o.startDate <= :startDateTo");
+            params.put("startDateTo", filter.getStartDateTo());
+        }
+        if (filter.getProductId() != null) {
+            jpql.append(" AND o.productId = :productId");
+            params.put("productId", filter.getProductId());
+        }
+        if (filter.getCustomerId() != null) {
+            jpql.append(" AND o.customerId = :customerId");
+            params.put("customerId", filter.getCustomerId());
+        }
+        if (after != null) {
+            jpql.append(" AND (o.priorityRank, o.deadlineKey, o.code) > (:afterRank, :afterDeadline, :afterCode)");
+            params.put("afterRank", after.priorityRank());
+            params.put("afterDeadline", after.deadline());
+            params.put("afterCode", after.code());
+        }
+
+        jpql.append(" ORDER BY o.priorityRank, o.deadlineKey, o.code");
+
+        TypedQuery<ProductionOrder> query = entityManager.createQuery(jpql.toString(), ProductionOrder.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+}
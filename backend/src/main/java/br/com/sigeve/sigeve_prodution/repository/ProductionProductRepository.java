@@ -4,6 +4,7 @@ import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -35,4 +36,9 @@ public interface ProductionProductRepository extends JpaRepository<ProductionPro
      * Busca produtos por tenant
      */
     List<ProductionProduct> findByTenantIdAndDeletedAtIsNull(UUID tenantId);
+
+    /**
+     * Busca id e descrição dos produtos informados (inclusive deletados, para histórico)
+     */
+    List<ProductDescriptionView> findDescriptionsByIdIn(Collection<UUID> ids);
 }
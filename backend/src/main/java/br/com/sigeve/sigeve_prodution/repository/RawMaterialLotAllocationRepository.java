@@ -0,0 +1,22 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.model.RawMaterialLotAllocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RawMaterialLotAllocationRepository extends JpaRepository<RawMaterialLotAllocation, UUID> {
+
+    /**
+     * Busca os lotes consumidos por um movimento de saída
+     */
+    List<RawMaterialLotAllocation> findByRawMaterialMovementIdOrderByCreatedAt(UUID rawMaterialMovementId);
+
+    /**
+     * Busca as saídas que consumiram um lote
+     */
+    List<RawMaterialLotAllocation> findByRawMaterialLotIdOrderByCreatedAt(UUID rawMaterialLotId);
+}
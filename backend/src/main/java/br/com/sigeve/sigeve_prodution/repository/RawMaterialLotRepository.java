@@ -0,0 +1,24 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.model.RawMaterialLot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RawMaterialLotRepository extends JpaRepository<RawMaterialLot, UUID> {
+
+    /**
+     * Busca os lotes de uma matéria-prima por data de entrada
+     */
+    List<RawMaterialLot> findByRawMaterialIdOrderByReceiptDateAscCreatedAtAsc(UUID rawMaterialId);
+
+    /**
+     * Busca os lotes com saldo de uma matéria-prima por data de entrada
+     */
+    List<RawMaterialLot> findByRawMaterialIdAndRemainingQuantityGreaterThanOrderByReceiptDateAscCreatedAtAsc(
+            UUID rawMaterialId, BigDecimal remainingQuantity);
+}
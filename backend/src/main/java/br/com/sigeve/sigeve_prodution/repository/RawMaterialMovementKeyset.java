@@ -0,0 +1,38 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posição (keyset) de um movimento no histórico ordenado por data e ID, ambos decrescentes.
+ * O ID desempata movimentos com a mesma data, portanto a tupla identifica a linha de forma estável.
+ */
+public record RawMaterialMovementKeyset(LocalDateTime movementDate, UUID id) {
+
+    public static RawMaterialMovementKeyset of(RawMaterialMovement movement) {
+        return new RawMaterialMovementKeyset(movement.getMovementDate(), movement.getId());
+    }
+
+    public String encode() {
+        String raw = movementDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RawMaterialMovementKeyset decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new RawMaterialMovementKeyset(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
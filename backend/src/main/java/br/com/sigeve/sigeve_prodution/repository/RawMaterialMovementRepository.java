@@ -2,13 +2,17 @@ package br.com.sigeve.sigeve_prodution.repository;
 
 import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface RawMaterialMovementRepository extends JpaRepository<RawMaterialMovement, UUID> {
+public interface RawMaterialMovementRepository extends JpaRepository<RawMaterialMovement, UUID>, RawMaterialMovementRepositoryCustom {
 
     /**
      * Busca movimentos de uma empresa ordenados por data
@@ -24,4 +28,10 @@ public interface RawMaterialMovementRepository extends JpaRepository<RawMaterial
      * Busca movimentos por origem
      */
     List<RawMaterialMovement> findByOriginId(UUID originId);
+
+    /**
+     * Busca a data do primeiro movimento da empresa
+     */
+    @Query("SELECT MIN(m.movementDate) FROM RawMaterialMovement m WHERE m.companyId = :companyId")
+    Optional<LocalDateTime> findFirstMovementDate(@Param("companyId") UUID companyId);
 }
@@ -0,0 +1,15 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementFilterDTO;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
+
+import java.util.List;
+
+public interface RawMaterialMovementRepositoryCustom {
+
+    /**
+     * Busca uma página de movimentos ordenados por data e ID (mais recentes primeiro),
+     * começando após o keyset informado (ou do início quando nulo)
+     */
+    List<RawMaterialMovement> findPage(RawMaterialMovementFilterDTO filter, RawMaterialMovementKeyset after, int limit);
+}
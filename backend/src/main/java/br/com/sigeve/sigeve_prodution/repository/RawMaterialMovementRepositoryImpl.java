@@ -0,0 +1,72 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementFilterDTO;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementação do histórico paginado por keyset.
+ * Apenas os filtros informados entram no WHERE, mantendo o plano sobre os índices por empresa
+ * (idx_raw_material_movements_company_date_id) ou por matéria-prima
+ * (idx_raw_material_movements_material_date); a próxima página é lida a partir da posição
+ * anterior no índice, sem OFFSET.
+ */
+public class RawMaterialMovementRepositoryImpl implements RawMaterialMovementRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<RawMaterialMovement> findPage(RawMaterialMovementFilterDTO filter, RawMaterialMovementKeyset after, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT m FROM RawMaterialMovement m WHERE m.companyId = :companyId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("companyId", filter.getCompanyId());
+
+        if (filter.getRawMaterialId() != null) {
+            jpql.append(" AND m.rawMaterialId = :rawMaterialId");
+            params.put("rawMaterialId", filter.getRawMaterialId());
+        }
+        if (filter.getWarehouseId() != null) {
+            jpql.append(" AND m.warehouseId = :warehouseId");
+            params.put("warehouseId", filter.getWarehouseId());
+        }
+        if (filter.getMovementType() != null) {
+            jpql.append(" AND m.movementType = :movementType");
+            params.put("movementType", filter.getMovementType());
+        }
+        if (filter.getMovementOrigin() != null) {
+            jpql.append(" AND m.movementOrigin = :movementOrigin");
+            params.put("movementOrigin", filter.getMovementOrigin());
+        }
+        if (filter.getOriginId() != null) {
+            jpql.append(" AND m.originId = :originId");
+            params.put("originId", filter.getOriginId());
+        }
+        if (filter.getDateFrom() != null) {
+            jpql.append(" AND m.movementDate >= :dateFrom");
+            params.put("dateFrom", filter.getDateFrom().atStartOfDay());
+        }
+        if (filter.getDateTo() != null) {
+            jpql.append(" AND m.movementDate < :dateTo");
+            params.put("dateTo", filter.getDateTo().plusDays(1).atStartOfDay());
+        }
+        if (after != null) {
+            jpql.append(" AND (m.movementDate < :afterDate OR (m.movementDate = :afterDate AND m.id < :afterId))");
+            params.put("afterDate", after.movementDate());
+            params.put("afterId", after.id());
+        }
+
+        jpql.append(" ORDER BY m.movementDate DESC, m.id DESC");
+
+        TypedQuery<RawMaterialMovement> query = entityManager.createQuery(jpql.toString(), RawMaterialMovement.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+}
@@ -2,8 +2,12 @@ package br.com.sigeve.sigeve_prodution.repository;
 
 import br.com.sigeve.sigeve_prodution.model.RawMaterialStock;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,9 +16,14 @@ import java.util.UUID;
 public interface RawMaterialStockRepository extends JpaRepository<RawMaterialStock, UUID> {
 
     /**
-     * Busca estoque por matéria-prima
+     * Busca os estoques de uma matéria-prima (um por depósito)
      */
-    Optional<RawMaterialStock> findByRawMaterialId(UUID rawMaterialId);
+    List<RawMaterialStock> findByRawMaterialId(UUID rawMaterialId);
+
+    /**
+     * Busca os estoques de um depósito da empresa
+     */
+    List<RawMaterialStock> findByCompanyIdAndWarehouseId(UUID companyId, UUID warehouseId);
 
     /**
      * Busca estoque por matéria-prima e warehouse
@@ -32,7 +41,97 @@ public interface RawMaterialStockRepository extends JpaRepository<RawMaterialSto
     List<RawMaterialStock> findByCompanyId(UUID companyId);
 
     /**
-     * Busca estoques com quantidade disponível baixa
+     * Busca estoques com quantidade disponível (quantidade - reservado) abaixo de um limite único
+     */
+    @Query("SELECT s FROM RawMaterialStock s WHERE s.companyId = :companyId AND s.quantity - s.reservedQuantity < :quantity")
+    List<RawMaterialStock> findByCompanyIdAndAvailableQuantityLessThan(@Param("companyId") UUID companyId,
+                                                                      @Param("quantity") BigDecimal quantity);
+
+    /**
+     * Busca matérias-primas com disponível (todos os depósitos) no limite de cada uma ou abaixo dele:
+     * ponto de pedido (ou mínimo, sem ponto de pedido) ou estoque mínimo, conforme {@code basis}.
+     * Parte só das matérias-primas com limite (predicado do índice parcial idx_raw_materials_company_stock_limits)
+     * e soma o saldo de cada uma pelo índice idx_raw_material_stocks_material_totals.
+     */
+    @Query(value = "SELECT r.raw_material_id AS rawMaterialId, r.code AS code, r.name AS name, r.unit_type AS unitType, " +
+                   "s.quantity AS quantity, s.reserved_quantity AS reservedQuantity, " +
+                   "r.min_stock AS minStock, r.reorder_point AS reorderPoint, t.threshold AS threshold, " +
+                   "r.lead_time_days AS leadTimeDays " +
+                   "FROM tab_raw_materials r " +
+                   "CROSS JOIN LATERAL (SELECT CASE WHEN :basis = 'MIN_STOCK' THEN r.min_stock " +
+                   "    ELSE COALESCE(NULLIF(r.reorder_point, 0), r.min_stock) END AS threshold) t " +
+                   "CROSS JOIN LATERAL (SELECT COALESCE(SUM(quantity), 0) AS quantity, " +
+                   "    COALESCE(SUM(reserved_quantity), 0) AS reserved_quantity " +
+                   "    FROM tab_raw_material_stocks WHERE raw_material_id = r.raw_material_id) s " +
+                   "WHERE r.company_id = :companyId AND r.deleted_at IS NULL AND r.is_active AND r.stock_control " +
+                   "AND (r.reorder_point > 0 OR r.min_stock > 0) " +
+                   "AND t.threshold > 0 " +
+                   "AND s.quantity - s.reserved_quantity <= t.threshold " +
+                   "ORDER BY r.code",
+           nativeQuery = true)
+    List<LowStockView> findBelowMaterialLimit(@Param("companyId") UUID companyId, @Param("basis") String basis);
+
+    /**
+     * Soma quantidade e reservado de todos os depósitos, agrupado por matéria-prima
+     */
+    @Query("SELECT s.rawMaterialId AS rawMaterialId, SUM(s.quantity) AS quantity, SUM(s.reservedQuantity) AS reservedQuantity, " +
+           "COUNT(s) AS locationCount " +
+           "FROM RawMaterialStock s WHERE s.companyId = :companyId GROUP BY s.rawMaterialId")
+    List<RawMaterialStockTotalView> sumByRawMaterial(@Param("companyId") UUID companyId);
+
+    /**
+     * Busca as empresas que possuem estoque
+     */
+    @Query("SELECT DISTINCT s.companyId FROM RawMaterialStock s")
+    List<UUID> findCompanyIds();
+
+    /**
+     * Lança uma variação de quantidade no estoque padrão (sem depósito) em uma única instrução atômica:
+     * cria a linha se não existir ou soma à quantidade atual (chave: índice parcial uq_raw_material_stocks_default)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tab_raw_material_stocks " +
+                   "(raw_material_stock_id, tenant_id, company_id, raw_material_id, warehouse_id, quantity, reserved_quantity, last_movement_date, created_at) " +
+                   "VALUES (gen_random_uuid(), :tenantId, :companyId, :rawMaterialId, NULL, :delta, 0, now(), now()) " +
+                   "ON CONFLICT (company_id, raw_material_id) WHERE warehouse_id IS NULL " +
+                   "DO UPDATE SET quantity = tab_raw_material_stocks.quantity + EXCLUDED.quantity, " +
+                   "last_movement_date = EXCLUDED.last_movement_date, updated_at = now()",
+           nativeQuery = true)
+    int applyQuantityDelta(@Param("tenantId") UUID tenantId,
+                           @Param("companyId") UUID companyId,
+                           @Param("rawMaterialId") UUID rawMaterialId,
+                           @Param("delta") BigDecimal delta);
+
+    /**
+     * Lança uma variação de quantidade no estoque de um depósito em uma única instrução atômica
+     * (chave: uq_stock_material_warehouse, que vale para depósito informado)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tab_raw_material_stocks " +
+                   "(raw_material_stock_id, tenant_id, company_id, raw_material_id, warehouse_id, quantity, reserved_quantity, last_movement_date, created_at) " +
+                   "VALUES (gen_random_uuid(), :tenantId, :companyId, :rawMaterialId, :warehouseId, :delta, 0, now(), now()) " +
+                   "ON CONFLICT (company_id, raw_material_id, warehouse_id) " +
+                   "DO UPDATE SET quantity = tab_raw_material_stocks.quantity + EXCLUDED.quantity, " +
+                   "last_movement_date = EXCLUDED.last_movement_date, updated_at = now()",
+           nativeQuery = true)
+    int applyWarehouseQuantityDelta(@Param("tenantId") UUID tenantId,
+                                    @Param("companyId") UUID companyId,
+                                    @Param("rawMaterialId") UUID rawMaterialId,
+                                    @Param("warehouseId") UUID warehouseId,
+                                    @Param("delta") BigDecimal delta);
+
+    /**
+     * Retira uma quantidade do estoque de um depósito (nulo = estoque padrão) somente se houver disponível
+     * (quantidade - reservado) suficiente; devolve 0 quando não há
      */
-    List<RawMaterialStock> findByCompanyIdAndAvailableQuantityLessThan(UUID companyId, java.math.BigDecimal quantity);
+    @Modifying
+    @Query("UPDATE RawMaterialStock s SET s.quantity = s.quantity - :quantity, " +
+           "s.lastMovementDate = LOCAL_DATETIME, s.updatedAt = LOCAL_DATETIME " +
+           "WHERE s.companyId = :companyId AND s.rawMaterialId = :rawMaterialId " +
+           "AND (s.warehouseId = :warehouseId OR (:warehouseId IS NULL AND s.warehouseId IS NULL)) " +
+           "AND s.quantity - s.reservedQuantity >= :quantity")
+    int withdrawAvailable(@Param("companyId") UUID companyId,
+                          @Param("rawMaterialId") UUID rawMaterialId,
+                          @Param("warehouseId") UUID warehouseId,
+                          @Param("quantity") BigDecimal quantity);
 }
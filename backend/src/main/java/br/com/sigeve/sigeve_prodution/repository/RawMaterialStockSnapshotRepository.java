@@ -0,0 +1,35 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.model.RawMaterialStockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RawMaterialStockSnapshotRepository extends JpaRepository<RawMaterialStockSnapshot, UUID> {
+
+    /**
+     * Busca as fotografias de uma empresa em uma data
+     */
+    List<RawMaterialStockSnapshot> findByCompanyIdAndSnapshotDate(UUID companyId, LocalDate snapshotDate);
+
+    /**
+     * Busca a data da fotografia mais recente da empresa
+     */
+    @Query("SELECT MAX(s.snapshotDate) FROM RawMaterialStockSnapshot s WHERE s.companyId = :companyId")
+    Optional<LocalDate> findLatestSnapshotDate(@Param("companyId") UUID companyId);
+
+    /**
+     * Remove as fotografias da empresa a partir de uma data (invalidadas por movimento retroativo)
+     */
+    @Modifying
+    @Query("DELETE FROM RawMaterialStockSnapshot s WHERE s.companyId = :companyId AND s.snapshotDate >= :fromDate")
+    int deleteFrom(@Param("companyId") UUID companyId, @Param("fromDate") LocalDate fromDate);
+}
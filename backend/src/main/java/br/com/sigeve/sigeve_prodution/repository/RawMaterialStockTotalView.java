@@ -0,0 +1,18 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Projeção do estoque consolidado (todos os depósitos) por matéria-prima
+ */
+public interface RawMaterialStockTotalView {
+
+    UUID getRawMaterialId();
+
+    BigDecimal getQuantity();
+
+    BigDecimal getReservedQuantity();
+
+    Long getLocationCount();
+}
@@ -0,0 +1,16 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Projeção de quantidade reservada agregada por ordem de produção e matéria-prima
+ */
+public interface ReservedQuantityView {
+
+    UUID getProductionOrderId();
+
+    UUID getRawMaterialId();
+
+    BigDecimal getQuantity();
+}
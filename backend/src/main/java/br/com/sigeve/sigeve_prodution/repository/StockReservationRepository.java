@@ -0,0 +1,39 @@
+package br.com.sigeve.sigeve_prodution.repository;
+
+import br.com.sigeve.sigeve_prodution.enums.ReservationStatus;
+import br.com.sigeve.sigeve_prodution.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, UUID> {
+
+    /**
+     * Busca reservas de uma ordem de produção
+     */
+    List<StockReservation> findByProductionOrderIdOrderByCreatedAt(UUID productionOrderId);
+
+    /**
+     * Busca reservas de uma ordem por status
+     */
+    List<StockReservation> findByProductionOrderIdAndStatus(UUID productionOrderId, ReservationStatus status);
+
+    /**
+     * Verifica se a ordem possui reservas no status informado
+     */
+    boolean existsByProductionOrderIdAndStatus(UUID productionOrderId, ReservationStatus status);
+
+    /**
+     * Soma as reservas no status informado, agrupadas por ordem de produção e matéria-prima
+     */
+    @Query("SELECT r.productionOrderId AS productionOrderId, r.rawMaterialId AS rawMaterialId, SUM(r.quantity) AS quantity " +
+           "FROM StockReservation r WHERE r.companyId = :companyId AND r.status = :status " +
+           "GROUP BY r.productionOrderId, r.rawMaterialId")
+    List<ReservedQuantityView> sumByOrderAndRawMaterial(@Param("companyId") UUID companyId,
+                                                        @Param("status") ReservationStatus status);
+}
@@ -0,0 +1,241 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
+import br.com.sigeve.sigeve_prodution.repository.CompositionRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Cache de uma explosão de estrutura (BOM), válido apenas durante uma requisição ou execução.
+ * Carrega composições e itens nível a nível (uma consulta por nível, não por item) e memoriza
+ * a necessidade por unidade de cada composição, de modo que um semiacabado usado em vários
+ * produtos é explodido uma única vez.
+ */
+public class BomExplosionContext {
+
+    private static final int QUERY_CHUNK_SIZE = 1000;
+
+    private final UUID companyId;
+    private final boolean includeOptional;
+    private final LocalDate referenceDate;
+    private final CompositionRepository compositionRepository;
+    private final CompositionItemRepository compositionItemRepository;
+
+    private final Set<UUID> loadedProducts = new HashSet<>();
+    private final Map<UUID, Composition> activeCompositionByProduct = new HashMap<>();
+    private final Map<UUID, List<CompositionItem>> itemsByComposition = new HashMap<>();
+    private final Map<UUID, UnitRequirement> unitRequirements = new HashMap<>();
+
+    BomExplosionContext(UUID companyId, boolean includeOptional, LocalDate referenceDate,
+                        CompositionRepository compositionRepository,
+                        CompositionItemRepository compositionItemRepository) {
+        this.companyId = companyId;
+        this.includeOptional = includeOptional;
+        this.referenceDate = referenceDate;
+        this.compositionRepository = compositionRepository;
+        this.compositionItemRepository = compositionItemRepository;
+    }
+
+    /**
+     * Carrega de uma vez as estruturas completas dos produtos informados
+     */
+    public void preloadProducts(Collection<UUID> productIds) {
+        loadLevels(loadActiveCompositions(productIds));
+    }
+
+    /**
+     * Composição vigente do produto: ativa, dentro do período de validade e de maior versão
+     */
+    public Optional<Composition> activeComposition(UUID productId) {
+        if (!loadedProducts.contains(productId)) {
+            preloadProducts(List.of(productId));
+        }
+        return Optional.ofNullable(activeCompositionByProduct.get(productId));
+    }
+
+    /**
+     * Necessidade por unidade do produto (via composição vigente), se houver composição
+     */
+    public Optional<UnitRequirement> unitRequirementOfProduct(UUID productId) {
+        return activeComposition(productId).map(this::unitRequirement);
+    }
+
+    /**
+     * Necessidade por unidade da composição, com os semiacabados já explodidos até as folhas
+     */
+    public UnitRequirement unitRequirement(Composition composition) {
+        if (!itemsByComposition.containsKey(composition.getId())) {
+            loadLevels(List.of(composition));
+        }
+        return unitRequirement(composition, new LinkedHashSet<>());
+    }
+
+    /**
+     * Itens ativos da composição em ordem de sequência, carregando a estrutura abaixo dela se preciso
+     */
+    public List<CompositionItem> items(Composition composition) {
+        if (!itemsByComposition.containsKey(composition.getId())) {
+            loadLevels(List.of(composition));
+        }
+        return itemsByComposition.getOrDefault(composition.getId(), List.of());
+    }
+
+    private UnitRequirement unitRequirement(Composition composition, LinkedHashSet<UUID> path) {
+        UnitRequirement cached = unitRequirements.get(composition.getId());
+        if (cached != null) {
+            return cached;
+        }
+        if (!path.add(composition.getProductionProductId())) {
+            throw new IllegalStateException("Ciclo detectado na estrutura do produto " +
+                    composition.getProductionProductId() + ": " + path);
+        }
+
+        Map<RequirementKey, Requirement> requirements = new LinkedHashMap<>();
+        BigDecimal unitCost = BigDecimal.ZERO;
+        int levels = 1;
+
+        for (CompositionItem item : itemsByComposition.getOrDefault(composition.getId(), List.of())) {
+            if (item.isOptional() && !includeOptional) {
+                continue;
+            }
+            BigDecimal quantity = item.getQuantityWithLoss();
+
+            Composition subComposition = item.isProduct()
+                    ? activeCompositionByProduct.get(item.getReferenceId())
+                    : null;
+            if (subComposition != null) {
+                UnitRequirement sub = unitRequirement(subComposition, path);
+                for (Requirement requirement : sub.requirements()) {
+                    merge(requirements, requirement.scale(quantity));
+                }
+                unitCost = unitCost.add(sub.unitCost().multiply(quantity));
+                levels = Math.max(levels, sub.levels() + 1);
+                continue;
+            }
+
+            // Matéria-prima, serviço ou semiacabado sem composição vigente (tratado como item folha)
+            BigDecimal cost = item.getUnitCost() != null ? item.getUnitCost().multiply(quantity) : BigDecimal.ZERO;
+            merge(requirements, new Requirement(item.getItemType(), item.getReferenceId(), item.getUnitType(), quantity, cost));
+            unitCost = unitCost.add(cost);
+        }
+
+        path.remove(composition.getProductionProductId());
+        UnitRequirement result = new UnitRequirement(composition, List.copyOf(requirements.values()), unitCost, levels);
+        unitRequirements.put(composition.getId(), result);
+        return result;
+    }
+
+    private void merge(Map<RequirementKey, Requirement> requirements, Requirement requirement) {
+        requirements.merge(requirement.key(), requirement, Requirement::plus);
+    }
+
+    private void loadLevels(Collection<Composition> roots) {
+        List<Composition> frontier = roots.stream()
+                .filter(composition -> !itemsByComposition.containsKey(composition.getId()))
+                .collect(Collectors.toList());
+
+        while (!frontier.isEmpty()) {
+            List<UUID> compositionIds = frontier.stream().map(Composition::getId).collect(Collectors.toList());
+            compositionIds.forEach(id -> itemsByComposition.put(id, new ArrayList<>()));
+
+            Set<UUID> subProductIds = new HashSet<>();
+            for (List<UUID> chunk : partition(compositionIds)) {
+                for (CompositionItem item : compositionItemRepository.findByCompositionIdInAndDeletedAtIsNull(chunk)) {
+                    itemsByComposition.get(item.getCompositionId()).add(item);
+                    if (item.isProduct() && !loadedProducts.contains(item.getReferenceId())) {
+                        subProductIds.add(item.getReferenceId());
+                    }
+                }
+            }
+            compositionIds.forEach(id -> itemsByComposition.get(id)
+                    .sort(Comparator.comparing(CompositionItem::getSequence, Comparator.nullsLast(Comparator.naturalOrder()))));
+
+            frontier = loadActiveCompositions(subProductIds).stream()
+                    .filter(composition -> !itemsByComposition.containsKey(composition.getId()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private List<Composition> loadActiveCompositions(Collection<UUID> productIds) {
+        List<UUID> pending = productIds.stream()
+                .filter(loadedProducts::add)
+                .collect(Collectors.toList());
+
+        for (List<UUID> chunk : partition(pending)) {
+            for (Composition composition : compositionRepository
+                    .findByCompanyIdAndProductionProductIdInAndIsActiveTrueAndDeletedAtIsNull(companyId, chunk)) {
+                if (!isEffective(composition)) {
+                    continue;
+                }
+                activeCompositionByProduct.merge(composition.getProductionProductId(), composition,
+                        (current, candidate) -> candidate.getVersion() > current.getVersion() ? candidate : current);
+            }
+        }
+
+        return productIds.stream()
+                .map(activeCompositionByProduct::get)
+                .filter(composition -> composition != null)
+                .collect(Collectors.toList());
+    }
+
+    private boolean isEffective(Composition composition) {
+        return (composition.getEffectiveDate() == null || !composition.getEffectiveDate().isAfter(referenceDate))
+                && (composition.getExpirationDate() == null || !composition.getExpirationDate().isBefore(referenceDate));
+    }
+
+    private static <T> List<List<T>> partition(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += QUERY_CHUNK_SIZE) {
+            chunks.add(values.subList(start, Math.min(start + QUERY_CHUNK_SIZE, values.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Necessidade explodida para uma unidade do produto da composição
+     */
+    public record UnitRequirement(Composition composition, List<Requirement> requirements,
+                                  BigDecimal unitCost, int levels) {
+    }
+
+    /**
+     * Necessidade de um item folha (matéria-prima, serviço ou semiacabado sem composição)
+     */
+    public record Requirement(CompositionItemType itemType, UUID referenceId, UnitType unitType,
+                              BigDecimal quantity, BigDecimal totalCost) {
+
+        RequirementKey key() {
+            return new RequirementKey(itemType, referenceId);
+        }
+
+        Requirement scale(BigDecimal factor) {
+            return new Requirement(itemType, referenceId, unitType, quantity.multiply(factor), totalCost.multiply(factor));
+        }
+
+        Requirement plus(Requirement other) {
+            return new Requirement(itemType, referenceId, unitType,
+                    quantity.add(other.quantity), totalCost.add(other.totalCost));
+        }
+    }
+
+    private record RequirementKey(CompositionItemType itemType, UUID referenceId) {
+    }
+}
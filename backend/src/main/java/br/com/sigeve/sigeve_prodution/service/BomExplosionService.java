@@ -0,0 +1,95 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.BomExplosionDTO;
+import br.com.sigeve.sigeve_prodution.dto.BomRequirementDTO;
+import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
+import br.com.sigeve.sigeve_prodution.repository.CompositionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Explosão de estrutura (BOM) multinível: percorre composições aninhadas através dos itens
+ * do tipo PRODUCT e devolve a necessidade achatada de matérias-primas e serviços para uma quantidade.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class BomExplosionService {
+
+    private static final int SCALE = 4;
+
+    private final CompositionRepository compositionRepository;
+    private final CompositionItemRepository compositionItemRepository;
+
+    /**
+     * Cria um contexto de explosão para a empresa; reutilize o mesmo contexto para explodir
+     * vários produtos aproveitando as estruturas já carregadas e calculadas
+     */
+    public BomExplosionContext newContext(UUID companyId, boolean includeOptional) {
+        return new BomExplosionContext(companyId, includeOptional, LocalDate.now(),
+                compositionRepository, compositionItemRepository);
+    }
+
+    public BomExplosionDTO explodeComposition(UUID compositionId, BigDecimal quantity, boolean includeOptional) {
+        log.debug("Explodindo estrutura da composição: {}", compositionId);
+        validateQuantity(quantity);
+
+        Composition composition = compositionRepository.findByIdAndDeletedAtIsNull(compositionId)
+                .orElseThrow(() -> new IllegalArgumentException("Composição não encontrada: " + compositionId));
+
+        BomExplosionContext context = newContext(composition.getCompanyId(), includeOptional);
+        return toDTO(context.unitRequirement(composition), quantity);
+    }
+
+    public BomExplosionDTO explodeProduct(UUID companyId, UUID productionProductId, BigDecimal quantity, boolean includeOptional) {
+        log.debug("Explodindo estrutura do produto: {}", productionProductId);
+        validateQuantity(quantity);
+
+        BomExplosionContext context = newContext(companyId, includeOptional);
+        return context.unitRequirementOfProduct(productionProductId)
+                .map(unitRequirement -> toDTO(unitRequirement, quantity))
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Produto sem composição vigente: " + productionProductId));
+    }
+
+    private void validateQuantity(BigDecimal quantity) {
+        if (quantity == null || quantity.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Quantidade deve ser maior que zero");
+        }
+    }
+
+    private BomExplosionDTO toDTO(BomExplosionContext.UnitRequirement unitRequirement, BigDecimal quantity) {
+        Composition composition = unitRequirement.composition();
+
+        List<BomRequirementDTO> requirements = unitRequirement.requirements().stream()
+                .map(requirement -> new BomRequirementDTO(
+                        requirement.itemType(),
+                        requirement.referenceId(),
+                        requirement.unitType(),
+                        requirement.quantity().multiply(quantity).setScale(SCALE, RoundingMode.HALF_UP),
+                        requirement.totalCost().multiply(quantity).setScale(SCALE, RoundingMode.HALF_UP)))
+                .collect(Collectors.toList());
+
+        BomExplosionDTO dto = new BomExplosionDTO();
+        dto.setCompositionId(composition.getId());
+        dto.setCompositionName(composition.getName());
+        dto.setProductionProductId(composition.getProductionProductId());
+        dto.setQuantity(quantity);
+        dto.setLevels(unitRequirement.levels());
+        dto.setUnitCost(unitRequirement.unitCost().setScale(SCALE, RoundingMode.HALF_UP));
+        dto.setTotalCost(unitRequirement.unitCost().multiply(quantity).setScale(SCALE, RoundingMode.HALF_UP));
+        dto.setRequirements(requirements);
+        return dto;
+    }
+}
@@ -0,0 +1,245 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.enums.PriorityLevel;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.enums.SchedulingRule;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderKeyset;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Plano de capacidade finita de uma empresa, em baldes diários por etapa a partir de {@code origin} (dia 0).
+ * As ordens são carregadas uma a uma na ordem de despacho (prioridade e, entre iguais, a {@link SchedulingRule}):
+ * cada etapa do roteiro ocupa a capacidade livre a partir do dia em que a etapa anterior terminou, podendo
+ * continuar no mesmo dia. Etapas terceirizadas não consomem capacidade própria: contam como prazo, o tempo
+ * da etapa dividido pela sua capacidade diária.
+ * <p>
+ * O plano é montado uma única vez e não é alterado depois: quando ordens mudam, o chamador descarta o plano e
+ * monta outro. Recarregar só a fila a partir da ordem alterada não compensa, porque uma alteração de quantidade,
+ * aprovação ou cancelamento muda a carga total e desloca todas as ordens seguintes; a cauda inteira seria
+ * reprogramada e desfazer a carga anterior custava mais do que a programação completa.
+ * <p>
+ * Não é thread-safe: o chamador serializa o acesso.
+ */
+class CapacityPlan {
+
+    private final LocalDate origin;
+    private final SchedulingRule rule;
+    private final Step[] steps;
+    private final NavigableSet<Job> sequence;
+    private final Map<UUID, Job> jobs = new HashMap<>();
+
+    CapacityPlan(LocalDate origin, SchedulingRule rule, List<ProductionStep> routing) {
+        this.origin = origin;
+        this.rule = rule;
+        this.steps = routing.stream().map(Step::new).toArray(Step[]::new);
+        this.sequence = new TreeSet<>(Comparator.<Job>comparingInt(job -> job.priorityRank)
+                .thenComparingDouble(job -> job.dispatchKey)
+                .thenComparing(job -> job.code, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(job -> job.id));
+    }
+
+    LocalDate origin() {
+        return origin;
+    }
+
+    List<Step> steps() {
+        return Arrays.asList(steps);
+    }
+
+    Collection<Job> sequence() {
+        return sequence;
+    }
+
+    Job job(UUID id) {
+        return jobs.get(id);
+    }
+
+    int positionOf(Job job) {
+        return sequence.headSet(job, false).size() + 1;
+    }
+
+    /**
+     * Monta a ordem com o tempo de cada etapa (tempo estimado por unidade x saldo a produzir)
+     */
+    Job newJob(UUID id, String code, ProductionOrderStatus status, PriorityLevel priority,
+               LocalDate startDate, LocalDate deadline, BigDecimal remainingQuantity) {
+        Job job = new Job(id, code, status, priority, deadline, remainingQuantity, steps.length);
+        // Ordens em andamento já estão no chão de fábrica; as aprovadas esperam a data de início
+        job.releaseDay = status != ProductionOrderStatus.IN_PROGRESS && startDate != null
+                ? (int) Math.max(0, ChronoUnit.DAYS.between(origin, startDate)) : 0;
+
+        double workDays = 0;
+        for (int i = 0; i < steps.length; i++) {
+            job.minutes[i] = BigDecimal.valueOf(steps[i].minutesPerUnit).multiply(remainingQuantity)
+                    .setScale(0, RoundingMode.CEILING).longValueExact();
+            workDays += steps[i].outsourced
+                    ? ceilDiv(job.minutes[i], steps[i].capacity)
+                    : (double) job.minutes[i] / steps[i].capacity;
+        }
+
+        if (deadline == null) {
+            job.dispatchKey = Double.POSITIVE_INFINITY;
+        } else if (rule == SchedulingRule.CRITICAL_RATIO) {
+            // Dias até o prazo / dias de trabalho restantes: abaixo de 1 a ordem já não cabe no prazo
+            job.dispatchKey = ChronoUnit.DAYS.between(origin, deadline) / Math.max(workDays, 1d / 1440);
+        } else {
+            job.dispatchKey = deadline.toEpochDay();
+        }
+        return job;
+    }
+
+    /**
+     * Carga inicial: todas as ordens, na ordem de despacho
+     */
+    void loadAll(Collection<Job> all) {
+        for (Job job : all) {
+            jobs.put(job.id, job);
+            sequence.add(job);
+        }
+        sequence.forEach(this::place);
+    }
+
+    private void place(Job job) {
+        int earliest = job.releaseDay;
+        for (int i = 0; i < steps.length; i++) {
+            Step step = steps[i];
+            long minutes = job.minutes[i];
+            if (minutes == 0) {
+                job.startDay[i] = earliest;
+                job.endDay[i] = earliest;
+                continue;
+            }
+            if (step.outsourced) {
+                job.startDay[i] = earliest;
+                job.endDay[i] = earliest + (int) ceilDiv(minutes, step.capacity) - 1;
+                earliest = job.endDay[i];
+                continue;
+            }
+
+            // Dias antes de firstFree estão cheios
+            int day = Math.max(earliest, step.firstFree);
+            int start = -1;
+            long left = minutes;
+            while (left > 0) {
+                int free = step.capacity - step.used(day);
+                if (free > 0) {
+                    int take = (int) Math.min(free, left);
+                    step.add(day, take);
+                    if (start < 0) {
+                        start = day;
+                    }
+                    left -= take;
+                }
+                day++;
+            }
+            int end = day - 1;
+            job.startDay[i] = start;
+            job.endDay[i] = end;
+            while (step.used(step.firstFree) >= step.capacity) {
+                step.firstFree++;
+            }
+            earliest = end;
+        }
+        job.finishDay = steps.length > 0 ? job.endDay[steps.length - 1] : job.releaseDay;
+    }
+
+    static final class Step {
+        final UUID id;
+        final String name;
+        final Integer sequence;
+        final int minutesPerUnit;
+        final int capacity;
+        final boolean outsourced;
+        private int[] used = new int[64];
+        private int firstFree;
+
+        private Step(ProductionStep step) {
+            this.id = step.getId();
+            this.name = step.getName();
+            this.sequence = step.getSequence();
+            this.minutesPerUnit = step.getEstimatedTime() != null ? step.getEstimatedTime() : 0;
+            this.capacity = step.getEffectiveDailyCapacityMinutes();
+            this.outsourced = step.isOutsourced();
+        }
+
+        int used(int day) {
+            return day < used.length ? used[day] : 0;
+        }
+
+        private void add(int day, int minutes) {
+            if (day >= used.length) {
+                used = Arrays.copyOf(used, Math.max(used.length * 2, day + 1));
+            }
+            used[day] += minutes;
+        }
+    }
+
+    static final class Job {
+        final UUID id;
+        final String code;
+        final ProductionOrderStatus status;
+        final PriorityLevel priority;
+        final int priorityRank;
+        final LocalDate deadline;
+        final BigDecimal remainingQuantity;
+        final long[] minutes;
+        final int[] startDay;
+        final int[] endDay;
+        private double dispatchKey;
+        int releaseDay;
+        int finishDay;
+
+        private Job(UUID id, String code, ProductionOrderStatus status, PriorityLevel priority, LocalDate deadline,
+                    BigDecimal remainingQuantity, int stepCount) {
+            this.id = id;
+            this.code = code;
+            this.status = status;
+            this.priority = priority;
+            this.priorityRank = ProductionOrderKeyset.rankOf(priority);
+            this.deadline = deadline;
+            this.remainingQuantity = remainingQuantity;
+            this.minutes = new long[stepCount];
+            this.startDay = new int[stepCount];
+            this.endDay = new int[stepCount];
+        }
+
+        /**
+         * Primeiro dia com trabalho programado (ou a liberação, se nenhuma etapa tem tempo)
+         */
+        int plannedStartDay() {
+            for (int i = 0; i < minutes.length; i++) {
+                if (minutes[i] > 0) {
+                    return startDay[i];
+                }
+            }
+            return releaseDay;
+        }
+    }
+
+    private static long ceilDiv(long minutes, int capacity) {
+        return (minutes + capacity - 1) / capacity;
+    }
+
+    static List<Integer> loadedMinutes(Step step, int days) {
+        List<Integer> loaded = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            loaded.add(step.used(day));
+        }
+        return loaded;
+    }
+}
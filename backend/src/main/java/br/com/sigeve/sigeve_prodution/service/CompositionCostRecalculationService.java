@@ -0,0 +1,237 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.CostRecalculationJobDTO;
+import br.com.sigeve.sigeve_prodution.enums.RecalculationJobStatus;
+import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recálculo em massa do custo total das composições de uma empresa.
+ * As composições são divididas em lotes; cada lote carrega seus itens em uma única consulta,
+ * calcula os totais em memória e grava apenas os totais alterados com batch update JDBC.
+ * Os lotes são processados em paralelo no executor {@code compositionCostExecutor}.
+ */
+@Service
+@Slf4j
+public class CompositionCostRecalculationService {
+
+    private static final String SELECT_COMPOSITIONS =
+            "SELECT composition_id, total_cost FROM tab_compositions " +
+            "WHERE company_id = ? AND deleted_at IS NULL ORDER BY composition_id";
+
+    private static final String SELECT_ITEMS =
+            "SELECT composition_id, quantity, loss_percentage, unit_cost FROM tab_composition_items " +
+            "WHERE composition_id IN (:compositionIds) AND deleted_at IS NULL";
+
+    private static final String UPDATE_TOTAL_COST =
+            "UPDATE tab_compositions SET total_cost = ?, updated_at = ?, updated_by = ? WHERE composition_id = ?";
+
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final int chunkSize;
+
+    private final Map<UUID, JobState> jobs = new ConcurrentHashMap<>();
+    private final Map<UUID, JobState> runningJobByCompany = new ConcurrentHashMap<>();
+
+    public CompositionCostRecalculationService(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("compositionCostExecutor") ThreadPoolTaskExecutor executor,
+            @Value("${app.composition-cost.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Recalcula os custos de todas as composições da empresa e aguarda o término
+     */
+    public CostRecalculationJobDTO recalculateCompany(UUID companyId, String updatedBy) {
+        JobState job = submit(companyId, updatedBy);
+        job.completion.join();
+        return job.toDTO();
+    }
+
+    /**
+     * Dispara o recálculo em segundo plano e retorna o job para acompanhamento do progresso.
+     * Se já houver um recálculo em andamento para a empresa, retorna esse job.
+     */
+    public CostRecalculationJobDTO recalculateCompanyAsync(UUID companyId, String updatedBy) {
+        return submit(companyId, updatedBy).toDTO();
+    }
+
+    /**
+     * Busca o status de um job de recálculo
+     */
+    public Optional<CostRecalculationJobDTO> findJob(UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(JobState::toDTO);
+    }
+
+    /**
+     * Registra o job e agenda o recálculo. O job entra em {@code jobs} antes de ser publicado como o job em andamento
+     * da empresa, de modo que quem o encontra por um dos mapas sempre o encontra pelo outro. A leitura das composições
+     * também roda no executor, para que a chamada assíncrona retorne sem esperar por ela.
+     */
+    private JobState submit(UUID companyId, String updatedBy) {
+        evictFinishedJobs();
+
+        JobState job = new JobState(UUID.randomUUID(), companyId, updatedBy);
+        jobs.put(job.jobId, job);
+        JobState running = runningJobByCompany.putIfAbsent(companyId, job);
+        if (running != null) {
+            jobs.remove(job.jobId);
+            log.info("Recálculo de custos já em andamento para a empresa {}: job {}", companyId, running.jobId);
+            return running;
+        }
+
+        try {
+            CompletableFuture.runAsync(() -> start(job), executor)
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            finish(job, error);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            finish(job, e);
+        }
+        return job;
+    }
+
+    /**
+     * Lê as composições e distribui os lotes; não espera por eles, para não ocupar uma thread do executor
+     */
+    private void start(JobState job) {
+        List<Object[]> compositions = jdbcTemplate.query(SELECT_COMPOSITIONS,
+                (rs, rowNum) -> new Object[]{rs.getObject("composition_id", UUID.class), rs.getBigDecimal("total_cost")},
+                job.companyId);
+        job.total = compositions.size();
+        log.info("Iniciando recálculo de custos de {} composições da empresa {} (job {})",
+                compositions.size(), job.companyId, job.jobId);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int start = 0; start < compositions.size(); start += chunkSize) {
+            List<Object[]> chunk = compositions.subList(start, Math.min(start + chunkSize, compositions.size()));
+            futures.add(CompletableFuture.runAsync(() -> processChunk(job, chunk), executor));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> finish(job, error));
+    }
+
+    private void processChunk(JobState job, List<Object[]> chunk) {
+        Map<UUID, BigDecimal> currentTotals = new HashMap<>();
+        for (Object[] row : chunk) {
+            currentTotals.put((UUID) row[0], (BigDecimal) row[1]);
+        }
+
+        Map<UUID, BigDecimal> totals = new HashMap<>();
+        currentTotals.keySet().forEach(id -> totals.put(id, BigDecimal.ZERO));
+
+        namedParameterJdbcTemplate.query(SELECT_ITEMS,
+                new MapSqlParameterSource("compositionIds", currentTotals.keySet()),
+                rs -> {
+                    CompositionItem item = new CompositionItem();
+                    item.setQuantity(rs.getBigDecimal("quantity"));
+                    item.setLossPercentage(rs.getBigDecimal("loss_percentage"));
+                    item.setUnitCost(rs.getBigDecimal("unit_cost"));
+                    item.calculateTotalCost();
+                    if (item.getTotalCost() != null) {
+                        totals.merge(rs.getObject("composition_id", UUID.class), item.getTotalCost(), BigDecimal::add);
+                    }
+                });
+
+        List<Object[]> updates = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        totals.forEach((compositionId, total) -> {
+            BigDecimal current = currentTotals.get(compositionId);
+            if (current == null || current.compareTo(total) != 0) {
+                updates.add(new Object[]{total, now, job.updatedBy, compositionId});
+            }
+        });
+
+        if (!updates.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_TOTAL_COST, updates));
+        }
+
+        job.updated.addAndGet(updates.size());
+        job.processed.addAndGet(chunk.size());
+    }
+
+    private void finish(JobState job, Throwable error) {
+        job.finishedAt = LocalDateTime.now();
+        if (error == null) {
+            job.status = RecalculationJobStatus.COMPLETED;
+            log.info("Recálculo de custos da empresa {} concluído: {} composições, {} atualizadas em {} ms",
+                    job.companyId, job.processed.get(), job.updated.get(),
+                    Duration.between(job.startedAt, job.finishedAt).toMillis());
+        } else {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            job.status = RecalculationJobStatus.FAILED;
+            job.errorMessage = cause.getMessage();
+            log.error("Erro no recálculo de custos da empresa {} (job {})", job.companyId, job.jobId, cause);
+        }
+        runningJobByCompany.remove(job.companyId, job);
+        job.completion.complete(null);
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime limit = LocalDateTime.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(limit));
+    }
+
+    private static class JobState {
+        private final UUID jobId;
+        private final UUID companyId;
+        private final String updatedBy;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger updated = new AtomicInteger();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private volatile int total;
+        private volatile RecalculationJobStatus status = RecalculationJobStatus.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String errorMessage;
+
+        private JobState(UUID jobId, UUID companyId, String updatedBy) {
+            this.jobId = jobId;
+            this.companyId = companyId;
+            this.updatedBy = updatedBy;
+        }
+
+        private CostRecalculationJobDTO toDTO() {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            return new CostRecalculationJobDTO(jobId, companyId, status, total, processed.get(), updated.get(),
+                    startedAt, finishedAt, Duration.between(startedAt, end).toMillis(), errorMessage);
+        }
+    }
+}
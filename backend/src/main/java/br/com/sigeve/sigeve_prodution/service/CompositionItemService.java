@@ -3,19 +3,30 @@ package br.com.sigeve.sigeve_prodution.service;
 import br.com.sigeve.sigeve_prodution.dto.CompositionItemDTO;
 import br.com.sigeve.sigeve_prodution.dto.CompositionCostSummaryDTO;
 import br.com.sigeve.sigeve_prodution.dto.CompositionItemCostDTO;
+import br.com.sigeve.sigeve_prodution.dto.CompositionItemVariantDTO;
 import br.com.sigeve.sigeve_prodution.dto.CreateCompositionItemDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateCompositionItemDTO;
 import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import br.com.sigeve.sigeve_prodution.model.CompositionItemVariant;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
 import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemVariantRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -26,6 +37,9 @@ import java.util.stream.Collectors;
 public class CompositionItemService {
 
     private final CompositionItemRepository compositionItemRepository;
+    private final CompositionItemVariantRepository compositionItemVariantRepository;
+    private final RawMaterialRepository rawMaterialRepository;
+    private final ProductionProductRepository productionProductRepository;
 
     @Transactional(readOnly = true)
     public List<CompositionItemDTO> findByComposition(UUID compositionId) {
@@ -104,6 +118,89 @@ public class CompositionItemService {
         log.info("Item de composição deletado com sucesso: {}", id);
     }
 
+    @Transactional(readOnly = true)
+    public List<CompositionItemVariantDTO> findVariants(UUID id) {
+        log.debug("Buscando variações do item de composição: {}", id);
+        return compositionItemVariantRepository.findByCompositionItemIdOrderBySizeAscColorAsc(id).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Substitui as variações por tamanho e cor do item
+     */
+    public List<CompositionItemVariantDTO> replaceVariants(UUID id, List<CompositionItemVariantDTO> request, String updatedBy) {
+        log.debug("Gravando variações do item de composição: {}", id);
+
+        CompositionItem item = compositionItemRepository.findById(id)
+                .filter(existing -> existing.getDeletedAt() == null)
+                .orElseThrow(() -> new IllegalArgumentException("Item não encontrado: " + id));
+
+        Set<String> keys = new HashSet<>();
+        List<CompositionItemVariant> variants = request.stream().map(variantRequest -> {
+            String size = blankToNull(variantRequest.getSize());
+            String color = blankToNull(variantRequest.getColor());
+            if (size == null && color == null) {
+                throw new IllegalArgumentException("Informe o tamanho e/ou a cor da variação");
+            }
+            if (!keys.add((size + "|" + color).toUpperCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("Variação repetida: " + (size != null ? size : "*") + " / " + (color != null ? color : "*"));
+            }
+            if (variantRequest.getSubstituteReferenceId() != null && item.isService()) {
+                throw new IllegalArgumentException("Serviços não podem ser substituídos por variação");
+            }
+
+            CompositionItemVariant variant = new CompositionItemVariant();
+            variant.setTenantId(item.getTenantId());
+            variant.setCompanyId(item.getCompanyId());
+            variant.setCompositionItemId(item.getId());
+            variant.setSize(size);
+            variant.setColor(color);
+            variant.setConsumptionFactor(variantRequest.getConsumptionFactor() != null
+                    ? variantRequest.getConsumptionFactor() : BigDecimal.ONE);
+            variant.setSubstituteReferenceId(variantRequest.getSubstituteReferenceId());
+            variant.setCreatedBy(updatedBy);
+            return variant;
+        }).collect(Collectors.toList());
+        validateSubstitutes(item, variants.stream()
+                .map(CompositionItemVariant::getSubstituteReferenceId)
+                .filter(substituteId -> substituteId != null)
+                .collect(Collectors.toSet()));
+
+        compositionItemVariantRepository.deleteByCompositionItemId(id);
+        List<CompositionItemVariant> saved = compositionItemVariantRepository.saveAll(variants);
+        log.info("Variações do item de composição {} gravadas: {}", id, saved.size());
+
+        return saved.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Substitutos devem existir na empresa do item e ser do mesmo tipo dele (matéria-prima ou semiacabado)
+     */
+    private void validateSubstitutes(CompositionItem item, Set<UUID> substituteIds) {
+        if (substituteIds.isEmpty()) {
+            return;
+        }
+        Set<UUID> found = item.isProduct()
+                ? productionProductRepository.findAllById(substituteIds).stream()
+                        .filter(product -> item.getCompanyId().equals(product.getCompanyId()))
+                        .map(ProductionProduct::getId)
+                        .collect(Collectors.toSet())
+                : rawMaterialRepository.findAllById(substituteIds).stream()
+                        .filter(material -> item.getCompanyId().equals(material.getCompanyId()))
+                        .map(RawMaterial::getId)
+                        .collect(Collectors.toSet());
+        substituteIds.stream()
+                .filter(substituteId -> !found.contains(substituteId))
+                .findFirst()
+                .ifPresent(substituteId -> {
+                    throw new IllegalArgumentException("Substituto não encontrado entre os itens do tipo "
+                            + item.getItemType().getDisplayName() + " da empresa: " + substituteId);
+                });
+    }
+
     @Transactional(readOnly = true)
     public CompositionCostSummaryDTO calculateCompositionCosts(UUID compositionId) {
         log.debug("Calculando custos da composição: {}", compositionId);
@@ -133,7 +230,7 @@ public class CompositionItemService {
         summary.setTotalCost(totalCost);
         summary.setItemsCost(itemsCost);
 
-        log.info("Custos calculados para composição {}: {} itens, total R$ {}", 
+        log.debug("Custos calculados para composição {}: {} itens, total R$ {}", 
                 compositionId, items.size(), totalCost);
 
         return summary;
@@ -161,4 +258,13 @@ public class CompositionItemService {
         dto.setUpdatedBy(item.getUpdatedBy());
         return dto;
     }
+
+    private CompositionItemVariantDTO convertToDTO(CompositionItemVariant variant) {
+        return new CompositionItemVariantDTO(variant.getId(), variant.getSize(), variant.getColor(),
+                variant.getConsumptionFactor(), variant.getSubstituteReferenceId());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
 }
@@ -4,7 +4,10 @@ import br.com.sigeve.sigeve_prodution.dto.CompositionDTO;
 import br.com.sigeve.sigeve_prodution.dto.CreateCompositionDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateCompositionDTO;
 import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemCountView;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
 import br.com.sigeve.sigeve_prodution.repository.CompositionRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductDescriptionView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,8 +15,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -25,29 +31,40 @@ public class CompositionService {
 
     private final CompositionRepository compositionRepository;
     private final CompositionItemService compositionItemService;
+    private final CompositionItemRepository compositionItemRepository;
     private final br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository productionProductRepository;
 
     @Transactional(readOnly = true)
     public List<CompositionDTO> findAllByCompany(UUID companyId) {
         log.debug("Buscando todas as composições da empresa: {}", companyId);
-        return compositionRepository.findByCompanyIdAndDeletedAtIsNull(companyId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertCompanyListToDTOs(companyId,
+                compositionRepository.findByCompanyIdAndDeletedAtIsNull(companyId));
     }
 
     @Transactional(readOnly = true)
     public List<CompositionDTO> findActiveByCompany(UUID companyId) {
         log.debug("Buscando composições ativas da empresa: {}", companyId);
-        return compositionRepository.findByCompanyIdAndIsActiveTrueAndDeletedAtIsNull(companyId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertCompanyListToDTOs(companyId,
+                compositionRepository.findByCompanyIdAndIsActiveTrueAndDeletedAtIsNull(companyId));
     }
 
     @Transactional(readOnly = true)
     public List<CompositionDTO> findByProduct(UUID productionProductId) {
         log.debug("Buscando composições do produto: {}", productionProductId);
-        return compositionRepository.findByProductionProductIdAndDeletedAtIsNull(productionProductId).stream()
-                .map(this::convertToDTO)
+        List<Composition> compositions = compositionRepository.findByProductionProductIdAndDeletedAtIsNull(productionProductId);
+        if (compositions.isEmpty()) {
+            return List.of();
+        }
+
+        List<UUID> compositionIds = compositions.stream().map(Composition::getId).collect(Collectors.toList());
+        Map<UUID, Long> itemsCount = toCountMap(compositionItemRepository.countItemsByCompositionIds(compositionIds));
+        String productName = productionProductRepository.findById(productionProductId)
+                .map(product -> product.getDescription())
+                .orElse(null);
+
+        return compositions.stream()
+                .map(composition -> convertToDTO(composition, productName,
+                        itemsCount.getOrDefault(composition.getId(), 0L).intValue()))
                 .collect(Collectors.toList());
     }
 
@@ -127,7 +144,48 @@ public class CompositionService {
         return convertToDTO(saved);
     }
 
+    /**
+     * Converte uma listagem de composições da empresa usando consultas agrupadas
+     * (contagem de itens e descrição apenas dos produtos listados), com número constante de consultas
+     */
+    private List<CompositionDTO> convertCompanyListToDTOs(UUID companyId, List<Composition> compositions) {
+        if (compositions.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Long> itemsCount = toCountMap(compositionItemRepository.countItemsByCompany(companyId));
+        Map<UUID, String> productNames = new HashMap<>();
+        Set<UUID> productIds = compositions.stream()
+                .map(Composition::getProductionProductId)
+                .collect(Collectors.toSet());
+        for (ProductDescriptionView product : productionProductRepository.findDescriptionsByIdIn(productIds)) {
+            productNames.put(product.getId(), product.getDescription());
+        }
+
+        return compositions.stream()
+                .map(composition -> convertToDTO(composition,
+                        productNames.get(composition.getProductionProductId()),
+                        itemsCount.getOrDefault(composition.getId(), 0L).intValue()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<UUID, Long> toCountMap(List<CompositionItemCountView> counts) {
+        Map<UUID, Long> map = new HashMap<>();
+        for (CompositionItemCountView count : counts) {
+            map.put(count.getCompositionId(), count.getItemsCount());
+        }
+        return map;
+    }
+
     private CompositionDTO convertToDTO(Composition composition) {
+        String productName = productionProductRepository.findById(composition.getProductionProductId())
+                .map(product -> product.getDescription())
+                .orElse(null);
+        long itemsCount = compositionItemRepository.countByCompositionIdAndDeletedAtIsNull(composition.getId());
+        return convertToDTO(composition, productName, (int) itemsCount);
+    }
+
+    private CompositionDTO convertToDTO(Composition composition, String productName, int itemsCount) {
         CompositionDTO dto = new CompositionDTO();
         dto.setId(composition.getId());
         dto.setTenantId(composition.getTenantId());
@@ -145,26 +203,12 @@ public class CompositionService {
         dto.setUpdatedBy(composition.getUpdatedBy());
         dto.setApprovedBy(composition.getApprovedBy());
         dto.setApprovedAt(composition.getApprovedAt() != null ? composition.getApprovedAt().atOffset(OffsetDateTime.now().getOffset()) : null);
-        
-        log.info("🔍 [BACKEND] Convertendo Composition {} para DTO. ApprovedBy: {}, isApprovedEntity: {}", 
-                composition.getId(), composition.getApprovedBy(), composition.isApproved());
-        
-        // Buscar nome do produto
-        productionProductRepository.findById(composition.getProductionProductId())
-                .ifPresent(product -> dto.setProductName(product.getDescription()));
-        
+        dto.setProductName(productName);
+
         // Usar totalCost armazenado na entity
         dto.setTotalCost(composition.getTotalCost());
-        
-        // Calcular contagem de itens
-        try {
-            var costSummary = compositionItemService.calculateCompositionCosts(composition.getId());
-            dto.setItemsCount(costSummary.getTotalItems());
-        } catch (Exception e) {
-            log.warn("Erro ao contar itens da composição {}: {}", composition.getId(), e.getMessage());
-            dto.setItemsCount(0);
-        }
-        
+        dto.setItemsCount(itemsCount);
+
         return dto;
     }
 
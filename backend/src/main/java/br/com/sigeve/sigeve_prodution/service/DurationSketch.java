@@ -0,0 +1,111 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Esboço de quantis de durações com erro relativo limitado (no estilo DDSketch): cada valor cai no balde
+ * logarítmico {@code ceil(log_gamma(v))} e o quantil devolvido fica a no máximo {@link #RELATIVE_ACCURACY}
+ * do valor real. O tamanho depende da faixa de valores (centenas de baldes entre décimos de segundo e dias),
+ * não da quantidade de amostras, e dois esboços se somam balde a balde.
+ * <p>
+ * Não é thread-safe: o chamador serializa o acesso.
+ */
+class DurationSketch {
+
+    static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // Valores menores (em segundos) contam no balde zero
+    private static final double MIN_VALUE = 1e-3;
+
+    private final TreeMap<Integer, Long> bins = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    void add(double value) {
+        if (Double.isNaN(value) || value < 0) {
+            return;
+        }
+        if (value < MIN_VALUE) {
+            zeroCount++;
+        } else {
+            bins.merge((int) Math.ceil(Math.log(value) / LOG_GAMMA), 1L, Long::sum);
+        }
+        count++;
+    }
+
+    void merge(DurationSketch other) {
+        other.bins.forEach((index, binCount) -> bins.merge(index, binCount, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * Quantil {@code q} (0 a 1); NaN quando o esboço está vazio
+     */
+    double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = q * (count - 1);
+        long cumulative = zeroCount;
+        if (rank < cumulative) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            cumulative += bin.getValue();
+            if (cumulative > rank) {
+                return 2 * Math.pow(GAMMA, bin.getKey()) / (GAMMA + 1);
+            }
+        }
+        return 2 * Math.pow(GAMMA, bins.lastKey()) / (GAMMA + 1);
+    }
+
+    byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + bins.size() * 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(zeroCount);
+            out.writeInt(bins.size());
+            for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+                out.writeInt(bin.getKey());
+                out.writeLong(bin.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static DurationSketch fromBytes(byte[] data) {
+        DurationSketch sketch = new DurationSketch();
+        if (data == null || data.length == 0) {
+            return sketch;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            sketch.zeroCount = in.readLong();
+            sketch.count = sketch.zeroCount;
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                int index = in.readInt();
+                long binCount = in.readLong();
+                sketch.bins.put(index, binCount);
+                sketch.count += binCount;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sketch;
+    }
+}
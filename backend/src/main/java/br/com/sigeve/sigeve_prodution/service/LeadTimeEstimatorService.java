@@ -0,0 +1,506 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.OrderLeadTimeDTO;
+import br.com.sigeve.sigeve_prodution.dto.StepLeadTimeDTO;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.event.ProductionExecutionCompletedEvent;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimativa de lead time pelo histórico de execuções. Cada execução encerrada vira uma amostra de tempo por peça
+ * (duração dividida pela quantidade realizada), somada a um {@link DurationSketch} da etapa e a outro da etapa com o
+ * produto da ordem, numa janela móvel de dois períodos de {@code app.lead-time.window-days}. As consultas só leem os
+ * esboços, sem percorrer o histórico.
+ * <p>
+ * Os esboços gravados são compartilhados entre as instâncias. Cada instância guarda em memória a cópia gravada e as
+ * amostras pendentes: as execuções encerradas ainda sem {@code duration_sampled_at}, lidas na carga da empresa e,
+ * depois dela, pelo evento {@link ProductionExecutionCompletedEvent}. {@link LeadTimeSketchScheduler} grava as
+ * pendentes de tempos em tempos: sob uma trava da empresa, marca as execuções (só quem marca soma a amostra, com os
+ * valores do momento), soma-as aos esboços gravados e relê o resultado, que já traz o que as demais instâncias
+ * gravaram. Assim cada execução entra uma única vez, qualquer que seja a instância ou o reinício.
+ * <p>
+ * Um esboço não permite retirar amostras: alterações e remoções de execuções já gravadas não mudam os esboços (saem
+ * deles com a janela); removidas antes da gravação não entram.
+ * <p>
+ * A previsão de término das ordens em aberto soma, etapa a etapa, o que falta produzir vezes o tempo por peça (do
+ * produto quando há amostras suficientes, senão da etapa, senão o tempo padrão cadastrado) sobre a capacidade diária
+ * da etapa. Não considera a fila das demais ordens: isso é papel da programação em {@link ProductionScheduleService}.
+ */
+@Service
+@Slf4j
+public class LeadTimeEstimatorService {
+
+    private static final String SAMPLE_COLUMNS =
+            "e.production_execution_id, o.tenant_id, e.step_id, o.product_id, CAST(e.end_time AS date) AS end_date, " +
+            "EXTRACT(EPOCH FROM (e.end_time - e.start_time)) / e.quantity_done AS seconds_per_unit";
+
+    private static final String SAMPLE_CONDITION =
+            "e.company_id = :companyId AND e.deleted_at IS NULL AND e.duration_sampled_at IS NULL " +
+            "AND e.end_time > e.start_time AND e.quantity_done > 0";
+
+    private static final String SELECT_PENDING_SAMPLES =
+            "SELECT " + SAMPLE_COLUMNS + " FROM tab_production_executions e " +
+            "JOIN tab_production_orders o ON o.production_order_id = e.production_order_id " +
+            "WHERE " + SAMPLE_CONDITION + " AND %s";
+
+    private static final String CLAIM_SAMPLES =
+            "UPDATE tab_production_executions e SET duration_sampled_at = now() " +
+            "FROM tab_production_orders o WHERE o.production_order_id = e.production_order_id " +
+            "AND " + SAMPLE_CONDITION + " AND e.production_execution_id IN (:executionIds) " +
+            "RETURNING " + SAMPLE_COLUMNS;
+
+    private static final String SELECT_OPEN_ORDERS =
+            "SELECT o.production_order_id, o.code, o.status, o.product_id, o.start_date, o.deadline, o.quantity_planned, " +
+            "       o.quantity_planned - COALESCE(o.quantity_produced, 0) AS remaining_quantity, " +
+            "       e.step_id, SUM(e.quantity_done) AS consumed_quantity " +
+            "FROM tab_production_orders o " +
+            "LEFT JOIN tab_production_executions e ON e.company_id = o.company_id " +
+            "     AND e.production_order_id = o.production_order_id AND e.deleted_at IS NULL " +
+            "WHERE o.company_id = :companyId AND o.deleted_at IS NULL " +
+            "  AND o.quantity_planned > COALESCE(o.quantity_produced, 0) " +
+            "  AND (o.status = 'IN_PROGRESS' OR (o.status = 'PLANNED' AND o.approved_at IS NOT NULL)) " +
+            "GROUP BY o.production_order_id, o.code, o.status, o.product_id, o.start_date, o.deadline, " +
+            "         o.quantity_planned, o.quantity_produced, e.step_id " +
+            "ORDER BY o.deadline NULLS LAST, o.code";
+
+    private static final String SELECT_SKETCHES =
+            "SELECT step_id, product_id, period_start, current_sketch, previous_sketch " +
+            "FROM tab_production_duration_sketches WHERE company_id = ?";
+
+    private static final String LOCK_COMPANY = "SELECT pg_advisory_xact_lock(hashtext('lead-time:' || ?))";
+
+    private static final String DELETE_SKETCHES = "DELETE FROM tab_production_duration_sketches WHERE company_id = ?";
+
+    private static final String INSERT_SKETCH =
+            "INSERT INTO tab_production_duration_sketches (production_duration_sketch_id, tenant_id, company_id, step_id, " +
+            "product_id, period_start, current_sketch, previous_sketch, sample_count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final double EXPECTED_QUANTILE = 0.5;
+    private static final double PESSIMISTIC_QUANTILE = 0.9;
+    private static final int SCALE = 4;
+    private static final int CLAIM_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductionStepRepository productionStepRepository;
+    private final int windowDays;
+    private final int minSamples;
+
+    private final Map<UUID, CompanySketches> companies = new ConcurrentHashMap<>();
+
+    public LeadTimeEstimatorService(JdbcTemplate jdbcTemplate,
+                                    NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    ProductionStepRepository productionStepRepository,
+                                    @Value("${app.lead-time.window-days:30}") int windowDays,
+                                    @Value("${app.lead-time.min-samples:5}") int minSamples) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productionStepRepository = productionStepRepository;
+        this.windowDays = windowDays;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Percentis do tempo por peça de cada etapa ativa; com {@code productId}, só das execuções desse produto
+     */
+    public List<StepLeadTimeDTO> findStepLeadTimes(UUID companyId, UUID productId) {
+        List<ProductionStep> steps = findSteps(companyId);
+        List<StepLeadTimeDTO> result = new ArrayList<>(steps.size());
+        CompanySketches company = ensureLoaded(companyId);
+        synchronized (company) {
+            LocalDate today = LocalDate.now();
+            for (ProductionStep step : steps) {
+                DurationSketch sketch = company.merged(new SketchKey(step.getId(), productId), today, windowDays);
+                result.add(new StepLeadTimeDTO(step.getId(), step.getName(), step.getSequence(), step.getEstimatedTime(),
+                        sketch.count(), toMinutes(sketch.quantile(EXPECTED_QUANTILE)),
+                        toMinutes(sketch.quantile(PESSIMISTIC_QUANTILE))));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Previsão de término das ordens em andamento ou aprovadas com saldo a produzir, pelo prazo
+     */
+    public List<OrderLeadTimeDTO> findOrderLeadTimes(UUID companyId) {
+        List<ProductionStep> steps = findSteps(companyId);
+        Map<UUID, Integer> stepIndex = new HashMap<>();
+        for (int i = 0; i < steps.size(); i++) {
+            stepIndex.put(steps.get(i).getId(), i);
+        }
+
+        Map<UUID, OpenOrder> orders = new LinkedHashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_OPEN_ORDERS, new MapSqlParameterSource("companyId", companyId), rs -> {
+            UUID orderId = rs.getObject("production_order_id", UUID.class);
+            OpenOrder order = orders.get(orderId);
+            if (order == null) {
+                order = new OpenOrder(orderId, rs.getString("code"), ProductionOrderStatus.valueOf(rs.getString("status")),
+                        rs.getObject("product_id", UUID.class), rs.getObject("start_date", LocalDate.class),
+                        rs.getObject("deadline", LocalDate.class), rs.getBigDecimal("quantity_planned"),
+                        rs.getBigDecimal("remaining_quantity"), new BigDecimal[steps.size()]);
+                orders.put(orderId, order);
+            }
+            Integer index = stepIndex.get(rs.getObject("step_id", UUID.class));
+            if (index != null) {
+                order.consumed[index] = rs.getBigDecimal("consumed_quantity");
+            }
+        });
+
+        List<OrderLeadTimeDTO> result = new ArrayList<>(orders.size());
+        CompanySketches company = ensureLoaded(companyId);
+        synchronized (company) {
+            LocalDate today = LocalDate.now();
+            Map<SketchKey, DurationSketch> history = new HashMap<>();
+            for (OpenOrder order : orders.values()) {
+                result.add(predict(company, steps, order, history, today));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Soma as execuções recém-encerradas às amostras pendentes da empresa, se ela já estiver carregada
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductionExecutionCompleted(ProductionExecutionCompletedEvent event) {
+        CompanySketches company = companies.get(event.companyId());
+        if (company == null || event.executionIds().isEmpty()) {
+            return;
+        }
+        synchronized (company) {
+            if (company.loaded) {
+                readPending(company, "e.production_execution_id IN (:executionIds)",
+                        new MapSqlParameterSource("companyId", event.companyId()).addValue("executionIds", event.executionIds()));
+            }
+        }
+    }
+
+    /**
+     * Grava as amostras pendentes das empresas carregadas e relê os esboços gravados (que trazem também o que as
+     * demais instâncias gravaram). Retorna quantas empresas tinham amostras. Falhas de uma empresa não impedem as demais.
+     */
+    public int persistAll() {
+        int persisted = 0;
+        for (Map.Entry<UUID, CompanySketches> entry : companies.entrySet()) {
+            try {
+                if (persist(entry.getKey(), entry.getValue())) {
+                    persisted++;
+                }
+            } catch (Exception e) {
+                log.error("Erro ao gravar esboços de duração da empresa: {}", entry.getKey(), e);
+            }
+        }
+        return persisted;
+    }
+
+    /**
+     * Descarta o estado em memória da empresa; a próxima consulta recarrega o que foi gravado
+     */
+    void evict(UUID companyId) {
+        companies.remove(companyId);
+    }
+
+    private boolean persist(UUID companyId, CompanySketches company) {
+        Set<UUID> executionIds;
+        synchronized (company) {
+            if (!company.loaded) {
+                return false;
+            }
+            executionIds = new HashSet<>(company.pending.keySet());
+        }
+
+        LocalDate today = LocalDate.now();
+        int[] claimed = new int[1];
+        Map<SketchKey, RollingSketch> stored = executionIds.isEmpty() ? readStored(companyId)
+                : transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList(LOCK_COMPANY, companyId.toString());
+            Map<SketchKey, RollingSketch> sketches = readStored(companyId);
+
+            // Só as execuções marcadas aqui entram: as demais já foram gravadas por outra instância ou removidas
+            UUID[] tenantId = new UUID[1];
+            List<UUID> ids = new ArrayList<>(executionIds);
+            for (int start = 0; start < ids.size(); start += CLAIM_CHUNK_SIZE) {
+                namedParameterJdbcTemplate.query(CLAIM_SAMPLES, new MapSqlParameterSource("companyId", companyId)
+                        .addValue("executionIds", ids.subList(start, Math.min(start + CLAIM_CHUNK_SIZE, ids.size()))), rs -> {
+                    tenantId[0] = rs.getObject("tenant_id", UUID.class);
+                    Sample.of(rs).addTo(sketches, today, windowDays);
+                    claimed[0]++;
+                });
+            }
+            if (claimed[0] == 0) {
+                return sketches;
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> rows = new ArrayList<>(sketches.size());
+            sketches.forEach((key, sketch) -> {
+                sketch.rotate(today, windowDays);
+                rows.add(new Object[]{UUID.randomUUID(), tenantId[0], companyId, key.stepId(), key.productId(),
+                        sketch.periodStart, sketch.current.toBytes(), sketch.previous.toBytes(),
+                        sketch.current.count() + sketch.previous.count(), now});
+            });
+            jdbcTemplate.update(DELETE_SKETCHES, companyId);
+            jdbcTemplate.batchUpdate(INSERT_SKETCH, rows);
+            return sketches;
+        });
+
+        synchronized (company) {
+            company.pending.keySet().removeAll(executionIds);
+            company.refresh(stored, today, windowDays);
+        }
+        if (claimed[0] > 0) {
+            log.debug("Esboços de duração da empresa {}: {} de {} amostras gravadas", companyId, claimed[0], executionIds.size());
+        }
+        return !executionIds.isEmpty();
+    }
+
+    private CompanySketches ensureLoaded(UUID companyId) {
+        CompanySketches company = companies.computeIfAbsent(companyId, id -> new CompanySketches());
+        synchronized (company) {
+            if (!company.loaded) {
+                load(companyId, company);
+            }
+        }
+        return company;
+    }
+
+    /**
+     * Carrega os esboços gravados e as execuções da janela ainda não gravadas. Chamado com o monitor da empresa.
+     */
+    private void load(UUID companyId, CompanySketches company) {
+        long startedAt = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        company.refresh(readStored(companyId), today, windowDays);
+        int samples = readPending(company, "e.end_time >= :oldest", new MapSqlParameterSource("companyId", companyId)
+                .addValue("oldest", today.minusDays(2L * windowDays).atStartOfDay()));
+        company.loaded = true;
+        log.info("Esboços de duração da empresa {} carregados: {} esboços gravados, {} execuções pendentes ({} ms)",
+                companyId, company.stored.size(), samples, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private Map<SketchKey, RollingSketch> readStored(UUID companyId) {
+        Map<SketchKey, RollingSketch> sketches = new HashMap<>();
+        jdbcTemplate.query(SELECT_SKETCHES, rs -> {
+            RollingSketch sketch = new RollingSketch(rs.getObject("period_start", LocalDate.class));
+            sketch.current = DurationSketch.fromBytes(rs.getBytes("current_sketch"));
+            sketch.previous = DurationSketch.fromBytes(rs.getBytes("previous_sketch"));
+            sketches.put(new SketchKey(rs.getObject("step_id", UUID.class), rs.getObject("product_id", UUID.class)), sketch);
+        }, companyId);
+        return sketches;
+    }
+
+    /**
+     * Soma às pendentes as execuções encerradas ainda não gravadas que atendem à condição. Chamado com o monitor
+     * da empresa.
+     */
+    private int readPending(CompanySketches company, String condition, MapSqlParameterSource params) {
+        LocalDate today = LocalDate.now();
+        int[] samples = new int[1];
+        namedParameterJdbcTemplate.query(String.format(SELECT_PENDING_SAMPLES, condition), params, rs -> {
+            UUID executionId = rs.getObject("production_execution_id", UUID.class);
+            Sample sample = Sample.of(rs);
+            if (company.pending.putIfAbsent(executionId, sample) == null) {
+                sample.addTo(company.local, today, windowDays);
+                samples[0]++;
+            }
+        });
+        return samples[0];
+    }
+
+    private OrderLeadTimeDTO predict(CompanySketches company, List<ProductionStep> steps, OpenOrder order,
+                                     Map<SketchKey, DurationSketch> history, LocalDate today) {
+        double expectedDays = 0;
+        double pessimisticDays = 0;
+        int stepsFromHistory = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            ProductionStep step = steps.get(i);
+            BigDecimal consumed = order.consumed[i] != null ? order.consumed[i] : BigDecimal.ZERO;
+            double remaining = order.quantityPlanned.subtract(consumed).max(BigDecimal.ZERO).doubleValue();
+            if (remaining == 0) {
+                continue;
+            }
+            double capacitySeconds = step.getEffectiveDailyCapacityMinutes() * 60.0;
+
+            DurationSketch sketch = history(company, history, step.getId(), order.productId, today);
+            if (sketch == null) {
+                sketch = history(company, history, step.getId(), null, today);
+            }
+            if (sketch != null) {
+                stepsFromHistory++;
+                expectedDays += remaining * sketch.quantile(EXPECTED_QUANTILE) / capacitySeconds;
+                pessimisticDays += remaining * sketch.quantile(PESSIMISTIC_QUANTILE) / capacitySeconds;
+            } else {
+                double standard = remaining * Math.max(step.getEstimatedTime() != null ? step.getEstimatedTime() : 0, 0) * 60.0
+                        / capacitySeconds;
+                expectedDays += standard;
+                pessimisticDays += standard;
+            }
+        }
+
+        LocalDate start = order.status == ProductionOrderStatus.PLANNED && order.startDate != null
+                && order.startDate.isAfter(today) ? order.startDate : today;
+        LocalDate expected = completion(start, expectedDays);
+        LocalDate pessimistic = completion(start, pessimisticDays);
+        boolean late = order.deadline != null && expected.isAfter(order.deadline);
+        return new OrderLeadTimeDTO(order.id, order.code, order.status, order.productId, order.remainingQuantity,
+                expected, pessimistic, order.deadline, late, stepsFromHistory);
+    }
+
+    /**
+     * Esboço da janela para a chave, se tiver amostras suficientes
+     */
+    private DurationSketch history(CompanySketches company, Map<SketchKey, DurationSketch> history, UUID stepId,
+                                   UUID productId, LocalDate today) {
+        DurationSketch sketch = history.computeIfAbsent(new SketchKey(stepId, productId),
+                key -> company.merged(key, today, windowDays));
+        return sketch.count() >= minSamples ? sketch : null;
+    }
+
+    /**
+     * Último dia de trabalho: uma fração de dia ainda termina no próprio dia de início
+     */
+    private static LocalDate completion(LocalDate start, double days) {
+        return start.plusDays(Math.max(0, (long) Math.ceil(days) - 1));
+    }
+
+    private List<ProductionStep> findSteps(UUID companyId) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        return productionStepRepository.findByCompanyIdAndIsActiveTrueAndDeletedAtIsNullOrderBySequence(companyId);
+    }
+
+    private static BigDecimal toMinutes(double seconds) {
+        if (Double.isNaN(seconds)) {
+            return null;
+        }
+        return BigDecimal.valueOf(seconds / 60).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    private record SketchKey(UUID stepId, UUID productId) {
+    }
+
+    private record OpenOrder(UUID id, String code, ProductionOrderStatus status, UUID productId, LocalDate startDate,
+                             LocalDate deadline, BigDecimal quantityPlanned, BigDecimal remainingQuantity,
+                             BigDecimal[] consumed) {
+    }
+
+    /**
+     * Tempo por peça de uma execução encerrada
+     */
+    private record Sample(UUID stepId, UUID productId, LocalDate endDate, double secondsPerUnit) {
+
+        private static Sample of(ResultSet rs) throws SQLException {
+            return new Sample(rs.getObject("step_id", UUID.class), rs.getObject("product_id", UUID.class),
+                    rs.getObject("end_date", LocalDate.class), rs.getDouble("seconds_per_unit"));
+        }
+
+        private void addTo(Map<SketchKey, RollingSketch> sketches, LocalDate today, int windowDays) {
+            sketches.computeIfAbsent(new SketchKey(stepId, null), k -> new RollingSketch(today))
+                    .add(secondsPerUnit, endDate, today, windowDays);
+            if (productId != null) {
+                sketches.computeIfAbsent(new SketchKey(stepId, productId), k -> new RollingSketch(today))
+                        .add(secondsPerUnit, endDate, today, windowDays);
+            }
+        }
+    }
+
+    /**
+     * Esboços gravados e amostras pendentes da empresa; {@code local} são as pendentes já somadas por chave
+     */
+    private static final class CompanySketches {
+        private boolean loaded;
+        private Map<SketchKey, RollingSketch> stored = new HashMap<>();
+        private final Map<UUID, Sample> pending = new HashMap<>();
+        private final Map<SketchKey, RollingSketch> local = new HashMap<>();
+
+        private void refresh(Map<SketchKey, RollingSketch> sketches, LocalDate today, int windowDays) {
+            stored = sketches;
+            local.clear();
+            pending.values().forEach(sample -> sample.addTo(local, today, windowDays));
+        }
+
+        private DurationSketch merged(SketchKey key, LocalDate today, int windowDays) {
+            DurationSketch merged = new DurationSketch();
+            for (Map<SketchKey, RollingSketch> sketches : List.of(stored, local)) {
+                RollingSketch sketch = sketches.get(key);
+                if (sketch != null) {
+                    sketch.rotate(today, windowDays);
+                    merged.merge(sketch.previous);
+                    merged.merge(sketch.current);
+                }
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * Janela móvel: o período corrente recebe as amostras e, ao completar {@code windowDays}, passa a ser o anterior
+     */
+    private static final class RollingSketch {
+        private LocalDate periodStart;
+        private DurationSketch current = new DurationSketch();
+        private DurationSketch previous = new DurationSketch();
+
+        private RollingSketch(LocalDate periodStart) {
+            this.periodStart = periodStart;
+        }
+
+        private void add(double secondsPerUnit, LocalDate endDate, LocalDate today, int windowDays) {
+            rotate(today, windowDays);
+            if (!endDate.isBefore(periodStart)) {
+                current.add(secondsPerUnit);
+            } else if (!endDate.isBefore(periodStart.minusDays(windowDays))) {
+                previous.add(secondsPerUnit);
+            }
+        }
+
+        private boolean rotate(LocalDate today, int windowDays) {
+            if (today.isBefore(periodStart.plusDays(windowDays))) {
+                return false;
+            }
+            if (today.isBefore(periodStart.plusDays(2L * windowDays))) {
+                previous = current;
+                periodStart = periodStart.plusDays(windowDays);
+            } else {
+                previous = new DurationSketch();
+                periodStart = today;
+            }
+            current = new DurationSketch();
+            return true;
+        }
+    }
+}
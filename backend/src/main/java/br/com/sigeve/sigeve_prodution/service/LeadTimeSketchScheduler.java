@@ -0,0 +1,37 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gravação periódica das amostras pendentes do {@link LeadTimeEstimatorService} nos esboços compartilhados, também
+ * feita no encerramento da aplicação; amostras não gravadas voltam na próxima carga da empresa.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeadTimeSketchScheduler {
+
+    private final LeadTimeEstimatorService leadTimeEstimatorService;
+
+    @Scheduled(fixedDelayString = "${app.lead-time.persist-interval-ms:300000}",
+               initialDelayString = "${app.lead-time.persist-interval-ms:300000}")
+    public void persist() {
+        int persisted = leadTimeEstimatorService.persistAll();
+        if (persisted > 0) {
+            log.info("Esboços de duração gravados para {} empresas", persisted);
+        }
+    }
+
+    @PreDestroy
+    public void persistOnShutdown() {
+        try {
+            leadTimeEstimatorService.persistAll();
+        } catch (Exception e) {
+            log.error("Erro ao gravar esboços de duração no encerramento", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Ordem de travamento por UUID igual à do PostgreSQL (bytes sem sinal). Linhas travadas a partir do Java seguem
+ * a mesma sequência das travadas por {@code ORDER BY ... FOR UPDATE}, sem risco de deadlock entre os dois caminhos.
+ * {@link UUID#compareTo} compara os longs com sinal e diverge da ordem do banco quando o bit mais alto está ligado.
+ */
+final class LockOrder {
+
+    static final Comparator<UUID> UUIDS = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    // Como NULLS FIRST: o estoque padrão (sem depósito) antes dos depósitos
+    static final Comparator<UUID> UUIDS_NULLS_FIRST = Comparator.nullsFirst(UUIDS);
+
+    private LockOrder() {
+    }
+}
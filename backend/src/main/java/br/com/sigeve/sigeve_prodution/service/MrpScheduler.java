@@ -0,0 +1,31 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Execução agendada do MRP para todas as empresas com ordens em aberto.
+ * Use {@code app.mrp.cron=-} para desabilitar.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MrpScheduler {
+
+    private final MrpService mrpService;
+
+    @Scheduled(cron = "${app.mrp.cron:0 0 2 * * *}")
+    public void runNightly() {
+        for (UUID companyId : mrpService.findCompaniesWithOpenOrders()) {
+            try {
+                mrpService.run(companyId);
+            } catch (Exception e) {
+                log.error("Erro ao executar MRP agendado da empresa: {}", companyId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.MrpRunDTO;
+import br.com.sigeve.sigeve_prodution.dto.MrpSuggestionDTO;
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.enums.ReservationStatus;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.ProductDemandView;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockTotalView;
+import br.com.sigeve.sigeve_prodution.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Planejamento de necessidades de materiais (MRP) sobre as ordens em aberto.
+ * A demanda é agregada por produto no banco, cada produto é explodido uma única vez
+ * (estruturas compartilhadas via {@link BomExplosionContext}) e as necessidades são
+ * acumuladas por matéria-prima e confrontadas com o estoque consolidado, também agregado no banco.
+ * Ordens que já possuem reservas entram pela explosão da grade (a mesma usada na reserva), uma a uma.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class MrpService {
+
+    static final Set<ProductionOrderStatus> OPEN_STATUSES =
+            EnumSet.of(ProductionOrderStatus.PLANNED, ProductionOrderStatus.IN_PROGRESS);
+
+    private static final int SCALE = 4;
+
+    private final ProductionOrderRepository productionOrderRepository;
+    private final RawMaterialRepository rawMaterialRepository;
+    private final RawMaterialStockRepository rawMaterialStockRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final BomExplosionService bomExplosionService;
+    private final ProductionGridRequirementService productionGridRequirementService;
+
+    private final Map<UUID, MrpRunDTO> lastRunByCompany = new ConcurrentHashMap<>();
+
+    /**
+     * Executa o MRP da empresa e guarda o resultado como última execução
+     */
+    public MrpRunDTO run(UUID companyId) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        log.debug("Executando MRP da empresa: {}", companyId);
+
+        List<ProductDemandView> demands = productionOrderRepository
+                .sumUnreservedOpenDemandByProduct(companyId, OPEN_STATUSES, ReservationStatus.ACTIVE);
+
+        BomExplosionContext context = bomExplosionService.newContext(companyId, false);
+        context.preloadProducts(demands.stream().map(ProductDemandView::getProductId).collect(Collectors.toList()));
+
+        Map<UUID, Requirement> requirements = new HashMap<>();
+        List<UUID> productsWithoutComposition = new ArrayList<>();
+        Set<UUID> products = new HashSet<>();
+        long ordersCount = 0;
+
+        for (ProductDemandView demand : demands) {
+            ordersCount += demand.getOrdersCount();
+            products.add(demand.getProductId());
+            Optional<BomExplosionContext.UnitRequirement> unitRequirement = context.unitRequirementOfProduct(demand.getProductId());
+            if (unitRequirement.isEmpty()) {
+                productsWithoutComposition.add(demand.getProductId());
+                continue;
+            }
+            for (BomExplosionContext.Requirement leaf : unitRequirement.get().requirements()) {
+                if (leaf.itemType() != CompositionItemType.RAW_MATERIAL) {
+                    continue;
+                }
+                requirements.computeIfAbsent(leaf.referenceId(), id -> new Requirement())
+                        .add(leaf.quantity().multiply(demand.getRemainingQuantity()), demand.getNeedDate());
+            }
+        }
+
+        Map<UUID, BigDecimal> available = new HashMap<>();
+        for (RawMaterialStockTotalView stock : rawMaterialStockRepository.sumByRawMaterial(companyId)) {
+            available.put(stock.getRawMaterialId(), nullToZero(stock.getQuantity()).subtract(nullToZero(stock.getReservedQuantity())));
+        }
+
+        // Ordens com reservas ativas são explodidas pela grade, como na reserva; do reservado volta ao
+        // disponível apenas o que cobre o saldo a produzir (o excedente continua comprometido até a baixa)
+        Map<UUID, Map<UUID, BigDecimal>> reservedByOrder = new HashMap<>();
+        stockReservationRepository.sumByOrderAndRawMaterial(companyId, ReservationStatus.ACTIVE).forEach(reserved ->
+                reservedByOrder.computeIfAbsent(reserved.getProductionOrderId(), id -> new HashMap<>())
+                        .put(reserved.getRawMaterialId(), reserved.getQuantity()));
+        for (ProductionOrder order : productionOrderRepository.findAllById(reservedByOrder.keySet())) {
+            BigDecimal remaining = order.getQuantityPlanned().subtract(nullToZero(order.getQuantityProduced()));
+            if (order.getDeletedAt() != null || !OPEN_STATUSES.contains(order.getStatus()) || remaining.signum() <= 0) {
+                continue;
+            }
+            ordersCount++;
+            products.add(order.getProductId());
+            Optional<Map<UUID, BigDecimal>> orderRequirements =
+                    productionGridRequirementService.rawMaterialRequirements(order, remaining);
+            if (orderRequirements.isEmpty()) {
+                if (!productsWithoutComposition.contains(order.getProductId())) {
+                    productsWithoutComposition.add(order.getProductId());
+                }
+                continue;
+            }
+            Map<UUID, BigDecimal> reserved = reservedByOrder.get(order.getId());
+            LocalDate needDate = order.getStartDate() != null ? order.getStartDate() : order.getDeadline();
+            orderRequirements.get().forEach((rawMaterialId, quantity) -> {
+                requirements.computeIfAbsent(rawMaterialId, id -> new Requirement()).add(quantity, needDate);
+                BigDecimal covered = reserved.getOrDefault(rawMaterialId, BigDecimal.ZERO).min(quantity);
+                if (covered.signum() > 0) {
+                    available.merge(rawMaterialId, covered, BigDecimal::add);
+                }
+            });
+        }
+
+        Map<UUID, RawMaterial> materials = new LinkedHashMap<>();
+        rawMaterialRepository.findByCompanyIdAndIsActiveTrueAndDeletedAtIsNull(companyId)
+                .forEach(material -> materials.put(material.getId(), material));
+        List<UUID> missing = requirements.keySet().stream()
+                .filter(id -> !materials.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            rawMaterialRepository.findAllById(missing).forEach(material -> materials.put(material.getId(), material));
+        }
+
+        LocalDate today = LocalDate.now();
+        List<MrpSuggestionDTO> suggestions = new ArrayList<>();
+        for (RawMaterial material : materials.values()) {
+            MrpSuggestionDTO suggestion = suggest(material, requirements.get(material.getId()),
+                    available.getOrDefault(material.getId(), BigDecimal.ZERO), today);
+            if (suggestion != null) {
+                suggestions.add(suggestion);
+            }
+        }
+        suggestions.sort(Comparator.comparing(MrpSuggestionDTO::getOrderByDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(MrpSuggestionDTO::getRawMaterialCode, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        MrpRunDTO result = new MrpRunDTO(companyId, startedAt,
+                Duration.between(startedAt, LocalDateTime.now()).toMillis(),
+                ordersCount, products.size(), productsWithoutComposition, suggestions);
+        lastRunByCompany.put(companyId, result);
+
+        log.info("MRP da empresa {} executado: {} ordens, {} produtos, {} sugestões em {} ms",
+                companyId, ordersCount, products.size(), suggestions.size(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * Busca o resultado da última execução do MRP da empresa
+     */
+    public Optional<MrpRunDTO> findLastRun(UUID companyId) {
+        return Optional.ofNullable(lastRunByCompany.get(companyId));
+    }
+
+    /**
+     * Empresas com ordens em aberto (alvo da execução agendada)
+     */
+    public List<UUID> findCompaniesWithOpenOrders() {
+        return productionOrderRepository.findCompanyIdsWithStatus(OPEN_STATUSES);
+    }
+
+    /**
+     * Política mín/máx: se o saldo projetado (disponível - necessidade) ficar abaixo do ponto de
+     * pedido (ou do estoque mínimo), sugere compra até o estoque máximo (ou até o ponto de pedido).
+     * O pedido deve ser emitido {@code leadTimeDays} antes da data de necessidade.
+     */
+    private MrpSuggestionDTO suggest(RawMaterial material, Requirement requirement, BigDecimal available, LocalDate today) {
+        BigDecimal gross = requirement != null ? requirement.quantity : BigDecimal.ZERO;
+        BigDecimal projected = available.subtract(gross);
+
+        BigDecimal trigger = material.getReorderPoint() != null ? material.getReorderPoint() : nullToZero(material.getMinStock());
+        BigDecimal suggested = BigDecimal.ZERO;
+        if (projected.signum() < 0 || projected.compareTo(trigger) < 0) {
+            BigDecimal target = material.getMaxStock() != null && material.getMaxStock().compareTo(trigger) > 0
+                    ? material.getMaxStock()
+                    : trigger.max(BigDecimal.ZERO);
+            suggested = target.subtract(projected).max(BigDecimal.ZERO);
+        }
+
+        if (gross.signum() == 0 && suggested.signum() == 0) {
+            return null;
+        }
+
+        int leadTimeDays = material.getLeadTimeDays() != null ? material.getLeadTimeDays() : 0;
+        LocalDate needDate = requirement != null && requirement.needDate != null ? requirement.needDate : today;
+        LocalDate orderByDate = needDate.minusDays(leadTimeDays);
+
+        MrpSuggestionDTO dto = new MrpSuggestionDTO();
+        dto.setRawMaterialId(material.getId());
+        dto.setRawMaterialCode(material.getCode());
+        dto.setRawMaterialName(material.getName());
+        dto.setUnitType(material.getUnitType());
+        dto.setGrossRequirement(scale(gross));
+        dto.setAvailableQuantity(scale(available));
+        dto.setProjectedBalance(scale(projected));
+        dto.setNetRequirement(scale(projected.negate().max(BigDecimal.ZERO)));
+        dto.setMinStock(material.getMinStock());
+        dto.setMaxStock(material.getMaxStock());
+        dto.setReorderPoint(material.getReorderPoint());
+        dto.setLeadTimeDays(leadTimeDays);
+        dto.setNeedDate(needDate);
+        dto.setOrderByDate(orderByDate);
+        dto.setSuggestedPurchaseQuantity(scale(suggested));
+        dto.setLate(suggested.signum() > 0 && orderByDate.isBefore(today));
+        return dto;
+    }
+
+    private static BigDecimal scale(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal nullToZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static class Requirement {
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private LocalDate needDate;
+
+        private void add(BigDecimal amount, LocalDate date) {
+            quantity = quantity.add(amount);
+            if (date != null && (needDate == null || date.isBefore(needDate))) {
+                needDate = date;
+            }
+        }
+    }
+}
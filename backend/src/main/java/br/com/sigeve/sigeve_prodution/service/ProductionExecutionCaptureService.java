@@ -0,0 +1,284 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.CreateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ExecutionCaptureAckDTO;
+import br.com.sigeve.sigeve_prodution.dto.ExecutionCaptureResultDTO;
+import br.com.sigeve.sigeve_prodution.enums.ExecutionCaptureStatus;
+import br.com.sigeve.sigeve_prodution.event.ProductionExecutionChangedEvent;
+import br.com.sigeve.sigeve_prodution.event.ProductionExecutionCompletedEvent;
+import br.com.sigeve.sigeve_prodution.service.ProductionKpiService.Contribution;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Captura de execuções pelo chão de fábrica (leitores de código de barras, terminais), em lotes de eventos.
+ * Cada evento traz um identificador gerado no coletor. O lote inteiro é gravado em um único INSERT sobre arrays,
+ * sem o ciclo de entidades do Hibernate: o próprio INSERT confere que ordem e etapa são da empresa e descarta os
+ * eventos já recebidos pelo índice único parcial ({@code uq_production_executions_client_event}). Assim o coletor
+ * pode reenviar o lote depois de uma falha ou timeout: o que já foi gravado volta como duplicado, com a execução
+ * original, e nada é lançado duas vezes. As ordens recebem o progresso dos eventos aceitos
+ * ({@link ProductionOrderProgressService}) e os baldes de indicadores ({@link ProductionKpiService}) na mesma transação.
+ */
+@Service
+@Slf4j
+@Transactional
+public class ProductionExecutionCaptureService {
+
+    private static final String INSERT_EVENTS =
+            "INSERT INTO tab_production_executions (production_execution_id, tenant_id, company_id, production_order_id, " +
+            "step_id, start_time, end_time, quantity_done, loss_quantity, employee_id, machine_id, quality_status, " +
+            "rejection_reason, notes, client_event_id, created_at, created_by) " +
+            "SELECT c.id, o.tenant_id, o.company_id, c.production_order_id, c.step_id, c.start_time, c.end_time, " +
+            "       c.quantity_done, c.loss_quantity, c.employee_id, c.machine_id, c.quality_status, c.rejection_reason, " +
+            "       c.notes, c.client_event_id, ?, ? " +
+            "FROM unnest(?::uuid[], ?::uuid[], ?::uuid[], ?::timestamp[], ?::timestamp[], ?::numeric[], ?::numeric[], " +
+            "            ?::uuid[], ?::uuid[], ?::varchar[], ?::text[], ?::text[], ?::varchar[]) " +
+            "     AS c(id, production_order_id, step_id, start_time, end_time, quantity_done, loss_quantity, employee_id, " +
+            "          machine_id, quality_status, rejection_reason, notes, client_event_id) " +
+            "JOIN tab_production_orders o ON o.production_order_id = c.production_order_id " +
+            "     AND o.company_id = ? AND o.deleted_at IS NULL " +
+            "JOIN tab_production_steps s ON s.production_step_id = c.step_id AND s.company_id = ? AND s.deleted_at IS NULL " +
+            "ON CONFLICT (company_id, client_event_id) WHERE client_event_id IS NOT NULL DO NOTHING " +
+            "RETURNING client_event_id, tenant_id";
+
+    private static final String SELECT_RECEIVED =
+            "SELECT client_event_id, production_execution_id FROM tab_production_executions " +
+            "WHERE company_id = ? AND client_event_id = ANY(?::varchar[])";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final ProductionOrderProgressService productionOrderProgressService;
+    private final ProductionKpiService productionKpiService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxEvents;
+
+    public ProductionExecutionCaptureService(JdbcTemplate jdbcTemplate,
+                                             Validator validator,
+                                             ProductionOrderProgressService productionOrderProgressService,
+                                             ProductionKpiService productionKpiService,
+                                             ApplicationEventPublisher eventPublisher,
+                                             @Value("${app.execution-capture.max-events:1000}") int maxEvents) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.productionOrderProgressService = productionOrderProgressService;
+        this.productionKpiService = productionKpiService;
+        this.eventPublisher = eventPublisher;
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * Grava os eventos de um lote. Eventos inválidos são rejeitados individualmente e não impedem os demais;
+     * a linha de cada confirmação é a posição (1..n) do evento no lote.
+     */
+    public ExecutionCaptureResultDTO capture(List<CreateProductionExecutionDTO> events, String createdBy) {
+        if (events == null || events.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum evento informado");
+        }
+        if (events.size() > maxEvents) {
+            throw new IllegalArgumentException("Lote excede o limite de " + maxEvents + " eventos");
+        }
+        long startedAt = System.nanoTime();
+
+        UUID companyId = events.stream()
+                .filter(event -> event != null && event.getCompanyId() != null)
+                .map(CreateProductionExecutionDTO::getCompanyId)
+                .findFirst()
+                .orElse(null);
+
+        List<ExecutionCaptureAckDTO> acks = new ArrayList<>(events.size());
+        // Eventos a gravar, pelo identificador; repetições dentro do próprio lote já saem como duplicadas
+        Map<String, Pending> pending = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            CreateProductionExecutionDTO event = events.get(i);
+            String clientEventId = event != null && event.getClientEventId() != null ? event.getClientEventId().trim() : null;
+            ExecutionCaptureAckDTO ack = new ExecutionCaptureAckDTO(i + 1, clientEventId, null, null, null);
+            acks.add(ack);
+
+            String error = validate(event, clientEventId, companyId);
+            if (error != null) {
+                ack.setStatus(ExecutionCaptureStatus.REJECTED);
+                ack.setError(error);
+            } else if (pending.containsKey(clientEventId)) {
+                ack.setStatus(ExecutionCaptureStatus.DUPLICATE);
+                pending.get(clientEventId).repeats.add(ack);
+            } else {
+                pending.put(clientEventId, new Pending(event, ack, UUID.randomUUID()));
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            Map<String, UUID> inserted = insert(companyId, new ArrayList<>(pending.values()), createdBy);
+            List<String> notInserted = new ArrayList<>();
+            Set<UUID> orders = new HashSet<>();
+            List<Contribution> kpis = new ArrayList<>();
+            Set<UUID> completed = new HashSet<>();
+            pending.forEach((clientEventId, entry) -> {
+                if (inserted.containsKey(clientEventId)) {
+                    entry.ack.setStatus(ExecutionCaptureStatus.ACCEPTED);
+                    entry.ack.setExecutionId(entry.executionId);
+                    CreateProductionExecutionDTO event = entry.event;
+                    orders.add(event.getProductionOrderId());
+                    // Mesmo tenant gravado na execução (o da ordem), não o informado no evento
+                    kpis.addAll(productionKpiService.contributionsOf(inserted.get(clientEventId), companyId,
+                            event.getStepId(), event.getMachineId(), event.getEmployeeId(), event.getStartTime().toLocalDateTime(),
+                            event.getEndTime() != null ? event.getEndTime().toLocalDateTime() : null,
+                            event.getQuantityDone(), event.getLossQuantity(), event.getQualityStatus()));
+                    if (event.getEndTime() != null) {
+                        completed.add(entry.executionId);
+                    }
+                } else {
+                    notInserted.add(clientEventId);
+                }
+            });
+            productionOrderProgressService.recalculateAll(companyId, orders);
+            productionKpiService.applyAll(kpis);
+            if (!orders.isEmpty()) {
+                eventPublisher.publishEvent(new ProductionExecutionChangedEvent(companyId, Set.copyOf(orders)));
+            }
+            if (!completed.isEmpty()) {
+                eventPublisher.publishEvent(new ProductionExecutionCompletedEvent(companyId, completed));
+            }
+
+            // Fora do caminho comum: o evento já existia (reenvio) ou ordem/etapa não são da empresa
+            Map<String, UUID> received = notInserted.isEmpty() ? Map.of() : findReceived(companyId, notInserted);
+            for (String clientEventId : notInserted) {
+                ExecutionCaptureAckDTO ack = pending.get(clientEventId).ack;
+                UUID executionId = received.get(clientEventId);
+                if (executionId != null) {
+                    ack.setStatus(ExecutionCaptureStatus.DUPLICATE);
+                    ack.setExecutionId(executionId);
+                } else {
+                    ack.setStatus(ExecutionCaptureStatus.REJECTED);
+                    ack.setError("Ordem ou etapa não encontrada na empresa");
+                }
+            }
+            pending.values().forEach(entry -> entry.repeats.forEach(repeat -> repeat.setExecutionId(entry.ack.getExecutionId())));
+        }
+
+        Map<ExecutionCaptureStatus, Long> counts = acks.stream()
+                .collect(Collectors.groupingBy(ExecutionCaptureAckDTO::getStatus, Collectors.counting()));
+        int accepted = counts.getOrDefault(ExecutionCaptureStatus.ACCEPTED, 0L).intValue();
+        int duplicates = counts.getOrDefault(ExecutionCaptureStatus.DUPLICATE, 0L).intValue();
+        int rejected = counts.getOrDefault(ExecutionCaptureStatus.REJECTED, 0L).intValue();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        log.debug("Captura de {} eventos: {} aceitos, {} duplicados, {} rejeitados em {} ms",
+                events.size(), accepted, duplicates, rejected, elapsed);
+        return new ExecutionCaptureResultDTO(events.size(), accepted, duplicates, rejected, elapsed, acks);
+    }
+
+    private String validate(CreateProductionExecutionDTO event, String clientEventId, UUID companyId) {
+        if (event == null) {
+            return "Evento vazio";
+        }
+        Set<ConstraintViolation<CreateProductionExecutionDTO>> violations = validator.validate(event);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (clientEventId == null || clientEventId.isEmpty()) {
+            return "Identificador do evento é obrigatório";
+        }
+        if (!event.getCompanyId().equals(companyId)) {
+            return "Todos os eventos do lote devem ser da mesma empresa";
+        }
+        BigDecimal loss = event.getLossQuantity() != null ? event.getLossQuantity() : BigDecimal.ZERO;
+        if (event.getQuantityDone().signum() < 0 || loss.signum() < 0 || loss.compareTo(event.getQuantityDone()) > 0) {
+            return "Quantidade realizada ou perda inválida";
+        }
+        if (event.getEndTime() != null && event.getEndTime().isBefore(event.getStartTime())) {
+            return "Hora de término anterior à hora de início";
+        }
+        return null;
+    }
+
+    /**
+     * Um único INSERT para o lote; retorna os identificadores de evento efetivamente gravados, com o tenant gravado
+     */
+    private Map<String, UUID> insert(UUID companyId, List<Pending> entries, String createdBy) {
+        int size = entries.size();
+        Object[][] columns = new Object[13][size];
+        for (int i = 0; i < size; i++) {
+            Pending entry = entries.get(i);
+            CreateProductionExecutionDTO event = entry.event;
+            columns[0][i] = entry.executionId;
+            columns[1][i] = event.getProductionOrderId();
+            columns[2][i] = event.getStepId();
+            columns[3][i] = Timestamp.valueOf(event.getStartTime().toLocalDateTime());
+            columns[4][i] = event.getEndTime() != null ? Timestamp.valueOf(event.getEndTime().toLocalDateTime()) : null;
+            columns[5][i] = event.getQuantityDone();
+            columns[6][i] = event.getLossQuantity() != null ? event.getLossQuantity() : BigDecimal.ZERO;
+            columns[7][i] = event.getEmployeeId();
+            columns[8][i] = event.getMachineId();
+            columns[9][i] = event.getQualityStatus() != null ? event.getQualityStatus().name() : null;
+            columns[10][i] = event.getRejectionReason();
+            columns[11][i] = event.getNotes();
+            columns[12][i] = entry.ack.getClientEventId();
+        }
+        String[] types = {"uuid", "uuid", "uuid", "timestamp", "timestamp", "numeric", "numeric", "uuid", "uuid",
+                "varchar", "text", "text", "varchar"};
+
+        Map<String, UUID> inserted = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_EVENTS);
+            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setString(2, createdBy);
+            for (int column = 0; column < types.length; column++) {
+                ps.setArray(column + 3, connection.createArrayOf(types[column], columns[column]));
+            }
+            ps.setObject(types.length + 3, companyId);
+            ps.setObject(types.length + 4, companyId);
+            return ps;
+        }, rs -> {
+            inserted.put(rs.getString("client_event_id"), rs.getObject("tenant_id", UUID.class));
+        });
+        return inserted;
+    }
+
+    private Map<String, UUID> findReceived(UUID companyId, List<String> clientEventIds) {
+        Map<String, UUID> received = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_RECEIVED);
+            ps.setObject(1, companyId);
+            ps.setArray(2, connection.createArrayOf("varchar", clientEventIds.toArray()));
+            return ps;
+        }, rs -> {
+            received.put(rs.getString("client_event_id"), rs.getObject("production_execution_id", UUID.class));
+        });
+        return received;
+    }
+
+    private static final class Pending {
+        private final CreateProductionExecutionDTO event;
+        private final ExecutionCaptureAckDTO ack;
+        private final UUID executionId;
+        private final List<ExecutionCaptureAckDTO> repeats = new ArrayList<>();
+
+        private Pending(CreateProductionExecutionDTO event, ExecutionCaptureAckDTO ack, UUID executionId) {
+            this.event = event;
+            this.ack = ack;
+            this.executionId = executionId;
+        }
+    }
+}
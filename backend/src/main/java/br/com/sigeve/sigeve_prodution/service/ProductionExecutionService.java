@@ -1,12 +1,18 @@
 package br.com.sigeve.sigeve_prodution.service;
 
 import br.com.sigeve.sigeve_prodution.dto.CreateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ExecutionCaptureAckDTO;
 import br.com.sigeve.sigeve_prodution.dto.ProductionExecutionDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.enums.ExecutionCaptureStatus;
+import br.com.sigeve.sigeve_prodution.event.ProductionExecutionChangedEvent;
+import br.com.sigeve.sigeve_prodution.event.ProductionExecutionCompletedEvent;
 import br.com.sigeve.sigeve_prodution.model.ProductionExecution;
 import br.com.sigeve.sigeve_prodution.repository.ProductionExecutionRepository;
+import br.com.sigeve.sigeve_prodution.service.ProductionKpiService.Contribution;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +30,10 @@ import java.util.stream.Collectors;
 public class ProductionExecutionService {
 
     private final ProductionExecutionRepository productionExecutionRepository;
+    private final ProductionExecutionCaptureService productionExecutionCaptureService;
+    private final ProductionOrderProgressService productionOrderProgressService;
+    private final ProductionKpiService productionKpiService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ProductionExecutionDTO> findByProductionOrder(UUID productionOrderId) {
@@ -51,6 +61,24 @@ public class ProductionExecutionService {
     public ProductionExecutionDTO create(CreateProductionExecutionDTO request, String createdBy) {
         log.debug("Criando nova execução de produção");
 
+        String clientEventId = request.getClientEventId() != null && !request.getClientEventId().isBlank()
+                ? request.getClientEventId().trim() : null;
+        if (clientEventId != null) {
+            // Pelo INSERT da captura, que descarta o evento repetido no próprio banco (ON CONFLICT): um reenvio
+            // concorrente recebe a execução já gravada em vez de violar o índice único
+            ExecutionCaptureAckDTO ack = productionExecutionCaptureService.capture(List.of(request), createdBy)
+                    .getEvents().get(0);
+            if (ack.getStatus() == ExecutionCaptureStatus.REJECTED) {
+                throw new IllegalArgumentException(ack.getError());
+            }
+            if (ack.getStatus() == ExecutionCaptureStatus.DUPLICATE) {
+                log.info("Evento {} já registrado na execução: {}", clientEventId, ack.getExecutionId());
+            }
+            return productionExecutionRepository.findById(ack.getExecutionId())
+                    .map(this::convertToDTO)
+                    .orElseThrow(() -> new IllegalStateException("Execução não encontrada: " + ack.getExecutionId()));
+        }
+
         ProductionExecution execution = new ProductionExecution();
         execution.setTenantId(request.getTenantId());
         execution.setCompanyId(request.getCompanyId());
@@ -65,9 +93,17 @@ public class ProductionExecutionService {
         execution.setQualityStatus(request.getQualityStatus());
         execution.setRejectionReason(request.getRejectionReason());
         execution.setNotes(request.getNotes());
+        execution.setClientEventId(clientEventId);
         execution.setCreatedBy(createdBy);
 
-        ProductionExecution saved = productionExecutionRepository.save(execution);
+        // Gravada antes do recálculo, que soma as execuções da ordem direto no banco
+        ProductionExecution saved = productionExecutionRepository.saveAndFlush(execution);
+        productionOrderProgressService.recalculate(saved.getCompanyId(), saved.getProductionOrderId());
+        productionKpiService.apply(List.of(), productionKpiService.contributionsOf(saved));
+        eventPublisher.publishEvent(ProductionExecutionChangedEvent.of(saved.getCompanyId(), saved.getProductionOrderId()));
+        if (saved.getEndTime() != null) {
+            eventPublisher.publishEvent(ProductionExecutionCompletedEvent.of(saved.getCompanyId(), saved.getId()));
+        }
         log.info("Execução de produção criada com sucesso: {}", saved.getId());
 
         return convertToDTO(saved);
@@ -78,6 +114,8 @@ public class ProductionExecutionService {
 
         ProductionExecution execution = productionExecutionRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Execução não encontrada: " + id));
+        List<Contribution> kpiBefore = productionKpiService.contributionsOf(execution);
+        boolean wasOpen = execution.getEndTime() == null;
 
         if (request.getStepId() != null) execution.setStepId(request.getStepId());
         if (request.getStartTime() != null) execution.setStartTime(request.getStartTime().toLocalDateTime());
@@ -93,7 +131,13 @@ public class ProductionExecutionService {
         execution.setUpdatedBy(updatedBy);
         execution.setUpdatedAt(LocalDateTime.now());
 
-        ProductionExecution saved = productionExecutionRepository.save(execution);
+        ProductionExecution saved = productionExecutionRepository.saveAndFlush(execution);
+        productionOrderProgressService.recalculate(saved.getCompanyId(), saved.getProductionOrderId());
+        productionKpiService.apply(kpiBefore, productionKpiService.contributionsOf(saved));
+        eventPublisher.publishEvent(ProductionExecutionChangedEvent.of(saved.getCompanyId(), saved.getProductionOrderId()));
+        if (wasOpen && saved.getEndTime() != null) {
+            eventPublisher.publishEvent(ProductionExecutionCompletedEvent.of(saved.getCompanyId(), saved.getId()));
+        }
         log.info("Execução de produção atualizada com sucesso: {}", saved.getId());
 
         return convertToDTO(saved);
@@ -104,11 +148,15 @@ public class ProductionExecutionService {
 
         ProductionExecution execution = productionExecutionRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Execução não encontrada: " + id));
+        List<Contribution> kpiBefore = productionKpiService.contributionsOf(execution);
 
         execution.setDeletedAt(LocalDateTime.now());
         execution.setDeletedBy(deletedBy);
 
-        productionExecutionRepository.save(execution);
+        productionExecutionRepository.saveAndFlush(execution);
+        productionOrderProgressService.recalculate(execution.getCompanyId(), execution.getProductionOrderId());
+        productionKpiService.apply(kpiBefore, List.of());
+        eventPublisher.publishEvent(ProductionExecutionChangedEvent.of(execution.getCompanyId(), execution.getProductionOrderId()));
         log.info("Execução de produção deletada com sucesso: {}", id);
     }
 
@@ -128,6 +176,7 @@ public class ProductionExecutionService {
         dto.setQualityStatus(execution.getQualityStatus());
         dto.setRejectionReason(execution.getRejectionReason());
         dto.setNotes(execution.getNotes());
+        dto.setClientEventId(execution.getClientEventId());
         dto.setCreatedAt(execution.getCreatedAt() != null ? execution.getCreatedAt().atOffset(OffsetDateTime.now().getOffset()) : null);
         dto.setCreatedBy(execution.getCreatedBy());
         dto.setUpdatedAt(execution.getUpdatedAt() != null ? execution.getUpdatedAt().atOffset(OffsetDateTime.now().getOffset()) : null);
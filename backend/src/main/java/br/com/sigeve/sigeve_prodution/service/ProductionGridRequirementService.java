@@ -0,0 +1,351 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.BomRequirementDTO;
+import br.com.sigeve.sigeve_prodution.dto.GridRequirementDTO;
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import br.com.sigeve.sigeve_prodution.model.CompositionItemVariant;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemVariantRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionGridCellRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Necessidade de materiais da ordem pela grade (tamanho x cor). A estrutura é percorrida uma única vez e cada
+ * item é aplicado a todas as células da grade ao mesmo tempo: a quantidade do item vira um vetor (uma posição
+ * por célula) multiplicado pelo fator de consumo do tamanho/cor, e as células são agrupadas pela referência
+ * resolvida (o substituto da cor, quando houver). Ordens sem grade são uma célula só, com o tamanho e a cor
+ * do produto.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ProductionGridRequirementService {
+
+    private static final int SCALE = 4;
+
+    private final ProductionOrderRepository productionOrderRepository;
+    private final ProductionProductRepository productionProductRepository;
+    private final ProductionGridCellRepository productionGridCellRepository;
+    private final CompositionItemVariantRepository compositionItemVariantRepository;
+    private final RawMaterialRepository rawMaterialRepository;
+    private final BomExplosionService bomExplosionService;
+
+    public GridRequirementDTO calculate(UUID productionOrderId, boolean includeOptional) {
+        log.debug("Calculando necessidade pela grade da ordem: {}", productionOrderId);
+
+        ProductionOrder order = productionOrderRepository.findByIdAndDeletedAtIsNull(productionOrderId)
+                .orElseThrow(() -> new IllegalArgumentException("Ordem não encontrada: " + productionOrderId));
+        Explosion explosion = explode(order, order.getQuantityPlanned(), includeOptional)
+                .orElseThrow(() -> new IllegalArgumentException("Produto sem composição vigente: " + order.getProductId()));
+
+        List<BomRequirementDTO> requirements = explosion.requirements.values().stream()
+                .map(requirement -> new BomRequirementDTO(requirement.itemType, requirement.referenceId, requirement.unitType,
+                        requirement.quantity.setScale(SCALE, RoundingMode.HALF_UP),
+                        requirement.totalCost.setScale(SCALE, RoundingMode.HALF_UP)))
+                .collect(Collectors.toList());
+
+        GridRequirementDTO dto = new GridRequirementDTO();
+        dto.setProductionOrderId(order.getId());
+        dto.setProductionProductId(order.getProductId());
+        dto.setCompositionId(explosion.composition.getId());
+        dto.setQuantity(order.getQuantityPlanned());
+        dto.setCellCount(explosion.cells.size());
+        dto.setTotalCost(requirements.stream().map(BomRequirementDTO::getTotalCost).reduce(BigDecimal.ZERO, BigDecimal::add));
+        dto.setRequirements(requirements);
+        return dto;
+    }
+
+    /**
+     * Matérias-primas para {@code quantity} unidades da ordem, distribuídas pela grade na proporção de cada
+     * célula, ordenadas por matéria-prima; vazio se o produto não tiver composição vigente
+     */
+    public Optional<Map<UUID, BigDecimal>> rawMaterialRequirements(ProductionOrder order, BigDecimal quantity) {
+        return explode(order, quantity, false).map(explosion -> {
+            Map<UUID, BigDecimal> requirements = new TreeMap<>();
+            explosion.requirements.values().stream()
+                    .filter(requirement -> requirement.itemType == CompositionItemType.RAW_MATERIAL)
+                    .forEach(requirement -> requirements.merge(requirement.referenceId, requirement.quantity, BigDecimal::add));
+            return requirements;
+        });
+    }
+
+    private Optional<Explosion> explode(ProductionOrder order, BigDecimal quantity, boolean includeOptional) {
+        BomExplosionContext context = bomExplosionService.newContext(order.getCompanyId(), includeOptional);
+        Optional<Composition> composition = context.activeComposition(order.getProductId());
+        if (composition.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<Cell> cells = cells(order);
+        BigDecimal[] multipliers = new BigDecimal[cells.size()];
+        boolean whole = quantity.compareTo(order.getQuantityPlanned()) == 0;
+        for (int i = 0; i < cells.size(); i++) {
+            multipliers[i] = whole
+                    ? cells.get(i).quantity()
+                    : cells.get(i).quantity().multiply(quantity).divide(order.getQuantityPlanned(), MathContext.DECIMAL64);
+        }
+
+        Explosion explosion = new Explosion(context, composition.get(), cells, includeOptional);
+        explosion.loadVariants();
+        explosion.walk(composition.get(), multipliers, new LinkedHashSet<>());
+        explosion.priceSubstitutes();
+        return Optional.of(explosion);
+    }
+
+    /**
+     * Células da grade com quantidade; sem grade, uma célula com o tamanho e a cor do produto
+     */
+    private List<Cell> cells(ProductionOrder order) {
+        List<Cell> cells = productionGridCellRepository.findByProductionOrderIdOrderByColorPositionAscSizePositionAsc(order.getId())
+                .stream()
+                .filter(cell -> cell.getQuantity().signum() > 0)
+                .map(cell -> new Cell(normalize(cell.getSize()), normalize(cell.getColor()), cell.getQuantity()))
+                .collect(Collectors.toList());
+        if (!cells.isEmpty()) {
+            return cells;
+        }
+        return productionProductRepository.findById(order.getProductId())
+                .map(product -> List.of(new Cell(normalize(product.getSize()), normalize(product.getColor()), order.getQuantityPlanned())))
+                .orElseGet(() -> List.of(new Cell(null, null, order.getQuantityPlanned())));
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private record Cell(String size, String color, BigDecimal quantity) {
+    }
+
+    /**
+     * Fator e referência de um item em uma célula. A variação de tamanho e cor juntos prevalece; sem ela,
+     * os fatores da variação de tamanho e da de cor se multiplicam e o substituto da cor prevalece sobre o do tamanho.
+     */
+    private record Resolution(BigDecimal factor, UUID referenceId) {
+
+        static Resolution of(CompositionItem item, List<CompositionItemVariant> variants, Cell cell) {
+            CompositionItemVariant exact = null;
+            CompositionItemVariant bySize = null;
+            CompositionItemVariant byColor = null;
+            for (CompositionItemVariant variant : variants) {
+                String size = normalize(variant.getSize());
+                String color = normalize(variant.getColor());
+                boolean sizeMatches = size != null && size.equals(cell.size());
+                boolean colorMatches = color != null && color.equals(cell.color());
+                if (sizeMatches && colorMatches) {
+                    exact = variant;
+                } else if (sizeMatches && color == null) {
+                    bySize = variant;
+                } else if (colorMatches && size == null) {
+                    byColor = variant;
+                }
+            }
+            if (exact != null) {
+                return new Resolution(exact.getConsumptionFactor(),
+                        exact.getSubstituteReferenceId() != null ? exact.getSubstituteReferenceId() : item.getReferenceId());
+            }
+            BigDecimal factor = (bySize != null ? bySize.getConsumptionFactor() : BigDecimal.ONE)
+                    .multiply(byColor != null ? byColor.getConsumptionFactor() : BigDecimal.ONE);
+            UUID referenceId = byColor != null && byColor.getSubstituteReferenceId() != null ? byColor.getSubstituteReferenceId()
+                    : bySize != null && bySize.getSubstituteReferenceId() != null ? bySize.getSubstituteReferenceId()
+                    : item.getReferenceId();
+            return new Resolution(factor, referenceId);
+        }
+    }
+
+    /**
+     * Estado de uma explosão pela grade: variações carregadas por item e necessidade acumulada por referência
+     */
+    private final class Explosion {
+
+        private final BomExplosionContext context;
+        private final Composition composition;
+        private final List<Cell> cells;
+        private final boolean includeOptional;
+        private final Set<UUID> compositionsWithVariants = new HashSet<>();
+        private final Map<UUID, List<CompositionItemVariant>> variantsByItem = new HashMap<>();
+        private final Map<RequirementKey, Requirement> requirements = new LinkedHashMap<>();
+
+        private Explosion(BomExplosionContext context, Composition composition, List<Cell> cells, boolean includeOptional) {
+            this.context = context;
+            this.composition = composition;
+            this.cells = cells;
+            this.includeOptional = includeOptional;
+        }
+
+        private void walk(Composition current, BigDecimal[] multipliers, Set<UUID> path) {
+            if (!path.add(current.getProductionProductId())) {
+                throw new IllegalStateException("Ciclo detectado na estrutura do produto " +
+                        current.getProductionProductId() + ": " + path);
+            }
+
+            for (CompositionItem item : context.items(current)) {
+                if (item.isOptional() && !includeOptional) {
+                    continue;
+                }
+                BigDecimal base = item.getQuantityWithLoss();
+                List<CompositionItemVariant> itemVariants = variantsByItem.getOrDefault(item.getId(), List.of());
+
+                // Vetor de quantidades do item por célula, agrupado pela referência resolvida em cada célula
+                Map<UUID, BigDecimal[]> byReference = new LinkedHashMap<>();
+                for (int i = 0; i < cells.size(); i++) {
+                    if (multipliers[i].signum() == 0) {
+                        continue;
+                    }
+                    Resolution resolution = itemVariants.isEmpty()
+                            ? new Resolution(BigDecimal.ONE, item.getReferenceId())
+                            : Resolution.of(item, itemVariants, cells.get(i));
+                    byReference.computeIfAbsent(resolution.referenceId(), id -> zeros())[i] =
+                            multipliers[i].multiply(base).multiply(resolution.factor());
+                }
+
+                for (Map.Entry<UUID, BigDecimal[]> entry : byReference.entrySet()) {
+                    Optional<Composition> sub = item.isProduct() ? context.activeComposition(entry.getKey()) : Optional.empty();
+                    if (sub.isPresent()) {
+                        walk(sub.get(), entry.getValue(), path);
+                    } else {
+                        leaf(item, entry.getKey(), Arrays.stream(entry.getValue()).reduce(BigDecimal.ZERO, BigDecimal::add));
+                    }
+                }
+            }
+            path.remove(current.getProductionProductId());
+        }
+
+        private void leaf(CompositionItem item, UUID referenceId, BigDecimal quantity) {
+            Requirement requirement = requirements.computeIfAbsent(new RequirementKey(item.getItemType(), referenceId),
+                    key -> new Requirement(item.getItemType(), referenceId, item.getUnitType()));
+            requirement.quantity = requirement.quantity.add(quantity);
+            if (referenceId.equals(item.getReferenceId()) || item.getItemType() != CompositionItemType.RAW_MATERIAL) {
+                if (item.getUnitCost() != null) {
+                    requirement.totalCost = requirement.totalCost.add(item.getUnitCost().multiply(quantity));
+                }
+            } else {
+                requirement.substitutedQuantity = requirement.substitutedQuantity.add(quantity);
+            }
+        }
+
+        /**
+         * Matérias-primas substitutas são valorizadas pelo custo médio, lidas em uma consulta
+         */
+        private void priceSubstitutes() {
+            List<UUID> substitutes = requirements.values().stream()
+                    .filter(requirement -> requirement.substitutedQuantity.signum() > 0)
+                    .map(requirement -> requirement.referenceId)
+                    .collect(Collectors.toList());
+            if (substitutes.isEmpty()) {
+                return;
+            }
+            Map<UUID, BigDecimal> averageCosts = rawMaterialRepository.findAllById(substitutes).stream()
+                    .filter(material -> material.getAverageCost() != null)
+                    .collect(Collectors.toMap(RawMaterial::getId, RawMaterial::getAverageCost));
+            requirements.values().stream()
+                    .filter(requirement -> requirement.substitutedQuantity.signum() > 0)
+                    .forEach(requirement -> requirement.totalCost = requirement.totalCost.add(requirement.substitutedQuantity
+                            .multiply(averageCosts.getOrDefault(requirement.referenceId, BigDecimal.ZERO))));
+        }
+
+        /**
+         * Carrega as variações de todas as composições alcançáveis a partir da principal em uma consulta. Só
+         * semiacabados substitutos com estrutura fora da árvore pedem outra rodada, com as composições deles.
+         */
+        private void loadVariants() {
+            List<Composition> roots = List.of(composition);
+            while (!roots.isEmpty()) {
+                Map<UUID, Composition> reachable = reachable(roots);
+                Map<UUID, CompositionItem> items = new HashMap<>();
+                reachable.values().forEach(current -> context.items(current).forEach(item -> items.put(item.getId(), item)));
+                compositionsWithVariants.addAll(reachable.keySet());
+
+                Set<UUID> substituteProducts = new LinkedHashSet<>();
+                for (CompositionItemVariant variant : compositionItemVariantRepository.findByCompositionIds(reachable.keySet())) {
+                    variantsByItem.computeIfAbsent(variant.getCompositionItemId(), id -> new ArrayList<>()).add(variant);
+                    CompositionItem item = items.get(variant.getCompositionItemId());
+                    if (item != null && item.isProduct() && variant.getSubstituteReferenceId() != null) {
+                        substituteProducts.add(variant.getSubstituteReferenceId());
+                    }
+                }
+
+                context.preloadProducts(substituteProducts);
+                roots = substituteProducts.stream()
+                        .map(context::activeComposition)
+                        .flatMap(Optional::stream)
+                        .filter(sub -> !compositionsWithVariants.contains(sub.getId()))
+                        .collect(Collectors.toList());
+            }
+        }
+
+        /**
+         * Composições ainda sem variações carregadas, a partir das informadas e descendo pelos semiacabados
+         */
+        private Map<UUID, Composition> reachable(List<Composition> roots) {
+            Map<UUID, Composition> reachable = new LinkedHashMap<>();
+            Deque<Composition> pending = new ArrayDeque<>(roots);
+            while (!pending.isEmpty()) {
+                Composition current = pending.pop();
+                if (compositionsWithVariants.contains(current.getId()) || reachable.putIfAbsent(current.getId(), current) != null) {
+                    continue;
+                }
+                for (CompositionItem item : context.items(current)) {
+                    if (item.isProduct() && (includeOptional || !item.isOptional())) {
+                        context.activeComposition(item.getReferenceId()).ifPresent(pending::push);
+                    }
+                }
+            }
+            return reachable;
+        }
+
+        private BigDecimal[] zeros() {
+            BigDecimal[] vector = new BigDecimal[cells.size()];
+            Arrays.fill(vector, BigDecimal.ZERO);
+            return vector;
+        }
+    }
+
+    private record RequirementKey(CompositionItemType itemType, UUID referenceId) {
+    }
+
+    private static final class Requirement {
+        private final CompositionItemType itemType;
+        private final UUID referenceId;
+        private final UnitType unitType;
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private BigDecimal totalCost = BigDecimal.ZERO;
+        private BigDecimal substitutedQuantity = BigDecimal.ZERO;
+
+        private Requirement(CompositionItemType itemType, UUID referenceId, UnitType unitType) {
+            this.itemType = itemType;
+            this.referenceId = referenceId;
+            this.unitType = unitType;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.ProductionGridDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionGridDTO;
+import br.com.sigeve.sigeve_prodution.model.ProductionGridCell;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.repository.ProductionGridCellRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Grade de produção (tamanho x cor) da ordem. A grade é gravada inteira em um único comando: as células
+ * enviadas são inseridas ou atualizadas e as que ficaram de fora da nova grade são removidas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ProductionGridService {
+
+    // Upsert de todas as células e remoção das que saíram da grade, em uma ida ao banco. O DELETE enxerga a
+    // grade anterior: as células atualizadas pelo upsert são preservadas pelo id retornado
+    private static final String SAVE_GRID_SQL =
+            "WITH upserted AS (" +
+            "  INSERT INTO tab_production_grid_cells (production_grid_cell_id, tenant_id, company_id, production_order_id, " +
+            "    size, size_position, color, color_position, quantity, created_at, created_by) " +
+            "  SELECT gen_random_uuid(), ?, ?, ?, c.size, c.size_position, c.color, c.color_position, c.quantity, now(), ? " +
+            "  FROM unnest(?::varchar[], ?::int[], ?::varchar[], ?::int[], ?::numeric[]) " +
+            "       AS c(size, size_position, color, color_position, quantity) " +
+            "  ON CONFLICT (production_order_id, size, color) DO UPDATE SET " +
+            "    size_position = EXCLUDED.size_position, color_position = EXCLUDED.color_position, " +
+            "    quantity = EXCLUDED.quantity, updated_at = now(), updated_by = EXCLUDED.created_by " +
+            "  RETURNING production_grid_cell_id" +
+            ") " +
+            "DELETE FROM tab_production_grid_cells g " +
+            "WHERE g.production_order_id = ? " +
+            "  AND g.production_grid_cell_id NOT IN (SELECT production_grid_cell_id FROM upserted)";
+
+    private final ProductionGridCellRepository productionGridCellRepository;
+    private final ProductionOrderRepository productionOrderRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(readOnly = true)
+    public Optional<ProductionGridDTO> findByOrder(UUID productionOrderId) {
+        log.debug("Buscando grade da ordem de produção: {}", productionOrderId);
+        return productionOrderRepository.findByIdAndDeletedAtIsNull(productionOrderId)
+                .map(order -> toMatrix(order,
+                        productionGridCellRepository.findByProductionOrderIdOrderByColorPositionAscSizePositionAsc(productionOrderId)));
+    }
+
+    /**
+     * Substitui a grade da ordem. A soma das células deve ser igual à quantidade planejada.
+     */
+    public ProductionGridDTO save(UUID productionOrderId, UpdateProductionGridDTO request, String updatedBy) {
+        log.debug("Gravando grade da ordem de produção: {}", productionOrderId);
+
+        ProductionOrder order = productionOrderRepository.findByIdAndDeletedAtIsNull(productionOrderId)
+                .orElseThrow(() -> new IllegalArgumentException("Ordem não encontrada: " + productionOrderId));
+        if (order.isFinished() || order.isCanceled()) {
+            throw new IllegalStateException("Ordens finalizadas ou canceladas não podem ter a grade alterada");
+        }
+
+        List<String> sizes = distinctLabels(request.getSizes(), "Tamanho");
+        List<String> colors = distinctLabels(request.getColors(), "Cor");
+        List<List<BigDecimal>> quantities = request.getQuantities();
+        if (quantities.size() != colors.size()) {
+            throw new IllegalArgumentException("A grade deve ter uma linha de quantidades por cor");
+        }
+
+        int cellCount = sizes.size() * colors.size();
+        String[] cellSizes = new String[cellCount];
+        Integer[] sizePositions = new Integer[cellCount];
+        String[] cellColors = new String[cellCount];
+        Integer[] colorPositions = new Integer[cellCount];
+        BigDecimal[] cellQuantities = new BigDecimal[cellCount];
+        BigDecimal total = BigDecimal.ZERO;
+        int cell = 0;
+        for (int c = 0; c < colors.size(); c++) {
+            List<BigDecimal> row = quantities.get(c);
+            if (row == null || row.size() != sizes.size()) {
+                throw new IllegalArgumentException("A linha da cor " + colors.get(c) + " deve ter uma quantidade por tamanho");
+            }
+            for (int s = 0; s < sizes.size(); s++) {
+                BigDecimal quantity = row.get(s) != null ? row.get(s) : BigDecimal.ZERO;
+                if (quantity.signum() < 0) {
+                    throw new IllegalArgumentException("Quantidade negativa na grade: " + colors.get(c) + " / " + sizes.get(s));
+                }
+                cellSizes[cell] = sizes.get(s);
+                sizePositions[cell] = s;
+                cellColors[cell] = colors.get(c);
+                colorPositions[cell] = c;
+                cellQuantities[cell] = quantity;
+                total = total.add(quantity);
+                cell++;
+            }
+        }
+        if (total.compareTo(order.getQuantityPlanned()) != 0) {
+            throw new IllegalArgumentException("A soma da grade (" + total.stripTrailingZeros().toPlainString()
+                    + ") difere da quantidade planejada da ordem (" + order.getQuantityPlanned().stripTrailingZeros().toPlainString() + ")");
+        }
+
+        int removed = jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SAVE_GRID_SQL);
+            ps.setObject(1, order.getTenantId());
+            ps.setObject(2, order.getCompanyId());
+            ps.setObject(3, order.getId());
+            ps.setString(4, updatedBy);
+            ps.setArray(5, connection.createArrayOf("varchar", cellSizes));
+            ps.setArray(6, connection.createArrayOf("int4", sizePositions));
+            ps.setArray(7, connection.createArrayOf("varchar", cellColors));
+            ps.setArray(8, connection.createArrayOf("int4", colorPositions));
+            ps.setArray(9, connection.createArrayOf("numeric", cellQuantities));
+            ps.setObject(10, order.getId());
+            return ps;
+        });
+        log.info("Grade da ordem {} gravada: {} tamanhos x {} cores ({} células removidas)",
+                productionOrderId, sizes.size(), colors.size(), removed);
+
+        return new ProductionGridDTO(order.getId(), order.getQuantityPlanned(), total, sizes, colors, quantities.stream()
+                .map(row -> row.stream().map(quantity -> quantity != null ? quantity : BigDecimal.ZERO).toList())
+                .toList());
+    }
+
+    private static List<String> distinctLabels(List<String> labels, String label) {
+        List<String> trimmed = new ArrayList<>(labels.size());
+        Set<String> seen = new HashSet<>();
+        for (String value : labels) {
+            String text = value != null ? value.trim() : "";
+            if (text.isEmpty()) {
+                throw new IllegalArgumentException(label + " não pode ser vazio na grade");
+            }
+            if (!seen.add(text.toUpperCase())) {
+                throw new IllegalArgumentException(label + " repetido na grade: " + text);
+            }
+            trimmed.add(text);
+        }
+        return trimmed;
+    }
+
+    private ProductionGridDTO toMatrix(ProductionOrder order, List<ProductionGridCell> cells) {
+        TreeMap<Integer, String> sizes = new TreeMap<>();
+        TreeMap<Integer, String> colors = new TreeMap<>();
+        for (ProductionGridCell cell : cells) {
+            sizes.put(cell.getSizePosition(), cell.getSize());
+            colors.put(cell.getColorPosition(), cell.getColor());
+        }
+
+        List<List<BigDecimal>> quantities = new ArrayList<>(colors.size());
+        for (int c = 0; c < colors.size(); c++) {
+            List<BigDecimal> row = new ArrayList<>(sizes.size());
+            for (int s = 0; s < sizes.size(); s++) {
+                row.add(BigDecimal.ZERO);
+            }
+            quantities.add(row);
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (ProductionGridCell cell : cells) {
+            // As posições são gravadas contíguas a partir de zero
+            quantities.get(cell.getColorPosition()).set(cell.getSizePosition(), cell.getQuantity());
+            total = total.add(cell.getQuantity());
+        }
+        return new ProductionGridDTO(order.getId(), order.getQuantityPlanned(), total,
+                new ArrayList<>(sizes.values()), new ArrayList<>(colors.values()), quantities);
+    }
+}
@@ -0,0 +1,371 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.ProductionKpiDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionKpiRebuildDTO;
+import br.com.sigeve.sigeve_prodution.enums.KpiDimension;
+import br.com.sigeve.sigeve_prodution.enums.QualityStatus;
+import br.com.sigeve.sigeve_prodution.model.ProductionExecution;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Indicadores de produção (tempo de ciclo, vazão, refugo e uma aproximação de OEE) por etapa, máquina ou
+ * funcionário. As execuções são somadas em baldes horários ({@code tab_production_kpi_buckets}) na mesma transação
+ * em que são gravadas, alteradas ou removidas, sempre pela diferença; as consultas leem só os baldes do período.
+ * A execução conta (quantidades e número de execuções) no balde da hora em que começou, e o tempo apontado é
+ * repartido pelas horas que ela atravessa, em segundos inteiros. A reconstrução refaz os baldes de uma empresa a
+ * partir das execuções com a mesma regra.
+ * <p>
+ * OEE = disponibilidade x desempenho x qualidade, onde: disponibilidade é o tempo apontado sobre o tempo disponível
+ * dos dias com apontamento (a capacidade diária da etapa; para máquina e funcionário, a jornada padrão);
+ * desempenho é o tempo padrão da etapa vezes a quantidade encerrada sobre o tempo apontado; qualidade é a quantidade
+ * boa (sem perdas nem reprovações) sobre a realizada.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ProductionKpiService {
+
+    private static final String ZERO_UUID = "'00000000-0000-0000-0000-000000000000'::uuid";
+
+    private static final String UPSERT_BUCKETS =
+            "INSERT INTO tab_production_kpi_buckets (production_kpi_bucket_id, tenant_id, company_id, bucket_start, step_id, " +
+            "machine_id, employee_id, execution_count, quantity_done, loss_quantity, rejected_quantity, completed_quantity, " +
+            "run_seconds, updated_at) " +
+            "SELECT gen_random_uuid(), c.tenant_id, c.company_id, c.bucket_start, c.step_id, c.machine_id, c.employee_id, " +
+            "       c.execution_count, c.quantity_done, c.loss_quantity, c.rejected_quantity, c.completed_quantity, c.run_seconds, ? " +
+            "FROM unnest(?::uuid[], ?::uuid[], ?::timestamp[], ?::uuid[], ?::uuid[], ?::uuid[], ?::integer[], ?::numeric[], " +
+            "            ?::numeric[], ?::numeric[], ?::numeric[], ?::bigint[]) " +
+            "     AS c(tenant_id, company_id, bucket_start, step_id, machine_id, employee_id, execution_count, quantity_done, " +
+            "          loss_quantity, rejected_quantity, completed_quantity, run_seconds) " +
+            "ON CONFLICT (company_id, bucket_start, step_id, COALESCE(machine_id, " + ZERO_UUID + "), " +
+            "             COALESCE(employee_id, " + ZERO_UUID + ")) " +
+            "DO UPDATE SET execution_count = tab_production_kpi_buckets.execution_count + EXCLUDED.execution_count, " +
+            "    quantity_done = tab_production_kpi_buckets.quantity_done + EXCLUDED.quantity_done, " +
+            "    loss_quantity = tab_production_kpi_buckets.loss_quantity + EXCLUDED.loss_quantity, " +
+            "    rejected_quantity = tab_production_kpi_buckets.rejected_quantity + EXCLUDED.rejected_quantity, " +
+            "    completed_quantity = tab_production_kpi_buckets.completed_quantity + EXCLUDED.completed_quantity, " +
+            "    run_seconds = tab_production_kpi_buckets.run_seconds + EXCLUDED.run_seconds, " +
+            "    updated_at = EXCLUDED.updated_at";
+
+    private static final String LOCK_BUCKETS = "LOCK TABLE tab_production_kpi_buckets IN SHARE ROW EXCLUSIVE MODE";
+
+    private static final String DELETE_COMPANY_BUCKETS = "DELETE FROM tab_production_kpi_buckets WHERE company_id = ?";
+
+    // Mesma regra de contributionsOf: contagens na hora de início, tempo repartido por hora (o mesmo SELECT está no
+    // script de inicialização db/init/production-kpi.sql)
+    private static final String REBUILD_COMPANY_BUCKETS =
+            "INSERT INTO tab_production_kpi_buckets (production_kpi_bucket_id, tenant_id, company_id, bucket_start, step_id, " +
+            "machine_id, employee_id, execution_count, quantity_done, loss_quantity, rejected_quantity, completed_quantity, " +
+            "run_seconds, updated_at) " +
+            "SELECT gen_random_uuid(), (array_agg(p.tenant_id))[1], p.company_id, p.bucket_start, p.step_id, p.machine_id, " +
+            "       p.employee_id, SUM(p.execution_count), SUM(p.quantity_done), SUM(p.loss_quantity), " +
+            "       SUM(p.rejected_quantity), SUM(p.completed_quantity), SUM(p.run_seconds), now() " +
+            "FROM (" +
+            "    SELECT e.tenant_id, e.company_id, date_trunc('hour', e.start_time) AS bucket_start, e.step_id, e.machine_id," +
+            "           e.employee_id, 1 AS execution_count, e.quantity_done, COALESCE(e.loss_quantity, 0) AS loss_quantity," +
+            "           CASE WHEN e.quality_status = 'REJECTED' THEN e.quantity_done - COALESCE(e.loss_quantity, 0) ELSE 0 END" +
+            "               AS rejected_quantity," +
+            "           CASE WHEN e.end_time IS NOT NULL THEN e.quantity_done ELSE 0 END AS completed_quantity," +
+            "           0::bigint AS run_seconds" +
+            "    FROM tab_production_executions e" +
+            "    WHERE e.company_id = ? AND e.deleted_at IS NULL AND e.step_id IS NOT NULL AND e.start_time IS NOT NULL" +
+            "    UNION ALL" +
+            "    SELECT e.tenant_id, e.company_id, h.bucket_start, e.step_id, e.machine_id, e.employee_id, 0, 0, 0, 0, 0," +
+            "           (floor(extract(epoch FROM LEAST(e.end_time, h.bucket_start + interval '1 hour')))" +
+            "            - floor(extract(epoch FROM GREATEST(e.start_time, h.bucket_start))))::bigint" +
+            "    FROM tab_production_executions e" +
+            "    CROSS JOIN LATERAL generate_series(date_trunc('hour', e.start_time), e.end_time, interval '1 hour')" +
+            "        AS h(bucket_start)" +
+            "    WHERE e.company_id = ? AND e.deleted_at IS NULL AND e.step_id IS NOT NULL AND e.end_time > e.start_time" +
+            "      AND h.bucket_start < e.end_time" +
+            ") p " +
+            "GROUP BY p.company_id, p.bucket_start, p.step_id, p.machine_id, p.employee_id " +
+            "HAVING SUM(p.execution_count) <> 0 OR SUM(p.run_seconds) <> 0";
+
+    private static final String SELECT_KPIS =
+            "SELECT b.%1$s AS reference_id, " +
+            "       COUNT(DISTINCT CAST(b.bucket_start AS DATE)) FILTER (WHERE b.execution_count > 0 OR b.run_seconds > 0)" +
+            "           AS active_days, " +
+            "       COUNT(DISTINCT b.bucket_start) FILTER (WHERE b.execution_count > 0 OR b.run_seconds > 0) AS active_hours, " +
+            "       SUM(b.execution_count) AS execution_count, SUM(b.quantity_done) AS quantity_done, " +
+            "       SUM(b.loss_quantity) AS loss_quantity, SUM(b.rejected_quantity) AS rejected_quantity, " +
+            "       SUM(b.completed_quantity) AS completed_quantity, SUM(b.run_seconds) AS run_seconds, " +
+            "       SUM(b.completed_quantity * COALESCE(s.estimated_time, 0) * 60) AS standard_seconds " +
+            "FROM tab_production_kpi_buckets b " +
+            "LEFT JOIN tab_production_steps s ON s.production_step_id = b.step_id " +
+            "WHERE b.company_id = ? AND b.bucket_start >= ? AND b.bucket_start < ? AND b.%1$s IS NOT NULL " +
+            "GROUP BY b.%1$s " +
+            "HAVING SUM(b.execution_count) > 0 OR SUM(b.run_seconds) > 0";
+
+    private static final int SCALE = 4;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductionStepRepository productionStepRepository;
+
+    /**
+     * Contribuições atuais da execução, uma por balde que ela ocupa; execuções removidas não contribuem
+     */
+    public List<Contribution> contributionsOf(ProductionExecution execution) {
+        if (execution.getDeletedAt() != null || execution.getStartTime() == null || execution.getStepId() == null) {
+            return List.of();
+        }
+        return contributionsOf(execution.getTenantId(), execution.getCompanyId(), execution.getStepId(),
+                execution.getMachineId(), execution.getEmployeeId(), execution.getStartTime(), execution.getEndTime(),
+                execution.getQuantityDone(), execution.getLossQuantity(), execution.getQualityStatus());
+    }
+
+    /**
+     * O balde da hora de início recebe a execução, as quantidades e o tempo daquela hora; as horas seguintes até o
+     * fim recebem só o seu tempo
+     */
+    public List<Contribution> contributionsOf(UUID tenantId, UUID companyId, UUID stepId, UUID machineId,
+                                              UUID employeeId, LocalDateTime startTime, LocalDateTime endTime,
+                                              BigDecimal quantityDone, BigDecimal lossQuantity,
+                                              QualityStatus qualityStatus) {
+        BigDecimal done = quantityDone != null ? quantityDone : BigDecimal.ZERO;
+        BigDecimal loss = lossQuantity != null ? lossQuantity : BigDecimal.ZERO;
+        boolean completed = endTime != null;
+        LocalDateTime hour = startTime.truncatedTo(ChronoUnit.HOURS);
+
+        List<Contribution> contributions = new ArrayList<>();
+        contributions.add(new Contribution(tenantId, new Bucket(companyId, hour, stepId, machineId, employeeId), 1,
+                done, loss, qualityStatus == QualityStatus.REJECTED ? done.subtract(loss) : BigDecimal.ZERO,
+                completed ? done : BigDecimal.ZERO, completed ? runSeconds(startTime, endTime, hour) : 0));
+        if (completed) {
+            for (hour = hour.plusHours(1); hour.isBefore(endTime); hour = hour.plusHours(1)) {
+                long seconds = runSeconds(startTime, endTime, hour);
+                if (seconds > 0) {
+                    contributions.add(new Contribution(tenantId, new Bucket(companyId, hour, stepId, machineId, employeeId),
+                            0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, seconds));
+                }
+            }
+        }
+        return contributions;
+    }
+
+    /**
+     * Segundos inteiros da execução dentro da hora; somados pelas horas, dão a duração em segundos inteiros
+     */
+    private static long runSeconds(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime hour) {
+        LocalDateTime from = startTime.truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime to = endTime.truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime next = hour.plusHours(1);
+        return Math.max(0, Duration.between(from.isAfter(hour) ? from : hour, to.isBefore(next) ? to : next).getSeconds());
+    }
+
+    /**
+     * Troca as contribuições anteriores da execução pelas atuais
+     */
+    public void apply(List<Contribution> before, List<Contribution> after) {
+        List<Contribution> changes = new ArrayList<>(before.size() + after.size());
+        before.forEach(contribution -> changes.add(contribution.negate()));
+        changes.addAll(after);
+        applyAll(changes);
+    }
+
+    /**
+     * Soma as contribuições em um único upsert, uma linha por balde. Os baldes vão em ordem fixa, para que
+     * lotes concorrentes bloqueiem as linhas na mesma sequência.
+     */
+    public void applyAll(Collection<Contribution> contributions) {
+        Map<Bucket, Contribution> byBucket = new TreeMap<>(Bucket.ORDER);
+        for (Contribution contribution : contributions) {
+            byBucket.merge(contribution.bucket(), contribution, Contribution::add);
+        }
+        byBucket.values().removeIf(Contribution::isZero);
+        if (byBucket.isEmpty()) {
+            return;
+        }
+
+        int size = byBucket.size();
+        Object[][] columns = new Object[12][size];
+        int i = 0;
+        for (Contribution c : byBucket.values()) {
+            columns[0][i] = c.tenantId();
+            columns[1][i] = c.bucket().companyId();
+            columns[2][i] = Timestamp.valueOf(c.bucket().start());
+            columns[3][i] = c.bucket().stepId();
+            columns[4][i] = c.bucket().machineId();
+            columns[5][i] = c.bucket().employeeId();
+            columns[6][i] = c.executionCount();
+            columns[7][i] = c.quantityDone();
+            columns[8][i] = c.lossQuantity();
+            columns[9][i] = c.rejectedQuantity();
+            columns[10][i] = c.completedQuantity();
+            columns[11][i] = c.runSeconds();
+            i++;
+        }
+        String[] types = {"uuid", "uuid", "timestamp", "uuid", "uuid", "uuid", "integer", "numeric", "numeric", "numeric",
+                "numeric", "bigint"};
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPSERT_BUCKETS);
+            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            for (int column = 0; column < types.length; column++) {
+                ps.setArray(column + 2, connection.createArrayOf(types[column], columns[column]));
+            }
+            return ps;
+        });
+        log.debug("{} baldes de indicadores atualizados", size);
+    }
+
+    /**
+     * Refaz os baldes da empresa a partir das execuções. Corrige execuções gravadas antes dos baldes ou alteradas
+     * por fora do serviço; repetir a reconstrução não altera nada. A tabela fica travada contra gravações até o
+     * commit, para que nenhuma execução seja somada duas vezes ou perdida no meio da reconstrução.
+     */
+    public ProductionKpiRebuildDTO rebuild(UUID companyId) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+
+        jdbcTemplate.execute(LOCK_BUCKETS);
+        jdbcTemplate.update(DELETE_COMPANY_BUCKETS, companyId);
+        int buckets = jdbcTemplate.update(REBUILD_COMPANY_BUCKETS, companyId, companyId);
+
+        log.info("Baldes de indicadores da empresa {} reconstruídos: {} baldes", companyId, buckets);
+        return new ProductionKpiRebuildDTO(companyId, buckets,
+                Duration.between(startedAt, LocalDateTime.now()).toMillis());
+    }
+
+    /**
+     * Indicadores do período (dias {@code from} a {@code to}, inclusive), por etapa, máquina ou funcionário
+     */
+    @Transactional(readOnly = true)
+    public List<ProductionKpiDTO> findKpis(UUID companyId, KpiDimension dimension, LocalDate from, LocalDate to) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        if (dimension == null) {
+            throw new IllegalArgumentException("Agrupamento é obrigatório");
+        }
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Período inválido");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= 366) {
+            throw new IllegalArgumentException("O período deve ser de no máximo 366 dias");
+        }
+
+        Map<UUID, ProductionStep> steps = productionStepRepository.findByCompanyIdAndDeletedAtIsNullOrderBySequence(companyId)
+                .stream()
+                .collect(Collectors.toMap(ProductionStep::getId, Function.identity()));
+
+        String sql = String.format(SELECT_KPIS, switch (dimension) {
+            case STEP -> "step_id";
+            case MACHINE -> "machine_id";
+            case EMPLOYEE -> "employee_id";
+        });
+        List<ProductionKpiDTO> kpis = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            UUID referenceId = rs.getObject("reference_id", UUID.class);
+            int availableMinutesPerDay = ProductionStep.DEFAULT_DAILY_CAPACITY_MINUTES;
+            String referenceName = null;
+            if (dimension == KpiDimension.STEP && steps.containsKey(referenceId)) {
+                availableMinutesPerDay = steps.get(referenceId).getEffectiveDailyCapacityMinutes();
+                referenceName = steps.get(referenceId).getName();
+            }
+            return toDTO(dimension, referenceId, referenceName, rs.getInt("execution_count"),
+                    rs.getBigDecimal("quantity_done"), rs.getBigDecimal("loss_quantity"), rs.getBigDecimal("rejected_quantity"),
+                    rs.getBigDecimal("completed_quantity"), rs.getLong("run_seconds"), rs.getBigDecimal("standard_seconds"),
+                    rs.getInt("active_hours"), rs.getLong("active_days") * availableMinutesPerDay * 60);
+        }, companyId, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+
+        kpis.sort(Comparator.comparing(ProductionKpiDTO::getGoodQuantity).reversed());
+        return kpis;
+    }
+
+    private ProductionKpiDTO toDTO(KpiDimension dimension, UUID referenceId, String referenceName, int executionCount,
+                                   BigDecimal done, BigDecimal loss, BigDecimal rejected, BigDecimal completed,
+                                   long runSeconds, BigDecimal standardSeconds, int activeHours, long availableSeconds) {
+        BigDecimal good = done.subtract(loss).subtract(rejected);
+        BigDecimal run = BigDecimal.valueOf(runSeconds);
+
+        BigDecimal cycleTime = completed.signum() > 0 && runSeconds > 0 ? run.divide(completed, SCALE, RoundingMode.HALF_UP) : null;
+        BigDecimal throughput = activeHours > 0 ? good.divide(BigDecimal.valueOf(activeHours), SCALE, RoundingMode.HALF_UP) : null;
+        BigDecimal scrapRate = percentage(loss.add(rejected), done);
+        BigDecimal availability = availableSeconds > 0 ? cap(percentage(run, BigDecimal.valueOf(availableSeconds))) : null;
+        BigDecimal performance = runSeconds > 0 && standardSeconds.signum() > 0 ? cap(percentage(standardSeconds, run)) : null;
+        BigDecimal quality = percentage(good, done);
+        BigDecimal oee = availability != null && performance != null && quality != null
+                ? availability.multiply(performance).multiply(quality)
+                        .divide(HUNDRED.multiply(HUNDRED), SCALE, RoundingMode.HALF_UP)
+                : null;
+
+        return new ProductionKpiDTO(dimension, referenceId, referenceName, executionCount, done, loss, rejected, good,
+                runSeconds / 60, activeHours, cycleTime, throughput, scrapRate, availability, performance, quality, oee);
+    }
+
+    private static BigDecimal percentage(BigDecimal part, BigDecimal total) {
+        if (total == null || total.signum() == 0) {
+            return null;
+        }
+        return part.divide(total, SCALE, RoundingMode.HALF_UP).multiply(HUNDRED);
+    }
+
+    private static BigDecimal cap(BigDecimal percentage) {
+        return percentage != null && percentage.compareTo(HUNDRED) > 0 ? HUNDRED.setScale(SCALE) : percentage;
+    }
+
+    /**
+     * Hora, etapa, máquina e funcionário de um balde
+     */
+    public record Bucket(UUID companyId, LocalDateTime start, UUID stepId, UUID machineId, UUID employeeId) {
+
+        static final Comparator<Bucket> ORDER = Comparator.comparing(Bucket::companyId, LockOrder.UUIDS)
+                .thenComparing(Bucket::start)
+                .thenComparing(Bucket::stepId, LockOrder.UUIDS)
+                .thenComparing(Bucket::machineId, LockOrder.UUIDS_NULLS_FIRST)
+                .thenComparing(Bucket::employeeId, LockOrder.UUIDS_NULLS_FIRST);
+    }
+
+    /**
+     * Totais que uma ou mais execuções somam em um balde
+     */
+    public record Contribution(UUID tenantId, Bucket bucket, int executionCount, BigDecimal quantityDone,
+                               BigDecimal lossQuantity, BigDecimal rejectedQuantity, BigDecimal completedQuantity,
+                               long runSeconds) {
+
+        public Contribution add(Contribution other) {
+            return new Contribution(tenantId, bucket, executionCount + other.executionCount,
+                    quantityDone.add(other.quantityDone), lossQuantity.add(other.lossQuantity),
+                    rejectedQuantity.add(other.rejectedQuantity), completedQuantity.add(other.completedQuantity),
+                    runSeconds + other.runSeconds);
+        }
+
+        public Contribution negate() {
+            return new Contribution(tenantId, bucket, -executionCount, quantityDone.negate(), lossQuantity.negate(),
+                    rejectedQuantity.negate(), completedQuantity.negate(), -runSeconds);
+        }
+
+        public boolean isZero() {
+            return executionCount == 0 && quantityDone.signum() == 0 && lossQuantity.signum() == 0
+                    && rejectedQuantity.signum() == 0 && completedQuantity.signum() == 0 && runSeconds == 0;
+        }
+    }
+}
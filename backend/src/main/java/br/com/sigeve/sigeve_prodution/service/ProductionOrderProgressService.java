@@ -0,0 +1,137 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderProgressRebuildDTO;
+import br.com.sigeve.sigeve_prodution.event.ProductionOrderChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Consolida as execuções na própria ordem de produção ({@code quantity_produced}, {@code quantity_lost}), para que
+ * painéis e listagens leiam uma linha por ordem em vez de somar as execuções a cada consulta.
+ * <p>
+ * Cada execução contribui com a sua perda, em qualquer etapa, e, quando é da última etapa ativa do roteiro, com a
+ * quantidade boa (realizada menos perda): as etapas anteriores trabalham as mesmas peças. A cada alteração os totais
+ * da ordem são recalculados a partir das suas execuções, na mesma transação, em vez de somar diferenças: editar,
+ * remover ou mudar o roteiro não deixa resíduo. As ordens são travadas antes do recálculo, em ordem de ID, e o
+ * recálculo roda em outra instrução, que já enxerga as execuções confirmadas por quem segurava a trava.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ProductionOrderProgressService {
+
+    private static final String LOCK_ORDERS =
+            "SELECT production_order_id FROM tab_production_orders " +
+            "WHERE production_order_id = ANY(?::uuid[]) AND company_id = ? " +
+            "ORDER BY production_order_id FOR NO KEY UPDATE";
+
+    private static final String LOCK_COMPANY_ORDERS =
+            "SELECT production_order_id FROM tab_production_orders WHERE company_id = ? " +
+            "ORDER BY production_order_id FOR NO KEY UPDATE";
+
+    private static final String RECALCULATE =
+            "WITH final_step AS (" +
+            "    SELECT production_step_id FROM tab_production_steps" +
+            "    WHERE company_id = ? AND is_active AND deleted_at IS NULL" +
+            "    ORDER BY sequence DESC LIMIT 1" +
+            "), totals AS (" +
+            "    SELECT o.production_order_id," +
+            "           COALESCE(SUM(CASE WHEN e.step_id = f.production_step_id" +
+            "               THEN GREATEST(e.quantity_done - COALESCE(e.loss_quantity, 0), 0) ELSE 0 END), 0) AS produced," +
+            "           COALESCE(SUM(COALESCE(e.loss_quantity, 0)), 0) AS lost" +
+            "    FROM unnest(?::uuid[]) AS o(production_order_id)" +
+            "    LEFT JOIN tab_production_executions e" +
+            "        ON e.production_order_id = o.production_order_id AND e.deleted_at IS NULL" +
+            "    LEFT JOIN final_step f ON true" +
+            "    GROUP BY o.production_order_id" +
+            ") " +
+            "UPDATE tab_production_orders o SET quantity_produced = t.produced, quantity_lost = t.lost, " +
+            "version = COALESCE(o.version, 0) + 1 " +
+            "FROM totals t WHERE o.production_order_id = t.production_order_id AND o.company_id = ? " +
+            "AND (o.quantity_produced IS DISTINCT FROM t.produced OR o.quantity_lost IS DISTINCT FROM t.lost) " +
+            "RETURNING o.production_order_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Recalcula os totais de uma ordem a partir das suas execuções
+     */
+    public void recalculate(UUID companyId, UUID productionOrderId) {
+        recalculateAll(companyId, List.of(productionOrderId));
+    }
+
+    /**
+     * Recalcula os totais das ordens informadas; retorna quantas mudaram
+     */
+    public int recalculateAll(UUID companyId, Collection<UUID> productionOrderIds) {
+        if (productionOrderIds.isEmpty()) {
+            return 0;
+        }
+        List<UUID> locked = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LOCK_ORDERS);
+            ps.setArray(1, connection.createArrayOf("uuid", new TreeSet<>(productionOrderIds).toArray()));
+            ps.setObject(2, companyId);
+            return ps;
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class));
+        return update(companyId, locked);
+    }
+
+    /**
+     * Recalcula os totais de todas as ordens da empresa. Corrige ordens gravadas antes da consolidação ou
+     * alteradas por fora do serviço; repetir o recálculo não altera nada.
+     */
+    public ProductionOrderProgressRebuildDTO rebuild(UUID companyId) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+
+        List<UUID> locked = jdbcTemplate.queryForList(LOCK_COMPANY_ORDERS, UUID.class, companyId);
+        int updated = update(companyId, locked);
+
+        log.info("Progresso das ordens da empresa {} reconstruído: {} de {} ordens alteradas",
+                companyId, updated, locked.size());
+        return new ProductionOrderProgressRebuildDTO(companyId, locked.size(), updated,
+                Duration.between(startedAt, LocalDateTime.now()).toMillis());
+    }
+
+    private int update(UUID companyId, List<UUID> productionOrderIds) {
+        if (productionOrderIds.isEmpty()) {
+            return 0;
+        }
+        Set<UUID> changed = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RECALCULATE);
+            ps.setObject(1, companyId);
+            ps.setArray(2, connection.createArrayOf("uuid", productionOrderIds.toArray()));
+            ps.setObject(3, companyId);
+            return ps;
+        }, rs -> {
+            changed.add(rs.getObject(1, UUID.class));
+        });
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        log.debug("Progresso de {} ordens da empresa {} atualizado", changed.size(), companyId);
+
+        // O saldo a produzir mudou: a programação reprograma essas ordens após o commit
+        eventPublisher.publishEvent(new ProductionOrderChangedEvent(companyId, Set.copyOf(changed)));
+        return changed.size();
+    }
+}
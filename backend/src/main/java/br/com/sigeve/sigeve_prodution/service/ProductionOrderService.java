@@ -1,13 +1,19 @@
 package br.com.sigeve.sigeve_prodution.service;
 
 import br.com.sigeve.sigeve_prodution.dto.CreateProductionOrderDTO;
+import br.com.sigeve.sigeve_prodution.dto.CursorPageDTO;
 import br.com.sigeve.sigeve_prodution.dto.ProductionOrderDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderFilterDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateProductionOrderDTO;
 import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.event.ProductionOrderChangedEvent;
 import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.repository.ProductionGridCellRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderKeyset;
 import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,7 +31,13 @@ import java.util.stream.Collectors;
 @Transactional
 public class ProductionOrderService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final ProductionOrderRepository productionOrderRepository;
+    private final StockReservationService stockReservationService;
+    private final ProductionGridCellRepository productionGridCellRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ProductionOrderDTO> findAllByCompany(UUID companyId) {
@@ -43,6 +55,31 @@ public class ProductionOrderService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductionOrderDTO> findPage(ProductionOrderFilterDTO filter, String cursor, Integer size) {
+        if (filter.getCompanyId() == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ProductionOrderKeyset after = cursor != null && !cursor.isBlank() ? ProductionOrderKeyset.decode(cursor) : null;
+
+        log.debug("Buscando página de ordens da empresa: {} após cursor: {}", filter.getCompanyId(), cursor);
+
+        // Busca um registro a mais para saber se existe próxima página sem COUNT
+        List<ProductionOrder> orders = productionOrderRepository.findPage(filter, after, pageSize + 1);
+        boolean hasNext = orders.size() > pageSize;
+        if (hasNext) {
+            orders = orders.subList(0, pageSize);
+        }
+
+        List<ProductionOrderDTO> content = orders.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        String nextCursor = hasNext ? ProductionOrderKeyset.of(orders.get(orders.size() - 1)).encode() : null;
+
+        return new CursorPageDTO<>(content, content.size(), hasNext, nextCursor);
+    }
+
     @Transactional(readOnly = true)
     public Optional<ProductionOrderDTO> findById(UUID id) {
         log.debug("Buscando ordem de produção por ID: {}", id);
@@ -85,6 +122,7 @@ public class ProductionOrderService {
         order.setCreatedBy(createdBy);
 
         ProductionOrder saved = productionOrderRepository.save(order);
+        eventPublisher.publishEvent(ProductionOrderChangedEvent.of(saved.getCompanyId(), saved.getId()));
         log.info("Ordem de produção criada com sucesso: {}", saved.getId());
 
         return convertToDTO(saved);
@@ -93,7 +131,7 @@ public class ProductionOrderService {
     public ProductionOrderDTO update(UUID id, UpdateProductionOrderDTO request, String updatedBy) {
         log.debug("Atualizando ordem de produção: {}", id);
 
-        ProductionOrder order = productionOrderRepository.findByIdAndDeletedAtIsNull(id)
+        ProductionOrder order = productionOrderRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ordem não encontrada: " + id));
 
         if (request.getCode() != null && !request.getCode().equals(order.getCode())) {
@@ -104,11 +142,22 @@ public class ProductionOrderService {
             }
         }
 
+        // O status muda apenas pelas transições (aprovar, iniciar, finalizar, cancelar), que cuidam das reservas
+        if (request.getStatus() != null && request.getStatus() != order.getStatus()) {
+            throw new IllegalArgumentException("O status da ordem não pode ser alterado na edição; use as ações de aprovar, iniciar, finalizar ou cancelar");
+        }
+
+        boolean quantityChanged = request.getQuantityPlanned() != null
+                && request.getQuantityPlanned().compareTo(order.getQuantityPlanned()) != 0;
+        boolean productChanged = request.getProductId() != null && !request.getProductId().equals(order.getProductId());
+
+        if (quantityChanged && productionGridCellRepository.existsByProductionOrderId(id)) {
+            throw new IllegalArgumentException("A ordem possui grade: altere a grade junto com a quantidade planejada");
+        }
+
         if (request.getCode() != null) order.setCode(request.getCode());
         if (request.getProductId() != null) order.setProductId(request.getProductId());
         if (request.getQuantityPlanned() != null) order.setQuantityPlanned(request.getQuantityPlanned());
-        if (request.getQuantityProduced() != null) order.setQuantityProduced(request.getQuantityProduced());
-        if (request.getStatus() != null) order.setStatus(request.getStatus());
         if (request.getPriority() != null) order.setPriority(request.getPriority());
         if (request.getStartDate() != null) order.setStartDate(request.getStartDate());
         if (request.getEndDate() != null) order.setEndDate(request.getEndDate());
@@ -121,7 +170,12 @@ public class ProductionOrderService {
         order.setUpdatedBy(updatedBy);
         order.setUpdatedAt(LocalDateTime.now());
 
+        if (productChanged || quantityChanged) {
+            stockReservationService.rereserveForOrder(order, updatedBy);
+        }
+
         ProductionOrder saved = productionOrderRepository.save(order);
+        eventPublisher.publishEvent(ProductionOrderChangedEvent.of(saved.getCompanyId(), saved.getId()));
         log.info("Ordem de produção atualizada com sucesso: {}", saved.getId());
 
         return convertToDTO(saved);
@@ -130,20 +184,23 @@ public class ProductionOrderService {
     public void delete(UUID id, String deletedBy) {
         log.debug("Deletando ordem de produção: {}", id);
 
-        ProductionOrder order = productionOrderRepository.findByIdAndDeletedAtIsNull(id)
+        ProductionOrder order = productionOrderRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ordem não encontrada: " + id));
 
+        stockReservationService.releaseForOrder(order, deletedBy);
+
         order.setDeletedAt(LocalDateTime.now());
         order.setDeletedBy(deletedBy);
 
         productionOrderRepository.save(order);
+        eventPublisher.publishEvent(ProductionOrderChangedEvent.of(order.getCompanyId(), id));
         log.info("Ordem de produção deletada com sucesso: {}", id);
     }
 
     public ProductionOrderDTO approve(UUID id, String approvedBy) {
         log.debug("Aprovando ordem de produção: {}", id);
 
-        ProductionOrder order = productionOrderRepository.findByIdAndDeletedAtIsNull(id)
+        ProductionOrder order = productionOrderRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ordem não encontrada: " + id));
 
         if (order.getStatus() != ProductionOrderStatus.PLANNED) {
@@ -153,7 +210,10 @@ public class ProductionOrderService {
         order.setApprovedBy(approvedBy);
         order.setApprovedAt(LocalDateTime.now());
 
+        stockReservationService.reserveForOrder(order, approvedBy);
+
         ProductionOrder saved = productionOrderRepository.save(order);
+        eventPublisher.publishEvent(ProductionOrderChangedEvent.of(saved.getCompanyId(), saved.getId()));
         log.info("Ordem de produção aprovada: {}", id);
 
         return convertToDTO(saved);
@@ -162,7 +222,7 @@ public class ProductionOrderService {
     public ProductionOrderDTO start(UUID id, String updatedBy) {
         log.debug("Iniciando ordem de produção: {}", id);
 
-        ProductionOrder order = productionOrderRepository.findByIdAndDeletedAtIsNull(id)
+        ProductionOrder order = productionOrderRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ordem não encontrada: " + id));
 
         if (order.getStatus() != ProductionOrderStatus.PLANNED) {
@@ -173,7 +233,10 @@ public class ProductionOrderService {
         order.setUpdatedBy(updatedBy);
         order.setUpdatedAt(LocalDateTime.now());
 
+        stockReservationService.reserveForOrder(order, updatedBy);
+
         ProductionOrder saved = productionOrderRepository.save(order);
+        eventPublisher.publishEvent(ProductionOrderChangedEvent.of(saved.getCompanyId(), saved.getId()));
         log.info("Ordem de produção iniciada: {}", id);
 
         return convertToDTO(saved);
@@ -182,7 +245,7 @@ public class ProductionOrderService {
     public ProductionOrderDTO finish(UUID id, String finishedBy) {
         log.debug("Finalizando ordem de produção: {}", id);
 
-        ProductionOrder order = productionOrderRepository.findByIdAndDeletedAtIsNull(id)
+        ProductionOrder order = productionOrderRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ordem não encontrada: " + id));
 
         if (order.getStatus() != ProductionOrderStatus.IN_PROGRESS) {
@@ -195,7 +258,10 @@ public class ProductionOrderService {
         order.setUpdatedBy(finishedBy);
         order.setUpdatedAt(LocalDateTime.now());
 
+        stockReservationService.consumeForOrder(order, finishedBy);
+
         ProductionOrder saved = productionOrderRepository.save(order);
+        eventPublisher.publishEvent(ProductionOrderChangedEvent.of(saved.getCompanyId(), saved.getId()));
         log.info("Ordem de produção finalizada: {}", id);
 
         return convertToDTO(saved);
@@ -204,7 +270,7 @@ public class ProductionOrderService {
     public ProductionOrderDTO cancel(UUID id, String canceledReason, String updatedBy) {
         log.debug("Cancelando ordem de produção: {}", id);
 
-        ProductionOrder order = productionOrderRepository.findByIdAndDeletedAtIsNull(id)
+        ProductionOrder order = productionOrderRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ordem não encontrada: " + id));
 
         if (order.getStatus() == ProductionOrderStatus.FINISHED || order.getStatus() == ProductionOrderStatus.CANCELED) {
@@ -216,7 +282,10 @@ public class ProductionOrderService {
         order.setUpdatedBy(updatedBy);
         order.setUpdatedAt(LocalDateTime.now());
 
+        stockReservationService.releaseForOrder(order, updatedBy);
+
         ProductionOrder saved = productionOrderRepository.save(order);
+        eventPublisher.publishEvent(ProductionOrderChangedEvent.of(saved.getCompanyId(), saved.getId()));
         log.info("Ordem de produção cancelada: {}", id);
 
         return convertToDTO(saved);
@@ -232,6 +301,8 @@ public class ProductionOrderService {
         dto.setProductName(order.getProduct() != null ? order.getProduct().getName() : null);
         dto.setQuantityPlanned(order.getQuantityPlanned());
         dto.setQuantityProduced(order.getQuantityProduced());
+        dto.setQuantityLost(order.getQuantityLost());
+        dto.setProductionPercentage(order.getProductionPercentage());
         dto.setStatus(order.getStatus());
         dto.setPriority(order.getPriority());
         dto.setStartDate(order.getStartDate());
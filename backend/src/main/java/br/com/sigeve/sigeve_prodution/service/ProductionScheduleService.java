@@ -0,0 +1,201 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.ScheduledOrderDTO;
+import br.com.sigeve.sigeve_prodution.dto.ScheduledStepDTO;
+import br.com.sigeve.sigeve_prodution.dto.StepCapacityDTO;
+import br.com.sigeve.sigeve_prodution.enums.PriorityLevel;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.enums.SchedulingRule;
+import br.com.sigeve.sigeve_prodution.event.ProductionOrderChangedEvent;
+import br.com.sigeve.sigeve_prodution.event.ProductionStepChangedEvent;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Programação de capacidade finita das ordens aprovadas e em andamento, mantida em memória por empresa
+ * ({@link CapacityPlan}). A empresa é programada por inteiro no primeiro acesso e a cada virada de dia.
+ * Alterações de ordens ({@link ProductionOrderChangedEvent}) e do roteiro descartam o plano, que é refeito
+ * por inteiro no próximo acesso; uma rajada de alterações custa uma única reprogramação.
+ */
+@Service
+@Slf4j
+public class ProductionScheduleService {
+
+    private static final String SELECT_ORDERS =
+            "SELECT o.production_order_id, o.code, o.status, o.priority, o.start_date, o.deadline, " +
+            "       o.quantity_planned - COALESCE(o.quantity_produced, 0) AS remaining_quantity " +
+            "FROM tab_production_orders o " +
+            "WHERE o.company_id = :companyId AND o.deleted_at IS NULL " +
+            "  AND o.quantity_planned > COALESCE(o.quantity_produced, 0) " +
+            "  AND (o.status = 'IN_PROGRESS' OR (o.status = 'PLANNED' AND o.approved_at IS NOT NULL))";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ProductionStepRepository productionStepRepository;
+    private final ProductionOrderRepository productionOrderRepository;
+    private final SchedulingRule rule;
+
+    private final Map<UUID, CompanySchedule> companies = new ConcurrentHashMap<>();
+
+    public ProductionScheduleService(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                     ProductionStepRepository productionStepRepository,
+                                     ProductionOrderRepository productionOrderRepository,
+                                     @Value("${app.scheduling.rule:EARLIEST_DUE_DATE}") SchedulingRule rule) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.productionStepRepository = productionStepRepository;
+        this.productionOrderRepository = productionOrderRepository;
+        this.rule = rule;
+    }
+
+    /**
+     * Ordens programadas da empresa, na ordem de despacho. Com {@code lateOnly}, só as que terminam após o prazo.
+     */
+    public List<ScheduledOrderDTO> findSchedule(UUID companyId, boolean lateOnly) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        CompanySchedule company = companies.computeIfAbsent(companyId, id -> new CompanySchedule());
+        synchronized (company) {
+            CapacityPlan plan = plan(companyId, company);
+            List<ScheduledOrderDTO> orders = new ArrayList<>();
+            int position = 0;
+            for (CapacityPlan.Job job : plan.sequence()) {
+                position++;
+                ScheduledOrderDTO dto = convertToDTO(plan, job, position);
+                if (!lateOnly || dto.isLate()) {
+                    orders.add(dto);
+                }
+            }
+            return orders;
+        }
+    }
+
+    /**
+     * Programação de uma ordem; vazio quando a ordem não está aprovada nem em andamento
+     */
+    public Optional<ScheduledOrderDTO> findByOrder(UUID productionOrderId) {
+        UUID companyId = productionOrderRepository.findByIdAndDeletedAtIsNull(productionOrderId)
+                .orElseThrow(() -> new IllegalArgumentException("Ordem não encontrada: " + productionOrderId))
+                .getCompanyId();
+        CompanySchedule company = companies.computeIfAbsent(companyId, id -> new CompanySchedule());
+        synchronized (company) {
+            CapacityPlan plan = plan(companyId, company);
+            CapacityPlan.Job job = plan.job(productionOrderId);
+            return job != null ? Optional.of(convertToDTO(plan, job, plan.positionOf(job))) : Optional.empty();
+        }
+    }
+
+    /**
+     * Carga programada de cada etapa nos próximos {@code days} dias, em minutos por dia
+     */
+    public List<StepCapacityDTO> findCapacity(UUID companyId, int days) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        if (days < 1 || days > 366) {
+            throw new IllegalArgumentException("O horizonte deve ser de 1 a 366 dias");
+        }
+        CompanySchedule company = companies.computeIfAbsent(companyId, id -> new CompanySchedule());
+        synchronized (company) {
+            CapacityPlan plan = plan(companyId, company);
+            return plan.steps().stream()
+                    .map(step -> new StepCapacityDTO(step.id, step.name, step.sequence, step.capacity, plan.origin(),
+                            CapacityPlan.loadedMinutes(step, days)))
+                    .toList();
+        }
+    }
+
+    /**
+     * Descarta o plano da empresa depois do commit das ordens alteradas. Empresas ainda não programadas
+     * são ignoradas: serão programadas por inteiro no primeiro acesso.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductionOrderChanged(ProductionOrderChangedEvent event) {
+        CompanySchedule company = companies.get(event.companyId());
+        if (company == null || event.productionOrderIds().isEmpty()) {
+            return;
+        }
+        synchronized (company) {
+            company.plan = null;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductionStepChanged(ProductionStepChangedEvent event) {
+        CompanySchedule company = companies.get(event.companyId());
+        if (company != null) {
+            synchronized (company) {
+                company.plan = null;
+            }
+        }
+    }
+
+    /**
+     * Plano atual da empresa, refeito quando ausente ou de outro dia. Chamado com o monitor da empresa.
+     */
+    private CapacityPlan plan(UUID companyId, CompanySchedule company) {
+        LocalDate today = LocalDate.now();
+        if (company.plan == null || !company.plan.origin().equals(today)) {
+            long startedAt = System.nanoTime();
+            CapacityPlan plan = new CapacityPlan(today, rule,
+                    productionStepRepository.findByCompanyIdAndIsActiveTrueAndDeletedAtIsNullOrderBySequence(companyId));
+            plan.loadAll(query(plan, companyId));
+            company.plan = plan;
+            log.info("Programação da empresa {} calculada: {} ordens em {} etapas ({} ms)", companyId,
+                    plan.sequence().size(), plan.steps().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+        return company.plan;
+    }
+
+    /**
+     * Ordens programáveis da empresa
+     */
+    private List<CapacityPlan.Job> query(CapacityPlan plan, UUID companyId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("companyId", companyId);
+
+        List<CapacityPlan.Job> jobs = new ArrayList<>();
+        namedParameterJdbcTemplate.query(SELECT_ORDERS, params, rs -> {
+            jobs.add(plan.newJob(rs.getObject("production_order_id", UUID.class), rs.getString("code"),
+                    ProductionOrderStatus.valueOf(rs.getString("status")), PriorityLevel.valueOf(rs.getString("priority")),
+                    rs.getObject("start_date", LocalDate.class), rs.getObject("deadline", LocalDate.class),
+                    rs.getBigDecimal("remaining_quantity")));
+        });
+        return jobs;
+    }
+
+    private ScheduledOrderDTO convertToDTO(CapacityPlan plan, CapacityPlan.Job job, int position) {
+        LocalDate origin = plan.origin();
+        List<CapacityPlan.Step> steps = plan.steps();
+        List<ScheduledStepDTO> scheduledSteps = new ArrayList<>(steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            CapacityPlan.Step step = steps.get(i);
+            scheduledSteps.add(new ScheduledStepDTO(step.id, step.name, step.sequence, step.outsourced, job.minutes[i],
+                    origin.plusDays(job.startDay[i]), origin.plusDays(job.endDay[i])));
+        }
+        LocalDate plannedEnd = origin.plusDays(job.finishDay);
+        boolean late = job.deadline != null && plannedEnd.isAfter(job.deadline);
+        return new ScheduledOrderDTO(job.id, job.code, job.status, job.priority, job.remainingQuantity, position,
+                origin.plusDays(job.plannedStartDay()), plannedEnd, job.deadline, late,
+                late ? ChronoUnit.DAYS.between(job.deadline, plannedEnd) : 0, scheduledSteps);
+    }
+
+    private static final class CompanySchedule {
+        private CapacityPlan plan;
+    }
+}
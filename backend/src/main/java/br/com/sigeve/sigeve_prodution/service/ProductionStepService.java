@@ -3,10 +3,12 @@ package br.com.sigeve.sigeve_prodution.service;
 import br.com.sigeve.sigeve_prodution.dto.CreateProductionStepDTO;
 import br.com.sigeve.sigeve_prodution.dto.ProductionStepDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateProductionStepDTO;
+import br.com.sigeve.sigeve_prodution.event.ProductionStepChangedEvent;
 import br.com.sigeve.sigeve_prodution.model.ProductionStep;
 import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,7 @@ import java.util.stream.Collectors;
 public class ProductionStepService {
 
     private final ProductionStepRepository productionStepRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ProductionStepDTO> findAllByCompany(UUID companyId) {
@@ -58,6 +61,7 @@ public class ProductionStepService {
         step.setDescription(request.getDescription());
         step.setSequence(request.getSequence());
         step.setEstimatedTime(request.getEstimatedTime());
+        if (request.getDailyCapacityMinutes() != null) step.setDailyCapacityMinutes(request.getDailyCapacityMinutes());
         step.setCostCenterId(request.getCostCenterId());
         step.setIsOutsourced(request.getIsOutsourced() != null ? request.getIsOutsourced() : false);
         step.setRequiresApproval(request.getRequiresApproval() != null ? request.getRequiresApproval() : false);
@@ -65,6 +69,7 @@ public class ProductionStepService {
         step.setCreatedBy(createdBy);
 
         ProductionStep saved = productionStepRepository.save(step);
+        eventPublisher.publishEvent(new ProductionStepChangedEvent(saved.getCompanyId()));
         log.info("Etapa de produção criada com sucesso: {}", saved.getId());
 
         return convertToDTO(saved);
@@ -80,6 +85,7 @@ public class ProductionStepService {
         if (request.getDescription() != null) step.setDescription(request.getDescription());
         if (request.getSequence() != null) step.setSequence(request.getSequence());
         if (request.getEstimatedTime() != null) step.setEstimatedTime(request.getEstimatedTime());
+        if (request.getDailyCapacityMinutes() != null) step.setDailyCapacityMinutes(request.getDailyCapacityMinutes());
         if (request.getCostCenterId() != null) step.setCostCenterId(request.getCostCenterId());
         if (request.getIsOutsourced() != null) step.setIsOutsourced(request.getIsOutsourced());
         if (request.getRequiresApproval() != null) step.setRequiresApproval(request.getRequiresApproval());
@@ -89,6 +95,7 @@ public class ProductionStepService {
         step.setUpdatedAt(LocalDateTime.now());
 
         ProductionStep saved = productionStepRepository.save(step);
+        eventPublisher.publishEvent(new ProductionStepChangedEvent(saved.getCompanyId()));
         log.info("Etapa de produção atualizada com sucesso: {}", saved.getId());
 
         return convertToDTO(saved);
@@ -104,6 +111,7 @@ public class ProductionStepService {
         step.setDeletedBy(deletedBy);
 
         productionStepRepository.save(step);
+        eventPublisher.publishEvent(new ProductionStepChangedEvent(step.getCompanyId()));
         log.info("Etapa de produção deletada com sucesso: {}", id);
     }
 
@@ -116,6 +124,7 @@ public class ProductionStepService {
         dto.setDescription(step.getDescription());
         dto.setSequence(step.getSequence());
         dto.setEstimatedTime(step.getEstimatedTime());
+        dto.setDailyCapacityMinutes(step.getEffectiveDailyCapacityMinutes());
         dto.setCostCenterId(step.getCostCenterId());
         dto.setIsOutsourced(step.getIsOutsourced());
         dto.setRequiresApproval(step.getRequiresApproval());
@@ -0,0 +1,217 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.AverageCostRebuildDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.event.StockChangedEvent;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Custo médio ponderado móvel das matérias-primas, calculado pela aplicação no lançamento dos movimentos
+ * (substitui o trigger update_average_cost_after_entry).
+ * Cada lançamento trava a linha da matéria-prima ({@code SELECT ... FOR NO KEY UPDATE}) antes de ler custo e saldo,
+ * então entradas concorrentes da mesma matéria-prima são aplicadas uma de cada vez e nenhuma se perde.
+ * O modo NO KEY não conflita com a trava de chave estrangeira que a inclusão do movimento já tomou na
+ * matéria-prima, então lançamentos simultâneos não entram em deadlock.
+ * Transferências não alteram o custo; saídas reduzem o saldo sem mudar o custo médio.
+ * O custo pode ser reconstruído a qualquer momento repetindo o histórico de movimentos em ordem de data.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class RawMaterialAverageCostService {
+
+    private static final int SCALE = 4;
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String LOCK_MATERIAL =
+            "SELECT average_cost, last_purchase_price, last_purchase_date FROM tab_raw_materials " +
+            "WHERE raw_material_id = ? AND company_id = ? FOR NO KEY UPDATE";
+
+    private static final String LOCK_COMPANY_MATERIALS =
+            "SELECT raw_material_id FROM tab_raw_materials WHERE company_id = ? ORDER BY raw_material_id FOR NO KEY UPDATE";
+
+    private static final String SUM_STOCK =
+            "SELECT COALESCE(SUM(quantity), 0) FROM tab_raw_material_stocks WHERE raw_material_id = ?";
+
+    private static final String SELECT_LEDGER =
+            "SELECT raw_material_id, movement_type, movement_origin, movement_date, quantity, unit_cost " +
+            "FROM tab_raw_material_movements WHERE company_id = ? %s" +
+            "ORDER BY raw_material_id, movement_date, created_at, raw_material_movement_id";
+
+    private static final String UPDATE_MATERIAL =
+            "UPDATE tab_raw_materials SET average_cost = ?, last_purchase_price = COALESCE(?, last_purchase_price), " +
+            "last_purchase_date = COALESCE(?, last_purchase_date), " +
+            "version = COALESCE(version, 0) + 1, updated_at = now() WHERE raw_material_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Aplica ao custo médio os movimentos de uma matéria-prima, na ordem da lista. Deve ser chamado depois
+     * que os movimentos foram lançados no saldo, na mesma transação.
+     */
+    public void applyMovements(UUID rawMaterialId, List<RawMaterialMovement> movements) {
+        if (movements.stream().noneMatch(RawMaterialAverageCostService::affectsCost)) {
+            return;
+        }
+        CostState state = lock(movements.get(0).getCompanyId(), rawMaterialId);
+
+        // O saldo já inclui estes movimentos: o saldo anterior é o atual menos a soma deles
+        BigDecimal posted = movements.stream()
+                .map(RawMaterialMovement::getSignedQuantity)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        state.quantity = jdbcTemplate.queryForObject(SUM_STOCK, BigDecimal.class, rawMaterialId).subtract(posted);
+
+        BigDecimal previousCost = state.averageCost;
+        for (RawMaterialMovement movement : movements) {
+            state.apply(movement.getMovementType(), movement.getMovementOrigin(), movement.getQuantity(),
+                    movement.getUnitCost(), movement.getMovementDate() != null ? movement.getMovementDate().toLocalDate() : null);
+        }
+        save(rawMaterialId, state);
+        log.debug("Custo médio da matéria-prima {} atualizado de {} para {}", rawMaterialId, previousCost, state.averageCost);
+    }
+
+    /**
+     * Reconstrói o custo médio a partir do histórico de movimentos: de uma matéria-prima, quando informada,
+     * ou de todas as matérias-primas da empresa com movimentos. Repetir a reconstrução produz o mesmo resultado.
+     */
+    public AverageCostRebuildDTO rebuild(UUID companyId, UUID rawMaterialId) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+
+        if (rawMaterialId != null) {
+            lock(companyId, rawMaterialId);
+            CostState state = replay(companyId, rawMaterialId).getOrDefault(rawMaterialId, new CostState());
+            save(rawMaterialId, state);
+            eventPublisher.publishEvent(StockChangedEvent.of(companyId, rawMaterialId));
+            log.info("Custo médio da matéria-prima {} reconstruído: {}", rawMaterialId, state.averageCost);
+            return new AverageCostRebuildDTO(companyId, rawMaterialId, 1, state.averageCost,
+                    Duration.between(startedAt, LocalDateTime.now()).toMillis());
+        }
+
+        jdbcTemplate.queryForList(LOCK_COMPANY_MATERIALS, UUID.class, companyId);
+        Map<UUID, CostState> states = replay(companyId, null);
+        List<Object[]> updates = new ArrayList<>(states.size());
+        states.forEach((id, state) -> updates.add(new Object[]{
+                state.averageCost, state.lastPurchasePrice,
+                state.lastPurchaseDate != null ? Date.valueOf(state.lastPurchaseDate) : null, id}));
+        jdbcTemplate.batchUpdate(UPDATE_MATERIAL, updates);
+        eventPublisher.publishEvent(new StockChangedEvent(companyId, states.keySet()));
+
+        log.info("Custo médio reconstruído para {} matérias-primas da empresa {}", states.size(), companyId);
+        return new AverageCostRebuildDTO(companyId, null, states.size(), null,
+                Duration.between(startedAt, LocalDateTime.now()).toMillis());
+    }
+
+    /**
+     * Percorre o histórico em ordem (matéria-prima, data, inclusão) por cursor somente-avanço
+     */
+    private Map<UUID, CostState> replay(UUID companyId, UUID rawMaterialId) {
+        String sql = String.format(SELECT_LEDGER, rawMaterialId != null ? "AND raw_material_id = ? " : "");
+        Map<UUID, CostState> states = new LinkedHashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setObject(1, companyId);
+            if (rawMaterialId != null) {
+                ps.setObject(2, rawMaterialId);
+            }
+            return ps;
+        }, rs -> {
+            CostState state = states.computeIfAbsent(rs.getObject("raw_material_id", UUID.class), id -> new CostState());
+            state.apply(StockMovementType.valueOf(rs.getString("movement_type")),
+                    MovementOrigin.valueOf(rs.getString("movement_origin")),
+                    rs.getBigDecimal("quantity"),
+                    rs.getBigDecimal("unit_cost"),
+                    rs.getTimestamp("movement_date").toLocalDateTime().toLocalDate());
+        });
+        return states;
+    }
+
+    private CostState lock(UUID companyId, UUID rawMaterialId) {
+        List<CostState> rows = jdbcTemplate.query(LOCK_MATERIAL, (rs, rowNum) -> {
+            CostState state = new CostState();
+            state.averageCost = rs.getBigDecimal("average_cost") != null ? rs.getBigDecimal("average_cost") : BigDecimal.ZERO;
+            state.lastPurchasePrice = rs.getBigDecimal("last_purchase_price");
+            Date lastPurchaseDate = rs.getDate("last_purchase_date");
+            state.lastPurchaseDate = lastPurchaseDate != null ? lastPurchaseDate.toLocalDate() : null;
+            return state;
+        }, rawMaterialId, companyId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Matéria-prima não encontrada: " + rawMaterialId);
+        }
+        return rows.get(0);
+    }
+
+    private void save(UUID rawMaterialId, CostState state) {
+        jdbcTemplate.update(UPDATE_MATERIAL, state.averageCost, state.lastPurchasePrice,
+                state.lastPurchaseDate != null ? Date.valueOf(state.lastPurchaseDate) : null, rawMaterialId);
+    }
+
+    private static boolean affectsCost(RawMaterialMovement movement) {
+        return movement.getMovementType() == StockMovementType.IN
+                && movement.getMovementOrigin() != MovementOrigin.TRANSFER
+                && movement.getUnitCost() != null;
+    }
+
+    /**
+     * Saldo e custo médio correntes de uma matéria-prima; a mesma regra é usada no lançamento e na reconstrução
+     */
+    private static final class CostState {
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private BigDecimal averageCost = BigDecimal.ZERO;
+        private BigDecimal lastPurchasePrice;
+        private LocalDate lastPurchaseDate;
+
+        private void apply(StockMovementType type, MovementOrigin origin, BigDecimal movementQuantity,
+                           BigDecimal unitCost, LocalDate movementDate) {
+            if (origin == MovementOrigin.TRANSFER) {
+                return;
+            }
+            if (type != StockMovementType.IN) {
+                quantity = quantity.subtract(movementQuantity);
+                return;
+            }
+
+            if (unitCost != null) {
+                // Saldo zerado ou negativo não carrega custo: a entrada define o novo custo médio
+                if (quantity.signum() > 0) {
+                    averageCost = quantity.multiply(averageCost).add(movementQuantity.multiply(unitCost))
+                            .divide(quantity.add(movementQuantity), SCALE, RoundingMode.HALF_UP);
+                } else {
+                    averageCost = unitCost.setScale(SCALE, RoundingMode.HALF_UP);
+                }
+                if (origin == MovementOrigin.PURCHASE
+                        && (lastPurchaseDate == null || movementDate == null || !movementDate.isBefore(lastPurchaseDate))) {
+                    lastPurchasePrice = unitCost;
+                    lastPurchaseDate = movementDate;
+                }
+            }
+            quantity = quantity.add(movementQuantity);
+        }
+    }
+}
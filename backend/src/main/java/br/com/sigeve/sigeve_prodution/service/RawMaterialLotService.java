@@ -0,0 +1,523 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialLotAllocationDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialLotDTO;
+import br.com.sigeve.sigeve_prodution.enums.LotPickingPolicy;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialLot;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialLotAllocation;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialLotAllocationRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialLotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Lotes de matéria-prima (rolos de tecido, lotes de tingimento), para matérias-primas com controle por lote.
+ * Entradas criam lotes com o seu custo; saídas consomem o lote informado ou os lotes abertos do depósito na
+ * ordem da política da matéria-prima (FIFO por data de entrada, FEFO por validade).
+ * Em um lançamento com muitas linhas, a fila de lotes abertos de todas as matérias-primas envolvidas é lida
+ * e travada em uma única consulta, a alocação é feita em memória e os saldos dos lotes e os consumos são
+ * gravados em lote. Matérias-primas sem controle por lote não são afetadas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class RawMaterialLotService {
+
+    private static final int SCALE = 4;
+    private static final DateTimeFormatter LOT_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Ordem das filas além da consulta, para posicionar lotes abertos no próprio lançamento
+    private static final Comparator<OpenLot> FIFO = Comparator.comparing((OpenLot lot) -> lot.receiptDate);
+    private static final Comparator<OpenLot> FEFO = Comparator.comparing((OpenLot lot) -> lot.expirationDate,
+            Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(FIFO);
+
+    private static final String SELECT_LOT_MATERIALS =
+            "SELECT raw_material_id, lot_picking_policy, average_cost FROM tab_raw_materials " +
+            "WHERE raw_material_id = ANY(?::uuid[]) AND lot_control";
+
+    // Travada em ordem fixa (matéria-prima, depósito, entrada) para não gerar deadlock entre lançamentos
+    private static final String SELECT_OPEN_LOTS =
+            "SELECT l.raw_material_lot_id, l.raw_material_id, l.warehouse_id, l.lot_number, l.receipt_date, " +
+            "       l.expiration_date, l.remaining_quantity, l.unit_cost " +
+            "FROM (SELECT DISTINCT * FROM unnest(?::uuid[], ?::uuid[])) AS k(raw_material_id, warehouse_id) " +
+            "JOIN tab_raw_material_lots l ON l.raw_material_id = k.raw_material_id " +
+            "     AND l.warehouse_id IS NOT DISTINCT FROM k.warehouse_id AND l.remaining_quantity > 0 " +
+            "ORDER BY l.raw_material_id, l.warehouse_id NULLS FIRST, l.receipt_date, l.created_at, l.raw_material_lot_id " +
+            "FOR UPDATE OF l";
+
+    private static final String INSERT_LOTS =
+            "INSERT INTO tab_raw_material_lots (raw_material_lot_id, tenant_id, company_id, raw_material_id, warehouse_id, " +
+            "lot_number, receipt_date, expiration_date, initial_quantity, remaining_quantity, unit_cost, receipt_movement_id, " +
+            "created_at) " +
+            "SELECT * FROM unnest(?::uuid[], ?::uuid[], ?::uuid[], ?::uuid[], ?::uuid[], ?::varchar[], ?::date[], ?::date[], " +
+            "?::numeric[], ?::numeric[], ?::numeric[], ?::uuid[], ?::timestamp[])";
+
+    private static final String UPDATE_REMAINING =
+            "UPDATE tab_raw_material_lots l SET remaining_quantity = v.remaining_quantity, updated_at = now() " +
+            "FROM unnest(?::uuid[], ?::numeric[]) AS v(raw_material_lot_id, remaining_quantity) " +
+            "WHERE l.raw_material_lot_id = v.raw_material_lot_id";
+
+    private static final String INSERT_ALLOCATIONS =
+            "INSERT INTO tab_raw_material_lot_allocations (raw_material_lot_allocation_id, tenant_id, company_id, " +
+            "raw_material_movement_id, raw_material_lot_id, quantity, unit_cost, created_at) " +
+            "SELECT gen_random_uuid(), t, c, m, l, q, u, now() " +
+            "FROM unnest(?::uuid[], ?::uuid[], ?::uuid[], ?::uuid[], ?::numeric[], ?::numeric[]) AS v(t, c, m, l, q, u)";
+
+    private static final String UPDATE_MOVEMENT_LOT_NUMBERS =
+            "UPDATE tab_raw_material_movements m SET lot_number = v.lot_number " +
+            "FROM unnest(?::uuid[], ?::varchar[]) AS v(raw_material_movement_id, lot_number) " +
+            "WHERE m.raw_material_movement_id = v.raw_material_movement_id";
+
+    // Saldo atual de cada depósito ainda não coberto por lotes abertos vira um lote de abertura
+    private static final String INSERT_OPENING_LOTS =
+            "INSERT INTO tab_raw_material_lots (raw_material_lot_id, tenant_id, company_id, raw_material_id, warehouse_id, " +
+            "lot_number, receipt_date, initial_quantity, remaining_quantity, unit_cost, created_at) " +
+            "SELECT gen_random_uuid(), s.tenant_id, s.company_id, s.raw_material_id, s.warehouse_id, ?, current_date, " +
+            "       s.quantity - COALESCE(l.remaining, 0), s.quantity - COALESCE(l.remaining, 0), ?, now() " +
+            "FROM tab_raw_material_stocks s " +
+            "LEFT JOIN (SELECT warehouse_id, SUM(remaining_quantity) AS remaining FROM tab_raw_material_lots " +
+            "           WHERE raw_material_id = ? GROUP BY warehouse_id) l ON l.warehouse_id IS NOT DISTINCT FROM s.warehouse_id " +
+            "WHERE s.raw_material_id = ? AND s.quantity - COALESCE(l.remaining, 0) > 0";
+
+    private final RawMaterialLotRepository rawMaterialLotRepository;
+    private final RawMaterialLotAllocationRepository rawMaterialLotAllocationRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(readOnly = true)
+    public List<RawMaterialLotDTO> findByRawMaterial(UUID rawMaterialId, boolean includeEmpty) {
+        log.debug("Buscando lotes da matéria-prima: {}", rawMaterialId);
+        List<RawMaterialLot> lots = includeEmpty
+                ? rawMaterialLotRepository.findByRawMaterialIdOrderByReceiptDateAscCreatedAtAsc(rawMaterialId)
+                : rawMaterialLotRepository.findByRawMaterialIdAndRemainingQuantityGreaterThanOrderByReceiptDateAscCreatedAtAsc(
+                        rawMaterialId, BigDecimal.ZERO);
+        return lots.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lotes consumidos por um movimento de saída
+     */
+    @Transactional(readOnly = true)
+    public List<RawMaterialLotAllocationDTO> findAllocationsByMovement(UUID rawMaterialMovementId) {
+        log.debug("Buscando lotes consumidos pelo movimento: {}", rawMaterialMovementId);
+        return rawMaterialLotAllocationRepository.findByRawMaterialMovementIdOrderByCreatedAt(rawMaterialMovementId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Saídas que consumiram um lote
+     */
+    @Transactional(readOnly = true)
+    public List<RawMaterialLotAllocationDTO> findAllocationsByLot(UUID rawMaterialLotId) {
+        log.debug("Buscando consumos do lote: {}", rawMaterialLotId);
+        return rawMaterialLotAllocationRepository.findByRawMaterialLotIdOrderByCreatedAt(rawMaterialLotId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Aplica movimentos já gravados aos lotes, na ordem da lista: cada entrada abre um lote e cada saída consome
+     * os lotes abertos até ali, inclusive os das entradas anteriores do mesmo lançamento. Falha inteira
+     * (IllegalStateException) se alguma saída não tiver saldo em lotes.
+     */
+    public void applyMovements(List<RawMaterialMovement> movements) {
+        Map<UUID, LotMaterial> materials = lotMaterials(movements);
+        if (materials.isEmpty()) {
+            return;
+        }
+        List<RawMaterialMovement> lotMovements = movements.stream()
+                .filter(movement -> materials.containsKey(movement.getRawMaterialId()))
+                .collect(Collectors.toList());
+
+        Map<LotKey, LotQueue> queues = loadQueues(lotMovements.stream()
+                .filter(movement -> !StockMovementType.IN.equals(movement.getMovementType()))
+                .collect(Collectors.toList()), materials);
+        List<NewLot> receipts = new ArrayList<>();
+        List<Allocation> allocations = new ArrayList<>();
+        for (RawMaterialMovement movement : lotMovements) {
+            LotKey key = new LotKey(movement.getRawMaterialId(), movement.getWarehouseId());
+            if (StockMovementType.IN.equals(movement.getMovementType())) {
+                if (movement.getLotNumber() == null) {
+                    movement.setLotNumber(generatedLotNumber(movement));
+                }
+                NewLot receipt = new NewLot(movement, new OpenLot(UUID.randomUUID(), movement.getLotNumber(),
+                        movement.getMovementDate().toLocalDate(), movement.getLotExpirationDate(),
+                        receiptCost(movement, materials.get(movement.getRawMaterialId())), movement.getQuantity()),
+                        movement.getQuantity());
+                receipts.add(receipt);
+                queues.computeIfAbsent(key, ignored -> new LotQueue())
+                        .add(receipt.lot(), materials.get(movement.getRawMaterialId()).policy());
+            } else {
+                allocate(movement, queues.get(key), allocations);
+            }
+        }
+
+        // Lotes novos já vão com o saldo final; os consumos vêm depois, pois referenciam os lotes
+        insertLots(receipts);
+        updateRemaining(queues.values());
+        saveAllocations(allocations);
+        updateMovementLotNumbers(lotMovements.stream()
+                .filter(movement -> movement.getLotNumber() != null)
+                .collect(Collectors.toList()));
+
+        log.debug("Lotes: {} entradas e {} saídas aplicadas ({} consumos de lote)",
+                receipts.size(), lotMovements.size() - receipts.size(), allocations.size());
+    }
+
+    /**
+     * Transferência entre depósitos: consome os lotes da origem e recria cada parte consumida no destino,
+     * com o mesmo número, datas e custo do lote de origem
+     */
+    public void applyTransfer(RawMaterialMovement out, RawMaterialMovement in) {
+        Map<UUID, LotMaterial> materials = lotMaterials(List.of(out));
+        if (materials.isEmpty()) {
+            return;
+        }
+
+        Map<LotKey, LotQueue> queues = loadQueues(List.of(out), materials);
+        List<Allocation> allocations = new ArrayList<>();
+        allocate(out, queues.get(new LotKey(out.getRawMaterialId(), out.getWarehouseId())), allocations);
+        updateRemaining(queues.values());
+        saveAllocations(allocations);
+
+        List<NewLot> received = allocations.stream()
+                .map(allocation -> new NewLot(in, new OpenLot(UUID.randomUUID(), allocation.lot().lotNumber,
+                        allocation.lot().receiptDate, allocation.lot().expirationDate, allocation.lot().unitCost,
+                        allocation.quantity()), allocation.quantity()))
+                .collect(Collectors.toList());
+        insertLots(received);
+        in.setLotNumber(out.getLotNumber());
+        updateMovementLotNumbers(out.getLotNumber() != null ? List.of(out, in) : List.of());
+    }
+
+    /**
+     * Abre lotes com o saldo atual da matéria-prima, ao ativar o controle por lote
+     */
+    public void openFromCurrentStock(RawMaterial material) {
+        String lotNumber = "ABERTURA-" + LocalDate.now().format(LOT_DATE);
+        int opened = jdbcTemplate.update(INSERT_OPENING_LOTS, lotNumber,
+                material.getAverageCost() != null ? material.getAverageCost() : BigDecimal.ZERO,
+                material.getId(), material.getId());
+        log.info("Controle por lote ativado para a matéria-prima {}: {} lotes de abertura", material.getId(), opened);
+    }
+
+    private Map<UUID, LotMaterial> lotMaterials(List<RawMaterialMovement> movements) {
+        Set<UUID> rawMaterialIds = movements.stream()
+                .map(RawMaterialMovement::getRawMaterialId)
+                .collect(Collectors.toSet());
+        Map<UUID, LotMaterial> materials = new HashMap<>();
+        if (rawMaterialIds.isEmpty()) {
+            return materials;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_LOT_MATERIALS);
+            ps.setArray(1, connection.createArrayOf("uuid", rawMaterialIds.toArray()));
+            return ps;
+        }, rs -> {
+            String policy = rs.getString("lot_picking_policy");
+            materials.put(rs.getObject("raw_material_id", UUID.class), new LotMaterial(
+                    policy != null ? LotPickingPolicy.valueOf(policy) : LotPickingPolicy.FIFO,
+                    rs.getBigDecimal("average_cost")));
+        });
+        return materials;
+    }
+
+    /**
+     * Consome a saída da fila em memória (o lote informado ou os abertos na ordem da política)
+     */
+    private void allocate(RawMaterialMovement movement, LotQueue queue, List<Allocation> allocations) {
+        BigDecimal needed = movement.getQuantity();
+        Set<String> lotNumbers = new LinkedHashSet<>();
+        if (queue != null) {
+            if (movement.getLotNumber() == null) {
+                queue.skipEmpty();
+            }
+            for (int i = movement.getLotNumber() == null ? queue.head : 0; i < queue.lots.size() && needed.signum() > 0; i++) {
+                OpenLot lot = queue.lots.get(i);
+                if (lot.remaining.signum() == 0
+                        || (movement.getLotNumber() != null && !movement.getLotNumber().equals(lot.lotNumber))) {
+                    continue;
+                }
+                BigDecimal taken = lot.remaining.min(needed);
+                lot.remaining = lot.remaining.subtract(taken);
+                lot.changed = true;
+                needed = needed.subtract(taken);
+                lotNumbers.add(lot.lotNumber);
+                allocations.add(new Allocation(movement, lot, taken));
+            }
+        }
+        if (needed.signum() > 0) {
+            throw new IllegalStateException("Saldo em lotes insuficiente para a matéria-prima "
+                    + movement.getRawMaterialId()
+                    + (movement.getLotNumber() != null ? " no lote " + movement.getLotNumber() : "")
+                    + ": faltam " + needed.stripTrailingZeros().toPlainString());
+        }
+        if (movement.getLotNumber() == null && lotNumbers.size() == 1) {
+            movement.setLotNumber(lotNumbers.iterator().next());
+        }
+    }
+
+    /**
+     * Grava os saldos dos lotes já existentes que foram consumidos
+     */
+    private void updateRemaining(Collection<LotQueue> queues) {
+        List<OpenLot> changed = queues.stream()
+                .flatMap(queue -> queue.lots.stream())
+                .filter(lot -> lot.changed && !lot.inserted)
+                .collect(Collectors.toList());
+        if (changed.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPDATE_REMAINING);
+            ps.setArray(1, connection.createArrayOf("uuid", changed.stream().map(lot -> lot.id).toArray()));
+            ps.setArray(2, connection.createArrayOf("numeric", changed.stream().map(lot -> lot.remaining).toArray()));
+            return ps;
+        });
+    }
+
+    /**
+     * Uma consulta para a fila de todos os pares (matéria-prima, depósito) das saídas, lida e travada em ordem fixa
+     */
+    private Map<LotKey, LotQueue> loadQueues(List<RawMaterialMovement> issues, Map<UUID, LotMaterial> materials) {
+        Map<LotKey, LotQueue> queues = new HashMap<>();
+        if (issues.isEmpty()) {
+            return queues;
+        }
+        Object[] rawMaterialIds = issues.stream().map(RawMaterialMovement::getRawMaterialId).toArray();
+        Object[] warehouseIds = issues.stream().map(RawMaterialMovement::getWarehouseId).toArray();
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_OPEN_LOTS);
+            ps.setArray(1, connection.createArrayOf("uuid", rawMaterialIds));
+            ps.setArray(2, connection.createArrayOf("uuid", warehouseIds));
+            return ps;
+        }, rs -> {
+            Date expirationDate = rs.getDate("expiration_date");
+            OpenLot lot = new OpenLot(rs.getObject("raw_material_lot_id", UUID.class), rs.getString("lot_number"),
+                    rs.getDate("receipt_date").toLocalDate(), expirationDate != null ? expirationDate.toLocalDate() : null,
+                    rs.getBigDecimal("unit_cost"), rs.getBigDecimal("remaining_quantity"));
+            LotKey key = new LotKey(rs.getObject("raw_material_id", UUID.class), rs.getObject("warehouse_id", UUID.class));
+            queues.computeIfAbsent(key, ignored -> new LotQueue()).lots.add(lot);
+        });
+
+        // FIFO já vem na ordem da consulta; FEFO reordena por validade (sem validade por último), mantendo a entrada como desempate
+        queues.forEach((key, queue) -> {
+            if (materials.get(key.rawMaterialId()).policy() == LotPickingPolicy.FEFO) {
+                queue.lots.sort(FEFO);
+            }
+        });
+        return queues;
+    }
+
+    private void insertLots(List<NewLot> lots) {
+        if (lots.isEmpty()) {
+            return;
+        }
+        lots.forEach(lot -> lot.lot().inserted = true);
+        int size = lots.size();
+        Object[][] columns = new Object[13][size];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < size; i++) {
+            NewLot lot = lots.get(i);
+            RawMaterialMovement movement = lot.movement();
+            columns[0][i] = lot.lot().id;
+            columns[1][i] = movement.getTenantId();
+            columns[2][i] = movement.getCompanyId();
+            columns[3][i] = movement.getRawMaterialId();
+            columns[4][i] = movement.getWarehouseId();
+            columns[5][i] = lot.lot().lotNumber;
+            columns[6][i] = Date.valueOf(lot.lot().receiptDate);
+            columns[7][i] = lot.lot().expirationDate != null ? Date.valueOf(lot.lot().expirationDate) : null;
+            columns[8][i] = lot.quantity();
+            columns[9][i] = lot.lot().remaining;
+            columns[10][i] = lot.lot().unitCost;
+            columns[11][i] = movement.getId();
+            columns[12][i] = now;
+        }
+        String[] types = {"uuid", "uuid", "uuid", "uuid", "uuid", "varchar", "date", "date",
+                "numeric", "numeric", "numeric", "uuid", "timestamp"};
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_LOTS);
+            for (int column = 0; column < types.length; column++) {
+                ps.setArray(column + 1, connection.createArrayOf(types[column], columns[column]));
+            }
+            return ps;
+        });
+    }
+
+    private void saveAllocations(List<Allocation> allocations) {
+        if (allocations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_ALLOCATIONS);
+            ps.setArray(1, connection.createArrayOf("uuid", allocations.stream().map(a -> a.movement().getTenantId()).toArray()));
+            ps.setArray(2, connection.createArrayOf("uuid", allocations.stream().map(a -> a.movement().getCompanyId()).toArray()));
+            ps.setArray(3, connection.createArrayOf("uuid", allocations.stream().map(a -> a.movement().getId()).toArray()));
+            ps.setArray(4, connection.createArrayOf("uuid", allocations.stream().map(a -> a.lot().id).toArray()));
+            ps.setArray(5, connection.createArrayOf("numeric", allocations.stream().map(Allocation::quantity).toArray()));
+            ps.setArray(6, connection.createArrayOf("numeric", allocations.stream().map(a -> a.lot().unitCost).toArray()));
+            return ps;
+        });
+    }
+
+    /**
+     * Grava o lote nos movimentos (número gerado na entrada ou lote único consumido na saída). Movimentos
+     * ainda não enviados ao banco pelo Hibernate recebem o valor pela própria entidade.
+     */
+    private void updateMovementLotNumbers(List<RawMaterialMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPDATE_MOVEMENT_LOT_NUMBERS);
+            ps.setArray(1, connection.createArrayOf("uuid", movements.stream().map(RawMaterialMovement::getId).toArray()));
+            ps.setArray(2, connection.createArrayOf("varchar", movements.stream().map(RawMaterialMovement::getLotNumber).toArray()));
+            return ps;
+        });
+    }
+
+    private static String generatedLotNumber(RawMaterialMovement movement) {
+        return "L" + movement.getMovementDate().toLocalDate().format(LOT_DATE) + "-"
+                + movement.getId().toString().substring(0, 8).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Custo do lote: custo unitário da entrada, ou custo total / quantidade, ou o custo médio atual
+     */
+    private static BigDecimal receiptCost(RawMaterialMovement movement, LotMaterial material) {
+        if (movement.getUnitCost() != null) {
+            return movement.getUnitCost();
+        }
+        if (movement.getTotalCost() != null) {
+            return movement.getTotalCost().divide(movement.getQuantity(), SCALE, RoundingMode.HALF_UP);
+        }
+        return material.averageCost();
+    }
+
+    private RawMaterialLotDTO convertToDTO(RawMaterialLot lot) {
+        RawMaterialLotDTO dto = new RawMaterialLotDTO();
+        dto.setId(lot.getId());
+        dto.setCompanyId(lot.getCompanyId());
+        dto.setRawMaterialId(lot.getRawMaterialId());
+        dto.setWarehouseId(lot.getWarehouseId());
+        dto.setLotNumber(lot.getLotNumber());
+        dto.setReceiptDate(lot.getReceiptDate());
+        dto.setExpirationDate(lot.getExpirationDate());
+        dto.setInitialQuantity(lot.getInitialQuantity());
+        dto.setRemainingQuantity(lot.getRemainingQuantity());
+        dto.setUnitCost(lot.getUnitCost());
+        dto.setReceiptMovementId(lot.getReceiptMovementId());
+        dto.setCreatedAt(lot.getCreatedAt() != null ? lot.getCreatedAt().atOffset(OffsetDateTime.now().getOffset()) : null);
+        return dto;
+    }
+
+    private RawMaterialLotAllocationDTO convertToDTO(RawMaterialLotAllocation allocation) {
+        RawMaterialLotAllocationDTO dto = new RawMaterialLotAllocationDTO();
+        dto.setId(allocation.getId());
+        dto.setRawMaterialMovementId(allocation.getRawMaterialMovementId());
+        dto.setRawMaterialLotId(allocation.getRawMaterialLotId());
+        dto.setQuantity(allocation.getQuantity());
+        dto.setUnitCost(allocation.getUnitCost());
+        dto.setTotalCost(allocation.getUnitCost() != null
+                ? allocation.getUnitCost().multiply(allocation.getQuantity()).setScale(SCALE, RoundingMode.HALF_UP)
+                : null);
+        dto.setCreatedAt(allocation.getCreatedAt() != null ? allocation.getCreatedAt().atOffset(OffsetDateTime.now().getOffset()) : null);
+        return dto;
+    }
+
+    private record LotMaterial(LotPickingPolicy policy, BigDecimal averageCost) {
+    }
+
+    private record LotKey(UUID rawMaterialId, UUID warehouseId) {
+    }
+
+    /**
+     * Lote aberto por uma entrada: {@code quantity} é a quantidade inicial, o saldo fica no próprio lote
+     */
+    private record NewLot(RawMaterialMovement movement, OpenLot lot, BigDecimal quantity) {
+    }
+
+    private record Allocation(RawMaterialMovement movement, OpenLot lot, BigDecimal quantity) {
+    }
+
+    /**
+     * Fila de lotes abertos de uma matéria-prima em um depósito; {@code head} pula os lotes já esgotados
+     */
+    private static final class LotQueue {
+        private final List<OpenLot> lots = new ArrayList<>();
+        private int head;
+
+        /**
+         * Lote recém-aberto entra depois dos que o precedem na política, como o mais novo entre os empatados
+         */
+        private void add(OpenLot lot, LotPickingPolicy policy) {
+            Comparator<OpenLot> order = policy == LotPickingPolicy.FEFO ? FEFO : FIFO;
+            int position = lots.size();
+            while (position > 0 && order.compare(lots.get(position - 1), lot) > 0) {
+                position--;
+            }
+            lots.add(position, lot);
+            head = Math.min(head, position);
+        }
+
+        private void skipEmpty() {
+            while (head < lots.size() && lots.get(head).remaining.signum() == 0) {
+                head++;
+            }
+        }
+    }
+
+    private static final class OpenLot {
+        private final UUID id;
+        private final String lotNumber;
+        private final LocalDate receiptDate;
+        private final LocalDate expirationDate;
+        private final BigDecimal unitCost;
+        private BigDecimal remaining;
+        private boolean changed;
+        private boolean inserted;
+
+        private OpenLot(UUID id, String lotNumber, LocalDate receiptDate, LocalDate expirationDate, BigDecimal unitCost,
+                        BigDecimal remaining) {
+            this.id = id;
+            this.lotNumber = lotNumber;
+            this.receiptDate = receiptDate;
+            this.expirationDate = expirationDate;
+            this.unitCost = unitCost;
+            this.remaining = remaining;
+        }
+    }
+}
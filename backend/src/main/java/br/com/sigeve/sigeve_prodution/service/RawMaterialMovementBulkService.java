@@ -0,0 +1,407 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.BulkMovementLineResultDTO;
+import br.com.sigeve.sigeve_prodution.dto.BulkMovementResultDTO;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em lote de movimentos de estoque (recebimentos, inventários) em JSON ou CSV.
+ * Todas as linhas são validadas antes de gravar; havendo qualquer erro nada é lançado.
+ * Os movimentos são inseridos em lotes ({@code app.movement-import.chunk-size}), cada lote em um
+ * único INSERT sobre arrays, e o saldo recebe uma única variação líquida por matéria-prima.
+ */
+@Service
+@Slf4j
+@Transactional
+public class RawMaterialMovementBulkService {
+
+    private static final String COLUMN_RAW_MATERIAL_ID = "rawmaterialid";
+    private static final String COLUMN_RAW_MATERIAL_CODE = "rawmaterialcode";
+
+    private static final String INSERT_MOVEMENTS =
+            "INSERT INTO tab_raw_material_movements (raw_material_movement_id, tenant_id, company_id, raw_material_id, " +
+            "warehouse_id, movement_type, movement_origin, origin_id, document_number, lot_number, movement_date, quantity, " +
+            "unit_cost, total_cost, user_id, notes, created_at, created_by) " +
+            "SELECT * FROM unnest(?::uuid[], ?::uuid[], ?::uuid[], ?::uuid[], ?::uuid[], ?::varchar[], ?::varchar[], ?::uuid[], " +
+            "?::varchar[], ?::varchar[], ?::timestamp[], ?::numeric[], ?::numeric[], ?::numeric[], ?::uuid[], ?::text[], " +
+            "?::timestamp[], ?::varchar[])";
+
+    private final RawMaterialRepository rawMaterialRepository;
+    private final RawMaterialMovementService rawMaterialMovementService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final int maxLines;
+    private final int chunkSize;
+
+    public RawMaterialMovementBulkService(RawMaterialRepository rawMaterialRepository,
+                                          RawMaterialMovementService rawMaterialMovementService,
+                                          JdbcTemplate jdbcTemplate,
+                                          Validator validator,
+                                          @Value("${app.movement-import.max-lines:20000}") int maxLines,
+                                          @Value("${app.movement-import.chunk-size:1000}") int chunkSize) {
+        this.rawMaterialRepository = rawMaterialRepository;
+        this.rawMaterialMovementService = rawMaterialMovementService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.maxLines = maxLines;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Importa uma lista de movimentos; a linha de cada resultado é a posição (1..n) na lista
+     */
+    public BulkMovementResultDTO importMovements(List<CreateRawMaterialMovementDTO> requests, String createdBy) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum movimento informado");
+        }
+        List<ParsedLine> lines = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            lines.add(new ParsedLine(i + 1, requests.get(i), null));
+        }
+        return importLines(lines, createdBy);
+    }
+
+    /**
+     * Importa um arquivo CSV com cabeçalho, separado por ';' ou ','. Colunas: rawMaterialId ou
+     * rawMaterialCode, movementType, movementOrigin (exceto TRANSFER), quantity e, opcionais, unitCost, totalCost,
+     * documentNumber, movementDate (yyyy-MM-dd), warehouseId, lotNumber, lotExpirationDate, originId e notes. A linha de cada resultado é a
+     * linha física do arquivo (o cabeçalho é a linha 1).
+     */
+    public BulkMovementResultDTO importCsv(UUID tenantId, UUID companyId, Reader reader, String createdBy) throws IOException {
+        if (tenantId == null || companyId == null) {
+            throw new IllegalArgumentException("Tenant e empresa são obrigatórios");
+        }
+        BufferedReader buffered = new BufferedReader(reader);
+        String header = buffered.readLine();
+        if (header == null || header.isBlank()) {
+            throw new IllegalArgumentException("Arquivo vazio");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        char delimiter = header.indexOf(';') >= 0 ? ';' : ',';
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> headerFields = split(header, delimiter);
+        for (int i = 0; i < headerFields.size(); i++) {
+            columns.put(headerFields.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey(COLUMN_RAW_MATERIAL_ID) && !columns.containsKey(COLUMN_RAW_MATERIAL_CODE)) {
+            throw new IllegalArgumentException("Cabeçalho deve conter rawMaterialId ou rawMaterialCode");
+        }
+
+        Map<String, UUID> idsByCode = columns.containsKey(COLUMN_RAW_MATERIAL_CODE)
+                ? rawMaterialRepository.findByCompanyIdAndDeletedAtIsNull(companyId).stream()
+                        .collect(Collectors.toMap(RawMaterial::getCode, RawMaterial::getId, (first, second) -> first))
+                : Map.of();
+
+        List<ParsedLine> lines = new ArrayList<>();
+        int lineNumber = 1;
+        String text;
+        while ((text = buffered.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            if (lines.size() >= maxLines) {
+                throw new IllegalArgumentException("Arquivo excede o limite de " + maxLines + " linhas");
+            }
+            try {
+                lines.add(new ParsedLine(lineNumber,
+                        parseCsvLine(split(text, delimiter), columns, delimiter, tenantId, companyId, idsByCode), null));
+            } catch (RuntimeException e) {
+                lines.add(new ParsedLine(lineNumber, null, e.getMessage()));
+            }
+        }
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum movimento informado");
+        }
+        return importLines(lines, createdBy);
+    }
+
+    private BulkMovementResultDTO importLines(List<ParsedLine> lines, String createdBy) {
+        if (lines.size() > maxLines) {
+            throw new IllegalArgumentException("Importação excede o limite de " + maxLines + " linhas");
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        log.debug("Importando {} movimentos de estoque", lines.size());
+
+        Set<UUID> rawMaterialIds = lines.stream()
+                .filter(line -> line.request() != null && line.request().getRawMaterialId() != null)
+                .map(line -> line.request().getRawMaterialId())
+                .collect(Collectors.toSet());
+        Map<UUID, RawMaterial> materials = new HashMap<>();
+        rawMaterialRepository.findAllById(rawMaterialIds).forEach(material -> materials.put(material.getId(), material));
+
+        List<BulkMovementLineResultDTO> results = new ArrayList<>(lines.size());
+        int rejected = 0;
+        for (ParsedLine line : lines) {
+            String error = line.error() != null ? line.error() : validate(line.request(), materials);
+            if (error != null) {
+                rejected++;
+            }
+            results.add(new BulkMovementLineResultDTO(line.lineNumber(), error == null, null, error));
+        }
+
+        if (rejected > 0) {
+            log.info("Importação de movimentos rejeitada: {} de {} linhas com erro", rejected, lines.size());
+            return new BulkMovementResultDTO(lines.size(), 0, rejected, false, 0,
+                    Duration.between(startedAt, LocalDateTime.now()).toMillis(), results);
+        }
+
+        List<RawMaterialMovement> movements = new ArrayList<>(lines.size());
+        for (ParsedLine line : lines) {
+            movements.add(toMovement(line.request(), createdBy, startedAt));
+        }
+
+        // Os movimentos já foram validados linha a linha: grava direto em lotes, sem o ciclo
+        // persist/flush por entidade do Hibernate
+        for (int start = 0; start < movements.size(); start += chunkSize) {
+            insertMovements(movements.subList(start, Math.min(start + chunkSize, movements.size())));
+        }
+        for (int i = 0; i < movements.size(); i++) {
+            results.get(i).setMovementId(movements.get(i).getId());
+        }
+
+        // Saldo, lotes, custo médio, fotografias e evento pelo mesmo caminho do lançamento avulso
+        int stocks = rawMaterialMovementService.applyPosted(movements);
+
+        long elapsed = Duration.between(startedAt, LocalDateTime.now()).toMillis();
+        log.info("Importados {} movimentos de estoque ({} matérias-primas) em {} ms", movements.size(), stocks, elapsed);
+        return new BulkMovementResultDTO(lines.size(), movements.size(), 0, true, stocks, elapsed, results);
+    }
+
+    /**
+     * Um único INSERT ... SELECT FROM unnest(...) por lote: uma ida ao banco e um plano para o lote inteiro
+     */
+    private void insertMovements(List<RawMaterialMovement> chunk) {
+        int size = chunk.size();
+        Object[][] columns = new Object[18][size];
+        for (int i = 0; i < size; i++) {
+            RawMaterialMovement movement = chunk.get(i);
+            columns[0][i] = movement.getId();
+            columns[1][i] = movement.getTenantId();
+            columns[2][i] = movement.getCompanyId();
+            columns[3][i] = movement.getRawMaterialId();
+            columns[4][i] = movement.getWarehouseId();
+            columns[5][i] = movement.getMovementType().name();
+            columns[6][i] = movement.getMovementOrigin().name();
+            columns[7][i] = movement.getOriginId();
+            columns[8][i] = movement.getDocumentNumber();
+            columns[9][i] = movement.getLotNumber();
+            columns[10][i] = Timestamp.valueOf(movement.getMovementDate());
+            columns[11][i] = movement.getQuantity();
+            columns[12][i] = movement.getUnitCost();
+            columns[13][i] = movement.getTotalCost();
+            columns[14][i] = movement.getUserId();
+            columns[15][i] = movement.getNotes();
+            columns[16][i] = Timestamp.valueOf(movement.getCreatedAt());
+            columns[17][i] = movement.getCreatedBy();
+        }
+        String[] types = {"uuid", "uuid", "uuid", "uuid", "uuid", "varchar", "varchar", "uuid", "varchar", "varchar",
+                "timestamp", "numeric", "numeric", "numeric", "uuid", "text", "timestamp", "varchar"};
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_MOVEMENTS);
+            for (int column = 0; column < types.length; column++) {
+                ps.setArray(column + 1, connection.createArrayOf(types[column], columns[column]));
+            }
+            return ps;
+        });
+    }
+
+    private String validate(CreateRawMaterialMovementDTO request, Map<UUID, RawMaterial> materials) {
+        if (request == null) {
+            return "Linha vazia";
+        }
+        Set<ConstraintViolation<CreateRawMaterialMovementDTO>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        // Uma perna solta de transferência desequilibra os depósitos: transferências só pelo lançamento próprio
+        if (request.getMovementOrigin() == MovementOrigin.TRANSFER) {
+            return "Transferências entre depósitos não podem ser importadas; use a transferência de matéria-prima";
+        }
+        RawMaterial material = materials.get(request.getRawMaterialId());
+        if (material == null || material.getDeletedAt() != null
+                || !Objects.equals(material.getCompanyId(), request.getCompanyId())) {
+            return "Matéria-prima não encontrada: " + request.getRawMaterialId();
+        }
+        if (request.getQuantity().scale() > 4 || (request.getUnitCost() != null && request.getUnitCost().signum() < 0)) {
+            return "Quantidade ou custo inválido";
+        }
+        return null;
+    }
+
+    private RawMaterialMovement toMovement(CreateRawMaterialMovementDTO request, String createdBy, LocalDateTime now) {
+        RawMaterialMovement movement = new RawMaterialMovement();
+        movement.setId(UUID.randomUUID());
+        movement.setTenantId(request.getTenantId());
+        movement.setCompanyId(request.getCompanyId());
+        movement.setRawMaterialId(request.getRawMaterialId());
+        movement.setWarehouseId(request.getWarehouseId());
+        movement.setMovementType(request.getMovementType());
+        movement.setMovementOrigin(request.getMovementOrigin());
+        movement.setOriginId(request.getOriginId());
+        movement.setDocumentNumber(request.getDocumentNumber());
+        movement.setLotNumber(request.getLotNumber());
+        movement.setLotExpirationDate(request.getLotExpirationDate());
+        movement.setMovementDate(request.getMovementDate() != null ? request.getMovementDate().atStartOfDay() : now);
+        movement.setQuantity(request.getQuantity());
+        movement.setUnitCost(request.getUnitCost());
+        movement.setTotalCost(request.getTotalCost() != null || request.getUnitCost() == null
+                ? request.getTotalCost()
+                : request.getUnitCost().multiply(request.getQuantity()).setScale(4, RoundingMode.HALF_UP));
+        movement.setUserId(request.getUserId());
+        movement.setNotes(request.getNotes());
+        movement.setCreatedAt(now);
+        movement.setCreatedBy(createdBy);
+        return movement;
+    }
+
+    private CreateRawMaterialMovementDTO parseCsvLine(List<String> fields, Map<String, Integer> columns, char delimiter,
+                                                      UUID tenantId, UUID companyId, Map<String, UUID> idsByCode) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+
+        String rawMaterialId = field(fields, columns, COLUMN_RAW_MATERIAL_ID);
+        if (rawMaterialId != null) {
+            request.setRawMaterialId(UUID.fromString(rawMaterialId));
+        } else {
+            String code = field(fields, columns, COLUMN_RAW_MATERIAL_CODE);
+            if (code == null) {
+                throw new IllegalArgumentException("Matéria-prima é obrigatória");
+            }
+            UUID id = idsByCode.get(code);
+            if (id == null) {
+                throw new IllegalArgumentException("Código de matéria-prima não encontrado: " + code);
+            }
+            request.setRawMaterialId(id);
+        }
+
+        String movementType = field(fields, columns, "movementtype");
+        request.setMovementType(enumValue(StockMovementType.class, movementType));
+        String movementOrigin = field(fields, columns, "movementorigin");
+        request.setMovementOrigin(enumValue(MovementOrigin.class, movementOrigin));
+        request.setQuantity(decimal(field(fields, columns, "quantity"), delimiter));
+        request.setUnitCost(decimal(field(fields, columns, "unitcost"), delimiter));
+        request.setTotalCost(decimal(field(fields, columns, "totalcost"), delimiter));
+        request.setDocumentNumber(field(fields, columns, "documentnumber"));
+        String movementDate = field(fields, columns, "movementdate");
+        request.setMovementDate(movementDate != null ? LocalDate.parse(movementDate) : null);
+        request.setLotNumber(field(fields, columns, "lotnumber"));
+        String lotExpirationDate = field(fields, columns, "lotexpirationdate");
+        request.setLotExpirationDate(lotExpirationDate != null ? LocalDate.parse(lotExpirationDate) : null);
+        String warehouseId = field(fields, columns, "warehouseid");
+        request.setWarehouseId(warehouseId != null ? UUID.fromString(warehouseId) : null);
+        String originId = field(fields, columns, "originid");
+        request.setOriginId(originId != null ? UUID.fromString(originId) : null);
+        request.setNotes(field(fields, columns, "notes"));
+        return request;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Valor inválido: " + value);
+        }
+    }
+
+    /**
+     * Aceita ponto decimal ou, em arquivos separados por ';', vírgula decimal (1.234,5)
+     */
+    private static BigDecimal decimal(String value, char delimiter) {
+        if (value == null) {
+            return null;
+        }
+        if (delimiter == ';' && value.indexOf(',') >= 0) {
+            value = value.replace(".", "").replace(',', '.');
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + value);
+        }
+    }
+
+    /**
+     * Divide uma linha CSV respeitando campos entre aspas duplas ("" representa uma aspa)
+     */
+    private static List<String> split(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private record ParsedLine(int lineNumber, CreateRawMaterialMovementDTO request, String error) {
+    }
+}
@@ -0,0 +1,227 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementFilterDTO;
+import br.com.sigeve.sigeve_prodution.enums.ExportFormat;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exportação do histórico de movimentos em streaming (CSV ou NDJSON).
+ * As linhas são lidas por um cursor JDBC somente-avanço (fetch size dentro de uma transação,
+ * o que faz o driver do PostgreSQL buscar em blocos) e escritas direto na resposta, de modo que
+ * exportar um ano de movimentos usa memória constante.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class RawMaterialMovementExportService {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT_MOVEMENTS =
+            "SELECT raw_material_movement_id, tenant_id, company_id, raw_material_id, warehouse_id, movement_type, movement_origin, " +
+            "origin_id, document_number, lot_number, movement_date, quantity, unit_cost, total_cost, user_id, notes, created_at, created_by " +
+            "FROM tab_raw_material_movements WHERE company_id = ?";
+
+    private static final String CSV_HEADER =
+            "id,movementDate,rawMaterialId,warehouseId,movementType,movementOrigin,originId,documentNumber,lotNumber," +
+            "quantity,unitCost,totalCost,userId,notes,createdAt,createdBy";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Escreve os movimentos filtrados, mais recentes primeiro, e devolve a quantidade exportada
+     */
+    public long export(RawMaterialMovementFilterDTO filter, ExportFormat format, OutputStream output) throws IOException {
+        validate(filter);
+        log.debug("Exportando movimentos da empresa: {} em {}", filter.getCompanyId(), format);
+
+        StringBuilder sql = new StringBuilder(SELECT_MOVEMENTS);
+        List<Object> params = new ArrayList<>();
+        params.add(filter.getCompanyId());
+        if (filter.getRawMaterialId() != null) {
+            sql.append(" AND raw_material_id = ?");
+            params.add(filter.getRawMaterialId());
+        }
+        if (filter.getWarehouseId() != null) {
+            sql.append(" AND warehouse_id = ?");
+            params.add(filter.getWarehouseId());
+        }
+        if (filter.getMovementType() != null) {
+            sql.append(" AND movement_type = ?");
+            params.add(filter.getMovementType().name());
+        }
+        if (filter.getMovementOrigin() != null) {
+            sql.append(" AND movement_origin = ?");
+            params.add(filter.getMovementOrigin().name());
+        }
+        if (filter.getOriginId() != null) {
+            sql.append(" AND origin_id = ?");
+            params.add(filter.getOriginId());
+        }
+        if (filter.getDateFrom() != null) {
+            sql.append(" AND movement_date >= ?");
+            params.add(Timestamp.valueOf(filter.getDateFrom().atStartOfDay()));
+        }
+        if (filter.getDateTo() != null) {
+            sql.append(" AND movement_date < ?");
+            params.add(Timestamp.valueOf(filter.getDateTo().plusDays(1).atStartOfDay()));
+        }
+        sql.append(" ORDER BY movement_date DESC, raw_material_movement_id DESC");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        AtomicLong count = new AtomicLong();
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(FETCH_SIZE);
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                return ps;
+            }, rs -> {
+                try {
+                    RawMaterialMovementDTO movement = toDTO(rs);
+                    if (format == ExportFormat.CSV) {
+                        writeCsv(writer, movement);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(movement));
+                        writer.write('\n');
+                    }
+                    count.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info("Exportados {} movimentos da empresa {} em {}", count.get(), filter.getCompanyId(), format);
+        return count.get();
+    }
+
+    /**
+     * Validação feita antes de abrir a resposta, para que erros de filtro ainda virem 400
+     */
+    public void validate(RawMaterialMovementFilterDTO filter) {
+        if (filter.getCompanyId() == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        if (filter.getDateFrom() != null && filter.getDateTo() != null && filter.getDateFrom().isAfter(filter.getDateTo())) {
+            throw new IllegalArgumentException("Data inicial posterior à data final");
+        }
+    }
+
+    private RawMaterialMovementDTO toDTO(ResultSet rs) throws SQLException {
+        RawMaterialMovementDTO dto = new RawMaterialMovementDTO();
+        dto.setId(rs.getObject("raw_material_movement_id", UUID.class));
+        dto.setTenantId(rs.getObject("tenant_id", UUID.class));
+        dto.setCompanyId(rs.getObject("company_id", UUID.class));
+        dto.setRawMaterialId(rs.getObject("raw_material_id", UUID.class));
+        dto.setWarehouseId(rs.getObject("warehouse_id", UUID.class));
+        dto.setMovementType(StockMovementType.valueOf(rs.getString("movement_type")));
+        dto.setMovementOrigin(MovementOrigin.valueOf(rs.getString("movement_origin")));
+        dto.setOriginId(rs.getObject("origin_id", UUID.class));
+        dto.setDocumentNumber(rs.getString("document_number"));
+        dto.setLotNumber(rs.getString("lot_number"));
+        dto.setMovementDate(toOffset(rs.getTimestamp("movement_date")));
+        dto.setQuantity(rs.getBigDecimal("quantity"));
+        dto.setUnitCost(rs.getBigDecimal("unit_cost"));
+        dto.setTotalCost(rs.getBigDecimal("total_cost"));
+        dto.setUserId(rs.getObject("user_id", UUID.class));
+        dto.setNotes(rs.getString("notes"));
+        dto.setCreatedAt(toOffset(rs.getTimestamp("created_at")));
+        dto.setCreatedBy(rs.getString("created_by"));
+        return dto;
+    }
+
+    private static OffsetDateTime toOffset(Timestamp timestamp) {
+        return timestamp != null
+                ? timestamp.toLocalDateTime().atOffset(OffsetDateTime.now().getOffset())
+                : null;
+    }
+
+    private static void writeCsv(Writer writer, RawMaterialMovementDTO movement) throws IOException {
+        writer.write(csv(movement.getId()));
+        writer.write(',');
+        writer.write(csv(movement.getMovementDate()));
+        writer.write(',');
+        writer.write(csv(movement.getRawMaterialId()));
+        writer.write(',');
+        writer.write(csv(movement.getWarehouseId()));
+        writer.write(',');
+        writer.write(csv(movement.getMovementType()));
+        writer.write(',');
+        writer.write(csv(movement.getMovementOrigin()));
+        writer.write(',');
+        writer.write(csv(movement.getOriginId()));
+        writer.write(',');
+        writer.write(csv(movement.getDocumentNumber()));
+        writer.write(',');
+        writer.write(csv(movement.getLotNumber()));
+        writer.write(',');
+        writer.write(csv(movement.getQuantity()));
+        writer.write(',');
+        writer.write(csv(movement.getUnitCost()));
+        writer.write(',');
+        writer.write(csv(movement.getTotalCost()));
+        writer.write(',');
+        writer.write(csv(movement.getUserId()));
+        writer.write(',');
+        writer.write(csv(movement.getNotes()));
+        writer.write(',');
+        writer.write(csv(movement.getCreatedAt()));
+        writer.write(',');
+        writer.write(csv(movement.getCreatedBy()));
+        writer.write('\n');
+    }
+
+    /**
+     * Valor CSV: números sem notação científica e texto entre aspas quando contém separador, aspas ou quebra de linha
+     */
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -1,17 +1,31 @@
 package br.com.sigeve.sigeve_prodution.service;
 
 import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.CursorPageDTO;
 import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementFilterDTO;
+import br.com.sigeve.sigeve_prodution.dto.TransferRawMaterialDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.event.StockChangedEvent;
 import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialMovementKeyset;
 import br.com.sigeve.sigeve_prodution.repository.RawMaterialMovementRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -21,8 +35,15 @@ import java.util.stream.Collectors;
 @Transactional
 public class RawMaterialMovementService {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final RawMaterialMovementRepository rawMaterialMovementRepository;
     private final RawMaterialStockService rawMaterialStockService;
+    private final RawMaterialAverageCostService rawMaterialAverageCostService;
+    private final RawMaterialStockSnapshotService rawMaterialStockSnapshotService;
+    private final RawMaterialLotService rawMaterialLotService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<RawMaterialMovementDTO> findByCompany(UUID companyId) {
@@ -40,6 +61,31 @@ public class RawMaterialMovementService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<RawMaterialMovementDTO> findPage(RawMaterialMovementFilterDTO filter, String cursor, Integer size) {
+        if (filter.getCompanyId() == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        RawMaterialMovementKeyset after = cursor != null && !cursor.isBlank() ? RawMaterialMovementKeyset.decode(cursor) : null;
+
+        log.debug("Buscando página de movimentos da empresa: {} após cursor: {}", filter.getCompanyId(), cursor);
+
+        // Busca um registro a mais para saber se existe próxima página sem COUNT
+        List<RawMaterialMovement> movements = rawMaterialMovementRepository.findPage(filter, after, pageSize + 1);
+        boolean hasNext = movements.size() > pageSize;
+        if (hasNext) {
+            movements = movements.subList(0, pageSize);
+        }
+
+        List<RawMaterialMovementDTO> content = movements.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        String nextCursor = hasNext ? RawMaterialMovementKeyset.of(movements.get(movements.size() - 1)).encode() : null;
+
+        return new CursorPageDTO<>(content, content.size(), hasNext, nextCursor);
+    }
+
     public RawMaterialMovementDTO create(CreateRawMaterialMovementDTO request, String createdBy) {
         log.debug("Criando novo movimento de estoque");
 
@@ -47,10 +93,13 @@ public class RawMaterialMovementService {
         movement.setTenantId(request.getTenantId());
         movement.setCompanyId(request.getCompanyId());
         movement.setRawMaterialId(request.getRawMaterialId());
+        movement.setWarehouseId(request.getWarehouseId());
         movement.setMovementType(request.getMovementType());
         movement.setMovementOrigin(request.getMovementOrigin());
         movement.setOriginId(request.getOriginId());
         movement.setDocumentNumber(request.getDocumentNumber());
+        movement.setLotNumber(request.getLotNumber());
+        movement.setLotExpirationDate(request.getLotExpirationDate());
         movement.setMovementDate(request.getMovementDate() != null ? request.getMovementDate().atStartOfDay() : LocalDateTime.now());
         movement.setQuantity(request.getQuantity());
         movement.setUnitCost(request.getUnitCost());
@@ -62,22 +111,120 @@ public class RawMaterialMovementService {
         RawMaterialMovement saved = rawMaterialMovementRepository.save(movement);
         log.info("Movimento de estoque criado com sucesso: {}", saved.getId());
 
-        // Atualiza o saldo do estoque
-        rawMaterialStockService.updateStock(saved);
+        applyPosted(List.of(saved));
 
         return convertToDTO(saved);
     }
 
+    /**
+     * Lança de uma vez movimentos montados por outros serviços (baixas de produção): grava todos e
+     * aplica os efeitos pelo mesmo caminho dos demais lançamentos
+     */
+    public List<RawMaterialMovement> post(List<RawMaterialMovement> movements) {
+        List<RawMaterialMovement> saved = rawMaterialMovementRepository.saveAll(movements);
+        applyPosted(saved);
+        log.info("Lançados {} movimentos de estoque", saved.size());
+        return saved;
+    }
+
+    /**
+     * Efeitos de movimentos já gravados, comuns ao lançamento avulso, à importação em lote e às baixas de
+     * produção: saldo, lotes, custo médio, fotografias de saldo e o evento de estoque alterado.
+     * Retorna quantas linhas de saldo (matéria-prima e depósito) foram lançadas.
+     */
+    public int applyPosted(List<RawMaterialMovement> movements) {
+        Map<StockKey, BigDecimal> deltas = new LinkedHashMap<>();
+        movements.forEach(movement -> deltas.merge(new StockKey(movement.getTenantId(), movement.getCompanyId(),
+                movement.getRawMaterialId(), movement.getWarehouseId()), movement.getSignedQuantity(), BigDecimal::add));
+
+        // Uma variação líquida por matéria-prima e depósito, em ordem fixa para não gerar deadlock entre lançamentos
+        deltas.entrySet().stream()
+                .filter(entry -> entry.getValue().signum() != 0)
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(StockKey::companyId, LockOrder.UUIDS)
+                        .thenComparing(StockKey::rawMaterialId, LockOrder.UUIDS)
+                        .thenComparing(StockKey::warehouseId, LockOrder.UUIDS_NULLS_FIRST)))
+                .forEach(entry -> rawMaterialStockService.applyDelta(entry.getKey().tenantId(), entry.getKey().companyId(),
+                        entry.getKey().rawMaterialId(), entry.getKey().warehouseId(), entry.getValue()));
+
+        rawMaterialLotService.applyMovements(movements);
+
+        // Custo médio: os movimentos de cada matéria-prima na ordem recebida, na mesma ordem fixa de travamento
+        movements.stream()
+                .collect(Collectors.groupingBy(RawMaterialMovement::getRawMaterialId,
+                        () -> new TreeMap<>(LockOrder.UUIDS), Collectors.toList()))
+                .forEach(rawMaterialAverageCostService::applyMovements);
+
+        // Movimentos com data retroativa invalidam as fotografias de saldo a partir do mais antigo, por empresa
+        movements.stream()
+                .collect(Collectors.toMap(RawMaterialMovement::getCompanyId, RawMaterialMovement::getMovementDate,
+                        (first, second) -> first.isBefore(second) ? first : second))
+                .forEach(rawMaterialStockSnapshotService::invalidateFrom);
+        movements.stream()
+                .collect(Collectors.groupingBy(RawMaterialMovement::getCompanyId,
+                        Collectors.mapping(RawMaterialMovement::getRawMaterialId, Collectors.toSet())))
+                .forEach((companyId, changed) -> eventPublisher.publishEvent(new StockChangedEvent(companyId, changed)));
+
+        return deltas.size();
+    }
+
+    /**
+     * Transfere matéria-prima entre depósitos: uma saída na origem e uma entrada no destino, com origem
+     * TRANSFER e o mesmo {@code originId}, lançadas na mesma transação. O custo médio não muda e o saldo
+     * consolidado da empresa também não, por isso as fotografias de saldo continuam válidas.
+     */
+    public List<RawMaterialMovementDTO> transfer(TransferRawMaterialDTO request, String createdBy) {
+        if (Objects.equals(request.getFromWarehouseId(), request.getToWarehouseId())) {
+            throw new IllegalArgumentException("Depósitos de origem e destino devem ser diferentes");
+        }
+        log.debug("Transferindo matéria-prima {} do depósito {} para {}",
+                request.getRawMaterialId(), request.getFromWarehouseId(), request.getToWarehouseId());
+
+        UUID transferId = UUID.randomUUID();
+        RawMaterialMovement out = transferMovement(request, transferId, StockMovementType.OUT, request.getFromWarehouseId(), createdBy);
+        RawMaterialMovement in = transferMovement(request, transferId, StockMovementType.IN, request.getToWarehouseId(), createdBy);
+        List<RawMaterialMovement> saved = rawMaterialMovementRepository.saveAll(List.of(out, in));
+
+        rawMaterialStockService.applyTransfer(saved.get(0), saved.get(1));
+        rawMaterialLotService.applyTransfer(saved.get(0), saved.get(1));
+        eventPublisher.publishEvent(StockChangedEvent.of(request.getCompanyId(), request.getRawMaterialId()));
+        log.info("Transferência {} lançada: {} da matéria-prima {}", transferId, request.getQuantity(), request.getRawMaterialId());
+
+        return saved.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    private RawMaterialMovement transferMovement(TransferRawMaterialDTO request, UUID transferId, StockMovementType type,
+                                                 UUID warehouseId, String createdBy) {
+        RawMaterialMovement movement = new RawMaterialMovement();
+        movement.setTenantId(request.getTenantId());
+        movement.setCompanyId(request.getCompanyId());
+        movement.setRawMaterialId(request.getRawMaterialId());
+        movement.setWarehouseId(warehouseId);
+        movement.setMovementType(type);
+        movement.setMovementOrigin(MovementOrigin.TRANSFER);
+        movement.setOriginId(transferId);
+        movement.setDocumentNumber(request.getDocumentNumber());
+        movement.setMovementDate(request.getMovementDate() != null ? request.getMovementDate().atStartOfDay() : LocalDateTime.now());
+        movement.setQuantity(request.getQuantity());
+        movement.setUserId(request.getUserId());
+        movement.setNotes(request.getNotes());
+        movement.setCreatedBy(createdBy);
+        return movement;
+    }
+
     private RawMaterialMovementDTO convertToDTO(RawMaterialMovement movement) {
         RawMaterialMovementDTO dto = new RawMaterialMovementDTO();
         dto.setId(movement.getId());
         dto.setTenantId(movement.getTenantId());
         dto.setCompanyId(movement.getCompanyId());
         dto.setRawMaterialId(movement.getRawMaterialId());
+        dto.setWarehouseId(movement.getWarehouseId());
         dto.setMovementType(movement.getMovementType());
         dto.setMovementOrigin(movement.getMovementOrigin());
         dto.setOriginId(movement.getOriginId());
         dto.setDocumentNumber(movement.getDocumentNumber());
+        dto.setLotNumber(movement.getLotNumber());
         dto.setMovementDate(movement.getMovementDate() != null ? movement.getMovementDate().atOffset(OffsetDateTime.now().getOffset()) : null);
         dto.setQuantity(movement.getQuantity());
         dto.setUnitCost(movement.getUnitCost());
@@ -88,4 +235,7 @@ public class RawMaterialMovementService {
         dto.setCreatedBy(movement.getCreatedBy());
         return dto;
     }
+
+    private record StockKey(UUID tenantId, UUID companyId, UUID rawMaterialId, UUID warehouseId) {
+    }
 }
@@ -3,10 +3,13 @@ package br.com.sigeve.sigeve_prodution.service;
 import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialDTO;
 import br.com.sigeve.sigeve_prodution.dto.RawMaterialDTO;
 import br.com.sigeve.sigeve_prodution.dto.UpdateRawMaterialDTO;
+import br.com.sigeve.sigeve_prodution.enums.LotPickingPolicy;
+import br.com.sigeve.sigeve_prodution.event.StockChangedEvent;
 import br.com.sigeve.sigeve_prodution.model.RawMaterial;
 import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +27,8 @@ import java.util.stream.Collectors;
 public class RawMaterialService {
 
     private final RawMaterialRepository rawMaterialRepository;
+    private final RawMaterialLotService rawMaterialLotService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Busca todas as matérias-primas de uma empresa
@@ -120,6 +125,8 @@ public class RawMaterialService {
         material.setMaxStock(request.getMaxStock());
         material.setReorderPoint(request.getReorderPoint());
         material.setLeadTimeDays(request.getLeadTimeDays());
+        material.setLotControl(Boolean.TRUE.equals(request.getLotControl()));
+        material.setLotPickingPolicy(request.getLotPickingPolicy() != null ? request.getLotPickingPolicy() : LotPickingPolicy.FIFO);
         material.setCategoryId(request.getCategoryId());
         material.setIsActive(request.getIsActive() != null ? request.getIsActive() : true);
         material.setCreatedBy(createdBy);
@@ -161,12 +168,20 @@ public class RawMaterialService {
         if (request.getLeadTimeDays() != null) material.setLeadTimeDays(request.getLeadTimeDays());
         if (request.getCategoryId() != null) material.setCategoryId(request.getCategoryId());
         if (request.getIsActive() != null) material.setIsActive(request.getIsActive());
+        if (request.getLotPickingPolicy() != null) material.setLotPickingPolicy(request.getLotPickingPolicy());
+        boolean lotControlEnabled = Boolean.TRUE.equals(request.getLotControl()) && !material.isLotControlled();
+        if (request.getLotControl() != null) material.setLotControl(request.getLotControl());
 
         material.setUpdatedBy(updatedBy);
         material.setUpdatedAt(LocalDateTime.now());
 
         RawMaterial saved = rawMaterialRepository.save(material);
+        if (lotControlEnabled) {
+            // O saldo existente vira um lote de abertura por depósito, para que as próximas saídas tenham o que consumir
+            rawMaterialLotService.openFromCurrentStock(saved);
+        }
         log.info("Matéria-prima atualizada com sucesso: {}", saved.getId());
+        eventPublisher.publishEvent(StockChangedEvent.of(saved.getCompanyId(), saved.getId()));
 
         return convertToDTO(saved);
     }
@@ -185,6 +200,7 @@ public class RawMaterialService {
 
         rawMaterialRepository.save(material);
         log.info("Matéria-prima deletada com sucesso: {}", id);
+        eventPublisher.publishEvent(StockChangedEvent.of(material.getCompanyId(), id));
     }
 
     /**
@@ -207,6 +223,8 @@ public class RawMaterialService {
         dto.setMaxStock(material.getMaxStock());
         dto.setReorderPoint(material.getReorderPoint());
         dto.setLeadTimeDays(material.getLeadTimeDays());
+        dto.setLotControl(material.getLotControl());
+        dto.setLotPickingPolicy(material.getLotPickingPolicy());
         dto.setCategoryId(material.getCategoryId());
         dto.setIsActive(material.getIsActive());
         dto.setCreatedAt(material.getCreatedAt() != null ? material.getCreatedAt().atOffset(OffsetDateTime.now().getOffset()) : null);
@@ -1,7 +1,11 @@
 package br.com.sigeve.sigeve_prodution.service;
 
+import br.com.sigeve.sigeve_prodution.dto.LowStockDTO;
 import br.com.sigeve.sigeve_prodution.dto.RawMaterialStockDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialStockTotalDTO;
+import br.com.sigeve.sigeve_prodution.enums.LowStockBasis;
 import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
 import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
 import br.com.sigeve.sigeve_prodution.model.RawMaterialStock;
 import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockRepository;
@@ -11,9 +15,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -34,38 +39,82 @@ public class RawMaterialStockService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Matérias-primas no limite de estoque de cada uma ou abaixo dele, direto da projeção (sem carregar entidades)
+     */
+    @Transactional(readOnly = true)
+    public List<LowStockDTO> findBelowMaterialLimit(UUID companyId, LowStockBasis basis) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        LowStockBasis effectiveBasis = basis != null ? basis : LowStockBasis.REORDER_POINT;
+        log.debug("Buscando estoques abaixo do limite ({}) da empresa: {}", effectiveBasis, companyId);
+
+        return rawMaterialStockRepository.findBelowMaterialLimit(companyId, effectiveBasis.name()).stream()
+                .map(view -> {
+                    BigDecimal available = view.getQuantity().subtract(view.getReservedQuantity());
+                    return new LowStockDTO(view.getRawMaterialId(), view.getCode(), view.getName(),
+                            view.getUnitType() != null ? UnitType.valueOf(view.getUnitType()) : null,
+                            view.getQuantity(), view.getReservedQuantity(), available,
+                            view.getMinStock(), view.getReorderPoint(), view.getThreshold(),
+                            view.getThreshold().subtract(available), view.getLeadTimeDays());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lança um movimento no saldo do seu depósito
+     */
     @Transactional
     public void updateStock(RawMaterialMovement movement) {
-        log.info("Atualizando estoque para material: {} na empresa: {}", 
-                movement.getRawMaterialId(), movement.getCompanyId());
-
-        RawMaterialStock stock = rawMaterialStockRepository
-                .findByCompanyIdAndRawMaterialIdAndWarehouseId(
-                        movement.getCompanyId(), 
-                        movement.getRawMaterialId(), 
-                        null // TODO: In the future, record warehouseId in movement
-                )
-                .orElseGet(() -> {
-                    log.info("Criando novo registro de estoque para material: {}", movement.getRawMaterialId());
-                    RawMaterialStock newStock = new RawMaterialStock();
-                    newStock.setTenantId(movement.getTenantId());
-                    newStock.setCompanyId(movement.getCompanyId());
-                    newStock.setRawMaterialId(movement.getRawMaterialId());
-                    newStock.setWarehouseId(null);
-                    newStock.setQuantity(BigDecimal.ZERO);
-                    newStock.setReservedQuantity(BigDecimal.ZERO);
-                    return newStock;
-                });
-
-        if (StockMovementType.IN.equals(movement.getMovementType())) {
-            stock.addQuantity(movement.getQuantity());
+        log.debug("Atualizando estoque para material: {} na empresa: {} depósito: {}",
+                movement.getRawMaterialId(), movement.getCompanyId(), movement.getWarehouseId());
+
+        BigDecimal delta = StockMovementType.IN.equals(movement.getMovementType())
+                ? movement.getQuantity()
+                : movement.getQuantity().negate();
+
+        applyDelta(movement.getTenantId(), movement.getCompanyId(), movement.getRawMaterialId(),
+                movement.getWarehouseId(), delta);
+    }
+
+    /**
+     * Único ponto de lançamento no saldo: upsert atômico ({@code quantity = quantity + delta}) sem leitura
+     * prévia, seguro sob movimentos concorrentes. Cada depósito tem a sua linha, de modo que lançamentos
+     * em depósitos diferentes não disputam o mesmo registro.
+     */
+    @Transactional
+    public void applyDelta(UUID tenantId, UUID companyId, UUID rawMaterialId, UUID warehouseId, BigDecimal delta) {
+        if (warehouseId == null) {
+            rawMaterialStockRepository.applyQuantityDelta(tenantId, companyId, rawMaterialId, delta);
         } else {
-            stock.removeQuantity(movement.getQuantity());
+            rawMaterialStockRepository.applyWarehouseQuantityDelta(tenantId, companyId, rawMaterialId, warehouseId, delta);
         }
+    }
 
-        stock.setLastMovementDate(LocalDateTime.now());
-        rawMaterialStockRepository.save(stock);
-        log.info("Estoque atualizado com sucesso. Novo saldo: {}", stock.getQuantity());
+    /**
+     * Lança o par de movimentos de uma transferência: retira da origem somente se houver disponível e
+     * soma ao destino. As duas linhas são travadas em ordem de depósito (estoque padrão primeiro), para
+     * que transferências opostas simultâneas não entrem em deadlock.
+     */
+    @Transactional
+    public void applyTransfer(RawMaterialMovement out, RawMaterialMovement in) {
+        if (LockOrder.UUIDS_NULLS_FIRST.compare(in.getWarehouseId(), out.getWarehouseId()) < 0) {
+            updateStock(in);
+            withdraw(out);
+        } else {
+            withdraw(out);
+            updateStock(in);
+        }
+    }
+
+    private void withdraw(RawMaterialMovement out) {
+        int updated = rawMaterialStockRepository.withdrawAvailable(
+                out.getCompanyId(), out.getRawMaterialId(), out.getWarehouseId(), out.getQuantity());
+        if (updated == 0) {
+            throw new IllegalStateException("Saldo disponível insuficiente no depósito de origem para a matéria-prima "
+                    + out.getRawMaterialId());
+        }
     }
 
     @Transactional(readOnly = true)
@@ -76,11 +125,66 @@ public class RawMaterialStockService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Estoque da matéria-prima. Com mais de um depósito, devolve o saldo somado (sem id nem depósito).
+     */
     @Transactional(readOnly = true)
     public Optional<RawMaterialStockDTO> findByRawMaterial(UUID rawMaterialId) {
         log.debug("Buscando estoque da matéria-prima: {}", rawMaterialId);
-        return rawMaterialStockRepository.findByRawMaterialId(rawMaterialId)
-                .map(this::convertToDTO);
+        List<RawMaterialStock> stocks = rawMaterialStockRepository.findByRawMaterialId(rawMaterialId);
+        if (stocks.size() <= 1) {
+            return stocks.stream().findFirst().map(this::convertToDTO);
+        }
+
+        RawMaterialStock first = stocks.get(0);
+        RawMaterialStockDTO total = new RawMaterialStockDTO();
+        total.setTenantId(first.getTenantId());
+        total.setCompanyId(first.getCompanyId());
+        total.setRawMaterialId(rawMaterialId);
+        total.setQuantity(stocks.stream().map(RawMaterialStock::getQuantity).reduce(BigDecimal.ZERO, BigDecimal::add));
+        total.setReservedQuantity(stocks.stream().map(RawMaterialStock::getReservedQuantity).reduce(BigDecimal.ZERO, BigDecimal::add));
+        total.setAvailableQuantity(total.getQuantity().subtract(total.getReservedQuantity()));
+        stocks.stream()
+                .map(RawMaterialStock::getLastMovementDate)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .ifPresent(date -> total.setLastMovementDate(date.atOffset(OffsetDateTime.now().getOffset())));
+        return Optional.of(total);
+    }
+
+    /**
+     * Estoque da matéria-prima em cada depósito
+     */
+    @Transactional(readOnly = true)
+    public List<RawMaterialStockDTO> findByRawMaterialPerWarehouse(UUID rawMaterialId) {
+        log.debug("Buscando estoque por depósito da matéria-prima: {}", rawMaterialId);
+        return rawMaterialStockRepository.findByRawMaterialId(rawMaterialId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<RawMaterialStockDTO> findByWarehouse(UUID companyId, UUID warehouseId) {
+        log.debug("Buscando estoques do depósito: {} na empresa: {}", warehouseId, companyId);
+        return rawMaterialStockRepository.findByCompanyIdAndWarehouseId(companyId, warehouseId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Saldo consolidado da empresa por matéria-prima (estoque padrão e todos os depósitos)
+     */
+    @Transactional(readOnly = true)
+    public List<RawMaterialStockTotalDTO> findTotals(UUID companyId) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        log.debug("Buscando saldo consolidado da empresa: {}", companyId);
+        return rawMaterialStockRepository.sumByRawMaterial(companyId).stream()
+                .map(view -> new RawMaterialStockTotalDTO(view.getRawMaterialId(), view.getQuantity(),
+                        view.getReservedQuantity(), view.getQuantity().subtract(view.getReservedQuantity()),
+                        view.getLocationCount()))
+                .collect(Collectors.toList());
     }
 
     private RawMaterialStockDTO convertToDTO(RawMaterialStock stock) {
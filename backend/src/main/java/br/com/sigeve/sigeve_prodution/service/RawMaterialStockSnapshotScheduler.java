@@ -0,0 +1,34 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Geração agendada das fotografias de saldo de fechamento de mês.
+ * Roda diariamente, mas só grava os fechamentos que faltam (novos meses ou regenerações após
+ * movimentos retroativos). Use {@code app.stock-snapshot.cron=-} para desabilitar.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RawMaterialStockSnapshotScheduler {
+
+    private final RawMaterialStockSnapshotService rawMaterialStockSnapshotService;
+
+    @Scheduled(cron = "${app.stock-snapshot.cron:0 30 1 * * *}")
+    public void createMissingSnapshots() {
+        LocalDate today = LocalDate.now();
+        for (UUID companyId : rawMaterialStockSnapshotService.findCompaniesWithStock()) {
+            try {
+                rawMaterialStockSnapshotService.createMissingSnapshots(companyId, today);
+            } catch (Exception e) {
+                log.error("Erro ao gerar fotografias de saldo da empresa: {}", companyId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.StockBalanceDTO;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialMovementRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Saldo de estoque em data passada a partir de fotografias de fechamento de mês.
+ * O saldo em D é a fotografia mais recente até D somada aos movimentos entre ela e o fim de D,
+ * portanto a consulta lê no máximo um mês de movimentos, independente do tamanho do histórico.
+ * As fotografias de uma empresa são sempre completas por data (todas as matérias-primas com
+ * histórico) e cada uma é gerada incrementalmente a partir da anterior em um único INSERT ... SELECT.
+ * Um movimento retroativo apaga as fotografias da empresa a partir da sua data; a rotina agendada
+ * as regenera na próxima execução.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class RawMaterialStockSnapshotService {
+
+    private static final String BALANCE_CTE =
+            "WITH base AS (" +
+            "    SELECT MAX(snapshot_date) AS snapshot_date FROM tab_raw_material_stock_snapshots" +
+            "    WHERE company_id = :companyId AND snapshot_date <= :asOf" +
+            "), snap AS (" +
+            "    SELECT s.tenant_id, s.raw_material_id, s.snapshot_date, s.quantity, s.total_value" +
+            "    FROM tab_raw_material_stock_snapshots s JOIN base b ON s.snapshot_date = b.snapshot_date" +
+            "    WHERE s.company_id = :companyId %1$s" +
+            "), mov AS (" +
+            "    SELECT m.raw_material_id, (array_agg(m.tenant_id))[1] AS tenant_id, COUNT(*) AS movements," +
+            "           SUM(CASE WHEN m.movement_type = 'IN' THEN m.quantity ELSE -m.quantity END) AS quantity," +
+            "           SUM(CASE WHEN m.movement_type = 'IN' THEN COALESCE(m.total_cost, 0) ELSE -COALESCE(m.total_cost, 0) END) AS total_value" +
+            "    FROM tab_raw_material_movements m" +
+            "    WHERE m.company_id = :companyId %2$s AND m.movement_date < :endExclusive" +
+            "      AND m.movement_date >= COALESCE((SELECT snapshot_date + 1 FROM base), '-infinity'::date)" +
+            "    GROUP BY m.raw_material_id" +
+            "), balance AS (" +
+            "    SELECT COALESCE(s.raw_material_id, m.raw_material_id) AS raw_material_id," +
+            "           COALESCE(s.tenant_id, m.tenant_id) AS tenant_id," +
+            "           s.snapshot_date, COALESCE(m.movements, 0) AS movements," +
+            "           COALESCE(s.quantity, 0) + COALESCE(m.quantity, 0) AS quantity," +
+            "           COALESCE(s.total_value, 0) + COALESCE(m.total_value, 0) AS total_value" +
+            "    FROM snap s FULL JOIN mov m ON m.raw_material_id = s.raw_material_id" +
+            ") ";
+
+    private static final String SELECT_BALANCE = BALANCE_CTE +
+            "SELECT b.*, r.code, r.name FROM balance b " +
+            "LEFT JOIN tab_raw_materials r ON r.raw_material_id = b.raw_material_id " +
+            "ORDER BY r.code, b.raw_material_id";
+
+    private static final String INSERT_SNAPSHOT = String.format(BALANCE_CTE, "", "") +
+            "INSERT INTO tab_raw_material_stock_snapshots " +
+            "(raw_material_stock_snapshot_id, tenant_id, company_id, raw_material_id, snapshot_date, quantity, total_value, created_at) " +
+            "SELECT gen_random_uuid(), b.tenant_id, :companyId, b.raw_material_id, :asOf, b.quantity, b.total_value, now() " +
+            "FROM balance b " +
+            "ON CONFLICT (company_id, raw_material_id, snapshot_date) DO NOTHING";
+
+    private final RawMaterialStockSnapshotRepository rawMaterialStockSnapshotRepository;
+    private final RawMaterialStockRepository rawMaterialStockRepository;
+    private final RawMaterialMovementRepository rawMaterialMovementRepository;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Saldo das matérias-primas da empresa ao final do dia informado
+     */
+    @Transactional(readOnly = true)
+    public List<StockBalanceDTO> findBalancesAsOf(UUID companyId, LocalDate asOf) {
+        return queryBalances(companyId, null, asOf);
+    }
+
+    /**
+     * Saldo de uma matéria-prima ao final do dia informado
+     */
+    @Transactional(readOnly = true)
+    public Optional<StockBalanceDTO> findBalanceAsOf(UUID companyId, UUID rawMaterialId, LocalDate asOf) {
+        return queryBalances(companyId, rawMaterialId, asOf).stream().findFirst();
+    }
+
+    /**
+     * Grava as fotografias de fechamento de mês que faltam para a empresa, da mais antiga à mais
+     * recente, até o último mês encerrado antes de {@code until}. Retorna a quantidade de linhas gravadas.
+     */
+    public int createMissingSnapshots(UUID companyId, LocalDate until) {
+        LocalDate lastMonthEnd = YearMonth.from(until).minusMonths(1).atEndOfMonth();
+        Optional<LocalDate> latest = rawMaterialStockSnapshotRepository.findLatestSnapshotDate(companyId);
+
+        LocalDate next;
+        if (latest.isPresent()) {
+            next = YearMonth.from(latest.get()).plusMonths(1).atEndOfMonth();
+        } else {
+            Optional<LocalDateTime> firstMovement = rawMaterialMovementRepository.findFirstMovementDate(companyId);
+            if (firstMovement.isEmpty()) {
+                return 0;
+            }
+            next = YearMonth.from(firstMovement.get()).atEndOfMonth();
+        }
+
+        int written = 0;
+        for (LocalDate snapshotDate = next; !snapshotDate.isAfter(lastMonthEnd);
+             snapshotDate = YearMonth.from(snapshotDate).plusMonths(1).atEndOfMonth()) {
+            written += namedParameterJdbcTemplate.update(INSERT_SNAPSHOT, params(companyId, null, snapshotDate));
+        }
+        if (written > 0) {
+            log.info("Gravadas {} fotografias de saldo da empresa {} até {}", written, companyId, lastMonthEnd);
+        }
+        return written;
+    }
+
+    /**
+     * Empresas com estoque (alvo da execução agendada)
+     */
+    @Transactional(readOnly = true)
+    public List<UUID> findCompaniesWithStock() {
+        return rawMaterialStockRepository.findCompanyIds();
+    }
+
+    /**
+     * Descarta as fotografias afetadas por um movimento com data retroativa. Fotografias só existem
+     * para meses encerrados, então movimentos do mês corrente não invalidam nada.
+     */
+    public void invalidateFrom(UUID companyId, LocalDateTime movementDate) {
+        if (movementDate == null || !movementDate.toLocalDate().isBefore(LocalDate.now().withDayOfMonth(1))) {
+            return;
+        }
+        int deleted = rawMaterialStockSnapshotRepository.deleteFrom(companyId, movementDate.toLocalDate());
+        if (deleted > 0) {
+            log.info("Movimento retroativo em {}: {} fotografias de saldo da empresa {} descartadas",
+                    movementDate.toLocalDate(), deleted, companyId);
+        }
+    }
+
+    private List<StockBalanceDTO> queryBalances(UUID companyId, UUID rawMaterialId, LocalDate asOf) {
+        if (companyId == null || asOf == null) {
+            throw new IllegalArgumentException("Empresa e data são obrigatórias");
+        }
+        log.debug("Calculando saldo da empresa: {} em {}", companyId, asOf);
+
+        String materialFilter = rawMaterialId != null ? "AND s.raw_material_id = :rawMaterialId" : "";
+        String movementFilter = rawMaterialId != null ? "AND m.raw_material_id = :rawMaterialId" : "";
+        String sql = String.format(SELECT_BALANCE, materialFilter, movementFilter);
+
+        return namedParameterJdbcTemplate.query(sql, params(companyId, rawMaterialId, asOf), (rs, rowNum) -> {
+            Date snapshotDate = rs.getDate("snapshot_date");
+            return new StockBalanceDTO(
+                    rs.getObject("raw_material_id", UUID.class),
+                    rs.getString("code"),
+                    rs.getString("name"),
+                    asOf,
+                    snapshotDate != null ? snapshotDate.toLocalDate() : null,
+                    rs.getLong("movements"),
+                    rs.getBigDecimal("quantity"),
+                    rs.getBigDecimal("total_value"));
+        });
+    }
+
+    private static MapSqlParameterSource params(UUID companyId, UUID rawMaterialId, LocalDate asOf) {
+        return new MapSqlParameterSource()
+                .addValue("companyId", companyId)
+                .addValue("rawMaterialId", rawMaterialId)
+                .addValue("asOf", Date.valueOf(asOf))
+                .addValue("endExclusive", Timestamp.valueOf(asOf.plusDays(1).atStartOfDay()));
+    }
+}
@@ -0,0 +1,209 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.ReorderAlertDTO;
+import br.com.sigeve.sigeve_prodution.event.StockChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Alertas de ponto de pedido mantidos em memória por empresa.
+ * Uma matéria-prima entra em alerta quando o disponível (quantidade - reservado, somando os depósitos)
+ * chega ao seu ponto de pedido ou, sem ponto de pedido, ao estoque mínimo. A empresa é carregada
+ * por inteiro no primeiro acesso; depois disso só as matérias-primas de cada {@link StockChangedEvent}
+ * são reavaliadas, após o commit, e as mudanças são enviadas aos clientes SSE inscritos.
+ */
+@Service
+@Slf4j
+public class ReorderAlertService {
+
+    private static final String SELECT_MATERIALS =
+            "SELECT r.raw_material_id, r.code, r.name, r.reorder_point, r.min_stock, r.lead_time_days, " +
+            "       COALESCE(SUM(s.quantity), 0) AS quantity, COALESCE(SUM(s.reserved_quantity), 0) AS reserved_quantity " +
+            "FROM tab_raw_materials r " +
+            "LEFT JOIN tab_raw_material_stocks s ON s.raw_material_id = r.raw_material_id " +
+            "WHERE r.company_id = :companyId AND r.deleted_at IS NULL AND r.is_active AND r.stock_control " +
+            "  AND (r.reorder_point > 0 OR r.min_stock > 0) %s" +
+            "GROUP BY r.raw_material_id";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TaskExecutor reorderAlertExecutor;
+    private final long emitterTimeoutMillis;
+
+    private final Map<UUID, CompanyAlerts> companies = new ConcurrentHashMap<>();
+
+    public ReorderAlertService(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                               @Qualifier("reorderAlertExecutor") TaskExecutor reorderAlertExecutor,
+                               @Value("${app.reorder-alerts.sse-timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.reorderAlertExecutor = reorderAlertExecutor;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+    }
+
+    /**
+     * Matérias-primas da empresa em alerta, por código. Lido da memória; só o primeiro acesso consulta o banco.
+     */
+    public List<ReorderAlertDTO> findAlerts(UUID companyId) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        List<ReorderAlertDTO> alerts = new ArrayList<>(company(companyId).alerts.values());
+        alerts.sort(Comparator.comparing(ReorderAlertDTO::getRawMaterialCode, Comparator.nullsLast(Comparator.naturalOrder())));
+        return alerts;
+    }
+
+    /**
+     * Inscreve um cliente SSE: recebe os alertas atuais ("snapshot") e depois cada alerta aberto ou
+     * atualizado ("alert") e encerrado ("cleared")
+     */
+    public SseEmitter subscribe(UUID companyId) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        CompanyAlerts company = company(companyId);
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> company.emitters.remove(emitter));
+        emitter.onTimeout(() -> company.emitters.remove(emitter));
+        emitter.onError(error -> company.emitters.remove(emitter));
+        company.emitters.add(emitter);
+
+        List<ReorderAlertDTO> snapshot = findAlerts(companyId);
+        reorderAlertExecutor.execute(() -> send(company, emitter, "snapshot", snapshot));
+        log.debug("Cliente inscrito nos alertas de ponto de pedido da empresa: {}", companyId);
+        return emitter;
+    }
+
+    /**
+     * Reavalia as matérias-primas alteradas depois do commit. Empresas ainda não carregadas são ignoradas:
+     * serão lidas por inteiro no primeiro acesso. A consulta usa a conexão da transação já confirmada,
+     * que continua vinculada até o fim do commit: abrir outra transação aqui exigiria uma segunda conexão
+     * do pool por lançamento e esgotaria o pool sob concorrência.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        CompanyAlerts company = companies.get(event.companyId());
+        if (company == null || event.rawMaterialIds().isEmpty()) {
+            return;
+        }
+
+        List<ReorderAlertDTO> raised = new ArrayList<>();
+        List<ReorderAlertDTO> cleared = new ArrayList<>();
+        synchronized (company) {
+            Map<UUID, ReorderAlertDTO> current = new HashMap<>();
+            for (ReorderAlertDTO alert : query(event.companyId(), event.rawMaterialIds())) {
+                current.put(alert.getRawMaterialId(), alert);
+            }
+            for (UUID rawMaterialId : event.rawMaterialIds()) {
+                ReorderAlertDTO alert = current.get(rawMaterialId);
+                ReorderAlertDTO previous = alert != null
+                        ? company.alerts.put(rawMaterialId, keepDetectedAt(alert, company.alerts.get(rawMaterialId)))
+                        : company.alerts.remove(rawMaterialId);
+                if (alert != null) {
+                    raised.add(alert);
+                } else if (previous != null) {
+                    cleared.add(previous);
+                }
+            }
+        }
+
+        if (!company.emitters.isEmpty() && (!raised.isEmpty() || !cleared.isEmpty())) {
+            reorderAlertExecutor.execute(() -> {
+                raised.forEach(alert -> broadcast(company, "alert", alert));
+                cleared.forEach(alert -> broadcast(company, "cleared", alert));
+            });
+        }
+    }
+
+    /**
+     * Estado da empresa, registrado antes da carga: eventos que chegam durante a carga esperam por ela
+     * (mesmo monitor) e reavaliam suas matérias-primas com dados já confirmados
+     */
+    private CompanyAlerts company(UUID companyId) {
+        CompanyAlerts company = companies.computeIfAbsent(companyId, id -> new CompanyAlerts());
+        if (!company.loaded) {
+            synchronized (company) {
+                if (!company.loaded) {
+                    company.alerts.clear();
+                    query(companyId, null).forEach(alert -> company.alerts.put(alert.getRawMaterialId(), alert));
+                    company.loaded = true;
+                    log.info("Alertas de ponto de pedido da empresa {} carregados: {}", companyId, company.alerts.size());
+                }
+            }
+        }
+        return company;
+    }
+
+    /**
+     * Matérias-primas em alerta entre as informadas (ou todas da empresa, quando {@code rawMaterialIds} é nulo)
+     */
+    private List<ReorderAlertDTO> query(UUID companyId, Collection<UUID> rawMaterialIds) {
+        String sql = String.format(SELECT_MATERIALS, rawMaterialIds != null ? "AND r.raw_material_id IN (:rawMaterialIds) " : "");
+        MapSqlParameterSource params = new MapSqlParameterSource("companyId", companyId)
+                .addValue("rawMaterialIds", rawMaterialIds != null ? new HashSet<>(rawMaterialIds) : Set.of());
+        LocalDateTime now = LocalDateTime.now();
+
+        List<ReorderAlertDTO> alerts = new ArrayList<>();
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            BigDecimal reorderPoint = rs.getBigDecimal("reorder_point");
+            BigDecimal minStock = rs.getBigDecimal("min_stock");
+            BigDecimal threshold = reorderPoint != null && reorderPoint.signum() > 0 ? reorderPoint : minStock;
+            BigDecimal quantity = rs.getBigDecimal("quantity");
+            BigDecimal reserved = rs.getBigDecimal("reserved_quantity");
+            BigDecimal available = quantity.subtract(reserved);
+            if (available.compareTo(threshold) <= 0) {
+                alerts.add(new ReorderAlertDTO(rs.getObject("raw_material_id", UUID.class), rs.getString("code"),
+                        rs.getString("name"), quantity, reserved, available, reorderPoint, minStock,
+                        (Integer) rs.getObject("lead_time_days"), now));
+            }
+        });
+        return alerts;
+    }
+
+    private static ReorderAlertDTO keepDetectedAt(ReorderAlertDTO alert, ReorderAlertDTO previous) {
+        if (previous != null) {
+            alert.setDetectedAt(previous.getDetectedAt());
+        }
+        return alert;
+    }
+
+    private void broadcast(CompanyAlerts company, String eventName, Object data) {
+        company.emitters.forEach(emitter -> send(company, emitter, eventName, data));
+    }
+
+    private void send(CompanyAlerts company, SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Cliente SSE de alertas desconectado: {}", e.getMessage());
+            company.emitters.remove(emitter);
+        }
+    }
+
+    private static final class CompanyAlerts {
+        private final Map<UUID, ReorderAlertDTO> alerts = new ConcurrentHashMap<>();
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile boolean loaded;
+    }
+}
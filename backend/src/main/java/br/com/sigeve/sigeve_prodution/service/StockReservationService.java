@@ -0,0 +1,325 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.StockReservationDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.ReservationStatus;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.event.StockChangedEvent;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
+import br.com.sigeve.sigeve_prodution.model.StockReservation;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import br.com.sigeve.sigeve_prodution.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Reservas de matéria-prima das ordens de produção.
+ * A necessidade de cada matéria-prima é reservada em um único UPDATE em lote, distribuída pelas linhas de
+ * saldo da empresa: primeiro o estoque padrão (sem depósito), depois os depósitos em ordem. Cada reserva
+ * guarda o depósito de onde saiu, e a liberação e a baixa voltam exatamente às mesmas linhas.
+ * As linhas são travadas em ordem de matéria-prima e depósito (evita deadlock entre ordens concorrentes)
+ * e a disponibilidade é lida depois do travamento, de modo que apenas ordens que disputam os mesmos
+ * materiais esperam umas pelas outras. A baixa lança as saídas pelo caminho comum de movimentos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class StockReservationService {
+
+    private static final int SCALE = 4;
+
+    private static final String RESERVE_SQL =
+            "WITH requested AS (" +
+            "    SELECT r.raw_material_id, r.quantity FROM unnest(?::uuid[], ?::numeric[]) AS r(raw_material_id, quantity)" +
+            "), locked AS (" +
+            "    SELECT s.raw_material_stock_id, s.raw_material_id, s.warehouse_id, r.quantity AS requested," +
+            "           GREATEST(s.quantity - s.reserved_quantity, 0) AS available" +
+            "    FROM tab_raw_material_stocks s JOIN requested r ON r.raw_material_id = s.raw_material_id" +
+            "    WHERE s.company_id = ?" +
+            "    ORDER BY s.raw_material_id, s.warehouse_id NULLS FIRST FOR UPDATE OF s" +
+            "), allocated AS (" +
+            "    SELECT l.raw_material_stock_id, LEAST(l.available, l.requested - COALESCE(SUM(l.available) OVER (" +
+            "        PARTITION BY l.raw_material_id ORDER BY l.warehouse_id NULLS FIRST" +
+            "        ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0)) AS quantity" +
+            "    FROM locked l" +
+            ") " +
+            "UPDATE tab_raw_material_stocks s SET reserved_quantity = s.reserved_quantity + a.quantity, updated_at = now() " +
+            "FROM allocated a WHERE s.raw_material_stock_id = a.raw_material_stock_id AND a.quantity > 0 " +
+            "RETURNING s.raw_material_id, s.warehouse_id, a.quantity";
+
+    private static final String RELEASE_SQL =
+            "WITH requested AS (" +
+            "    SELECT r.raw_material_id, r.warehouse_id, r.quantity" +
+            "    FROM unnest(?::uuid[], ?::uuid[], ?::numeric[]) AS r(raw_material_id, warehouse_id, quantity)" +
+            "), locked AS (" +
+            "    SELECT s.raw_material_stock_id, r.quantity FROM tab_raw_material_stocks s" +
+            "    JOIN requested r ON r.raw_material_id = s.raw_material_id AND s.warehouse_id IS NOT DISTINCT FROM r.warehouse_id" +
+            "    WHERE s.company_id = ?" +
+            "    ORDER BY s.raw_material_id, s.warehouse_id NULLS FIRST FOR UPDATE OF s" +
+            ") " +
+            "UPDATE tab_raw_material_stocks s SET reserved_quantity = GREATEST(s.reserved_quantity - l.quantity, 0), " +
+            "updated_at = now() FROM locked l WHERE s.raw_material_stock_id = l.raw_material_stock_id";
+
+    private static final Comparator<StockLocation> LOCATION_ORDER = Comparator
+            .comparing(StockLocation::rawMaterialId, LockOrder.UUIDS)
+            .thenComparing(StockLocation::warehouseId, LockOrder.UUIDS_NULLS_FIRST);
+
+    private final StockReservationRepository stockReservationRepository;
+    private final RawMaterialRepository rawMaterialRepository;
+    private final ProductionGridRequirementService productionGridRequirementService;
+    private final RawMaterialMovementService rawMaterialMovementService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true)
+    public List<StockReservationDTO> findByOrder(UUID productionOrderId) {
+        log.debug("Buscando reservas da ordem: {}", productionOrderId);
+        return stockReservationRepository.findByProductionOrderIdOrderByCreatedAt(productionOrderId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reserva a estrutura explodida da ordem (saldo a produzir). Idempotente: se a ordem
+     * já possui reservas ativas, nada é feito. Falha inteira se algum material não tiver saldo.
+     */
+    public void reserveForOrder(ProductionOrder order, String username) {
+        if (stockReservationRepository.existsByProductionOrderIdAndStatus(order.getId(), ReservationStatus.ACTIVE)) {
+            log.debug("Ordem {} já possui reservas ativas", order.getId());
+            return;
+        }
+
+        Map<UUID, BigDecimal> requirements = calculateRequirements(order);
+        if (requirements.isEmpty()) {
+            return;
+        }
+
+        Map<StockLocation, BigDecimal> allocated = reserve(order.getCompanyId(), requirements);
+        Map<UUID, BigDecimal> reserved = new TreeMap<>();
+        allocated.forEach((location, quantity) -> reserved.merge(location.rawMaterialId(), quantity, BigDecimal::add));
+        List<UUID> missing = requirements.entrySet().stream()
+                .filter(entry -> reserved.getOrDefault(entry.getKey(), BigDecimal.ZERO).compareTo(entry.getValue()) < 0)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Estoque insuficiente para reservar as matérias-primas da ordem "
+                    + order.getCode() + ": " + missing);
+        }
+
+        List<StockReservation> reservations = new ArrayList<>();
+        allocated.forEach((location, quantity) -> {
+            StockReservation reservation = new StockReservation();
+            reservation.setTenantId(order.getTenantId());
+            reservation.setCompanyId(order.getCompanyId());
+            reservation.setProductionOrderId(order.getId());
+            reservation.setRawMaterialId(location.rawMaterialId());
+            reservation.setWarehouseId(location.warehouseId());
+            reservation.setQuantity(quantity);
+            reservation.setStatus(ReservationStatus.ACTIVE);
+            reservation.setCreatedBy(username);
+            reservations.add(reservation);
+        });
+        stockReservationRepository.saveAll(reservations);
+        eventPublisher.publishEvent(new StockChangedEvent(order.getCompanyId(), requirements.keySet()));
+
+        log.info("Reservadas {} matérias-primas em {} linhas de saldo para a ordem {}",
+                requirements.size(), reservations.size(), order.getId());
+    }
+
+    /**
+     * Libera as reservas ativas da ordem (cancelamento e exclusão)
+     */
+    public void releaseForOrder(ProductionOrder order, String username) {
+        List<StockReservation> reservations = closeActiveReservations(order, ReservationStatus.RELEASED, username);
+        if (reservations.isEmpty()) {
+            return;
+        }
+
+        Map<StockLocation, BigDecimal> quantities = sumByLocation(reservations);
+        release(order.getCompanyId(), quantities);
+        eventPublisher.publishEvent(new StockChangedEvent(order.getCompanyId(), materialsOf(quantities)));
+        log.info("Liberadas {} reservas da ordem {}", reservations.size(), order.getId());
+    }
+
+    /**
+     * Refaz as reservas da ordem após alteração de produto ou quantidade: libera as ativas e reserva a
+     * estrutura atual. Ordens sem reservas ativas (ainda não aprovadas ou iniciadas) não são tocadas.
+     */
+    public void rereserveForOrder(ProductionOrder order, String username) {
+        if (!stockReservationRepository.existsByProductionOrderIdAndStatus(order.getId(), ReservationStatus.ACTIVE)) {
+            return;
+        }
+        releaseForOrder(order, username);
+        reserveForOrder(order, username);
+    }
+
+    /**
+     * Converte as reservas ativas da ordem em saídas de estoque de produção (finalização): libera o reservado
+     * e lança uma saída por matéria-prima e depósito reservados, todas em um único lançamento pelo
+     * {@link RawMaterialMovementService}, que cuida de saldo, lotes, custo médio, fotografias e evento
+     */
+    public void consumeForOrder(ProductionOrder order, String username) {
+        List<StockReservation> reservations = closeActiveReservations(order, ReservationStatus.CONSUMED, username);
+        if (reservations.isEmpty()) {
+            return;
+        }
+
+        Map<StockLocation, BigDecimal> quantities = sumByLocation(reservations);
+        release(order.getCompanyId(), quantities);
+
+        Map<UUID, RawMaterial> materials = rawMaterialRepository.findAllById(materialsOf(quantities)).stream()
+                .collect(Collectors.toMap(RawMaterial::getId, material -> material));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<RawMaterialMovement> movements = new ArrayList<>();
+        quantities.forEach((location, quantity) -> {
+            RawMaterial material = materials.get(location.rawMaterialId());
+            RawMaterialMovement movement = new RawMaterialMovement();
+            movement.setTenantId(order.getTenantId());
+            movement.setCompanyId(order.getCompanyId());
+            movement.setRawMaterialId(location.rawMaterialId());
+            movement.setWarehouseId(location.warehouseId());
+            movement.setMovementType(StockMovementType.OUT);
+            movement.setMovementOrigin(MovementOrigin.PRODUCTION);
+            movement.setOriginId(order.getId());
+            movement.setDocumentNumber(order.getCode());
+            movement.setMovementDate(now);
+            movement.setQuantity(quantity);
+            if (material != null && material.getAverageCost() != null) {
+                movement.setUnitCost(material.getAverageCost());
+                movement.setTotalCost(material.getAverageCost().multiply(quantity).setScale(SCALE, RoundingMode.HALF_UP));
+            }
+            movement.setNotes("Baixa das reservas da ordem " + order.getCode());
+            movement.setCreatedBy(username);
+            movements.add(movement);
+        });
+        rawMaterialMovementService.post(movements);
+
+        log.info("Baixadas {} reservas da ordem {} em {} movimentos", reservations.size(), order.getId(), movements.size());
+    }
+
+    private List<StockReservation> closeActiveReservations(ProductionOrder order, ReservationStatus status, String username) {
+        List<StockReservation> reservations =
+                stockReservationRepository.findByProductionOrderIdAndStatus(order.getId(), ReservationStatus.ACTIVE);
+        LocalDateTime now = LocalDateTime.now();
+        for (StockReservation reservation : reservations) {
+            reservation.setStatus(status);
+            reservation.setClosedAt(now);
+            reservation.setClosedBy(username);
+        }
+        return stockReservationRepository.saveAll(reservations);
+    }
+
+    /**
+     * Necessidade de matérias-primas (com controle de estoque) para o saldo a produzir da ordem,
+     * ordenada por matéria-prima
+     */
+    private Map<UUID, BigDecimal> calculateRequirements(ProductionOrder order) {
+        Map<UUID, BigDecimal> requirements = new TreeMap<>();
+        BigDecimal produced = order.getQuantityProduced() != null ? order.getQuantityProduced() : BigDecimal.ZERO;
+        BigDecimal remaining = order.getQuantityPlanned().subtract(produced);
+        if (remaining.signum() <= 0) {
+            return requirements;
+        }
+
+        // Distribuída pela grade da ordem: fatores de consumo por tamanho e substitutos por cor
+        Optional<Map<UUID, BigDecimal>> gridRequirements = productionGridRequirementService.rawMaterialRequirements(order, remaining);
+        if (gridRequirements.isEmpty()) {
+            log.warn("Produto {} da ordem {} sem composição vigente; nenhuma reserva gerada",
+                    order.getProductId(), order.getId());
+            return requirements;
+        }
+        requirements.putAll(gridRequirements.get());
+
+        Set<UUID> withoutStockControl = rawMaterialRepository.findAllById(requirements.keySet()).stream()
+                .filter(material -> Boolean.FALSE.equals(material.getStockControl()))
+                .map(RawMaterial::getId)
+                .collect(Collectors.toSet());
+        requirements.keySet().removeAll(withoutStockControl);
+        requirements.replaceAll((id, quantity) -> quantity.setScale(SCALE, RoundingMode.HALF_UP));
+        requirements.values().removeIf(quantity -> quantity.signum() <= 0);
+        return requirements;
+    }
+
+    private Map<StockLocation, BigDecimal> sumByLocation(List<StockReservation> reservations) {
+        Map<StockLocation, BigDecimal> quantities = new TreeMap<>(LOCATION_ORDER);
+        reservations.forEach(reservation -> quantities.merge(
+                new StockLocation(reservation.getRawMaterialId(), reservation.getWarehouseId()),
+                reservation.getQuantity(), BigDecimal::add));
+        return quantities;
+    }
+
+    private Set<UUID> materialsOf(Map<StockLocation, BigDecimal> quantities) {
+        return quantities.keySet().stream().map(StockLocation::rawMaterialId).collect(Collectors.toSet());
+    }
+
+    /**
+     * Reserva o que houver disponível de cada matéria-prima, linha a linha; retorna o reservado por linha
+     * de saldo. Quem chama confere se a necessidade foi atendida (senão a transação inteira é desfeita).
+     */
+    private Map<StockLocation, BigDecimal> reserve(UUID companyId, Map<UUID, BigDecimal> requirements) {
+        Map<StockLocation, BigDecimal> allocated = new TreeMap<>(LOCATION_ORDER);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RESERVE_SQL);
+            ps.setArray(1, connection.createArrayOf("uuid", requirements.keySet().toArray()));
+            ps.setArray(2, connection.createArrayOf("numeric", requirements.values().toArray()));
+            ps.setObject(3, companyId);
+            return ps;
+        }, rs -> {
+            allocated.put(new StockLocation(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)), rs.getBigDecimal(3));
+        });
+        return allocated;
+    }
+
+    private void release(UUID companyId, Map<StockLocation, BigDecimal> quantities) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RELEASE_SQL);
+            ps.setArray(1, connection.createArrayOf("uuid", quantities.keySet().stream().map(StockLocation::rawMaterialId).toArray()));
+            ps.setArray(2, connection.createArrayOf("uuid", quantities.keySet().stream().map(StockLocation::warehouseId).toArray()));
+            ps.setArray(3, connection.createArrayOf("numeric", quantities.values().toArray()));
+            ps.setObject(4, companyId);
+            return ps;
+        });
+    }
+
+    private StockReservationDTO convertToDTO(StockReservation reservation) {
+        StockReservationDTO dto = new StockReservationDTO();
+        dto.setId(reservation.getId());
+        dto.setCompanyId(reservation.getCompanyId());
+        dto.setProductionOrderId(reservation.getProductionOrderId());
+        dto.setRawMaterialId(reservation.getRawMaterialId());
+        dto.setWarehouseId(reservation.getWarehouseId());
+        dto.setQuantity(reservation.getQuantity());
+        dto.setStatus(reservation.getStatus());
+        dto.setCreatedAt(reservation.getCreatedAt() != null ? reservation.getCreatedAt().atOffset(OffsetDateTime.now().getOffset()) : null);
+        dto.setCreatedBy(reservation.getCreatedBy());
+        dto.setClosedAt(reservation.getClosedAt() != null ? reservation.getClosedAt().atOffset(OffsetDateTime.now().getOffset()) : null);
+        dto.setClosedBy(reservation.getClosedBy());
+        return dto;
+    }
+
+    private record StockLocation(UUID rawMaterialId, UUID warehouseId) {
+    }
+}
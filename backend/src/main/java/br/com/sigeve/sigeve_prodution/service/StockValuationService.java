@@ -0,0 +1,111 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.StockValuationDTO;
+import br.com.sigeve.sigeve_prodution.dto.StockValuationGroupDTO;
+import br.com.sigeve.sigeve_prodution.event.StockChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Valorização do estoque (quantidade × custo médio) por empresa, categoria e fornecedor.
+ * Os três níveis saem de uma única agregação com GROUPING SETS, sem carregar as matérias-primas na memória.
+ * O resultado fica em cache por empresa e é descartado após o commit de qualquer alteração de estoque
+ * ({@link StockChangedEvent}). Cada empresa tem um contador de geração incrementado na invalidação: um
+ * cálculo iniciado antes de uma alteração não é reaproveitado mesmo que termine depois dela.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockValuationService {
+
+    private static final String SELECT_VALUATION =
+            "SELECT GROUPING(r.category_id) AS by_category, GROUPING(r.supplier_id) AS by_supplier, " +
+            "       r.category_id, r.supplier_id, COUNT(*) AS materials, " +
+            "       COALESCE(SUM(s.quantity), 0) AS quantity, " +
+            "       ROUND(COALESCE(SUM(s.quantity * COALESCE(r.average_cost, 0)), 0), 4) AS total_value " +
+            "FROM (" +
+            "    SELECT raw_material_id, SUM(quantity) AS quantity FROM tab_raw_material_stocks " +
+            "    WHERE company_id = ? GROUP BY raw_material_id" +
+            ") s " +
+            "JOIN tab_raw_materials r ON r.raw_material_id = s.raw_material_id " +
+            "WHERE r.deleted_at IS NULL " +
+            "GROUP BY GROUPING SETS ((), (r.category_id), (r.supplier_id)) " +
+            "ORDER BY total_value DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<UUID, CachedValuation> cache = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Valorização do estoque da empresa; {@code refresh} ignora o cache
+     */
+    @Transactional(readOnly = true)
+    public StockValuationDTO getValuation(UUID companyId, boolean refresh) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        long generation = generations.getOrDefault(companyId, 0L);
+        CachedValuation cached = cache.get(companyId);
+        if (!refresh && cached != null && cached.generation() == generation) {
+            return cached.valuation();
+        }
+
+        StockValuationDTO valuation = calculate(companyId);
+        cache.put(companyId, new CachedValuation(generation, valuation));
+        return valuation;
+    }
+
+    /**
+     * Descarta a valorização em cache da empresa depois que a alteração de estoque foi confirmada
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        generations.merge(event.companyId(), 1L, Long::sum);
+        cache.remove(event.companyId());
+    }
+
+    private StockValuationDTO calculate(UUID companyId) {
+        log.debug("Calculando valorização do estoque da empresa: {}", companyId);
+
+        StockValuationDTO valuation = new StockValuationDTO(companyId, LocalDateTime.now(), 0L,
+                BigDecimal.ZERO, BigDecimal.ZERO, new ArrayList<>(), new ArrayList<>());
+        jdbcTemplate.query(SELECT_VALUATION, rs -> {
+            StockValuationGroupDTO group = new StockValuationGroupDTO(null, rs.getLong("materials"),
+                    rs.getBigDecimal("quantity"), rs.getBigDecimal("total_value"));
+            boolean byCategory = rs.getInt("by_category") == 0;
+            boolean bySupplier = rs.getInt("by_supplier") == 0;
+            if (byCategory) {
+                group.setGroupId(rs.getObject("category_id", UUID.class));
+                valuation.getByCategory().add(group);
+            } else if (bySupplier) {
+                group.setGroupId(rs.getObject("supplier_id", UUID.class));
+                valuation.getBySupplier().add(group);
+            } else {
+                valuation.setMaterialCount(group.getMaterialCount());
+                valuation.setQuantity(group.getQuantity());
+                valuation.setTotalValue(group.getTotalValue());
+            }
+        }, companyId);
+
+        log.info("Valorização do estoque da empresa {}: {} matérias-primas, valor total {}",
+                companyId, valuation.getMaterialCount(), valuation.getTotalValue());
+        return valuation;
+    }
+
+    private record CachedValuation(long generation, StockValuationDTO valuation) {
+    }
+}
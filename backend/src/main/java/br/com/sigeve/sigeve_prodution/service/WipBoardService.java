@@ -0,0 +1,294 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.dto.WipBoardDTO;
+import br.com.sigeve.sigeve_prodution.dto.WipStepDTO;
+import br.com.sigeve.sigeve_prodution.event.ProductionExecutionChangedEvent;
+import br.com.sigeve.sigeve_prodution.event.ProductionOrderChangedEvent;
+import br.com.sigeve.sigeve_prodution.event.ProductionStepChangedEvent;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quadro de WIP (peças em processo) por etapa do roteiro, para os painéis do chão de fábrica. Mantido em memória
+ * por empresa: a empresa é carregada por inteiro no primeiro acesso e, depois, cada evento de execução ou de ordem
+ * recalcula só as ordens envolvidas, descontando dos totais a contribuição anterior de cada uma. A resposta fica
+ * pronta entre uma alteração e outra, de modo que consultas frequentes não chegam ao banco.
+ * <p>
+ * Para cada ordem em andamento e cada etapa: em execução é a quantidade dos apontamentos ainda sem término; concluída,
+ * a quantidade boa (realizada menos perda) dos encerrados; na fila, o que chegou à etapa (a quantidade planejada, na
+ * primeira, ou o concluído na anterior) menos tudo o que a etapa já consumiu.
+ * <p>
+ * Como garantia contra alterações feitas fora desta instância, o quadro é recarregado depois de
+ * {@code app.wip-board.max-age-seconds}.
+ */
+@Service
+@Slf4j
+public class WipBoardService {
+
+    private static final String SELECT_WIP =
+            "SELECT o.production_order_id, o.quantity_planned, e.step_id, " +
+            "       SUM(CASE WHEN e.end_time IS NULL THEN e.quantity_done ELSE 0 END) AS in_process_quantity, " +
+            "       SUM(CASE WHEN e.end_time IS NOT NULL THEN e.quantity_done - COALESCE(e.loss_quantity, 0) ELSE 0 END) AS done_quantity, " +
+            "       SUM(e.quantity_done) AS consumed_quantity " +
+            "FROM tab_production_orders o " +
+            "LEFT JOIN tab_production_executions e ON e.company_id = o.company_id " +
+            "     AND e.production_order_id = o.production_order_id AND e.deleted_at IS NULL " +
+            "WHERE o.company_id = :companyId AND o.deleted_at IS NULL AND o.status = 'IN_PROGRESS' %s " +
+            "GROUP BY o.production_order_id, o.quantity_planned, e.step_id";
+
+    // Escala das quantidades de execução (NUMERIC(15,4))
+    private static final int SCALE = 4;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ProductionStepRepository productionStepRepository;
+    private final long maxAgeNanos;
+
+    private final Map<UUID, CompanyBoard> companies = new ConcurrentHashMap<>();
+
+    public WipBoardService(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                           ProductionStepRepository productionStepRepository,
+                           @Value("${app.wip-board.max-age-seconds:300}") long maxAgeSeconds) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.productionStepRepository = productionStepRepository;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+    }
+
+    /**
+     * Quadro completo da empresa, uma linha por etapa ativa do roteiro
+     */
+    public WipBoardDTO findBoard(UUID companyId) {
+        if (companyId == null) {
+            throw new IllegalArgumentException("Company ID é obrigatório");
+        }
+        CompanyBoard company = companies.computeIfAbsent(companyId, id -> new CompanyBoard());
+        synchronized (company) {
+            if (company.board == null || System.nanoTime() - company.loadedAt > maxAgeNanos) {
+                load(companyId, company);
+            }
+            if (company.snapshot == null) {
+                company.snapshot = company.board.toDTO(companyId);
+            }
+            return company.snapshot;
+        }
+    }
+
+    /**
+     * Recalcula as ordens com execuções alteradas. Empresas ainda não carregadas são ignoradas.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductionExecutionChanged(ProductionExecutionChangedEvent event) {
+        refresh(event.companyId(), event.productionOrderIds());
+    }
+
+    /**
+     * Ordens que entram em andamento, terminam, são canceladas ou mudam de quantidade
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductionOrderChanged(ProductionOrderChangedEvent event) {
+        refresh(event.companyId(), event.productionOrderIds());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductionStepChanged(ProductionStepChangedEvent event) {
+        CompanyBoard company = companies.get(event.companyId());
+        if (company != null) {
+            synchronized (company) {
+                company.board = null;
+                company.snapshot = null;
+            }
+        }
+    }
+
+    private void refresh(UUID companyId, Set<UUID> productionOrderIds) {
+        CompanyBoard company = companies.get(companyId);
+        if (company == null || productionOrderIds.isEmpty()) {
+            return;
+        }
+        synchronized (company) {
+            if (company.board == null) {
+                return;
+            }
+            Board board = company.board;
+            Map<UUID, OrderWip> current = query(board, companyId, productionOrderIds);
+            for (UUID id : productionOrderIds) {
+                board.remove(id);
+                OrderWip order = current.get(id);
+                if (order != null) {
+                    board.add(id, order);
+                }
+            }
+            company.snapshot = null;
+        }
+    }
+
+    /**
+     * Carga completa da empresa. Chamado com o monitor da empresa.
+     */
+    private void load(UUID companyId, CompanyBoard company) {
+        long startedAt = System.nanoTime();
+        Board board = new Board(productionStepRepository.findByCompanyIdAndIsActiveTrueAndDeletedAtIsNullOrderBySequence(companyId));
+        query(board, companyId, null).forEach(board::add);
+        company.board = board;
+        company.snapshot = null;
+        company.loadedAt = System.nanoTime();
+        log.info("Quadro de WIP da empresa {} carregado: {} ordens em {} etapas ({} ms)", companyId, board.orders.size(),
+                board.steps.size(), TimeUnit.NANOSECONDS.toMillis(company.loadedAt - startedAt));
+    }
+
+    /**
+     * WIP das ordens em andamento entre as informadas (ou de todas, quando {@code productionOrderIds} é nulo)
+     */
+    private Map<UUID, OrderWip> query(Board board, UUID companyId, Collection<UUID> productionOrderIds) {
+        String sql = String.format(SELECT_WIP, productionOrderIds != null ? "AND o.production_order_id IN (:productionOrderIds)" : "");
+        MapSqlParameterSource params = new MapSqlParameterSource("companyId", companyId)
+                .addValue("productionOrderIds", productionOrderIds != null ? new HashSet<>(productionOrderIds) : Set.of());
+
+        int stepCount = board.steps.size();
+        Map<UUID, BigDecimal> planned = new HashMap<>();
+        Map<UUID, BigDecimal[][]> totals = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            UUID orderId = rs.getObject("production_order_id", UUID.class);
+            planned.put(orderId, rs.getBigDecimal("quantity_planned"));
+            BigDecimal[][] byStep = totals.computeIfAbsent(orderId, id -> new BigDecimal[3][stepCount]);
+            Integer index = board.stepIndex.get(rs.getObject("step_id", UUID.class));
+            // Ordens sem execução (step_id nulo) e execuções em etapas fora do roteiro ativo não somam
+            if (index != null) {
+                byStep[0][index] = rs.getBigDecimal("in_process_quantity");
+                byStep[1][index] = rs.getBigDecimal("done_quantity");
+                byStep[2][index] = rs.getBigDecimal("consumed_quantity");
+            }
+        });
+
+        Map<UUID, OrderWip> orders = new HashMap<>();
+        totals.forEach((orderId, byStep) -> orders.put(orderId, OrderWip.of(planned.get(orderId), byStep[0], byStep[1], byStep[2])));
+        return orders;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static BigDecimal scaled(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static final class CompanyBoard {
+        private Board board;
+        private WipBoardDTO snapshot;
+        private long loadedAt;
+    }
+
+    /**
+     * Totais por etapa e a contribuição de cada ordem, para poder descontá-la quando a ordem muda
+     */
+    private static final class Board {
+        private final List<ProductionStep> steps;
+        private final Map<UUID, Integer> stepIndex = new HashMap<>();
+        private final Map<UUID, OrderWip> orders = new HashMap<>();
+        private final BigDecimal[] queue;
+        private final BigDecimal[] inProcess;
+        private final BigDecimal[] done;
+        private final int[] ordersInQueue;
+        private final int[] ordersInProcess;
+
+        private Board(List<ProductionStep> steps) {
+            this.steps = steps;
+            for (int i = 0; i < steps.size(); i++) {
+                stepIndex.put(steps.get(i).getId(), i);
+            }
+            this.queue = zeros(steps.size());
+            this.inProcess = zeros(steps.size());
+            this.done = zeros(steps.size());
+            this.ordersInQueue = new int[steps.size()];
+            this.ordersInProcess = new int[steps.size()];
+        }
+
+        private void add(UUID orderId, OrderWip order) {
+            orders.put(orderId, order);
+            apply(order, 1);
+        }
+
+        private void remove(UUID orderId) {
+            OrderWip previous = orders.remove(orderId);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+        }
+
+        private void apply(OrderWip order, int sign) {
+            for (int i = 0; i < steps.size(); i++) {
+                queue[i] = queue[i].add(sign > 0 ? order.queue[i] : order.queue[i].negate());
+                inProcess[i] = inProcess[i].add(sign > 0 ? order.inProcess[i] : order.inProcess[i].negate());
+                done[i] = done[i].add(sign > 0 ? order.done[i] : order.done[i].negate());
+                if (order.queue[i].signum() > 0) {
+                    ordersInQueue[i] += sign;
+                }
+                if (order.inProcess[i].signum() > 0) {
+                    ordersInProcess[i] += sign;
+                }
+            }
+        }
+
+        private WipBoardDTO toDTO(UUID companyId) {
+            List<WipStepDTO> result = new ArrayList<>(steps.size());
+            for (int i = 0; i < steps.size(); i++) {
+                ProductionStep step = steps.get(i);
+                result.add(new WipStepDTO(step.getId(), step.getName(), step.getSequence(), step.isOutsourced(),
+                        scaled(queue[i]), scaled(inProcess[i]), scaled(done[i]), ordersInQueue[i], ordersInProcess[i]));
+            }
+            return new WipBoardDTO(companyId, orders.size(), OffsetDateTime.now(), result);
+        }
+
+        private static BigDecimal[] zeros(int size) {
+            BigDecimal[] values = new BigDecimal[size];
+            Arrays.fill(values, BigDecimal.ZERO);
+            return values;
+        }
+    }
+
+    private static final class OrderWip {
+        private final BigDecimal[] queue;
+        private final BigDecimal[] inProcess;
+        private final BigDecimal[] done;
+
+        private OrderWip(int stepCount) {
+            this.queue = new BigDecimal[stepCount];
+            this.inProcess = new BigDecimal[stepCount];
+            this.done = new BigDecimal[stepCount];
+        }
+
+        private static OrderWip of(BigDecimal planned, BigDecimal[] inProcess, BigDecimal[] done, BigDecimal[] consumed) {
+            OrderWip order = new OrderWip(done.length);
+            BigDecimal arrived = orZero(planned);
+            for (int i = 0; i < done.length; i++) {
+                order.inProcess[i] = orZero(inProcess[i]);
+                order.done[i] = orZero(done[i]);
+                order.queue[i] = arrived.subtract(orZero(consumed[i])).max(BigDecimal.ZERO);
+                arrived = order.done[i];
+            }
+            return order;
+        }
+    }
+}
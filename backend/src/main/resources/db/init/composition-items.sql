@@ -0,0 +1,9 @@
+-- Executado a cada inicialização, depois do Hibernate (spring.sql.init); deve ser idempotente
+
+-- Itens do tipo PRODUCT (produto semiacabado) na composição, usados na explosão multinível da estrutura.
+-- O Hibernate cria item_type como varchar com check gerado a partir do enum e não o atualiza quando o enum
+-- ganha valores: a constraint é recriada com todos os tipos. A comparação é feita em texto para valer também
+-- no esquema do production-module.sql, onde a coluna é o tipo nativo composition_item_type (já com PRODUCT)
+ALTER TABLE tab_composition_items DROP CONSTRAINT IF EXISTS tab_composition_items_item_type_check;
+ALTER TABLE tab_composition_items ADD CONSTRAINT tab_composition_items_item_type_check
+    CHECK (item_type::text IN ('RAW_MATERIAL', 'SERVICE', 'PRODUCT'));
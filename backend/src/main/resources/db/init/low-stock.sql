@@ -0,0 +1,13 @@
+-- Executado a cada inicialização, depois do Hibernate (spring.sql.init); deve ser idempotente
+
+-- Estoque baixo por limite de cada matéria-prima: só entram no índice as matérias-primas ativas, com
+-- controle de estoque e com ponto de pedido ou mínimo (o predicado é repetido na consulta)
+CREATE INDEX IF NOT EXISTS idx_raw_materials_company_stock_limits
+    ON tab_raw_materials (company_id) INCLUDE (reorder_point, min_stock)
+    WHERE deleted_at IS NULL AND is_active AND stock_control AND (reorder_point > 0 OR min_stock > 0);
+
+-- Saldo de cada matéria-prima (todos os depósitos) lido só do índice, sem visitar a tabela. Substitui o antigo
+-- índice simples por raw_material_id, que tinha a mesma coluna inicial e só dobrava o custo das gravações
+DROP INDEX IF EXISTS idx_raw_material_stocks_material;
+CREATE INDEX IF NOT EXISTS idx_raw_material_stocks_material_totals
+    ON tab_raw_material_stocks (raw_material_id) INCLUDE (quantity, reserved_quantity);
@@ -0,0 +1,12 @@
+-- Executado a cada inicialização, depois do Hibernate (spring.sql.init); deve ser idempotente
+
+-- Idempotência da captura de chão de fábrica: um evento do coletor vira no máximo uma execução.
+-- Parcial porque as execuções lançadas pela tela não têm identificador de evento
+CREATE UNIQUE INDEX IF NOT EXISTS uq_production_executions_client_event
+    ON tab_production_executions (company_id, client_event_id)
+    WHERE client_event_id IS NOT NULL;
+
+-- Execuções encerradas que ainda não entraram nos esboços de lead time, pela data de término
+CREATE INDEX IF NOT EXISTS idx_production_executions_unsampled
+    ON tab_production_executions (company_id, end_time)
+    WHERE duration_sampled_at IS NULL AND end_time IS NOT NULL AND deleted_at IS NULL;
@@ -0,0 +1,41 @@
+-- Executado a cada inicialização, depois do Hibernate (spring.sql.init); deve ser idempotente
+
+-- Chave dos baldes horários de indicadores. Máquina e funcionário são opcionais e NULL não conflita com NULL,
+-- por isso a chave usa o UUID zero no lugar (a mesma expressão aparece no ON CONFLICT do serviço)
+CREATE UNIQUE INDEX IF NOT EXISTS uq_production_kpi_buckets_key
+    ON tab_production_kpi_buckets (company_id, bucket_start, step_id,
+        COALESCE(machine_id, '00000000-0000-0000-0000-000000000000'::uuid),
+        COALESCE(employee_id, '00000000-0000-0000-0000-000000000000'::uuid));
+
+-- Carga inicial dos baldes a partir das execuções já gravadas, só enquanto a tabela está vazia (as execuções
+-- seguintes são somadas pelo serviço). Mesma regra da reconstrução em ProductionKpiService: contagens na hora de
+-- início, tempo apontado repartido pelas horas que a execução atravessa
+INSERT INTO tab_production_kpi_buckets (production_kpi_bucket_id, tenant_id, company_id, bucket_start, step_id,
+    machine_id, employee_id, execution_count, quantity_done, loss_quantity, rejected_quantity, completed_quantity,
+    run_seconds, updated_at)
+SELECT gen_random_uuid(), (array_agg(p.tenant_id))[1], p.company_id, p.bucket_start, p.step_id, p.machine_id,
+       p.employee_id, SUM(p.execution_count), SUM(p.quantity_done), SUM(p.loss_quantity), SUM(p.rejected_quantity),
+       SUM(p.completed_quantity), SUM(p.run_seconds), now()
+FROM (
+    SELECT e.tenant_id, e.company_id, date_trunc('hour', e.start_time) AS bucket_start, e.step_id, e.machine_id,
+           e.employee_id, 1 AS execution_count, e.quantity_done, COALESCE(e.loss_quantity, 0) AS loss_quantity,
+           CASE WHEN e.quality_status = 'REJECTED' THEN e.quantity_done - COALESCE(e.loss_quantity, 0) ELSE 0 END
+               AS rejected_quantity,
+           CASE WHEN e.end_time IS NOT NULL THEN e.quantity_done ELSE 0 END AS completed_quantity,
+           0::bigint AS run_seconds
+    FROM tab_production_executions e
+    WHERE e.deleted_at IS NULL AND e.step_id IS NOT NULL AND e.start_time IS NOT NULL
+    UNION ALL
+    SELECT e.tenant_id, e.company_id, h.bucket_start, e.step_id, e.machine_id, e.employee_id, 0, 0, 0, 0, 0,
+           (floor(extract(epoch FROM LEAST(e.end_time, h.bucket_start + interval '1 hour')))
+            - floor(extract(epoch FROM GREATEST(e.start_time, h.bucket_start))))::bigint
+    FROM tab_production_executions e
+    CROSS JOIN LATERAL generate_series(date_trunc('hour', e.start_time), e.end_time, interval '1 hour')
+        AS h(bucket_start)
+    WHERE e.deleted_at IS NULL AND e.step_id IS NOT NULL AND e.end_time > e.start_time
+      AND h.bucket_start < e.end_time
+) p
+WHERE NOT EXISTS (SELECT 1 FROM tab_production_kpi_buckets)
+GROUP BY p.company_id, p.bucket_start, p.step_id, p.machine_id, p.employee_id
+HAVING SUM(p.execution_count) <> 0 OR SUM(p.run_seconds) <> 0
+ON CONFLICT DO NOTHING;
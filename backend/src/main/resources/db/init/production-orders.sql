@@ -0,0 +1,10 @@
+-- Executado a cada inicialização, depois do Hibernate (spring.sql.init); deve ser idempotente
+
+-- Listagem paginada de ordens por prioridade, prazo e código: priority_rank e deadline_key são colunas geradas,
+-- de modo que o ORDER BY e a comparação de tupla do keyset seguem o índice em vez de ordenar a empresa inteira
+CREATE INDEX IF NOT EXISTS idx_production_orders_company_keyset
+    ON tab_production_orders (company_id, priority_rank, deadline_key, code) WHERE deleted_at IS NULL;
+
+-- O mesmo percurso com o filtro de status, o mais usado na listagem
+CREATE INDEX IF NOT EXISTS idx_production_orders_company_status_keyset
+    ON tab_production_orders (company_id, status, priority_rank, deadline_key, code) WHERE deleted_at IS NULL;
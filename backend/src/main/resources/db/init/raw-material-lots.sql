@@ -0,0 +1,12 @@
+-- Executado a cada inicialização, depois do Hibernate (spring.sql.init); deve ser idempotente
+
+-- Fila de lotes abertos por matéria-prima e depósito: os lotes esgotados saem do índice, que fica do
+-- tamanho do estoque atual e não do histórico de entradas
+CREATE INDEX IF NOT EXISTS idx_raw_material_lots_fifo
+    ON tab_raw_material_lots (raw_material_id, warehouse_id, receipt_date, raw_material_lot_id)
+    WHERE remaining_quantity > 0;
+
+-- Mesma fila na ordem de validade, para as matérias-primas com política FEFO
+CREATE INDEX IF NOT EXISTS idx_raw_material_lots_fefo
+    ON tab_raw_material_lots (raw_material_id, warehouse_id, expiration_date, receipt_date)
+    WHERE remaining_quantity > 0;
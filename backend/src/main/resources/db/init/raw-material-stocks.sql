@@ -0,0 +1,40 @@
+-- Executado a cada inicialização, depois do Hibernate (spring.sql.init); deve ser idempotente
+
+-- Remove o trigger legado de estoque: o saldo é atualizado somente pela aplicação
+DROP TRIGGER IF EXISTS trigger_update_stock_after_movement ON tab_raw_material_movements;
+DROP FUNCTION IF EXISTS update_stock_after_movement();
+
+-- Remove o trigger legado de custo médio: o custo é calculado pela aplicação com a matéria-prima travada
+DROP TRIGGER IF EXISTS trigger_update_average_cost ON tab_raw_material_movements;
+DROP FUNCTION IF EXISTS update_average_cost_after_entry();
+
+-- Consolida linhas duplicadas do estoque padrão (sem depósito) antes de criar o índice único
+UPDATE tab_raw_material_stocks s
+SET quantity = d.quantity, reserved_quantity = d.reserved_quantity, updated_at = now()
+FROM (
+    SELECT (array_agg(raw_material_stock_id ORDER BY created_at, raw_material_stock_id))[1] AS keep_id,
+           SUM(quantity) AS quantity, SUM(reserved_quantity) AS reserved_quantity
+    FROM tab_raw_material_stocks
+    WHERE warehouse_id IS NULL
+    GROUP BY company_id, raw_material_id
+    HAVING COUNT(*) > 1
+) d
+WHERE s.raw_material_stock_id = d.keep_id;
+
+DELETE FROM tab_raw_material_stocks s
+USING (
+    SELECT company_id, raw_material_id,
+           (array_agg(raw_material_stock_id ORDER BY created_at, raw_material_stock_id))[1] AS keep_id
+    FROM tab_raw_material_stocks
+    WHERE warehouse_id IS NULL
+    GROUP BY company_id, raw_material_id
+    HAVING COUNT(*) > 1
+) d
+WHERE s.warehouse_id IS NULL
+  AND s.company_id = d.company_id
+  AND s.raw_material_id = d.raw_material_id
+  AND s.raw_material_stock_id <> d.keep_id;
+
+-- Chave do upsert de estoque (ON CONFLICT): NULL não participa de unique comum, por isso o índice parcial
+CREATE UNIQUE INDEX IF NOT EXISTS uq_raw_material_stocks_default
+    ON tab_raw_material_stocks (company_id, raw_material_id) WHERE warehouse_id IS NULL;
@@ -51,7 +51,8 @@ BEGIN
   IF NOT EXISTS (SELECT 1 FROM pg_type WHERE typname='composition_item_type') THEN
     CREATE TYPE composition_item_type AS ENUM (
       'RAW_MATERIAL',   -- Matéria-prima
-      'SERVICE'         -- Serviço terceirizado
+      'SERVICE',        -- Serviço terceirizado
+      'PRODUCT'         -- Produto semiacabado (possui composição própria)
     );
   END IF;
 END$$;
@@ -234,7 +235,7 @@ CREATE TABLE IF NOT EXISTS tab_composition_items (
     
     -- Tipo e referência
     item_type           composition_item_type NOT NULL,
-    reference_id        UUID NOT NULL,  -- ID da matéria-prima ou serviço
+    reference_id        UUID NOT NULL,  -- ID da matéria-prima, serviço ou produto semiacabado
     
     -- Quantidade
     sequence            INTEGER NOT NULL DEFAULT 1,
@@ -259,6 +260,30 @@ CREATE TABLE IF NOT EXISTS tab_composition_items (
     deleted_by          VARCHAR(100)
 );
 
+-- =====================================================
+-- TABELA: VARIAÇÕES DOS ITENS DA COMPOSIÇÃO (GRADE)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS tab_composition_item_variants (
+    composition_item_variant_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    tenant_id           UUID NOT NULL REFERENCES tab_tenants(tenant_id) ON DELETE CASCADE,
+    company_id          UUID NOT NULL REFERENCES tab_companies(company_id) ON DELETE RESTRICT,
+    
+    -- Item da composição
+    composition_item_id UUID NOT NULL REFERENCES tab_composition_items(id) ON DELETE CASCADE,
+    
+    -- Tamanho e/ou cor da grade (nulo = qualquer)
+    size                VARCHAR(50),
+    color               VARCHAR(50),
+    
+    -- Multiplicador da quantidade do item e material usado no lugar da referência
+    consumption_factor  NUMERIC(9,4) NOT NULL DEFAULT 1 CHECK (consumption_factor > 0),
+    substitute_reference_id UUID,
+    
+    -- Auditoria
+    created_at          TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    created_by          VARCHAR(100)
+);
+
 -- =====================================================
 -- TABELA: MATÉRIAS-PRIMAS
 -- =====================================================
@@ -287,6 +312,10 @@ CREATE TABLE IF NOT EXISTS tab_raw_materials (
     reorder_point       NUMERIC(15,4),
     lead_time_days      INTEGER DEFAULT 0,
     
+    -- Controle por lote (FIFO por entrada ou FEFO por validade)
+    lot_control         BOOLEAN NOT NULL DEFAULT FALSE,
+    lot_picking_policy  VARCHAR(10) NOT NULL DEFAULT 'FIFO',
+    
     -- Categoria
     category_id         UUID REFERENCES tab_material_groups(group_id),
     
@@ -337,6 +366,10 @@ CREATE TABLE IF NOT EXISTS tab_raw_material_stocks (
     CONSTRAINT uq_stock_material_warehouse UNIQUE (company_id, raw_material_id, warehouse_id)
 );
 
+-- Estoque padrão (sem depósito): NULL não participa da unique acima, por isso o índice parcial
+CREATE UNIQUE INDEX IF NOT EXISTS uq_raw_material_stocks_default
+    ON tab_raw_material_stocks (company_id, raw_material_id) WHERE warehouse_id IS NULL;
+
 -- =====================================================
 -- TABELA: MOVIMENTOS DE ESTOQUE
 -- =====================================================
@@ -348,6 +381,9 @@ CREATE TABLE IF NOT EXISTS tab_raw_material_movements (
     -- Material
     raw_material_id     UUID NOT NULL REFERENCES tab_raw_materials(id) ON DELETE RESTRICT,
     
+    -- Localização (opcional; nulo = estoque padrão)
+    warehouse_id        UUID,
+    
     -- Tipo de movimento
     movement_type       stock_movement_type NOT NULL,
     movement_origin     movement_origin NOT NULL,
@@ -355,6 +391,7 @@ CREATE TABLE IF NOT EXISTS tab_raw_material_movements (
     
     -- Documento
     document_number     VARCHAR(100),
+    lot_number          VARCHAR(100),  -- lote recebido ou consumido (matérias-primas com controle por lote)
     movement_date       TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     
     -- Quantidade e custo
@@ -373,6 +410,79 @@ CREATE TABLE IF NOT EXISTS tab_raw_material_movements (
     created_by          VARCHAR(100)
 );
 
+-- =====================================================
+-- TABELA: FOTOGRAFIAS DE SALDO DE ESTOQUE
+-- =====================================================
+CREATE TABLE IF NOT EXISTS tab_raw_material_stock_snapshots (
+    raw_material_stock_snapshot_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    tenant_id           UUID NOT NULL REFERENCES tab_tenants(tenant_id) ON DELETE CASCADE,
+    company_id          UUID NOT NULL REFERENCES tab_companies(company_id) ON DELETE RESTRICT,
+    
+    -- Material
+    raw_material_id     UUID NOT NULL REFERENCES tab_raw_materials(id) ON DELETE RESTRICT,
+    
+    -- Saldo acumulado até o fim do dia (fechamento de mês)
+    snapshot_date       DATE NOT NULL,
+    quantity            NUMERIC(15,4) NOT NULL DEFAULT 0,
+    total_value         NUMERIC(15,4) NOT NULL DEFAULT 0,
+    
+    -- Auditoria
+    created_at          TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    
+    -- Constraints
+    CONSTRAINT uq_raw_material_stock_snapshots_material_date UNIQUE (company_id, raw_material_id, snapshot_date)
+);
+
+-- =====================================================
+-- TABELA: LOTES DE MATÉRIAS-PRIMAS
+-- =====================================================
+CREATE TABLE IF NOT EXISTS tab_raw_material_lots (
+    raw_material_lot_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    tenant_id           UUID NOT NULL REFERENCES tab_tenants(tenant_id) ON DELETE CASCADE,
+    company_id          UUID NOT NULL REFERENCES tab_companies(company_id) ON DELETE RESTRICT,
+    
+    -- Material e localização (nulo = estoque padrão)
+    raw_material_id     UUID NOT NULL REFERENCES tab_raw_materials(id) ON DELETE RESTRICT,
+    warehouse_id        UUID,
+    
+    -- Identificação
+    lot_number          VARCHAR(100) NOT NULL,
+    receipt_date        DATE NOT NULL,
+    expiration_date     DATE,
+    
+    -- Quantidades e custo
+    initial_quantity    NUMERIC(15,4) NOT NULL,
+    remaining_quantity  NUMERIC(15,4) NOT NULL CHECK (remaining_quantity >= 0),
+    unit_cost           NUMERIC(15,4) CHECK (unit_cost >= 0),
+    
+    -- Movimento de entrada que originou o lote
+    receipt_movement_id UUID REFERENCES tab_raw_material_movements(id) ON DELETE SET NULL,
+    
+    -- Auditoria
+    created_at          TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at          TIMESTAMPTZ
+);
+
+-- =====================================================
+-- TABELA: CONSUMO DE LOTES
+-- =====================================================
+CREATE TABLE IF NOT EXISTS tab_raw_material_lot_allocations (
+    raw_material_lot_allocation_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    tenant_id           UUID NOT NULL REFERENCES tab_tenants(tenant_id) ON DELETE CASCADE,
+    company_id          UUID NOT NULL REFERENCES tab_companies(company_id) ON DELETE RESTRICT,
+    
+    -- Saída e lote consumido
+    raw_material_movement_id UUID NOT NULL REFERENCES tab_raw_material_movements(id) ON DELETE CASCADE,
+    raw_material_lot_id UUID NOT NULL REFERENCES tab_raw_material_lots(raw_material_lot_id) ON DELETE RESTRICT,
+    
+    -- Quantidade e custo do lote
+    quantity            NUMERIC(15,4) NOT NULL CHECK (quantity > 0),
+    unit_cost           NUMERIC(15,4) CHECK (unit_cost >= 0),
+    
+    -- Auditoria
+    created_at          TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
 -- =====================================================
 -- TABELA: COMPRA DE SERVIÇOS
 -- =====================================================
@@ -480,6 +590,9 @@ CREATE TABLE IF NOT EXISTS tab_production_steps (
     -- Tempo estimado (em minutos)
     estimated_time      INTEGER DEFAULT 0,
     
+    -- Capacidade diária (em minutos) para a programação de capacidade finita
+    daily_capacity_minutes INTEGER NOT NULL DEFAULT 480 CHECK (daily_capacity_minutes > 0),
+    
     -- Centro de custo
     cost_center_id      UUID REFERENCES tab_cost_centers(cost_center_id),
     
@@ -514,6 +627,7 @@ CREATE TABLE IF NOT EXISTS tab_production_orders (
     -- Quantidades
     quantity_planned    NUMERIC(15,4) NOT NULL CHECK (quantity_planned > 0),
     quantity_produced   NUMERIC(15,4) DEFAULT 0 CHECK (quantity_produced >= 0),
+    quantity_lost       NUMERIC(15,4) DEFAULT 0 CHECK (quantity_lost >= 0), -- perdas das execuções
     
     -- Status e prioridade
     status              production_order_status NOT NULL DEFAULT 'PLANNED',
@@ -524,6 +638,11 @@ CREATE TABLE IF NOT EXISTS tab_production_orders (
     end_date            DATE,
     deadline            DATE,
     
+    -- Chaves da listagem paginada (keyset): urgentes primeiro; sem prazo por último
+    priority_rank       SMALLINT GENERATED ALWAYS AS (CASE priority WHEN 'URGENT' THEN 0 WHEN 'HIGH' THEN 1
+                            WHEN 'MEDIUM' THEN 2 ELSE 3 END) STORED,
+    deadline_key        DATE GENERATED ALWAYS AS (COALESCE(deadline, DATE '9999-12-31')) STORED,
+    
     -- Relacionamentos
     customer_id         UUID REFERENCES tab_customers(customer_id),
     order_id            UUID REFERENCES tab_orders(order_id),
@@ -559,6 +678,64 @@ CREATE TABLE IF NOT EXISTS tab_production_orders (
     CONSTRAINT uq_production_orders_company_code UNIQUE (company_id, code)
 );
 
+-- =====================================================
+-- TABELA: RESERVAS DE ESTOQUE
+-- =====================================================
+CREATE TABLE IF NOT EXISTS tab_stock_reservations (
+    stock_reservation_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    tenant_id           UUID NOT NULL REFERENCES tab_tenants(tenant_id) ON DELETE CASCADE,
+    company_id          UUID NOT NULL REFERENCES tab_companies(company_id) ON DELETE RESTRICT,
+    
+    -- Ordem de produção
+    production_order_id UUID NOT NULL REFERENCES tab_production_orders(id) ON DELETE CASCADE,
+    
+    -- Material e depósito reservados (nulo = estoque padrão)
+    raw_material_id     UUID NOT NULL REFERENCES tab_raw_materials(id) ON DELETE RESTRICT,
+    warehouse_id        UUID,
+    
+    -- Quantidade
+    quantity            NUMERIC(15,4) NOT NULL CHECK (quantity > 0),
+    
+    -- Situação: ativa até a baixa (finalização) ou a liberação (cancelamento, exclusão, alteração da ordem)
+    status              VARCHAR(20) NOT NULL DEFAULT 'ACTIVE' CHECK (status IN ('ACTIVE', 'RELEASED', 'CONSUMED')),
+    
+    -- Auditoria
+    created_at          TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    created_by          VARCHAR(100),
+    closed_at           TIMESTAMPTZ,
+    closed_by           VARCHAR(100)
+);
+
+-- =====================================================
+-- TABELA: GRADE DA ORDEM DE PRODUÇÃO (TAMANHO X COR)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS tab_production_grid_cells (
+    production_grid_cell_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    tenant_id           UUID NOT NULL REFERENCES tab_tenants(tenant_id) ON DELETE CASCADE,
+    company_id          UUID NOT NULL REFERENCES tab_companies(company_id) ON DELETE RESTRICT,
+    
+    -- Ordem de produção
+    production_order_id UUID NOT NULL REFERENCES tab_production_orders(id) ON DELETE CASCADE,
+    
+    -- Tamanho e cor, com a posição de cada um na grade
+    size                VARCHAR(50) NOT NULL,
+    size_position       INTEGER NOT NULL,
+    color               VARCHAR(50) NOT NULL,
+    color_position      INTEGER NOT NULL,
+    
+    -- Quantidade (as células da ordem somam a quantidade planejada)
+    quantity            NUMERIC(15,4) NOT NULL DEFAULT 0 CHECK (quantity >= 0),
+    
+    -- Auditoria
+    created_at          TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    created_by          VARCHAR(100),
+    updated_at          TIMESTAMPTZ,
+    updated_by          VARCHAR(100),
+    
+    -- Constraints
+    CONSTRAINT uq_production_grid_cells_order_size_color UNIQUE (production_order_id, size, color)
+);
+
 -- =====================================================
 -- TABELA: EXECUÇÕES DE PRODUÇÃO
 -- =====================================================
@@ -592,6 +769,10 @@ CREATE TABLE IF NOT EXISTS tab_production_executions (
     -- Observações
     notes               TEXT,
     
+    -- Identificador do evento no coletor (idempotência da captura)
+    client_event_id     VARCHAR(100),
+    duration_sampled_at TIMESTAMP, -- amostra já gravada nos esboços de lead time
+    
     -- Auditoria
     created_at          TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     created_by          VARCHAR(100),
@@ -604,6 +785,54 @@ CREATE TABLE IF NOT EXISTS tab_production_executions (
     CONSTRAINT chk_execution_times CHECK (end_time IS NULL OR end_time >= start_time)
 );
 
+-- =====================================================
+-- TABELA: INDICADORES DE PRODUÇÃO (BALDES HORÁRIOS)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS tab_production_kpi_buckets (
+    production_kpi_bucket_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    tenant_id           UUID NOT NULL REFERENCES tab_tenants(tenant_id) ON DELETE CASCADE,
+    company_id          UUID NOT NULL REFERENCES tab_companies(company_id) ON DELETE RESTRICT,
+    
+    -- Hora cheia, etapa, máquina e funcionário (opcionais)
+    bucket_start        TIMESTAMP NOT NULL,
+    step_id             UUID NOT NULL REFERENCES tab_production_steps(id),
+    machine_id          UUID,
+    employee_id         UUID REFERENCES tab_employees(employee_id),
+    
+    -- Totais das execuções iniciadas na hora (tempo apontado repartido pelas horas que a execução atravessa)
+    execution_count     INTEGER NOT NULL DEFAULT 0,
+    quantity_done       NUMERIC(15,4) NOT NULL DEFAULT 0,
+    loss_quantity       NUMERIC(15,4) NOT NULL DEFAULT 0,
+    rejected_quantity   NUMERIC(15,4) NOT NULL DEFAULT 0,
+    completed_quantity  NUMERIC(15,4) NOT NULL DEFAULT 0,
+    run_seconds         BIGINT NOT NULL DEFAULT 0,
+    
+    -- Auditoria
+    updated_at          TIMESTAMPTZ
+);
+
+-- =====================================================
+-- TABELA: ESBOÇOS DE DURAÇÃO (LEAD TIME)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS tab_production_duration_sketches (
+    production_duration_sketch_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    tenant_id           UUID NOT NULL REFERENCES tab_tenants(tenant_id) ON DELETE CASCADE,
+    company_id          UUID NOT NULL REFERENCES tab_companies(company_id) ON DELETE RESTRICT,
+    
+    -- Etapa e produto (nulo no esboço da etapa, todos os produtos)
+    step_id             UUID NOT NULL REFERENCES tab_production_steps(id),
+    product_id          UUID REFERENCES tab_production_products(id),
+    
+    -- Janela móvel: período corrente e anterior do tempo por peça, serializados
+    period_start        DATE NOT NULL,
+    current_sketch      BYTEA,
+    previous_sketch     BYTEA,
+    sample_count        BIGINT NOT NULL DEFAULT 0,
+    
+    -- Auditoria
+    updated_at          TIMESTAMPTZ
+);
+
 -- =====================================================
 -- TABELA: CUSTOS DE PRODUÇÃO (Apontamento Real)
 -- =====================================================
@@ -693,14 +922,26 @@ CREATE INDEX idx_compositions_company_product ON tab_compositions(company_id, pr
 CREATE INDEX idx_compositions_active ON tab_compositions(company_id, is_active) WHERE deleted_at IS NULL;
 CREATE INDEX idx_composition_items_composition ON tab_composition_items(composition_id) WHERE deleted_at IS NULL;
 CREATE INDEX idx_composition_items_type_ref ON tab_composition_items(company_id, item_type, reference_id) WHERE deleted_at IS NULL;
+CREATE INDEX idx_composition_item_variants_item ON tab_composition_item_variants(composition_item_id);
 
 -- Raw Materials
 CREATE INDEX idx_raw_materials_company_code ON tab_raw_materials(company_id, code) WHERE deleted_at IS NULL;
 CREATE INDEX idx_raw_materials_supplier ON tab_raw_materials(supplier_id) WHERE deleted_at IS NULL;
 CREATE INDEX idx_raw_materials_category ON tab_raw_materials(category_id) WHERE deleted_at IS NULL;
-CREATE INDEX idx_raw_material_stocks_material ON tab_raw_material_stocks(raw_material_id);
+CREATE INDEX idx_raw_material_stocks_material_totals ON tab_raw_material_stocks(raw_material_id) INCLUDE (quantity, reserved_quantity);
+CREATE INDEX idx_raw_materials_company_stock_limits ON tab_raw_materials(company_id) INCLUDE (reorder_point, min_stock)
+    WHERE deleted_at IS NULL AND is_active AND stock_control AND (reorder_point > 0 OR min_stock > 0);
 CREATE INDEX idx_raw_material_movements_material_date ON tab_raw_material_movements(raw_material_id, movement_date DESC);
 CREATE INDEX idx_raw_material_movements_company_date ON tab_raw_material_movements(company_id, movement_date DESC);
+CREATE INDEX idx_raw_material_movements_company_date_id ON tab_raw_material_movements(company_id, movement_date DESC, id DESC);
+CREATE INDEX idx_raw_material_movements_warehouse_date ON tab_raw_material_movements(warehouse_id, movement_date) WHERE warehouse_id IS NOT NULL;
+CREATE INDEX idx_raw_material_stock_snapshots_company_date ON tab_raw_material_stock_snapshots(company_id, snapshot_date);
+CREATE INDEX idx_raw_material_lots_material_number ON tab_raw_material_lots(raw_material_id, lot_number);
+CREATE INDEX idx_raw_material_lots_receipt_movement ON tab_raw_material_lots(receipt_movement_id);
+CREATE INDEX idx_raw_material_lots_fifo ON tab_raw_material_lots(raw_material_id, warehouse_id, receipt_date, raw_material_lot_id) WHERE remaining_quantity > 0;
+CREATE INDEX idx_raw_material_lots_fefo ON tab_raw_material_lots(raw_material_id, warehouse_id, expiration_date, receipt_date) WHERE remaining_quantity > 0;
+CREATE INDEX idx_raw_material_lot_allocations_movement ON tab_raw_material_lot_allocations(raw_material_movement_id);
+CREATE INDEX idx_raw_material_lot_allocations_lot ON tab_raw_material_lot_allocations(raw_material_lot_id);
 
 -- Buy Services
 CREATE INDEX idx_buy_services_company_status ON tab_buy_services(company_id, status) WHERE deleted_at IS NULL;
@@ -717,12 +958,32 @@ CREATE INDEX idx_production_orders_tenant_company ON tab_production_orders(tenan
 CREATE INDEX idx_production_orders_product ON tab_production_orders(product_id) WHERE deleted_at IS NULL;
 CREATE INDEX idx_production_orders_dates ON tab_production_orders(start_date, end_date) WHERE deleted_at IS NULL;
 CREATE INDEX idx_production_orders_priority ON tab_production_orders(company_id, priority, status) WHERE deleted_at IS NULL;
+CREATE INDEX idx_production_orders_company_keyset ON tab_production_orders(company_id, priority_rank, deadline_key, code) WHERE deleted_at IS NULL;
+CREATE INDEX idx_production_orders_company_status_keyset ON tab_production_orders(company_id, status, priority_rank, deadline_key, code) WHERE deleted_at IS NULL;
+
+-- Stock Reservations
+CREATE INDEX idx_stock_reservations_order_status ON tab_stock_reservations(production_order_id, status);
+CREATE INDEX idx_stock_reservations_company_material ON tab_stock_reservations(company_id, raw_material_id, status);
+
+-- Production Grid Cells
+CREATE INDEX idx_production_grid_cells_company ON tab_production_grid_cells(company_id);
 
 -- Production Executions
 CREATE INDEX idx_production_executions_order ON tab_production_executions(production_order_id) WHERE deleted_at IS NULL;
 CREATE INDEX idx_production_executions_company_order ON tab_production_executions(company_id, production_order_id) WHERE deleted_at IS NULL;
 CREATE INDEX idx_production_executions_step ON tab_production_executions(step_id) WHERE deleted_at IS NULL;
 CREATE INDEX idx_production_executions_employee ON tab_production_executions(employee_id) WHERE deleted_at IS NULL;
+CREATE UNIQUE INDEX uq_production_executions_client_event ON tab_production_executions(company_id, client_event_id) WHERE client_event_id IS NOT NULL;
+CREATE INDEX idx_production_executions_unsampled ON tab_production_executions(company_id, end_time) WHERE duration_sampled_at IS NULL AND end_time IS NOT NULL AND deleted_at IS NULL;
+
+-- Production KPI Buckets (máquina e funcionário nulos entram na chave como o UUID zero)
+CREATE INDEX idx_production_kpi_buckets_company_start ON tab_production_kpi_buckets(company_id, bucket_start);
+CREATE UNIQUE INDEX uq_production_kpi_buckets_key ON tab_production_kpi_buckets(company_id, bucket_start, step_id,
+    COALESCE(machine_id, '00000000-0000-0000-0000-000000000000'::uuid),
+    COALESCE(employee_id, '00000000-0000-0000-0000-000000000000'::uuid));
+
+-- Production Duration Sketches
+CREATE INDEX idx_production_duration_sketches_company ON tab_production_duration_sketches(company_id);
 
 -- Production Costs
 CREATE INDEX idx_production_costs_order ON tab_production_costs(production_order_id) WHERE deleted_at IS NULL;
@@ -787,94 +1048,12 @@ CREATE TRIGGER trigger_update_buy_service_total
     FOR EACH ROW
     EXECUTE FUNCTION update_buy_service_total();
 
--- Função para atualizar estoque após movimento
-CREATE OR REPLACE FUNCTION update_stock_after_movement()
-RETURNS TRIGGER AS $$
-DECLARE
-    v_stock_id UUID;
-    v_quantity_change NUMERIC(15,4);
-BEGIN
-    -- Determinar a mudança na quantidade
-    IF NEW.movement_type = 'IN' THEN
-        v_quantity_change := NEW.quantity;
-    ELSE
-        v_quantity_change := -NEW.quantity;
-    END IF;
-    
-    -- Buscar ou criar registro de estoque
-    SELECT id INTO v_stock_id
-    FROM tab_raw_material_stocks
-    WHERE raw_material_id = NEW.raw_material_id
-      AND company_id = NEW.company_id
-      AND warehouse_id IS NULL;  -- Estoque padrão
-    
-    IF v_stock_id IS NULL THEN
-        INSERT INTO tab_raw_material_stocks (
-            tenant_id, company_id, raw_material_id, quantity, last_movement_date
-        ) VALUES (
-            NEW.tenant_id, NEW.company_id, NEW.raw_material_id, v_quantity_change, NEW.movement_date
-        );
-    ELSE
-        UPDATE tab_raw_material_stocks
-        SET quantity = quantity + v_quantity_change,
-            last_movement_date = NEW.movement_date,
-            updated_at = NOW()
-        WHERE id = v_stock_id;
-    END IF;
-    
-    RETURN NEW;
-END;
-$$ LANGUAGE plpgsql;
-
-CREATE TRIGGER trigger_update_stock_after_movement
-    AFTER INSERT ON tab_raw_material_movements
-    FOR EACH ROW
-    EXECUTE FUNCTION update_stock_after_movement();
+-- O saldo de estoque é atualizado exclusivamente pela aplicação (RawMaterialStockService.updateStock),
+-- com um upsert atômico por empresa/matéria-prima/depósito. Não criar trigger de estoque em
+-- tab_raw_material_movements: dois escritores geram lançamento em dobro.
 
--- Função para calcular custo médio após entrada
-CREATE OR REPLACE FUNCTION update_average_cost_after_entry()
-RETURNS TRIGGER AS $$
-DECLARE
-    v_current_stock NUMERIC(15,4);
-    v_current_avg_cost NUMERIC(15,4);
-    v_new_avg_cost NUMERIC(15,4);
-BEGIN
-    IF NEW.movement_type = 'IN' AND NEW.unit_cost IS NOT NULL THEN
-        -- Buscar estoque e custo médio atual
-        SELECT 
-            COALESCE(s.quantity, 0),
-            COALESCE(m.average_cost, 0)
-        INTO v_current_stock, v_current_avg_cost
-        FROM tab_raw_materials m
-        LEFT JOIN tab_raw_material_stocks s ON s.raw_material_id = m.id
-        WHERE m.id = NEW.raw_material_id;
-        
-        -- Calcular novo custo médio ponderado
-        IF v_current_stock > 0 THEN
-            v_new_avg_cost := (
-                (v_current_stock * v_current_avg_cost) + (NEW.quantity * NEW.unit_cost)
-            ) / (v_current_stock + NEW.quantity);
-        ELSE
-            v_new_avg_cost := NEW.unit_cost;
-        END IF;
-        
-        -- Atualizar custo médio
-        UPDATE tab_raw_materials
-        SET average_cost = v_new_avg_cost,
-            last_purchase_price = NEW.unit_cost,
-            last_purchase_date = NEW.movement_date::date,
-            updated_at = NOW()
-        WHERE id = NEW.raw_material_id;
-    END IF;
-    
-    RETURN NEW;
-END;
-$$ LANGUAGE plpgsql;
-
-CREATE TRIGGER trigger_update_average_cost
-    AFTER INSERT ON tab_raw_material_movements
-    FOR EACH ROW
-    EXECUTE FUNCTION update_average_cost_after_entry();
+-- O custo médio também é calculado pela aplicação (RawMaterialAverageCostService), travando a
+-- matéria-prima no lançamento; não criar trigger de custo médio em tab_raw_material_movements.
 
 -- Função para atualizar custo total da ordem de produção
 CREATE OR REPLACE FUNCTION update_production_order_cost()
@@ -906,14 +1085,22 @@ CREATE TRIGGER trigger_update_production_order_cost
 COMMENT ON TABLE tab_production_products IS 'Produtos específicos para produção, podem diferir dos produtos comerciais';
 COMMENT ON TABLE tab_compositions IS 'Composições (BOM) dos produtos - define materiais e serviços necessários';
 COMMENT ON TABLE tab_composition_items IS 'Itens que compõem cada produto (matérias-primas e serviços)';
+COMMENT ON TABLE tab_composition_item_variants IS 'Fator de consumo e material substituto dos itens por tamanho e cor da grade';
 COMMENT ON TABLE tab_raw_materials IS 'Matérias-primas utilizadas na produção';
 COMMENT ON TABLE tab_raw_material_stocks IS 'Estoque atual de matérias-primas por localização';
 COMMENT ON TABLE tab_raw_material_movements IS 'Histórico de movimentações de estoque';
+COMMENT ON TABLE tab_raw_material_stock_snapshots IS 'Saldos de fechamento de mês, ponto de partida das consultas de saldo em data passada';
+COMMENT ON TABLE tab_raw_material_lots IS 'Lotes de matérias-primas (rolos, lotes de tingimento) com saldo e custo, consumidos em FIFO ou FEFO';
+COMMENT ON TABLE tab_raw_material_lot_allocations IS 'Quanto de cada lote cada saída de estoque consumiu';
 COMMENT ON TABLE tab_buy_services IS 'Compras de serviços terceirizados (costura, lavagem, bordado, etc.)';
 COMMENT ON TABLE tab_buy_service_items IS 'Itens detalhados de cada compra de serviço';
 COMMENT ON TABLE tab_production_steps IS 'Etapas do processo produtivo (corte, costura, acabamento, etc.)';
 COMMENT ON TABLE tab_production_orders IS 'Ordens de produção - centro do módulo';
+COMMENT ON TABLE tab_stock_reservations IS 'Matérias-primas reservadas para as ordens aprovadas ou em andamento';
+COMMENT ON TABLE tab_production_grid_cells IS 'Grade da ordem de produção: quantidade de cada tamanho em cada cor';
 COMMENT ON TABLE tab_production_executions IS 'Registro de execução de cada etapa da produção';
+COMMENT ON TABLE tab_production_kpi_buckets IS 'Totais horários das execuções por etapa, máquina e funcionário (tempo de ciclo, vazão, refugo, OEE)';
+COMMENT ON TABLE tab_production_duration_sketches IS 'Distribuição do tempo por peça das execuções encerradas, base da estimativa de lead time';
 COMMENT ON TABLE tab_production_costs IS 'Apontamento de custos reais da produção';
 COMMENT ON TABLE tab_production_closures IS 'Fechamento e totalização de custos da ordem de produção';
 
@@ -0,0 +1,155 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.BomExplosionDTO;
+import br.com.sigeve.sigeve_prodution.dto.BomRequirementDTO;
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
+import br.com.sigeve.sigeve_prodution.repository.CompositionRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Explosão multinível: camisa = 2 painéis (semiacabado) + linha; painel = tecido + serviço de corte.
+ */
+class BomExplosionServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private BomExplosionService bomExplosionService;
+
+    @Autowired
+    private CompositionRepository compositionRepository;
+
+    @Autowired
+    private CompositionItemRepository compositionItemRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private UUID fabricId;
+    private UUID threadId;
+    private UUID cuttingServiceId;
+    private ProductionProduct shirt;
+    private ProductionProduct panel;
+    private Composition shirtComposition;
+    private Composition panelComposition;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        fabricId = UUID.randomUUID();
+        threadId = UUID.randomUUID();
+        cuttingServiceId = UUID.randomUUID();
+
+        shirt = product("Camisa");
+        panel = product("Painel cortado");
+
+        panelComposition = composition(panel, 1);
+        item(panelComposition, CompositionItemType.RAW_MATERIAL, fabricId, "0.5", "10", "20.00", false);
+        item(panelComposition, CompositionItemType.SERVICE, cuttingServiceId, "1", "2", null, false);
+
+        shirtComposition = composition(shirt, 1);
+        item(shirtComposition, CompositionItemType.PRODUCT, panel.getId(), "2", null, null, false);
+        item(shirtComposition, CompositionItemType.RAW_MATERIAL, threadId, "10", "0.1", null, false);
+        item(shirtComposition, CompositionItemType.RAW_MATERIAL, fabricId, "0.1", "10", null, true);
+    }
+
+    @Test
+    void explodesNestedCompositionsIntoLeafRequirements() {
+        BomExplosionDTO result = bomExplosionService.explodeProduct(companyId, shirt.getId(), BigDecimal.TEN, false);
+
+        assertThat(result.getCompositionId()).isEqualTo(shirtComposition.getId());
+        assertThat(result.getLevels()).isEqualTo(2);
+        // tecido: 10 camisas x 2 painéis x 0,5 x 1,20 de perda
+        assertThat(requirement(result, fabricId).getQuantity()).isEqualByComparingTo("12");
+        assertThat(requirement(result, cuttingServiceId).getQuantity()).isEqualByComparingTo("20");
+        assertThat(requirement(result, threadId).getQuantity()).isEqualByComparingTo("100");
+        assertThat(result.getRequirements()).noneMatch(r -> r.getItemType() == CompositionItemType.PRODUCT);
+        // por camisa: 2 x (6,00 + 2,00) + 1,00 = 17,00
+        assertThat(result.getUnitCost()).isEqualByComparingTo("17");
+        assertThat(result.getTotalCost()).isEqualByComparingTo("170");
+    }
+
+    @Test
+    void includesOptionalItemsOnlyWhenRequested() {
+        BomExplosionDTO result = bomExplosionService.explodeComposition(shirtComposition.getId(), BigDecimal.ONE, true);
+
+        assertThat(requirement(result, fabricId).getQuantity()).isEqualByComparingTo("1.3");
+    }
+
+    @Test
+    void detectsCycles() {
+        item(panelComposition, CompositionItemType.PRODUCT, shirt.getId(), "1", null, null, false);
+
+        assertThatThrownBy(() -> bomExplosionService.explodeProduct(companyId, shirt.getId(), BigDecimal.ONE, false))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Ciclo");
+    }
+
+    @Test
+    void usesHighestEffectiveVersion() {
+        Composition newer = composition(shirt, 2);
+        item(newer, CompositionItemType.RAW_MATERIAL, threadId, "5", "0.1", null, false);
+
+        BomExplosionDTO result = bomExplosionService.explodeProduct(companyId, shirt.getId(), BigDecimal.ONE, false);
+
+        assertThat(result.getCompositionId()).isEqualTo(newer.getId());
+        assertThat(result.getRequirements()).hasSize(1);
+    }
+
+    private BomRequirementDTO requirement(BomExplosionDTO result, UUID referenceId) {
+        return result.getRequirements().stream()
+                .filter(r -> r.getReferenceId().equals(referenceId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private ProductionProduct product(String description) {
+        ProductionProduct product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription(description);
+        return productionProductRepository.save(product);
+    }
+
+    private Composition composition(ProductionProduct product, int version) {
+        Composition composition = new Composition();
+        composition.setTenantId(tenantId);
+        composition.setCompanyId(companyId);
+        composition.setProductionProductId(product.getId());
+        composition.setName(product.getDescription() + " v" + version);
+        composition.setVersion(version);
+        return compositionRepository.save(composition);
+    }
+
+    private void item(Composition composition, CompositionItemType type, UUID referenceId,
+                      String quantity, String unitCost, String lossPercentage, boolean optional) {
+        CompositionItem item = new CompositionItem();
+        item.setTenantId(tenantId);
+        item.setCompanyId(companyId);
+        item.setCompositionId(composition.getId());
+        item.setItemType(type);
+        item.setReferenceId(referenceId);
+        item.setUnitType(UnitType.UN);
+        item.setQuantity(new BigDecimal(quantity));
+        item.setUnitCost(unitCost != null ? new BigDecimal(unitCost) : null);
+        item.setLossPercentage(lossPercentage != null ? new BigDecimal(lossPercentage) : BigDecimal.ZERO);
+        item.setIsOptional(optional);
+        compositionItemRepository.save(item);
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CostRecalculationJobDTO;
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.RecalculationJobStatus;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
+import br.com.sigeve.sigeve_prodution.repository.CompositionRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que o recálculo em massa (em lotes paralelos) grava o mesmo total
+ * que o cálculo item a item da entidade, nos modos síncrono e assíncrono.
+ */
+@TestPropertySource(properties = "app.composition-cost.chunk-size=7")
+class CompositionCostRecalculationServiceTest extends AbstractPostgresIntegrationTest {
+
+    private static final int COMPOSITIONS = 50;
+
+    @Autowired
+    private CompositionCostRecalculationService recalculationService;
+
+    @Autowired
+    private CompositionRepository compositionRepository;
+
+    @Autowired
+    private CompositionItemRepository compositionItemRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    private UUID companyId;
+    private List<Composition> compositions;
+
+    @BeforeEach
+    void setUp() {
+        UUID tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+
+        ProductionProduct product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription("Produto");
+        product = productionProductRepository.save(product);
+
+        compositions = new ArrayList<>();
+        for (int i = 0; i < COMPOSITIONS; i++) {
+            Composition composition = new Composition();
+            composition.setTenantId(tenantId);
+            composition.setCompanyId(companyId);
+            composition.setProductionProductId(product.getId());
+            composition.setName("Composição " + i);
+            composition.setVersion(i + 1);
+            compositions.add(composition);
+        }
+        compositions = compositionRepository.saveAll(compositions);
+
+        List<CompositionItem> items = new ArrayList<>();
+        for (int i = 0; i < COMPOSITIONS; i++) {
+            for (int sequence = 1; sequence <= 3; sequence++) {
+                CompositionItem item = new CompositionItem();
+                item.setTenantId(tenantId);
+                item.setCompanyId(companyId);
+                item.setCompositionId(compositions.get(i).getId());
+                item.setItemType(CompositionItemType.RAW_MATERIAL);
+                item.setReferenceId(UUID.randomUUID());
+                item.setSequence(sequence);
+                item.setUnitType(UnitType.KG);
+                item.setQuantity(new BigDecimal("1.5").multiply(BigDecimal.valueOf(sequence)));
+                item.setLossPercentage(new BigDecimal("2.50"));
+                item.setUnitCost(BigDecimal.valueOf(i + sequence));
+                items.add(item);
+            }
+        }
+        compositionItemRepository.saveAll(items);
+    }
+
+    @Test
+    void recalculateCompanyWritesSumOfItemTotals() {
+        CostRecalculationJobDTO job = recalculationService.recalculateCompany(companyId, "tester");
+
+        assertThat(job.getStatus()).isEqualTo(RecalculationJobStatus.COMPLETED);
+        assertThat(job.getProcessedCompositions()).isEqualTo(COMPOSITIONS);
+        assertThat(job.getUpdatedCompositions()).isEqualTo(COMPOSITIONS);
+        assertTotalsMatchItems();
+        assertThat(compositionRepository.findById(compositions.get(0).getId()).orElseThrow())
+                .satisfies(composition -> {
+                    assertThat(composition.getUpdatedBy()).isEqualTo("tester");
+                    assertThat(composition.getUpdatedAt()).isNotNull();
+                });
+    }
+
+    @Test
+    void recalculateCompanyAsyncReportsProgressUntilCompleted() throws InterruptedException {
+        CostRecalculationJobDTO job = recalculationService.recalculateCompanyAsync(companyId, "tester");
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (job.getStatus() == RecalculationJobStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            job = recalculationService.findJob(job.getJobId()).orElseThrow();
+        }
+
+        assertThat(job.getStatus()).isEqualTo(RecalculationJobStatus.COMPLETED);
+        assertThat(job.getTotalCompositions()).isEqualTo(COMPOSITIONS);
+        assertThat(job.getProcessedCompositions()).isEqualTo(COMPOSITIONS);
+        assertTotalsMatchItems();
+    }
+
+    private void assertTotalsMatchItems() {
+        for (Composition composition : compositions) {
+            BigDecimal expected = compositionItemRepository
+                    .findByCompositionIdAndDeletedAtIsNull(composition.getId()).stream()
+                    .map(CompositionItem::getTotalCost)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal actual = compositionRepository.findById(composition.getId()).orElseThrow().getTotalCost();
+            assertThat(actual).isEqualByComparingTo(expected);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CompositionDTO;
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
+import br.com.sigeve.sigeve_prodution.repository.CompositionRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Garante que a listagem de composições calcula contagem de itens e nome do produto
+ * com consultas agrupadas: o número de statements não cresce com a quantidade de composições.
+ */
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class CompositionServiceQueryCountTest extends AbstractPostgresIntegrationTest {
+
+    private static final int COMPOSITIONS = 200;
+
+    @Autowired
+    private CompositionService compositionService;
+
+    @Autowired
+    private CompositionRepository compositionRepository;
+
+    @Autowired
+    private CompositionItemRepository compositionItemRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UUID companyId;
+
+    @BeforeEach
+    void setUp() {
+        UUID tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+
+        List<ProductionProduct> products = new ArrayList<>();
+        for (int i = 0; i < COMPOSITIONS; i++) {
+            ProductionProduct product = new ProductionProduct();
+            product.setTenantId(tenantId);
+            product.setCompanyId(companyId);
+            product.setDescription("Produto " + i);
+            products.add(product);
+        }
+        products = productionProductRepository.saveAll(products);
+
+        List<Composition> compositions = new ArrayList<>();
+        for (int i = 0; i < COMPOSITIONS; i++) {
+            Composition composition = new Composition();
+            composition.setTenantId(tenantId);
+            composition.setCompanyId(companyId);
+            composition.setProductionProductId(products.get(i).getId());
+            composition.setName("Composição " + i);
+            compositions.add(composition);
+        }
+        compositions = compositionRepository.saveAll(compositions);
+
+        List<CompositionItem> items = new ArrayList<>();
+        for (int i = 0; i < COMPOSITIONS; i++) {
+            for (int sequence = 1; sequence <= i % 4; sequence++) {
+                CompositionItem item = new CompositionItem();
+                item.setTenantId(tenantId);
+                item.setCompanyId(companyId);
+                item.setCompositionId(compositions.get(i).getId());
+                item.setItemType(CompositionItemType.RAW_MATERIAL);
+                item.setReferenceId(UUID.randomUUID());
+                item.setSequence(sequence);
+                item.setUnitType(UnitType.UN);
+                item.setQuantity(BigDecimal.ONE);
+                items.add(item);
+            }
+        }
+        compositionItemRepository.saveAll(items);
+    }
+
+    @Test
+    void findAllByCompanyUsesConstantNumberOfStatements() {
+        Statistics statistics = statistics();
+
+        List<CompositionDTO> result = compositionService.findAllByCompany(companyId);
+
+        assertThat(result).hasSize(COMPOSITIONS);
+        assertThat(result).allSatisfy(dto -> {
+            assertThat(dto.getProductName()).startsWith("Produto ");
+            int index = Integer.parseInt(dto.getName().substring("Composição ".length()));
+            assertThat(dto.getItemsCount()).isEqualTo(index % 4);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void findActiveByCompanyUsesConstantNumberOfStatements() {
+        Statistics statistics = statistics();
+
+        List<CompositionDTO> result = compositionService.findActiveByCompany(companyId);
+
+        assertThat(result).hasSize(COMPOSITIONS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,232 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.OrderLeadTimeDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.StepLeadTimeDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Roteiro corte (1 min/peça padrão) -> costura (2 min/peça), 480 min/dia. As execuções de corte da camisa têm 10 peças
+ * e duram 1, 2, ... minutos, ou seja, 6, 12, ... segundos por peça.
+ */
+class LeadTimeEstimatorServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private LeadTimeEstimatorService leadTimeEstimatorService;
+
+    @Autowired
+    private ProductionExecutionService productionExecutionService;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private ProductionStepRepository productionStepRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private ProductionProduct shirt;
+    private ProductionProduct pants;
+    private ProductionStep cutting;
+    private ProductionStep sewing;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        shirt = product("Camisa");
+        pants = product("Calça");
+        cutting = step("Corte", 1, 1);
+        sewing = step("Costura", 2, 2);
+    }
+
+    @Test
+    void percentilesFallBackFromProductToStepToStandardTime() {
+        ProductionOrder shirts = order("OP-1", shirt, "100", null);
+        for (int minutes = 1; minutes <= 5; minutes++) {
+            execution(shirts, cutting, minutes, true);
+        }
+        // Carga pelo histórico; o restante entra pelos eventos de execução encerrada
+        assertThat(stepLeadTime(null, cutting).getSamples()).isEqualTo(5);
+        for (int minutes = 6; minutes <= 9; minutes++) {
+            execution(shirts, cutting, minutes, true);
+        }
+        ProductionExecutionDTO open = execution(shirts, cutting, 10, false);
+        assertThat(stepLeadTime(null, cutting).getSamples()).isEqualTo(9);
+        UpdateProductionExecutionDTO finished = new UpdateProductionExecutionDTO();
+        finished.setEndTime(open.getStartTime().plusMinutes(10));
+        productionExecutionService.update(open.getId(), finished, "tester");
+
+        StepLeadTimeDTO cuttingShirts = stepLeadTime(shirt.getId(), cutting);
+        assertThat(cuttingShirts.getSamples()).isEqualTo(10);
+        assertThat(cuttingShirts.getP50MinutesPerUnit().doubleValue()).isCloseTo(0.5, within(0.005));
+        assertThat(cuttingShirts.getP90MinutesPerUnit().doubleValue()).isCloseTo(0.9, within(0.009));
+        assertThat(stepLeadTime(null, cutting).getSamples()).isEqualTo(10);
+        assertThat(stepLeadTime(pants.getId(), cutting).getSamples()).isZero();
+        assertThat(stepLeadTime(null, sewing).getP50MinutesPerUnit()).isNull();
+
+        LocalDate today = LocalDate.now();
+        order("OP-2", pants, "900", today.plusDays(3));
+        List<OrderLeadTimeDTO> orders = leadTimeEstimatorService.findOrderLeadTimes(companyId);
+        assertThat(orders).extracting(OrderLeadTimeDTO::getCode).containsExactly("OP-2", "OP-1");
+
+        // Calça sem histórico próprio usa o corte de todos os produtos: 900 x 0,5 min = 0,94 dia (p90: 1,69);
+        // costura pelo tempo padrão, 900 x 2 min = 3,75 dias
+        OrderLeadTimeDTO pantsOrder = orders.get(0);
+        assertThat(pantsOrder.getStepsFromHistory()).isEqualTo(1);
+        assertThat(pantsOrder.getExpectedCompletion()).isEqualTo(today.plusDays(4));
+        assertThat(pantsOrder.getPessimisticCompletion()).isEqualTo(today.plusDays(5));
+        assertThat(pantsOrder.isLate()).isTrue();
+
+        // Camisa já cortou as 100 peças; falta a costura, 200 min
+        OrderLeadTimeDTO shirtOrder = orders.get(1);
+        assertThat(shirtOrder.getStepsFromHistory()).isZero();
+        assertThat(shirtOrder.getExpectedCompletion()).isEqualTo(today);
+        assertThat(shirtOrder.isLate()).isFalse();
+    }
+
+    @Test
+    void persistedSketchesAreReloadedWithoutRescanningHistory() {
+        ProductionOrder shirts = order("OP-1", shirt, "100", null);
+        for (int minutes = 1; minutes <= 6; minutes++) {
+            execution(shirts, cutting, minutes, true);
+        }
+        assertThat(stepLeadTime(shirt.getId(), cutting).getSamples()).isEqualTo(6);
+        execution(shirts, cutting, 7, true);
+
+        assertThat(leadTimeEstimatorService.persistAll()).isGreaterThanOrEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tab_production_duration_sketches WHERE company_id = ?",
+                Integer.class, companyId)).isEqualTo(2);
+
+        // Sem as execuções no banco, só os esboços gravados explicam as amostras
+        jdbcTemplate.update("DELETE FROM tab_production_executions WHERE company_id = ?", companyId);
+        leadTimeEstimatorService.evict(companyId);
+        StepLeadTimeDTO reloaded = stepLeadTime(shirt.getId(), cutting);
+        assertThat(reloaded.getSamples()).isEqualTo(7);
+        assertThat(reloaded.getP50MinutesPerUnit().doubleValue()).isCloseTo(0.4, within(0.004));
+
+        // Execução registrada enquanto a empresa estava fora da memória entra na recarga seguinte
+        leadTimeEstimatorService.evict(companyId);
+        execution(shirts, cutting, 8, true);
+        assertThat(stepLeadTime(shirt.getId(), cutting).getSamples()).isEqualTo(8);
+        assertThat(stepLeadTime(null, cutting).getSamples()).isEqualTo(8);
+    }
+
+    @Test
+    void executionsAreSampledOnceAcrossEditsReloadsAndInstances() {
+        ProductionOrder shirts = order("OP-1", shirt, "100", null);
+        ProductionExecutionDTO first = execution(shirts, cutting, 1, true);
+        execution(shirts, cutting, 2, true);
+
+        // Outra instância carrega as mesmas pendentes; só uma delas grava cada execução
+        LeadTimeEstimatorService other = new LeadTimeEstimatorService(jdbcTemplate,
+                new NamedParameterJdbcTemplate(jdbcTemplate), transactionManager, productionStepRepository, 30, 5);
+        assertThat(stepLeadTime(other, null, cutting).getSamples()).isEqualTo(2);
+        assertThat(stepLeadTime(leadTimeEstimatorService, null, cutting).getSamples()).isEqualTo(2);
+        execution(shirts, cutting, 3, true);
+
+        leadTimeEstimatorService.persistAll();
+        other.persistAll();
+        assertThat(stepLeadTime(other, null, cutting).getSamples()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT sample_count FROM tab_production_duration_sketches " +
+                "WHERE company_id = ? AND step_id = ? AND product_id IS NULL", Long.class, companyId, cutting.getId()))
+                .isEqualTo(3);
+
+        // Alterar ou remover uma execução já gravada não a soma de novo na recarga
+        UpdateProductionExecutionDTO edited = new UpdateProductionExecutionDTO();
+        edited.setQuantityDone(new BigDecimal("20"));
+        productionExecutionService.update(first.getId(), edited, "tester");
+        productionExecutionService.delete(first.getId(), "tester");
+        leadTimeEstimatorService.evict(companyId);
+        assertThat(stepLeadTime(leadTimeEstimatorService, null, cutting).getSamples()).isEqualTo(3);
+    }
+
+    private StepLeadTimeDTO stepLeadTime(UUID productId, ProductionStep step) {
+        return stepLeadTime(leadTimeEstimatorService, productId, step);
+    }
+
+    private StepLeadTimeDTO stepLeadTime(LeadTimeEstimatorService estimator, UUID productId, ProductionStep step) {
+        return estimator.findStepLeadTimes(companyId, productId).stream()
+                .filter(dto -> dto.getStepId().equals(step.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private ProductionExecutionDTO execution(ProductionOrder order, ProductionStep step, int minutes, boolean ended) {
+        OffsetDateTime start = OffsetDateTime.now().minusHours(1);
+        CreateProductionExecutionDTO request = new CreateProductionExecutionDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setProductionOrderId(order.getId());
+        request.setStepId(step.getId());
+        request.setStartTime(start);
+        request.setEndTime(ended ? start.plusMinutes(minutes) : null);
+        request.setQuantityDone(BigDecimal.TEN);
+        request.setLossQuantity(BigDecimal.ZERO);
+        return productionExecutionService.create(request, "tester");
+    }
+
+    private ProductionOrder order(String code, ProductionProduct product, String quantity, LocalDate deadline) {
+        ProductionOrder order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode(code);
+        order.setProductId(product.getId());
+        order.setQuantityPlanned(new BigDecimal(quantity));
+        order.setStatus(ProductionOrderStatus.IN_PROGRESS);
+        order.setDeadline(deadline);
+        return productionOrderRepository.save(order);
+    }
+
+    private ProductionProduct product(String description) {
+        ProductionProduct product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription(description);
+        return productionProductRepository.save(product);
+    }
+
+    private ProductionStep step(String name, int sequence, int estimatedTime) {
+        ProductionStep step = new ProductionStep();
+        step.setTenantId(tenantId);
+        step.setCompanyId(companyId);
+        step.setName(name);
+        step.setSequence(sequence);
+        step.setEstimatedTime(estimatedTime);
+        step.setDailyCapacityMinutes(480);
+        return productionStepRepository.save(step);
+    }
+}
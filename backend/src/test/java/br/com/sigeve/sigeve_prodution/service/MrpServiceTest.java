@@ -0,0 +1,219 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.MrpRunDTO;
+import br.com.sigeve.sigeve_prodution.dto.MrpSuggestionDTO;
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.enums.ReservationStatus;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialStock;
+import br.com.sigeve.sigeve_prodution.model.StockReservation;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
+import br.com.sigeve.sigeve_prodution.repository.CompositionRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockRepository;
+import br.com.sigeve.sigeve_prodution.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MRP: duas ordens abertas (uma parcialmente produzida) e uma finalizada do mesmo produto;
+ * o tecido tem estoque parcial e política mín/máx, a linha não tem estoque.
+ */
+class MrpServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private MrpService mrpService;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private CompositionRepository compositionRepository;
+
+    @Autowired
+    private CompositionItemRepository compositionItemRepository;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    @Autowired
+    private RawMaterialStockRepository rawMaterialStockRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private RawMaterial fabric;
+    private RawMaterial thread;
+    private LocalDate firstStart;
+    private ProductionOrder inProgress;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        firstStart = LocalDate.now().plusDays(3);
+
+        fabric = material("TEC-01", new BigDecimal("50"), new BigDecimal("200"), 5);
+        thread = material("LIN-01", null, null, 1);
+        stock(fabric, "100", "10");
+
+        ProductionProduct shirt = new ProductionProduct();
+        shirt.setTenantId(tenantId);
+        shirt.setCompanyId(companyId);
+        shirt.setDescription("Camisa");
+        shirt = productionProductRepository.save(shirt);
+
+        Composition composition = new Composition();
+        composition.setTenantId(tenantId);
+        composition.setCompanyId(companyId);
+        composition.setProductionProductId(shirt.getId());
+        composition.setName("Camisa");
+        composition = compositionRepository.save(composition);
+        item(composition, fabric.getId(), "1.5");
+        item(composition, thread.getId(), "20");
+
+        inProgress = order(shirt, "OP-1", "100", "40", ProductionOrderStatus.IN_PROGRESS, firstStart);
+        order(shirt, "OP-2", "50", "0", ProductionOrderStatus.PLANNED, firstStart.plusDays(10));
+        order(shirt, "OP-3", "500", "500", ProductionOrderStatus.FINISHED, firstStart);
+    }
+
+    @Test
+    void computesNetRequirementsAndSuggestedPurchases() {
+        MrpRunDTO run = mrpService.run(companyId);
+
+        assertThat(run.getOrdersCount()).isEqualTo(2);
+        assertThat(run.getProductsWithoutComposition()).isEmpty();
+
+        // tecido: (60 + 50) x 1,5 = 165; disponível 90; saldo -75 < ponto de pedido 50 -> compra até o máximo 200
+        MrpSuggestionDTO fabricSuggestion = suggestion(run, fabric.getId());
+        assertThat(fabricSuggestion.getGrossRequirement()).isEqualByComparingTo("165");
+        assertThat(fabricSuggestion.getAvailableQuantity()).isEqualByComparingTo("90");
+        assertThat(fabricSuggestion.getNetRequirement()).isEqualByComparingTo("75");
+        assertThat(fabricSuggestion.getSuggestedPurchaseQuantity()).isEqualByComparingTo("275");
+        assertThat(fabricSuggestion.getNeedDate()).isEqualTo(firstStart);
+        assertThat(fabricSuggestion.getOrderByDate()).isEqualTo(firstStart.minusDays(5));
+        assertThat(fabricSuggestion.getLate()).isTrue();
+
+        // linha: 110 x 20 = 2200, sem estoque e sem política -> compra exatamente a necessidade
+        MrpSuggestionDTO threadSuggestion = suggestion(run, thread.getId());
+        assertThat(threadSuggestion.getSuggestedPurchaseQuantity()).isEqualByComparingTo("2200");
+        assertThat(threadSuggestion.getLate()).isFalse();
+
+        assertThat(mrpService.findLastRun(companyId)).contains(run);
+    }
+
+    @Test
+    void reservationsOnlyCoverTheRemainingRequirementOfTheirOrder() {
+        // OP-1 reservou 150 m de tecido ao iniciar (100 x 1,5), mas só faltam 60 camisas (90 m)
+        UUID warehouseId = UUID.randomUUID();
+        stock(fabric, warehouseId, "200", "150");
+        reservation(inProgress, fabric, warehouseId, "150");
+
+        MrpRunDTO run = mrpService.run(companyId);
+
+        assertThat(run.getOrdersCount()).isEqualTo(2);
+        assertThat(run.getProductsCount()).isEqualTo(1);
+
+        // disponível: 300 - 160 reservados + 90 que cobrem o saldo da OP-1; os 60 m excedentes seguem comprometidos
+        MrpSuggestionDTO fabricSuggestion = suggestion(run, fabric.getId());
+        assertThat(fabricSuggestion.getGrossRequirement()).isEqualByComparingTo("165");
+        assertThat(fabricSuggestion.getAvailableQuantity()).isEqualByComparingTo("230");
+        assertThat(fabricSuggestion.getProjectedBalance()).isEqualByComparingTo("65");
+
+        assertThat(suggestion(run, thread.getId()).getGrossRequirement()).isEqualByComparingTo("2200");
+    }
+
+    private MrpSuggestionDTO suggestion(MrpRunDTO run, UUID rawMaterialId) {
+        return run.getSuggestions().stream()
+                .filter(s -> s.getRawMaterialId().equals(rawMaterialId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private RawMaterial material(String code, BigDecimal reorderPoint, BigDecimal maxStock, int leadTimeDays) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        material.setReorderPoint(reorderPoint);
+        material.setMaxStock(maxStock);
+        material.setLeadTimeDays(leadTimeDays);
+        return rawMaterialRepository.save(material);
+    }
+
+    private void stock(RawMaterial material, String quantity, String reserved) {
+        stock(material, null, quantity, reserved);
+    }
+
+    private void stock(RawMaterial material, UUID warehouseId, String quantity, String reserved) {
+        RawMaterialStock stock = new RawMaterialStock();
+        stock.setTenantId(tenantId);
+        stock.setCompanyId(companyId);
+        stock.setRawMaterialId(material.getId());
+        stock.setWarehouseId(warehouseId);
+        stock.setQuantity(new BigDecimal(quantity));
+        stock.setReservedQuantity(new BigDecimal(reserved));
+        rawMaterialStockRepository.save(stock);
+    }
+
+    private void item(Composition composition, UUID rawMaterialId, String quantity) {
+        CompositionItem item = new CompositionItem();
+        item.setTenantId(tenantId);
+        item.setCompanyId(companyId);
+        item.setCompositionId(composition.getId());
+        item.setItemType(CompositionItemType.RAW_MATERIAL);
+        item.setReferenceId(rawMaterialId);
+        item.setUnitType(UnitType.M);
+        item.setQuantity(new BigDecimal(quantity));
+        compositionItemRepository.save(item);
+    }
+
+    private void reservation(ProductionOrder order, RawMaterial material, UUID warehouseId, String quantity) {
+        StockReservation reservation = new StockReservation();
+        reservation.setTenantId(tenantId);
+        reservation.setCompanyId(companyId);
+        reservation.setProductionOrderId(order.getId());
+        reservation.setRawMaterialId(material.getId());
+        reservation.setWarehouseId(warehouseId);
+        reservation.setQuantity(new BigDecimal(quantity));
+        reservation.setStatus(ReservationStatus.ACTIVE);
+        stockReservationRepository.save(reservation);
+    }
+
+    private ProductionOrder order(ProductionProduct product, String code, String planned, String produced,
+                                  ProductionOrderStatus status, LocalDate startDate) {
+        ProductionOrder order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode(code);
+        order.setProductId(product.getId());
+        order.setQuantityPlanned(new BigDecimal(planned));
+        order.setQuantityProduced(new BigDecimal(produced));
+        order.setStatus(status);
+        order.setStartDate(startDate);
+        return productionOrderRepository.save(order);
+    }
+}
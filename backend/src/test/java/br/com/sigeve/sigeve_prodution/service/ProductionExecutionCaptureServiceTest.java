@@ -0,0 +1,232 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ExecutionCaptureAckDTO;
+import br.com.sigeve.sigeve_prodution.dto.ExecutionCaptureResultDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.enums.ExecutionCaptureStatus;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionExecutionRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductionExecutionCaptureServiceTest extends AbstractPostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductionExecutionCaptureServiceTest.class);
+
+    @Autowired
+    private ProductionExecutionCaptureService productionExecutionCaptureService;
+
+    @Autowired
+    private ProductionExecutionService productionExecutionService;
+
+    @Autowired
+    private ProductionExecutionRepository productionExecutionRepository;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private ProductionStepRepository productionStepRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private ProductionOrder order;
+    private ProductionStep step;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+
+        ProductionProduct product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription("Calça jeans");
+        product = productionProductRepository.save(product);
+
+        order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode("OP-1");
+        order.setProductId(product.getId());
+        order.setQuantityPlanned(new BigDecimal("1000"));
+        order = productionOrderRepository.save(order);
+
+        step = new ProductionStep();
+        step.setTenantId(tenantId);
+        step.setCompanyId(companyId);
+        step.setName("Costura");
+        step.setSequence(1);
+        step = productionStepRepository.save(step);
+    }
+
+    @Test
+    void resentBatchIsAcknowledgedAsDuplicateWithTheOriginalExecution() {
+        CreateProductionExecutionDTO foreignOrder = event("E-4");
+        foreignOrder.setProductionOrderId(UUID.randomUUID());
+        CreateProductionExecutionDTO invalidLoss = event("E-5");
+        invalidLoss.setLossQuantity(new BigDecimal("20"));
+        List<CreateProductionExecutionDTO> batch = List.of(event("E-1"), event("E-2"), event("E-1"), foreignOrder,
+                invalidLoss, event(" "));
+
+        ExecutionCaptureResultDTO first = productionExecutionCaptureService.capture(batch, "coletor-01");
+
+        assertThat(first.getEvents()).extracting(ExecutionCaptureAckDTO::getStatus).containsExactly(
+                ExecutionCaptureStatus.ACCEPTED, ExecutionCaptureStatus.ACCEPTED, ExecutionCaptureStatus.DUPLICATE,
+                ExecutionCaptureStatus.REJECTED, ExecutionCaptureStatus.REJECTED, ExecutionCaptureStatus.REJECTED);
+        assertThat(first.getAcceptedEvents()).isEqualTo(2);
+        assertThat(first.getDuplicateEvents()).isEqualTo(1);
+        assertThat(first.getRejectedEvents()).isEqualTo(3);
+        assertThat(first.getEvents().get(2).getExecutionId()).isEqualTo(first.getEvents().get(0).getExecutionId());
+        assertThat(first.getEvents().get(3).getError()).isEqualTo("Ordem ou etapa não encontrada na empresa");
+
+        ExecutionCaptureResultDTO resent = productionExecutionCaptureService.capture(batch, "coletor-01");
+
+        assertThat(resent.getAcceptedEvents()).isZero();
+        assertThat(resent.getDuplicateEvents()).isEqualTo(3);
+        assertThat(resent.getEvents().get(1).getExecutionId()).isEqualTo(first.getEvents().get(1).getExecutionId());
+        assertThat(productionExecutionService.findByProductionOrder(order.getId()))
+                .extracting(ProductionExecutionDTO::getClientEventId)
+                .containsExactlyInAnyOrder("E-1", "E-2");
+        assertThat(productionExecutionService.findById(first.getEvents().get(0).getExecutionId())).get()
+                .satisfies(execution -> {
+                    assertThat(execution.getTenantId()).isEqualTo(tenantId);
+                    assertThat(execution.getQuantityDone()).isEqualByComparingTo("10");
+                    assertThat(execution.getCreatedBy()).isEqualTo("coletor-01");
+                });
+    }
+
+    @Test
+    void singleCreateWithTheSameEventIdReturnsTheCapturedExecution() {
+        ExecutionCaptureResultDTO captured = productionExecutionCaptureService.capture(List.of(event("E-1")), "coletor-01");
+
+        ProductionExecutionDTO created = productionExecutionService.create(event(" E-1 "), "tester");
+
+        assertThat(created.getId()).isEqualTo(captured.getEvents().get(0).getExecutionId());
+        assertThat(productionExecutionRepository.findByProductionOrderIdAndDeletedAtIsNull(order.getId())).hasSize(1);
+        assertThatThrownBy(() -> productionExecutionCaptureService.capture(List.of(), "coletor-01"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentSingleCreatesOfTheSameEventRecordOneExecutionWithTheOrderTenant() throws Exception {
+        int attempts = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(attempts);
+        List<UUID> ids = Collections.synchronizedList(new ArrayList<>());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                futures.add(executor.submit(() -> {
+                    CreateProductionExecutionDTO event = event("E-1");
+                    event.setTenantId(UUID.randomUUID());
+                    ids.add(productionExecutionService.create(event, "tester").getId());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ids).hasSize(attempts).containsOnly(ids.get(0));
+        assertThat(productionExecutionRepository.findByProductionOrderIdAndDeletedAtIsNull(order.getId()))
+                .singleElement()
+                .satisfies(execution -> assertThat(execution.getTenantId()).isEqualTo(tenantId));
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT tenant_id FROM tab_production_kpi_buckets WHERE company_id = ?",
+                UUID.class, companyId)).containsExactly(tenantId);
+    }
+
+    @Test
+    void concurrentCollectorsResendingOverlappingBatchesRecordEachEventOnce() throws Exception {
+        int collectors = 16;
+        int batchesPerCollector = 25;
+        int eventsPerBatch = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(collectors);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < collectors; c++) {
+                int collector = c;
+                futures.add(executor.submit(() -> {
+                    for (int b = 0; b < batchesPerCollector; b++) {
+                        // Metade do lote repete eventos do lote anterior, como num reenvio após timeout
+                        List<CreateProductionExecutionDTO> batch = new ArrayList<>();
+                        for (int e = 0; e < eventsPerBatch; e++) {
+                            int sequence = b * eventsPerBatch / 2 + e;
+                            batch.add(event("C" + collector + "-" + sequence));
+                        }
+                        long startedAt = System.nanoTime();
+                        productionExecutionCaptureService.capture(batch, "coletor-" + collector);
+                        latencies.add(System.nanoTime() - startedAt);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        log.info("Captura de lotes de {} eventos por {} coletores: p50 {} ms, p99 {} ms", eventsPerBatch, collectors,
+                TimeUnit.NANOSECONDS.toMillis(sorted.get(sorted.size() / 2)),
+                TimeUnit.NANOSECONDS.toMillis(sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1)));
+
+        int distinctPerCollector = (batchesPerCollector - 1) * eventsPerBatch / 2 + eventsPerBatch;
+        assertThat(productionExecutionRepository.findByProductionOrderIdAndDeletedAtIsNull(order.getId()))
+                .hasSize(collectors * distinctPerCollector);
+        // Incrementos concorrentes na mesma ordem não se perdem
+        assertThat(productionOrderRepository.findById(order.getId()).orElseThrow().getQuantityProduced())
+                .isEqualByComparingTo(BigDecimal.TEN.multiply(BigDecimal.valueOf((long) collectors * distinctPerCollector)));
+    }
+
+    private CreateProductionExecutionDTO event(String clientEventId) {
+        CreateProductionExecutionDTO event = new CreateProductionExecutionDTO();
+        event.setTenantId(tenantId);
+        event.setCompanyId(companyId);
+        event.setProductionOrderId(order.getId());
+        event.setStepId(step.getId());
+        event.setStartTime(OffsetDateTime.now().minusMinutes(30));
+        event.setEndTime(OffsetDateTime.now());
+        event.setQuantityDone(BigDecimal.TEN);
+        event.setLossQuantity(BigDecimal.ZERO);
+        event.setClientEventId(clientEventId);
+        return event;
+    }
+}
@@ -0,0 +1,259 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.BomRequirementDTO;
+import br.com.sigeve.sigeve_prodution.dto.CompositionItemVariantDTO;
+import br.com.sigeve.sigeve_prodution.dto.GridRequirementDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionGridDTO;
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialStock;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
+import br.com.sigeve.sigeve_prodution.repository.CompositionRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Camisa com 2 m de tecido branco (G consome 20% a mais, GG 50%; a cor azul usa o tecido azul), 10 m de linha
+ * e um bolso semiacabado de 0,1 m de tecido, também trocado pelo azul na cor azul.
+ * Grade: Branco P/M/G/GG = 10/20/20/10 e Azul = 5/10/10/5.
+ */
+class ProductionGridRequirementServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private ProductionGridRequirementService productionGridRequirementService;
+
+    @Autowired
+    private ProductionGridService productionGridService;
+
+    @Autowired
+    private CompositionItemService compositionItemService;
+
+    @Autowired
+    private ProductionOrderService productionOrderService;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private CompositionRepository compositionRepository;
+
+    @Autowired
+    private CompositionItemRepository compositionItemRepository;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    @Autowired
+    private RawMaterialStockRepository rawMaterialStockRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private ProductionProduct shirt;
+    private RawMaterial whiteFabric;
+    private RawMaterial blueFabric;
+    private RawMaterial thread;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+
+        whiteFabric = material("TEC-BR", "5");
+        blueFabric = material("TEC-AZ", "7");
+        thread = material("LIN", "0.1");
+
+        ProductionProduct pocket = product("Bolso");
+        Composition pocketComposition = composition(pocket);
+        CompositionItem pocketFabric = item(pocketComposition, CompositionItemType.RAW_MATERIAL, whiteFabric.getId(), "0.1", "5");
+        variants(pocketFabric, variant(null, "azul", null, blueFabric.getId()));
+
+        shirt = product("Camisa");
+        Composition shirtComposition = composition(shirt);
+        CompositionItem fabric = item(shirtComposition, CompositionItemType.RAW_MATERIAL, whiteFabric.getId(), "2", "5");
+        variants(fabric,
+                variant("G", null, "1.2", null),
+                variant("GG", null, "1.5", null),
+                variant(null, "Azul", null, blueFabric.getId()));
+        item(shirtComposition, CompositionItemType.RAW_MATERIAL, thread.getId(), "10", "0.1");
+        item(shirtComposition, CompositionItemType.PRODUCT, pocket.getId(), "1", null);
+    }
+
+    @Test
+    void sizeFactorsAndColorSubstitutesAreAppliedAcrossTheGrid() {
+        ProductionOrder order = orderWithGrid();
+
+        GridRequirementDTO result = productionGridRequirementService.calculate(order.getId(), false);
+
+        assertThat(result.getCellCount()).isEqualTo(8);
+        // Branco: 2 x (10 + 20 + 20 x 1,2 + 10 x 1,5) + 0,1 x 60; azul: 2 x (5 + 10 + 10 x 1,2 + 5 x 1,5) + 0,1 x 30
+        assertThat(requirement(result, whiteFabric).getQuantity()).isEqualByComparingTo("144");
+        assertThat(requirement(result, blueFabric).getQuantity()).isEqualByComparingTo("72");
+        assertThat(requirement(result, thread).getQuantity()).isEqualByComparingTo("900");
+        // O tecido azul é valorizado pelo seu custo médio
+        assertThat(requirement(result, whiteFabric).getTotalCost()).isEqualByComparingTo("720");
+        assertThat(requirement(result, blueFabric).getTotalCost()).isEqualByComparingTo("504");
+        assertThat(result.getTotalCost()).isEqualByComparingTo("1314");
+    }
+
+    @Test
+    void orderWithoutGridUsesTheProductSizeAndColor() {
+        shirt.setSize("GG");
+        shirt.setColor("Azul");
+        productionProductRepository.save(shirt);
+        ProductionOrder order = order("10");
+
+        GridRequirementDTO result = productionGridRequirementService.calculate(order.getId(), false);
+
+        assertThat(result.getCellCount()).isEqualTo(1);
+        assertThat(result.getRequirements()).extracting(BomRequirementDTO::getReferenceId)
+                .doesNotContain(whiteFabric.getId());
+        assertThat(requirement(result, blueFabric).getQuantity()).isEqualByComparingTo("31");
+    }
+
+    @Test
+    void startReservesTheGridRequirements() {
+        stock(whiteFabric, "1000");
+        stock(blueFabric, "1000");
+        stock(thread, "5000");
+        ProductionOrder order = orderWithGrid();
+
+        productionOrderService.start(order.getId(), "tester");
+
+        assertThat(stockOf(whiteFabric).getReservedQuantity()).isEqualByComparingTo("144");
+        assertThat(stockOf(blueFabric).getReservedQuantity()).isEqualByComparingTo("72");
+        assertThat(stockOf(thread).getReservedQuantity()).isEqualByComparingTo("900");
+    }
+
+    @Test
+    void substitutesMustBelongToTheCompanyAndMatchTheItemType() {
+        ProductionProduct collar = product("Gola");
+        CompositionItem fabric = item(composition(collar), CompositionItemType.RAW_MATERIAL, whiteFabric.getId(), "0.3", "5");
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        RawMaterial otherCompanyThread = material("LIN", "0.1");
+
+        assertThatThrownBy(() -> variants(fabric, variant(null, "Azul", null, shirt.getId())))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> variants(fabric, variant(null, "Azul", null, otherCompanyThread.getId())))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> variants(fabric, variant(null, "Azul", null, UUID.randomUUID())))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(compositionItemService.findVariants(fabric.getId())).isEmpty();
+    }
+
+    private ProductionOrder orderWithGrid() {
+        ProductionOrder order = order("90");
+        productionGridService.save(order.getId(), new UpdateProductionGridDTO(
+                List.of("P", "M", "G", "GG"),
+                List.of("Branco", "Azul"),
+                List.of(decimals("10", "20", "20", "10"), decimals("5", "10", "10", "5"))), "tester");
+        return order;
+    }
+
+    private static List<BigDecimal> decimals(String... values) {
+        return java.util.Arrays.stream(values).map(BigDecimal::new).toList();
+    }
+
+    private static BomRequirementDTO requirement(GridRequirementDTO result, RawMaterial material) {
+        return result.getRequirements().stream()
+                .filter(requirement -> requirement.getReferenceId().equals(material.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private RawMaterialStock stockOf(RawMaterial material) {
+        return rawMaterialStockRepository.findByCompanyIdAndRawMaterialIdAndWarehouseId(companyId, material.getId(), null)
+                .orElseThrow();
+    }
+
+    private void stock(RawMaterial material, String quantity) {
+        RawMaterialStock stock = new RawMaterialStock();
+        stock.setTenantId(tenantId);
+        stock.setCompanyId(companyId);
+        stock.setRawMaterialId(material.getId());
+        stock.setQuantity(new BigDecimal(quantity));
+        rawMaterialStockRepository.save(stock);
+    }
+
+    private RawMaterial material(String code, String averageCost) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        material.setAverageCost(new BigDecimal(averageCost));
+        return rawMaterialRepository.save(material);
+    }
+
+    private ProductionProduct product(String description) {
+        ProductionProduct product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription(description);
+        return productionProductRepository.save(product);
+    }
+
+    private Composition composition(ProductionProduct product) {
+        Composition composition = new Composition();
+        composition.setTenantId(tenantId);
+        composition.setCompanyId(companyId);
+        composition.setProductionProductId(product.getId());
+        composition.setName(product.getDescription());
+        return compositionRepository.save(composition);
+    }
+
+    private CompositionItem item(Composition composition, CompositionItemType type, UUID referenceId, String quantity, String unitCost) {
+        CompositionItem item = new CompositionItem();
+        item.setTenantId(tenantId);
+        item.setCompanyId(companyId);
+        item.setCompositionId(composition.getId());
+        item.setItemType(type);
+        item.setReferenceId(referenceId);
+        item.setUnitType(type == CompositionItemType.PRODUCT ? UnitType.UN : UnitType.M);
+        item.setQuantity(new BigDecimal(quantity));
+        item.setUnitCost(unitCost != null ? new BigDecimal(unitCost) : null);
+        return compositionItemRepository.save(item);
+    }
+
+    private void variants(CompositionItem item, CompositionItemVariantDTO... variants) {
+        compositionItemService.replaceVariants(item.getId(), List.of(variants), "tester");
+    }
+
+    private static CompositionItemVariantDTO variant(String size, String color, String factor, UUID substituteId) {
+        return new CompositionItemVariantDTO(null, size, color, factor != null ? new BigDecimal(factor) : null, substituteId);
+    }
+
+    private ProductionOrder order(String quantity) {
+        ProductionOrder order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode("OP-" + UUID.randomUUID().toString().substring(0, 8));
+        order.setProductId(shirt.getId());
+        order.setQuantityPlanned(new BigDecimal(quantity));
+        order.setStatus(ProductionOrderStatus.PLANNED);
+        return productionOrderRepository.save(order);
+    }
+}
@@ -0,0 +1,154 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.ProductionGridDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionGridDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionOrderDTO;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.repository.ProductionGridCellRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Grade tamanho x cor: gravada inteira em um comando e sempre somando a quantidade planejada da ordem.
+ */
+class ProductionGridServiceTest extends AbstractPostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductionGridServiceTest.class);
+
+    @Autowired
+    private ProductionGridService productionGridService;
+
+    @Autowired
+    private ProductionOrderService productionOrderService;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private ProductionGridCellRepository productionGridCellRepository;
+
+    private ProductionOrder order;
+
+    @BeforeEach
+    void setUp() {
+        UUID tenantId = UUID.randomUUID();
+        UUID companyId = UUID.randomUUID();
+
+        ProductionProduct product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription("Camiseta básica");
+        product = productionProductRepository.save(product);
+
+        order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode("OP-GRADE");
+        order.setProductId(product.getId());
+        order.setQuantityPlanned(new BigDecimal("2400"));
+        order = productionOrderRepository.save(order);
+    }
+
+    @Test
+    void twelveByTwentyGridIsSavedAndReadBackAsAMatrix() {
+        UpdateProductionGridDTO request = grid(12, 20, "10");
+
+        long startedAt = System.nanoTime();
+        ProductionGridDTO saved = productionGridService.save(order.getId(), request, "tester");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        log.info("Grade 12 x 20 gravada em {} ms", elapsedMillis);
+
+        assertThat(saved.getTotal()).isEqualByComparingTo("2400");
+        assertThat(productionGridCellRepository.findByProductionOrderIdOrderByColorPositionAscSizePositionAsc(order.getId()))
+                .hasSize(240);
+
+        ProductionGridDTO read = productionGridService.findByOrder(order.getId()).orElseThrow();
+        assertThat(read.getSizes()).isEqualTo(request.getSizes());
+        assertThat(read.getColors()).isEqualTo(request.getColors());
+        assertThat(read.getQuantities().get(19).get(11)).isEqualByComparingTo("10");
+        assertThat(read.getTotal()).isEqualByComparingTo("2400");
+    }
+
+    @Test
+    void savingAgainReplacesTheGrid() {
+        productionGridService.save(order.getId(), grid(12, 20, "10"), "tester");
+
+        UpdateProductionGridDTO smaller = grid(4, 3, "200");
+        smaller.getQuantities().get(0).set(0, null);
+        smaller.getQuantities().get(0).set(1, new BigDecimal("400"));
+        productionGridService.save(order.getId(), smaller, "tester");
+
+        ProductionGridDTO read = productionGridService.findByOrder(order.getId()).orElseThrow();
+        assertThat(read.getSizes()).containsExactly("T1", "T2", "T3", "T4");
+        assertThat(read.getColors()).containsExactly("Cor 1", "Cor 2", "Cor 3");
+        assertThat(read.getQuantities().get(0).get(0)).isEqualByComparingTo("0");
+        assertThat(read.getQuantities().get(0).get(1)).isEqualByComparingTo("400");
+        assertThat(productionGridCellRepository.findByProductionOrderIdOrderByColorPositionAscSizePositionAsc(order.getId()))
+                .hasSize(12);
+    }
+
+    @Test
+    void gridMustMatchThePlannedQuantity() {
+        assertThatThrownBy(() -> productionGridService.save(order.getId(), grid(12, 20, "9"), "tester"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        UpdateProductionGridDTO ragged = grid(12, 20, "10");
+        ragged.getQuantities().get(3).remove(0);
+        assertThatThrownBy(() -> productionGridService.save(order.getId(), ragged, "tester"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        UpdateProductionGridDTO repeated = grid(12, 20, "10");
+        repeated.getSizes().set(1, "t1");
+        assertThatThrownBy(() -> productionGridService.save(order.getId(), repeated, "tester"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(productionGridCellRepository.existsByProductionOrderId(order.getId())).isFalse();
+    }
+
+    @Test
+    void plannedQuantityCannotDriftFromAnExistingGrid() {
+        productionGridService.save(order.getId(), grid(12, 20, "10"), "tester");
+
+        UpdateProductionOrderDTO update = new UpdateProductionOrderDTO();
+        update.setQuantityPlanned(new BigDecimal("2500"));
+        assertThatThrownBy(() -> productionOrderService.update(order.getId(), update, "tester"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static UpdateProductionGridDTO grid(int sizeCount, int colorCount, String quantity) {
+        List<String> sizes = new ArrayList<>();
+        for (int s = 1; s <= sizeCount; s++) {
+            sizes.add("T" + s);
+        }
+        List<String> colors = new ArrayList<>();
+        List<List<BigDecimal>> quantities = new ArrayList<>();
+        for (int c = 1; c <= colorCount; c++) {
+            colors.add("Cor " + c);
+            List<BigDecimal> row = new ArrayList<>();
+            for (int s = 0; s < sizeCount; s++) {
+                row.add(new BigDecimal(quantity));
+            }
+            quantities.add(row);
+        }
+        return new UpdateProductionGridDTO(sizes, colors, quantities);
+    }
+}
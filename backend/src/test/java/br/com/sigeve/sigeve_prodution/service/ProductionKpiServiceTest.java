@@ -0,0 +1,227 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionKpiDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.enums.KpiDimension;
+import br.com.sigeve.sigeve_prodution.enums.QualityStatus;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Costura com tempo padrão de 2 min/peça e 480 min/dia. Ontem: duas execuções na máquina M1 às 8h (mesmo balde),
+ * uma reprovada na M2 às 9h e uma ainda aberta na M2 às 10h, todas do mesmo funcionário.
+ */
+class ProductionKpiServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private ProductionKpiService productionKpiService;
+
+    @Autowired
+    private ProductionExecutionService productionExecutionService;
+
+    @Autowired
+    private ProductionExecutionCaptureService productionExecutionCaptureService;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private ProductionStepRepository productionStepRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private UUID machine1;
+    private UUID machine2;
+    private UUID employee;
+    private LocalDate day;
+    private ProductionOrder order;
+    private ProductionStep sewing;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        machine1 = UUID.randomUUID();
+        machine2 = UUID.randomUUID();
+        employee = UUID.randomUUID();
+        day = LocalDate.now().minusDays(1);
+
+        ProductionProduct product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription("Camisa");
+        product = productionProductRepository.save(product);
+
+        order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode("OP-1");
+        order.setProductId(product.getId());
+        order.setQuantityPlanned(new BigDecimal("500"));
+        order = productionOrderRepository.save(order);
+
+        sewing = new ProductionStep();
+        sewing.setTenantId(tenantId);
+        sewing.setCompanyId(companyId);
+        sewing.setName("Costura");
+        sewing.setSequence(1);
+        sewing.setEstimatedTime(2);
+        sewing.setDailyCapacityMinutes(480);
+        sewing = productionStepRepository.save(sewing);
+    }
+
+    @Test
+    void kpisAreComputedFromHourlyBuckets() {
+        record(event("08:00", "09:00", "25", "1", machine1, QualityStatus.APPROVED));
+        record(event("08:30", "09:30", "30", "0", machine1, QualityStatus.APPROVED));
+        record(event("09:00", "10:00", "20", "0", machine2, QualityStatus.REJECTED));
+        record(event("10:00", null, "5", "0", machine2, null));
+
+        // A execução das 8h30 às 9h30 leva meia hora para o balde das 9h da M1
+        assertThat(bucketCount()).isEqualTo(4);
+
+        ProductionKpiDTO step = single(productionKpiService.findKpis(companyId, KpiDimension.STEP, day, day));
+        assertThat(step.getReferenceName()).isEqualTo("Costura");
+        assertThat(step.getExecutionCount()).isEqualTo(4);
+        assertThat(step.getGoodQuantity()).isEqualByComparingTo("59");
+        assertThat(step.getRunMinutes()).isEqualTo(180);
+        assertThat(step.getActiveHours()).isEqualTo(3);
+        // 10800 s para 75 peças encerradas; 59 boas em 3 horas com apontamento
+        assertThat(step.getCycleTimeSeconds()).isEqualByComparingTo("144");
+        assertThat(step.getThroughputPerHour()).isEqualByComparingTo("19.6667");
+        assertThat(step.getScrapRate()).isEqualByComparingTo("26.25");
+        // 180 de 480 min; 150 min padrão em 180 apontados; 59 boas de 80
+        assertThat(step.getAvailability()).isEqualByComparingTo("37.5");
+        assertThat(step.getPerformance()).isEqualByComparingTo("83.33");
+        assertThat(step.getQuality()).isEqualByComparingTo("73.75");
+        assertThat(step.getOee()).isEqualByComparingTo("23.0460");
+
+        List<ProductionKpiDTO> machines = productionKpiService.findKpis(companyId, KpiDimension.MACHINE, day, day);
+        assertThat(machines).extracting(ProductionKpiDTO::getReferenceId).containsExactly(machine1, machine2);
+        assertThat(machines.get(0).getGoodQuantity()).isEqualByComparingTo("54");
+        assertThat(machines.get(0).getAvailability()).isEqualByComparingTo("25");
+        assertThat(single(productionKpiService.findKpis(companyId, KpiDimension.EMPLOYEE, day, day)).getExecutionCount())
+                .isEqualTo(4);
+        assertThat(productionKpiService.findKpis(companyId, KpiDimension.STEP, day.minusDays(7), day.minusDays(1))).isEmpty();
+    }
+
+    @Test
+    void bucketsFollowUpdatesDeletesAndCapturedBatches() {
+        ProductionExecutionDTO rejected = record(event("09:00", "10:00", "20", "0", machine2, QualityStatus.REJECTED));
+        ProductionExecutionDTO open = record(event("10:00", null, "5", "0", machine2, null));
+
+        UpdateProductionExecutionDTO approve = new UpdateProductionExecutionDTO();
+        approve.setQualityStatus(QualityStatus.APPROVED);
+        productionExecutionService.update(rejected.getId(), approve, "tester");
+        productionExecutionService.delete(open.getId(), "tester");
+
+        CreateProductionExecutionDTO first = event("09:10", "09:40", "10", "2", machine2, null);
+        first.setClientEventId("E-1");
+        CreateProductionExecutionDTO second = event("09:20", "09:50", "10", "0", machine2, null);
+        second.setClientEventId("E-2");
+        productionExecutionCaptureService.capture(List.of(first, second), "coletor-01");
+        productionExecutionCaptureService.capture(List.of(first, second), "coletor-01");
+
+        ProductionKpiDTO step = single(productionKpiService.findKpis(companyId, KpiDimension.STEP, day, day));
+        assertThat(step.getExecutionCount()).isEqualTo(3);
+        assertThat(step.getQuantityDone()).isEqualByComparingTo("40");
+        assertThat(step.getRejectedQuantity()).isEqualByComparingTo("0");
+        assertThat(step.getGoodQuantity()).isEqualByComparingTo("38");
+        assertThat(step.getRunMinutes()).isEqualTo(120);
+        assertThat(step.getActiveHours()).isEqualTo(1);
+    }
+
+    @Test
+    void runTimeIsSplitAcrossHoursAndRebuildMatchesTheIncrementalBuckets() {
+        record(event("08:40", "10:15", "30", "0", machine1, QualityStatus.APPROVED));
+        record(event("09:50", "10:05", "5", "1", machine2, QualityStatus.REJECTED));
+        record(event("10:30", null, "2", "0", machine2, null));
+
+        assertThat(runSecondsByHour(machine1)).containsExactly(20 * 60L, 60 * 60L, 15 * 60L);
+        assertThat(runSecondsByHour(machine2)).containsExactly(10 * 60L, 5 * 60L);
+        ProductionKpiDTO step = single(productionKpiService.findKpis(companyId, KpiDimension.STEP, day, day));
+        assertThat(step.getRunMinutes()).isEqualTo(110);
+        assertThat(step.getActiveHours()).isEqualTo(3);
+
+        List<String> incremental = buckets();
+        jdbcTemplate.update("DELETE FROM tab_production_kpi_buckets WHERE company_id = ?", companyId);
+
+        assertThat(productionKpiService.rebuild(companyId).getBuckets()).isEqualTo(incremental.size());
+        assertThat(buckets()).isEqualTo(incremental);
+        productionKpiService.rebuild(companyId);
+        assertThat(buckets()).isEqualTo(incremental);
+    }
+
+    private ProductionExecutionDTO record(CreateProductionExecutionDTO event) {
+        return productionExecutionService.create(event, "tester");
+    }
+
+    private static ProductionKpiDTO single(List<ProductionKpiDTO> kpis) {
+        assertThat(kpis).hasSize(1);
+        return kpis.get(0);
+    }
+
+    private Integer bucketCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tab_production_kpi_buckets WHERE company_id = ?",
+                Integer.class, companyId);
+    }
+
+    private List<Long> runSecondsByHour(UUID machineId) {
+        return jdbcTemplate.queryForList("SELECT run_seconds FROM tab_production_kpi_buckets " +
+                "WHERE company_id = ? AND machine_id = ? AND run_seconds > 0 ORDER BY bucket_start", Long.class, companyId, machineId);
+    }
+
+    private List<String> buckets() {
+        return jdbcTemplate.queryForList("SELECT concat_ws('|', tenant_id, bucket_start, step_id, machine_id, employee_id, " +
+                "execution_count, quantity_done::numeric(19,4), loss_quantity::numeric(19,4), rejected_quantity::numeric(19,4), " +
+                "completed_quantity::numeric(19,4), run_seconds) FROM tab_production_kpi_buckets WHERE company_id = ? " +
+                "ORDER BY bucket_start, machine_id", String.class, companyId);
+    }
+
+    private CreateProductionExecutionDTO event(String start, String end, String done, String loss, UUID machineId,
+                                               QualityStatus qualityStatus) {
+        CreateProductionExecutionDTO event = new CreateProductionExecutionDTO();
+        event.setTenantId(tenantId);
+        event.setCompanyId(companyId);
+        event.setProductionOrderId(order.getId());
+        event.setStepId(sewing.getId());
+        event.setStartTime(at(start));
+        event.setEndTime(end != null ? at(end) : null);
+        event.setQuantityDone(new BigDecimal(done));
+        event.setLossQuantity(new BigDecimal(loss));
+        event.setMachineId(machineId);
+        event.setEmployeeId(employee);
+        event.setQualityStatus(qualityStatus);
+        return event;
+    }
+
+    private OffsetDateTime at(String time) {
+        return day.atTime(LocalTime.parse(time)).atOffset(OffsetDateTime.now().getOffset());
+    }
+}
@@ -0,0 +1,187 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ExecutionCaptureResultDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderProgressRebuildDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Roteiro corte -> costura; só a costura (última etapa) conclui peças, as perdas contam em qualquer etapa.
+ */
+class ProductionOrderProgressServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private ProductionExecutionService productionExecutionService;
+
+    @Autowired
+    private ProductionExecutionCaptureService productionExecutionCaptureService;
+
+    @Autowired
+    private ProductionOrderService productionOrderService;
+
+    @Autowired
+    private ProductionOrderProgressService productionOrderProgressService;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private ProductionStepRepository productionStepRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private ProductionOrder order;
+    private ProductionStep cutting;
+    private ProductionStep sewing;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+
+        ProductionProduct product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription("Camisa");
+        product = productionProductRepository.save(product);
+
+        order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode("OP-1");
+        order.setProductId(product.getId());
+        order.setQuantityPlanned(new BigDecimal("200"));
+        order = productionOrderRepository.save(order);
+
+        cutting = step("Corte", 1);
+        sewing = step("Costura", 2);
+    }
+
+    @Test
+    void executionsAreRolledUpIntoTheOrderAsTheyChange() {
+        execution(cutting, "120", "5", null);
+        ProductionExecutionDTO sewn = execution(sewing, "100", "4", null);
+
+        assertOrder("96", "9", "48.0000");
+
+        UpdateProductionExecutionDTO update = new UpdateProductionExecutionDTO();
+        update.setQuantityDone(new BigDecimal("110"));
+        productionExecutionService.update(sewn.getId(), update, "tester");
+        assertOrder("106", "9", "53.0000");
+
+        productionExecutionService.delete(sewn.getId(), "tester");
+        productionExecutionService.delete(sewn.getId(), "tester");
+        assertOrder("0", "5", "0.0000");
+    }
+
+    @Test
+    void totalsFollowTheRoutingAndRebuildIsRepeatable() {
+        execution(cutting, "120", "5", null);
+        ProductionExecutionDTO sewn = execution(sewing, "100", "4", null);
+        assertOrder("96", "9", "48.0000");
+
+        // Nova última etapa: a costura deixa de concluir peças; o recálculo não depende do roteiro da época
+        ProductionStep finishing = step("Acabamento", 3);
+        ProductionOrderProgressRebuildDTO rebuilt = productionOrderProgressService.rebuild(companyId);
+        assertThat(rebuilt.getOrders()).isEqualTo(1);
+        assertThat(rebuilt.getUpdatedOrders()).isEqualTo(1);
+        assertOrder("0", "9", "0.0000");
+
+        UpdateProductionExecutionDTO update = new UpdateProductionExecutionDTO();
+        update.setStepId(finishing.getId());
+        productionExecutionService.update(sewn.getId(), update, "tester");
+        assertOrder("96", "9", "48.0000");
+
+        assertThat(productionOrderProgressService.rebuild(companyId).getUpdatedOrders()).isZero();
+        assertOrder("96", "9", "48.0000");
+    }
+
+    @Test
+    void capturedBatchesAreRolledUpOnceEvenWhenResent() {
+        List<CreateProductionExecutionDTO> batch = List.of(
+                event(sewing, "30", "1", "E-1"),
+                event(sewing, "20", "0", "E-2"),
+                event(cutting, "60", "2", "E-3"));
+
+        ExecutionCaptureResultDTO first = productionExecutionCaptureService.capture(batch, "coletor-01");
+        productionExecutionCaptureService.capture(batch, "coletor-01");
+
+        assertThat(first.getAcceptedEvents()).isEqualTo(3);
+        assertOrder("49", "3", "24.5000");
+
+        // Reenvio pelo cadastro avulso também não soma de novo
+        productionExecutionService.create(event(sewing, "30", "1", "E-1"), "tester");
+        assertOrder("49", "3", "24.5000");
+    }
+
+    @Test
+    void rollUpStartsTheVersionOfLegacyOrdersWithoutOne() {
+        jdbcTemplate.update("UPDATE tab_production_orders SET version = NULL WHERE production_order_id = ?", order.getId());
+
+        execution(sewing, "10", "0", null);
+
+        assertOrder("10", "0", "5.0000");
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM tab_production_orders WHERE production_order_id = ?",
+                Integer.class, order.getId())).isEqualTo(1);
+    }
+
+    private void assertOrder(String produced, String lost, String percentage) {
+        ProductionOrderDTO dto = productionOrderService.findById(order.getId()).orElseThrow();
+        assertThat(dto.getQuantityProduced()).isEqualByComparingTo(produced);
+        assertThat(dto.getQuantityLost()).isEqualByComparingTo(lost);
+        assertThat(dto.getProductionPercentage()).isEqualByComparingTo(percentage);
+    }
+
+    private ProductionExecutionDTO execution(ProductionStep step, String done, String loss, String clientEventId) {
+        return productionExecutionService.create(event(step, done, loss, clientEventId), "tester");
+    }
+
+    private CreateProductionExecutionDTO event(ProductionStep step, String done, String loss, String clientEventId) {
+        CreateProductionExecutionDTO event = new CreateProductionExecutionDTO();
+        event.setTenantId(tenantId);
+        event.setCompanyId(companyId);
+        event.setProductionOrderId(order.getId());
+        event.setStepId(step.getId());
+        event.setStartTime(OffsetDateTime.now().minusHours(1));
+        event.setEndTime(OffsetDateTime.now());
+        event.setQuantityDone(new BigDecimal(done));
+        event.setLossQuantity(new BigDecimal(loss));
+        event.setClientEventId(clientEventId);
+        return event;
+    }
+
+    private ProductionStep step(String name, int sequence) {
+        ProductionStep step = new ProductionStep();
+        step.setTenantId(tenantId);
+        step.setCompanyId(companyId);
+        step.setName(name);
+        step.setSequence(sequence);
+        return productionStepRepository.save(step);
+    }
+}
@@ -0,0 +1,155 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CursorPageDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionOrderFilterDTO;
+import br.com.sigeve.sigeve_prodution.enums.PriorityLevel;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderKeyset;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Garante que a listagem de ordens resolve o nome do produto sem N+1:
+ * o número de statements não pode crescer com a quantidade de ordens.
+ */
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class ProductionOrderServiceQueryCountTest extends AbstractPostgresIntegrationTest {
+
+    private static final int ORDERS = 500;
+
+    @Autowired
+    private ProductionOrderService productionOrderService;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UUID companyId;
+
+    @BeforeEach
+    void setUp() {
+        UUID tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+
+        List<ProductionProduct> products = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            ProductionProduct product = new ProductionProduct();
+            product.setTenantId(tenantId);
+            product.setCompanyId(companyId);
+            product.setDescription("Produto " + i);
+            products.add(product);
+        }
+        products = productionProductRepository.saveAll(products);
+
+        List<ProductionOrder> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            ProductionOrder order = new ProductionOrder();
+            order.setTenantId(tenantId);
+            order.setCompanyId(companyId);
+            order.setCode(String.format("OP-%05d", i));
+            order.setProductId(products.get(i).getId());
+            order.setQuantityPlanned(BigDecimal.TEN);
+            order.setStatus(ProductionOrderStatus.PLANNED);
+            order.setPriority(PriorityLevel.values()[i % PriorityLevel.values().length]);
+            // Empates de prioridade e prazo, e ordens sem prazo, para a paginação por cursor
+            order.setDeadline(i % 3 == 0 ? null : LocalDate.of(2026, 1, 1).plusDays(i % 5));
+            orders.add(order);
+        }
+        productionOrderRepository.saveAll(orders);
+    }
+
+    @Test
+    void findAllByCompanyUsesConstantNumberOfStatements() {
+        Statistics statistics = statistics();
+
+        List<ProductionOrderDTO> result = productionOrderService.findAllByCompany(companyId);
+
+        assertThat(result).hasSize(ORDERS);
+        assertThat(result).allSatisfy(dto -> assertThat(dto.getProductName()).startsWith("Produto "));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByStatusUsesConstantNumberOfStatements() {
+        Statistics statistics = statistics();
+
+        List<ProductionOrderDTO> result = productionOrderService.findByStatus(companyId, ProductionOrderStatus.PLANNED);
+
+        assertThat(result).hasSize(ORDERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findPageUsesConstantNumberOfStatements() {
+        ProductionOrderFilterDTO filter = new ProductionOrderFilterDTO();
+        filter.setCompanyId(companyId);
+        Statistics statistics = statistics();
+
+        CursorPageDTO<ProductionOrderDTO> page = productionOrderService.findPage(filter, null, ORDERS);
+
+        assertThat(page.getContent()).hasSize(ORDERS);
+        assertThat(page.getContent()).allSatisfy(dto -> assertThat(dto.getProductName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findPageWalksAllOrdersByCursorWithoutGapsOrDuplicates() {
+        ProductionOrderFilterDTO filter = new ProductionOrderFilterDTO();
+        filter.setCompanyId(companyId);
+
+        List<String> expected = productionOrderRepository.findAll().stream()
+                .filter(order -> companyId.equals(order.getCompanyId()))
+                .sorted(Comparator.comparing((ProductionOrder order) -> ProductionOrderKeyset.rankOf(order.getPriority()))
+                        .thenComparing(order -> order.getDeadline() != null ? order.getDeadline() : ProductionOrderKeyset.NO_DEADLINE)
+                        .thenComparing(ProductionOrder::getCode))
+                .map(ProductionOrder::getCode)
+                .toList();
+
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageDTO<ProductionOrderDTO> page = productionOrderService.findPage(filter, cursor, 37);
+            page.getContent().forEach(dto -> walked.add(dto.getCode()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo((ORDERS + 36) / 37);
+        assertThat(walked).doesNotHaveDuplicates().containsExactlyElementsOf(expected);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,217 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.ScheduledOrderDTO;
+import br.com.sigeve.sigeve_prodution.dto.StepCapacityDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionOrderDTO;
+import br.com.sigeve.sigeve_prodution.enums.PriorityLevel;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.enums.SchedulingRule;
+import br.com.sigeve.sigeve_prodution.event.ProductionStepChangedEvent;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Programação de capacidade finita. Roteiro: corte (2 min/peça, 480 min/dia), costura (6 min/peça, 960 min/dia),
+ * lavanderia terceirizada (1 min/peça, prazo de um dia a cada 480 min) e acabamento (3 min/peça, 480 min/dia).
+ */
+class ProductionScheduleServiceTest extends AbstractPostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductionScheduleServiceTest.class);
+
+    @Autowired
+    private ProductionScheduleService productionScheduleService;
+
+    @Autowired
+    private ProductionOrderService productionOrderService;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private ProductionStepRepository productionStepRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private ProductionProduct product;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        today = LocalDate.now();
+
+        product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription("Calça jeans");
+        product = productionProductRepository.save(product);
+    }
+
+    @Test
+    void ordersAreLoadedByPriorityAndDeadlineAndLateOrdersAreFlagged() {
+        standardRouting();
+        ProductionOrder a = order("OP-A", PriorityLevel.HIGH, "100", today.plusDays(10), true);
+        ProductionOrder b = order("OP-B", PriorityLevel.MEDIUM, "200", today.plusDays(2), true);
+        ProductionOrder c = order("OP-C", PriorityLevel.MEDIUM, "50", today.plusDays(20), true);
+        order("OP-D", PriorityLevel.URGENT, "500", today.plusDays(1), false);
+
+        List<ScheduledOrderDTO> schedule = productionScheduleService.findSchedule(companyId, false);
+
+        // A ordem não aprovada fica de fora; a alta prioridade vai antes e, entre as médias, o menor prazo
+        assertThat(schedule).extracting(ScheduledOrderDTO::getCode).containsExactly("OP-A", "OP-B", "OP-C");
+        assertThat(schedule.get(0).getPlannedEnd()).isEqualTo(today);
+        // B: corte termina no dia 1, costura no 2, lavanderia no 2 e acabamento no 3; prazo no dia 2
+        ScheduledOrderDTO late = schedule.get(1);
+        assertThat(late.getPlannedEnd()).isEqualTo(today.plusDays(3));
+        assertThat(late.isLate()).isTrue();
+        assertThat(late.getDaysLate()).isEqualTo(1);
+        assertThat(schedule.get(2).isLate()).isFalse();
+        assertThat(productionScheduleService.findSchedule(companyId, true)).extracting(ScheduledOrderDTO::getProductionOrderId)
+                .containsExactly(b.getId());
+
+        List<StepCapacityDTO> capacity = productionScheduleService.findCapacity(companyId, 4);
+        assertThat(capacity.get(0).getLoadedMinutes()).containsExactly(480, 220, 0, 0);
+        assertThat(capacity.get(1).getLoadedMinutes()).containsExactly(600, 960, 540, 0);
+        // Terceirizada não consome capacidade própria
+        assertThat(capacity.get(2).getLoadedMinutes()).containsOnly(0);
+        assertThat(productionScheduleService.findByOrder(c.getId())).get()
+                .satisfies(order -> assertThat(order.getPosition()).isEqualTo(3));
+        assertThat(a.getId()).isEqualTo(schedule.get(0).getProductionOrderId());
+    }
+
+    @Test
+    void changedOrdersAreRescheduledAfterCommit() {
+        standardRouting();
+        order("OP-A", PriorityLevel.HIGH, "100", today.plusDays(10), true);
+        ProductionOrder b = order("OP-B", PriorityLevel.MEDIUM, "200", today.plusDays(2), true);
+        ProductionOrder c = order("OP-C", PriorityLevel.MEDIUM, "50", today.plusDays(20), true);
+        ProductionOrder d = order("OP-D", PriorityLevel.URGENT, "500", today.plusDays(1), false);
+        productionScheduleService.findSchedule(companyId, false);
+
+        UpdateProductionOrderDTO update = new UpdateProductionOrderDTO();
+        update.setPriority(PriorityLevel.URGENT);
+        productionOrderService.update(c.getId(), update, "tester");
+        productionOrderService.approve(d.getId(), "tester");
+        productionOrderService.cancel(b.getId(), "Pedido cancelado", "tester");
+
+        List<ScheduledOrderDTO> rescheduled = productionScheduleService.findSchedule(companyId, false);
+        assertThat(rescheduled).extracting(ScheduledOrderDTO::getCode).containsExactly("OP-D", "OP-C", "OP-A");
+
+        productionScheduleService.onProductionStepChanged(new ProductionStepChangedEvent(companyId));
+        assertThat(productionScheduleService.findSchedule(companyId, false)).isEqualTo(rescheduled);
+    }
+
+    @Test
+    void criticalRatioFavorsTheOrderWithLessSlackPerDayOfWork() {
+        List<ProductionStep> routing = List.of(step("Costura", 1, 10, 480, false));
+        CapacityPlan plan = new CapacityPlan(today, SchedulingRule.CRITICAL_RATIO, routing);
+        UUID longJob = UUID.randomUUID();
+        UUID shortJob = UUID.randomUUID();
+        // 10 dias até o prazo para 8 dias de trabalho (1,25) contra 5 dias para 1 dia de trabalho (5)
+        plan.loadAll(List.of(
+                plan.newJob(shortJob, "OP-1", ProductionOrderStatus.PLANNED, PriorityLevel.MEDIUM, null, today.plusDays(5), new BigDecimal("48")),
+                plan.newJob(longJob, "OP-2", ProductionOrderStatus.PLANNED, PriorityLevel.MEDIUM, null, today.plusDays(10), new BigDecimal("384"))));
+
+        assertThat(plan.sequence()).extracting(job -> job.id).containsExactly(longJob, shortJob);
+        assertThat(plan.job(shortJob).finishDay).isEqualTo(8);
+    }
+
+    @Test
+    void fiveThousandOrdersOverTenStepsAreScheduledAndRescheduledAfterAChange() {
+        for (int s = 1; s <= 10; s++) {
+            productionStepRepository.save(step("Etapa " + s, s, 1 + s % 4, 480 * (1 + s % 3), s == 7));
+        }
+        Random random = new Random(42);
+        PriorityLevel[] priorities = PriorityLevel.values();
+        List<ProductionOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            orders.add(newOrder(String.format("OP-%05d", i), priorities[random.nextInt(priorities.length)],
+                    String.valueOf(10 + random.nextInt(90)), today.plusDays(random.nextInt(365)), true));
+        }
+        productionOrderRepository.saveAll(orders);
+
+        long startedAt = System.nanoTime();
+        List<ScheduledOrderDTO> full = productionScheduleService.findSchedule(companyId, false);
+        log.info("Programação completa de 5000 ordens x 10 etapas: {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        assertThat(full).hasSize(5000);
+
+        ScheduledOrderDTO target = full.get(4000);
+        UpdateProductionOrderDTO update = new UpdateProductionOrderDTO();
+        update.setQuantityPlanned(target.getRemainingQuantity().add(BigDecimal.TEN));
+        productionOrderService.update(target.getProductionOrderId(), update, "tester");
+
+        startedAt = System.nanoTime();
+        List<ScheduledOrderDTO> rescheduled = productionScheduleService.findSchedule(companyId, false);
+        log.info("Reprogramação completa após a alteração de uma ordem: {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        // Só a cauda a partir da ordem alterada pode mudar
+        assertThat(rescheduled.subList(0, 4000)).isEqualTo(full.subList(0, 4000));
+        assertThat(rescheduled.get(4000).getRemainingQuantity()).isEqualByComparingTo(target.getRemainingQuantity().add(BigDecimal.TEN));
+
+        productionScheduleService.onProductionStepChanged(new ProductionStepChangedEvent(companyId));
+        assertThat(productionScheduleService.findSchedule(companyId, false)).isEqualTo(rescheduled);
+    }
+
+    private void standardRouting() {
+        productionStepRepository.save(step("Corte", 1, 2, 480, false));
+        productionStepRepository.save(step("Costura", 2, 6, 960, false));
+        productionStepRepository.save(step("Lavanderia", 3, 1, 480, true));
+        productionStepRepository.save(step("Acabamento", 4, 3, 480, false));
+    }
+
+    private ProductionStep step(String name, int sequence, int minutesPerUnit, int dailyCapacity, boolean outsourced) {
+        ProductionStep step = new ProductionStep();
+        step.setTenantId(tenantId);
+        step.setCompanyId(companyId);
+        step.setName(name);
+        step.setSequence(sequence);
+        step.setEstimatedTime(minutesPerUnit);
+        step.setDailyCapacityMinutes(dailyCapacity);
+        step.setIsOutsourced(outsourced);
+        return step;
+    }
+
+    private ProductionOrder order(String code, PriorityLevel priority, String quantity, LocalDate deadline, boolean approved) {
+        return productionOrderRepository.save(newOrder(code, priority, quantity, deadline, approved));
+    }
+
+    private ProductionOrder newOrder(String code, PriorityLevel priority, String quantity, LocalDate deadline, boolean approved) {
+        ProductionOrder order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode(code);
+        order.setProductId(product.getId());
+        order.setQuantityPlanned(new BigDecimal(quantity));
+        order.setPriority(priority);
+        order.setDeadline(deadline);
+        if (approved) {
+            order.setApprovedBy("tester");
+            order.setApprovedAt(LocalDateTime.now());
+        }
+        return order;
+    }
+}
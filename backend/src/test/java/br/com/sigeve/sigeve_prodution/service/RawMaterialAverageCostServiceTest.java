@@ -0,0 +1,196 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.AverageCostRebuildDTO;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Custo médio ponderado calculado no lançamento, com a matéria-prima travada, e reconstruído a partir do histórico.
+ */
+class RawMaterialAverageCostServiceTest extends AbstractPostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RawMaterialAverageCostServiceTest.class);
+
+    @Autowired
+    private RawMaterialAverageCostService rawMaterialAverageCostService;
+
+    @Autowired
+    private RawMaterialMovementService rawMaterialMovementService;
+
+    @Autowired
+    private RawMaterialMovementBulkService rawMaterialMovementBulkService;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private RawMaterial fabric;
+    private RawMaterial thread;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        fabric = material("TEC");
+        thread = material("LIN");
+    }
+
+    @Test
+    void receiptsAreWeightedAndIssuesAndTransfersKeepTheCost() {
+        rawMaterialMovementService.create(movement(fabric, StockMovementType.IN, MovementOrigin.PURCHASE, "10", "2"), "tester");
+        rawMaterialMovementService.create(movement(fabric, StockMovementType.OUT, MovementOrigin.PRODUCTION, "4", "2"), "tester");
+        rawMaterialMovementService.create(movement(fabric, StockMovementType.OUT, MovementOrigin.TRANSFER, "5", "100"), "tester");
+        rawMaterialMovementService.create(movement(fabric, StockMovementType.IN, MovementOrigin.TRANSFER, "5", "100"), "tester");
+        rawMaterialMovementService.create(movement(fabric, StockMovementType.IN, MovementOrigin.PURCHASE, "6", "5"), "tester");
+
+        // (6 x 2 + 6 x 5) / 12; a transferência (saída e entrada) não altera o custo
+        RawMaterial reloaded = rawMaterialRepository.findById(fabric.getId()).orElseThrow();
+        assertThat(reloaded.getAverageCost()).isEqualByComparingTo("3.5");
+        assertThat(reloaded.getLastPurchasePrice()).isEqualByComparingTo("5");
+        assertThat(reloaded.getLastPurchaseDate()).isEqualTo(LocalDate.now());
+    }
+
+    @Test
+    void concurrentReceiptsAreSerializedPerMaterial() throws Exception {
+        // 800 entradas de 1 unidade em paralelo, custos 1, 2, 3 e 4 alternados: média exata 2,5 por matéria-prima
+        int receipts = 800;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> results = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < receipts; i++) {
+            CreateRawMaterialMovementDTO request = movement(i % 2 == 0 ? fabric : thread,
+                    StockMovementType.IN, MovementOrigin.PURCHASE, "1", String.valueOf((i / 2) % 4 + 1));
+            results.add(executor.submit(() -> rawMaterialMovementService.create(request, "tester")));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        executor.shutdown();
+        log.info("{} entradas concorrentes em 2 matérias-primas: {} ms ({} entradas/s)",
+                receipts, elapsedMillis, receipts * 1000L / Math.max(1, elapsedMillis));
+
+        assertThat(averageCost(fabric)).isCloseTo(new BigDecimal("2.5"), within(new BigDecimal("0.001")));
+        assertThat(averageCost(thread)).isCloseTo(new BigDecimal("2.5"), within(new BigDecimal("0.001")));
+    }
+
+    @Test
+    void postingAndRebuildLockHighBitMaterialsInTheDatabaseOrder() throws Exception {
+        // Bit mais alto ligado: UUID.compareTo põe esta antes da outra, o PostgreSQL depois
+        RawMaterial high = withId(material("ALTO"), new UUID(UUID.randomUUID().getMostSignificantBits() | Long.MIN_VALUE, 1));
+        RawMaterial low = withId(material("BAIXO"), new UUID(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 1));
+
+        int rounds = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            results.add(executor.submit(() -> rawMaterialMovementBulkService.importMovements(List.of(
+                    movement(high, StockMovementType.IN, MovementOrigin.PURCHASE, "1", "2"),
+                    movement(low, StockMovementType.IN, MovementOrigin.PURCHASE, "1", "2")), "tester")));
+            results.add(executor.submit(() -> rawMaterialAverageCostService.rebuild(companyId, null)));
+        }
+        try {
+            for (Future<?> result : results) {
+                result.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(averageCost(high)).isEqualByComparingTo("2");
+        assertThat(averageCost(low)).isEqualByComparingTo("2");
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM tab_raw_material_stocks WHERE company_id = ?",
+                BigDecimal.class, companyId)).isEqualByComparingTo(String.valueOf(2 * rounds));
+    }
+
+    @Test
+    void rebuildReplaysTheLedgerAndIsIdempotent() {
+        List<CreateRawMaterialMovementDTO> requests = new ArrayList<>();
+        requests.add(movement(fabric, StockMovementType.IN, MovementOrigin.PURCHASE, "100", "4"));
+        requests.add(movement(fabric, StockMovementType.OUT, MovementOrigin.PRODUCTION, "80", "4"));
+        requests.add(movement(fabric, StockMovementType.IN, MovementOrigin.PURCHASE, "20", "6"));
+        requests.add(movement(fabric, StockMovementType.IN, MovementOrigin.ADJUSTMENT, "10", null));
+        requests.add(movement(thread, StockMovementType.IN, MovementOrigin.PURCHASE, "3", "1.5"));
+        for (int i = 0; i < requests.size(); i++) {
+            requests.get(i).setMovementDate(LocalDate.of(2026, 3, 1).plusDays(i));
+        }
+        rawMaterialMovementBulkService.importMovements(requests, "tester");
+
+        // (20 x 4 + 20 x 6) / 40 = 5; o ajuste sem custo não altera a média
+        assertThat(averageCost(fabric)).isEqualByComparingTo("5");
+        assertThat(averageCost(thread)).isEqualByComparingTo("1.5");
+
+        jdbcTemplate.update("UPDATE tab_raw_materials SET average_cost = 999 WHERE company_id = ?", companyId);
+        AverageCostRebuildDTO result = rawMaterialAverageCostService.rebuild(companyId, null);
+
+        assertThat(result.getUpdatedMaterials()).isEqualTo(2);
+        assertThat(averageCost(fabric)).isEqualByComparingTo("5");
+        assertThat(averageCost(thread)).isEqualByComparingTo("1.5");
+
+        rawMaterialAverageCostService.rebuild(companyId, null);
+        assertThat(rawMaterialAverageCostService.rebuild(companyId, fabric.getId()).getAverageCost()).isEqualByComparingTo("5");
+        assertThat(averageCost(fabric)).isEqualByComparingTo("5");
+    }
+
+    private BigDecimal averageCost(RawMaterial material) {
+        return jdbcTemplate.queryForObject("SELECT average_cost FROM tab_raw_materials WHERE raw_material_id = ?",
+                BigDecimal.class, material.getId());
+    }
+
+    private RawMaterial material(String code) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        return rawMaterialRepository.save(material);
+    }
+
+    private RawMaterial withId(RawMaterial material, UUID id) {
+        jdbcTemplate.update("UPDATE tab_raw_materials SET raw_material_id = ? WHERE raw_material_id = ?", id, material.getId());
+        material.setId(id);
+        return material;
+    }
+
+    private CreateRawMaterialMovementDTO movement(RawMaterial material, StockMovementType type, MovementOrigin origin,
+                                                  String quantity, String unitCost) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(material.getId());
+        request.setMovementType(type);
+        request.setMovementOrigin(origin);
+        request.setQuantity(new BigDecimal(quantity));
+        request.setUnitCost(unitCost != null ? new BigDecimal(unitCost) : null);
+        return request;
+    }
+}
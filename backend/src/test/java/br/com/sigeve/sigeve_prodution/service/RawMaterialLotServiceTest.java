@@ -0,0 +1,244 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.BulkMovementResultDTO;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialLotAllocationDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialLotDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.TransferRawMaterialDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateRawMaterialDTO;
+import br.com.sigeve.sigeve_prodution.enums.LotPickingPolicy;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lotes: entradas criam lotes com custo próprio e as saídas consomem na ordem FIFO ou FEFO, ou o lote informado.
+ */
+class RawMaterialLotServiceTest extends AbstractPostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RawMaterialLotServiceTest.class);
+
+    @Autowired
+    private RawMaterialLotService rawMaterialLotService;
+
+    @Autowired
+    private RawMaterialMovementService rawMaterialMovementService;
+
+    @Autowired
+    private RawMaterialMovementBulkService rawMaterialMovementBulkService;
+
+    @Autowired
+    private RawMaterialService rawMaterialService;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+    }
+
+    @Test
+    void fifoIssueConsumesTheOldestLotsAtTheirOwnCost() {
+        RawMaterial fabric = material("TEC", LotPickingPolicy.FIFO);
+        receive(fabric, null, "ROLO-1", LocalDate.of(2026, 1, 10), null, "40", "3");
+        receive(fabric, null, "ROLO-2", LocalDate.of(2026, 2, 10), null, "60", "5");
+
+        RawMaterialMovementDTO issue = issue(fabric, null, null, "50");
+
+        List<RawMaterialLotAllocationDTO> allocations = rawMaterialLotService.findAllocationsByMovement(issue.getId());
+        assertThat(allocations).extracting(RawMaterialLotAllocationDTO::getQuantity)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("40"), new BigDecimal("10"));
+        assertThat(allocations.stream().map(RawMaterialLotAllocationDTO::getTotalCost).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .isEqualByComparingTo("170");
+
+        List<RawMaterialLotDTO> open = rawMaterialLotService.findByRawMaterial(fabric.getId(), false);
+        assertThat(open).extracting(RawMaterialLotDTO::getLotNumber).containsExactly("ROLO-2");
+        assertThat(open.get(0).getRemainingQuantity()).isEqualByComparingTo("50");
+        assertThat(rawMaterialLotService.findByRawMaterial(fabric.getId(), true)).hasSize(2);
+    }
+
+    @Test
+    void fefoIssueConsumesTheLotThatExpiresFirst() {
+        RawMaterial dye = material("COR", LotPickingPolicy.FEFO);
+        receive(dye, null, "TINTA-A", LocalDate.of(2026, 1, 10), LocalDate.of(2027, 6, 30), "10", "8");
+        receive(dye, null, "TINTA-B", LocalDate.of(2026, 2, 10), LocalDate.of(2026, 12, 31), "10", "9");
+        receive(dye, null, "TINTA-C", LocalDate.of(2026, 3, 10), null, "10", "7");
+
+        RawMaterialMovementDTO issue = issue(dye, null, null, "4");
+
+        assertThat(issue.getLotNumber()).isEqualTo("TINTA-B");
+        assertThat(remaining(dye, "TINTA-B")).isEqualByComparingTo("6");
+        assertThat(remaining(dye, "TINTA-A")).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void explicitLotIsConsumedAndShortLotsAreRejected() {
+        RawMaterial fabric = material("TEC", LotPickingPolicy.FIFO);
+        receive(fabric, null, "ROLO-1", LocalDate.of(2026, 1, 10), null, "40", "3");
+        receive(fabric, null, "ROLO-2", LocalDate.of(2026, 2, 10), null, "60", "5");
+
+        issue(fabric, null, "ROLO-2", "15");
+        assertThat(remaining(fabric, "ROLO-1")).isEqualByComparingTo("40");
+        assertThat(remaining(fabric, "ROLO-2")).isEqualByComparingTo("45");
+
+        assertThatThrownBy(() -> issue(fabric, null, "ROLO-1", "41")).isInstanceOf(IllegalStateException.class);
+        assertThat(remaining(fabric, "ROLO-1")).isEqualByComparingTo("40");
+    }
+
+    @Test
+    void transferMovesLotsAndEnablingLotControlOpensTheCurrentStock() {
+        UUID cuttingRoom = UUID.randomUUID();
+        RawMaterial fabric = material("TEC", null);
+        receive(fabric, null, null, LocalDate.of(2026, 1, 10), null, "30", "4");
+
+        UpdateRawMaterialDTO update = new UpdateRawMaterialDTO();
+        update.setLotControl(true);
+        rawMaterialService.update(fabric.getId(), update, "tester");
+        assertThat(rawMaterialLotService.findByRawMaterial(fabric.getId(), false)).singleElement()
+                .satisfies(lot -> assertThat(lot.getRemainingQuantity()).isEqualByComparingTo("30"));
+
+        TransferRawMaterialDTO transfer = new TransferRawMaterialDTO();
+        transfer.setTenantId(tenantId);
+        transfer.setCompanyId(companyId);
+        transfer.setRawMaterialId(fabric.getId());
+        transfer.setToWarehouseId(cuttingRoom);
+        transfer.setQuantity(new BigDecimal("12"));
+        rawMaterialMovementService.transfer(transfer, "tester");
+
+        RawMaterialLotDTO moved = rawMaterialLotService.findByRawMaterial(fabric.getId(), false).stream()
+                .filter(lot -> cuttingRoom.equals(lot.getWarehouseId()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(moved.getRemainingQuantity()).isEqualByComparingTo("12");
+        assertThat(moved.getUnitCost()).isEqualByComparingTo("4");
+        assertThat(issue(fabric, cuttingRoom, null, "12").getLotNumber()).isEqualTo(moved.getLotNumber());
+    }
+
+    @Test
+    void mixedImportAppliesReceiptsAndIssuesInListOrder() {
+        RawMaterial fabric = material("TEC", LotPickingPolicy.FIFO);
+        receive(fabric, null, "ROLO-1", LocalDate.of(2026, 2, 10), null, "40", "3");
+
+        // A entrada retroativa ainda não existe para a primeira saída; a segunda já a consome primeiro (FIFO)
+        rawMaterialMovementBulkService.importMovements(List.of(
+                request(fabric, null, StockMovementType.OUT, null, LocalDate.of(2026, 3, 1), "30", null),
+                request(fabric, null, StockMovementType.IN, "ROLO-0", LocalDate.of(2026, 1, 10), "50", "2"),
+                request(fabric, null, StockMovementType.OUT, null, LocalDate.of(2026, 3, 1), "30", null)), "tester");
+
+        assertThat(remaining(fabric, "ROLO-1")).isEqualByComparingTo("10");
+        assertThat(remaining(fabric, "ROLO-0")).isEqualByComparingTo("20");
+
+        // Saída antes da entrada do próprio lote não enxerga esse lote
+        assertThatThrownBy(() -> rawMaterialMovementBulkService.importMovements(List.of(
+                request(fabric, null, StockMovementType.OUT, "ROLO-9", LocalDate.of(2026, 3, 2), "5", null),
+                request(fabric, null, StockMovementType.IN, "ROLO-9", LocalDate.of(2026, 3, 2), "5", "2")), "tester"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void twoHundredLineIssueIsAllocatedInOnePass() {
+        List<RawMaterial> materials = new ArrayList<>();
+        List<CreateRawMaterialMovementDTO> receipts = new ArrayList<>();
+        for (int m = 0; m < 20; m++) {
+            RawMaterial material = material("MP" + m, LotPickingPolicy.FIFO);
+            materials.add(material);
+            for (int lot = 0; lot < 50; lot++) {
+                receipts.add(request(material, null, StockMovementType.IN, "L" + m + "-" + lot,
+                        LocalDate.of(2026, 1, 1).plusDays(lot), "10", "2"));
+            }
+        }
+        rawMaterialMovementBulkService.importMovements(receipts, "tester");
+
+        // 10 linhas de 7 por matéria-prima: 70 de 500, atravessando sete lotes de cada uma
+        List<CreateRawMaterialMovementDTO> issues = new ArrayList<>();
+        for (int line = 0; line < 200; line++) {
+            issues.add(request(materials.get(line % 20), null, StockMovementType.OUT, null, LocalDate.of(2026, 3, 1), "7", null));
+        }
+        long startedAt = System.nanoTime();
+        BulkMovementResultDTO result = rawMaterialMovementBulkService.importMovements(issues, "tester");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        log.info("Saída de 200 linhas com alocação de lotes: {} ms", elapsedMillis);
+
+        assertThat(result.getImportedLines()).isEqualTo(200);
+        for (RawMaterial material : materials) {
+            List<RawMaterialLotDTO> open = rawMaterialLotService.findByRawMaterial(material.getId(), false);
+            assertThat(open).hasSize(43);
+            assertThat(open.get(0).getLotNumber()).isEqualTo(material.getCode().replace("MP", "L") + "-7");
+        }
+    }
+
+    private BigDecimal remaining(RawMaterial material, String lotNumber) {
+        return rawMaterialLotService.findByRawMaterial(material.getId(), true).stream()
+                .filter(lot -> lot.getLotNumber().equals(lotNumber))
+                .map(RawMaterialLotDTO::getRemainingQuantity)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void receive(RawMaterial material, UUID warehouseId, String lotNumber, LocalDate date, LocalDate expirationDate,
+                         String quantity, String unitCost) {
+        CreateRawMaterialMovementDTO request = request(material, warehouseId, StockMovementType.IN, lotNumber, date, quantity, unitCost);
+        request.setLotExpirationDate(expirationDate);
+        rawMaterialMovementService.create(request, "tester");
+    }
+
+    private RawMaterialMovementDTO issue(RawMaterial material, UUID warehouseId, String lotNumber, String quantity) {
+        return rawMaterialMovementService.create(
+                request(material, warehouseId, StockMovementType.OUT, lotNumber, LocalDate.of(2026, 3, 1), quantity, null), "tester");
+    }
+
+    private CreateRawMaterialMovementDTO request(RawMaterial material, UUID warehouseId, StockMovementType type, String lotNumber,
+                                                 LocalDate date, String quantity, String unitCost) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(material.getId());
+        request.setWarehouseId(warehouseId);
+        request.setMovementType(type);
+        request.setMovementOrigin(type == StockMovementType.IN ? MovementOrigin.PURCHASE : MovementOrigin.PRODUCTION);
+        request.setLotNumber(lotNumber);
+        request.setMovementDate(date);
+        request.setQuantity(new BigDecimal(quantity));
+        request.setUnitCost(unitCost != null ? new BigDecimal(unitCost) : null);
+        return request;
+    }
+
+    private RawMaterial material(String code, LotPickingPolicy policy) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        material.setLotControl(policy != null);
+        if (policy != null) {
+            material.setLotPickingPolicy(policy);
+        }
+        return rawMaterialRepository.save(material);
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.LowStockDTO;
+import br.com.sigeve.sigeve_prodution.enums.LowStockBasis;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Estoque baixo pelo limite de cada matéria-prima, com o disponível calculado como quantidade - reservado.
+ */
+class RawMaterialLowStockTest extends AbstractPostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RawMaterialLowStockTest.class);
+
+    @Autowired
+    private RawMaterialStockService rawMaterialStockService;
+
+    @Autowired
+    private RawMaterialMovementService rawMaterialMovementService;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID tenantId;
+    private UUID companyId;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+    }
+
+    @Test
+    void eachMaterialIsComparedWithItsOwnLimit() {
+        // Tecido: 15 m com 3 reservados (disponível 12), ponto de pedido 20 e mínimo 10
+        RawMaterial fabric = material("TEC", "20", "10");
+        receive(fabric, "15");
+        jdbcTemplate.update("UPDATE tab_raw_material_stocks SET reserved_quantity = 3 WHERE raw_material_id = ?", fabric.getId());
+        // Botão: 3 un, só mínimo 5; linha: sem limites
+        receive(material("BOT", null, "5"), "3");
+        receive(material("LIN", null, null), "1");
+
+        List<LowStockDTO> byReorderPoint = rawMaterialStockService.findBelowMaterialLimit(companyId, LowStockBasis.REORDER_POINT);
+        assertThat(byReorderPoint).extracting(LowStockDTO::getRawMaterialCode).containsExactly("BOT", "TEC");
+        LowStockDTO fabricRow = byReorderPoint.get(1);
+        assertThat(fabricRow.getAvailableQuantity()).isEqualByComparingTo("12");
+        assertThat(fabricRow.getThreshold()).isEqualByComparingTo("20");
+        assertThat(fabricRow.getShortage()).isEqualByComparingTo("8");
+
+        assertThat(rawMaterialStockService.findBelowMaterialLimit(companyId, LowStockBasis.MIN_STOCK))
+                .extracting(LowStockDTO::getRawMaterialCode).containsExactly("BOT");
+    }
+
+    @Test
+    void fiftyThousandMaterialsAreFilteredInTheDatabase() {
+        // Um a cada dez materiais tem ponto de pedido 100; saldo = i mod 200 → 11 de cada 20 desses abaixo do limite
+        jdbcTemplate.update(
+                "INSERT INTO tab_raw_materials (raw_material_id, tenant_id, company_id, code, name, unit_type, " +
+                "stock_control, is_active, average_cost, reorder_point, version, created_at) " +
+                "SELECT gen_random_uuid(), ?, ?, 'MP' || lpad(i::text, 6, '0'), 'Material ' || i, 'UN', true, true, 0, " +
+                "CASE WHEN i % 10 = 0 THEN 100 END, 1, now() FROM generate_series(1, 50000) i",
+                tenantId, companyId);
+        jdbcTemplate.update(
+                "INSERT INTO tab_raw_material_stocks (raw_material_stock_id, tenant_id, company_id, raw_material_id, " +
+                "quantity, reserved_quantity, created_at) " +
+                "SELECT gen_random_uuid(), tenant_id, company_id, raw_material_id, substring(code, 3)::int % 200, 0, now() " +
+                "FROM tab_raw_materials WHERE company_id = ?",
+                companyId);
+        jdbcTemplate.execute("ANALYZE tab_raw_materials");
+        jdbcTemplate.execute("ANALYZE tab_raw_material_stocks");
+
+        rawMaterialStockService.findBelowMaterialLimit(companyId, LowStockBasis.REORDER_POINT);
+        long startedAt = System.nanoTime();
+        List<LowStockDTO> rows = rawMaterialStockService.findBelowMaterialLimit(companyId, LowStockBasis.REORDER_POINT);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        log.info("Estoque baixo de 50.000 matérias-primas: {} linhas em {} ms", rows.size(), elapsedMillis);
+
+        assertThat(rows).hasSize(2750);
+        assertThat(rows).allSatisfy(row -> assertThat(row.getAvailableQuantity()).isLessThanOrEqualTo(row.getThreshold()));
+    }
+
+    private void receive(RawMaterial material, String quantity) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(material.getId());
+        request.setMovementType(StockMovementType.IN);
+        request.setMovementOrigin(MovementOrigin.PURCHASE);
+        request.setQuantity(new BigDecimal(quantity));
+        rawMaterialMovementService.create(request, "tester");
+    }
+
+    private RawMaterial material(String code, String reorderPoint, String minStock) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        material.setReorderPoint(reorderPoint != null ? new BigDecimal(reorderPoint) : null);
+        material.setMinStock(minStock != null ? new BigDecimal(minStock) : null);
+        return rawMaterialRepository.save(material);
+    }
+}
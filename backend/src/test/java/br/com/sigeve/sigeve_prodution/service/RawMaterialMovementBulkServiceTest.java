@@ -0,0 +1,169 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.BulkMovementResultDTO;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialMovementRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importação em lote: tudo ou nada, uma variação líquida de saldo por matéria-prima.
+ */
+class RawMaterialMovementBulkServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private RawMaterialMovementBulkService rawMaterialMovementBulkService;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    @Autowired
+    private RawMaterialStockRepository rawMaterialStockRepository;
+
+    @Autowired
+    private RawMaterialMovementRepository rawMaterialMovementRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private RawMaterial fabric;
+    private RawMaterial thread;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        fabric = material("TEC");
+        thread = material("LIN");
+    }
+
+    @Test
+    void largeReceiptIsPostedInOneTransaction() {
+        // 5.000 linhas: 4.000 entradas de tecido (1,5 m) e 1.000 saídas de linha (2 m) após entrada de 3.000 m
+        List<CreateRawMaterialMovementDTO> requests = new ArrayList<>();
+        requests.add(movement(thread, StockMovementType.IN, "3000"));
+        for (int i = 0; i < 4000; i++) {
+            requests.add(movement(fabric, StockMovementType.IN, "1.5"));
+        }
+        for (int i = 0; i < 999; i++) {
+            requests.add(movement(thread, StockMovementType.OUT, "2"));
+        }
+
+        BulkMovementResultDTO result = rawMaterialMovementBulkService.importMovements(requests, "tester");
+
+        assertThat(result.getCommitted()).isTrue();
+        assertThat(result.getImportedLines()).isEqualTo(5000);
+        assertThat(result.getAffectedMaterials()).isEqualTo(2);
+        assertThat(result.getLines()).allSatisfy(line -> assertThat(line.getMovementId()).isNotNull());
+        assertThat(rawMaterialMovementRepository.findByCompanyIdOrderByMovementDateDesc(companyId)).hasSize(5000);
+        assertThat(quantityOf(fabric)).isEqualByComparingTo("6000");
+        assertThat(quantityOf(thread)).isEqualByComparingTo("1002");
+    }
+
+    @Test
+    void anyInvalidLineRejectsTheWholeImport() {
+        CreateRawMaterialMovementDTO withoutQuantity = movement(fabric, StockMovementType.IN, "1");
+        withoutQuantity.setQuantity(null);
+        CreateRawMaterialMovementDTO unknownMaterial = movement(fabric, StockMovementType.IN, "1");
+        unknownMaterial.setRawMaterialId(UUID.randomUUID());
+
+        BulkMovementResultDTO result = rawMaterialMovementBulkService.importMovements(List.of(
+                movement(fabric, StockMovementType.IN, "10"), withoutQuantity, unknownMaterial), "tester");
+
+        assertThat(result.getCommitted()).isFalse();
+        assertThat(result.getRejectedLines()).isEqualTo(2);
+        assertThat(result.getLines().get(0).getSuccess()).isTrue();
+        assertThat(result.getLines().get(1).getError()).contains("Quantidade");
+        assertThat(result.getLines().get(2).getError()).contains("não encontrada");
+        assertThat(rawMaterialMovementRepository.findByCompanyIdOrderByMovementDateDesc(companyId)).isEmpty();
+        assertThat(rawMaterialStockRepository.findByCompanyId(companyId)).isEmpty();
+    }
+
+    @Test
+    void csvWithSemicolonsAndDecimalCommaResolvesMaterialCodes() throws Exception {
+        String csv = "rawMaterialCode;movementType;movementOrigin;quantity;unitCost;documentNumber\n" +
+                "TEC;IN;PURCHASE;1.250,5;12,30;NF-1\n" +
+                "LIN;in;purchase;100;0,05;NF-1\n" +
+                "\n" +
+                "TEC;OUT;ADJUSTMENT;0,5;;\n";
+
+        BulkMovementResultDTO result = rawMaterialMovementBulkService.importCsv(tenantId, companyId, new StringReader(csv), "tester");
+
+        assertThat(result.getCommitted()).isTrue();
+        assertThat(result.getLines()).extracting("line").containsExactly(2, 3, 5);
+        assertThat(quantityOf(fabric)).isEqualByComparingTo("1250");
+        assertThat(quantityOf(thread)).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void csvReportsUnparseableLinesByFileLine() throws Exception {
+        String csv = "rawMaterialId,movementType,movementOrigin,quantity\n" +
+                fabric.getId() + ",IN,PURCHASE,10\n" +
+                fabric.getId() + ",SIDEWAYS,PURCHASE,10\n";
+
+        BulkMovementResultDTO result = rawMaterialMovementBulkService.importCsv(tenantId, companyId, new StringReader(csv), "tester");
+
+        assertThat(result.getCommitted()).isFalse();
+        assertThat(result.getLines().get(1).getLine()).isEqualTo(3);
+        assertThat(result.getLines().get(1).getError()).contains("SIDEWAYS");
+        assertThat(rawMaterialStockRepository.findByCompanyId(companyId)).isEmpty();
+    }
+
+    @Test
+    void csvRejectsTransferLegs() throws Exception {
+        String csv = "rawMaterialId,movementType,movementOrigin,quantity,warehouseId\n" +
+                fabric.getId() + ",IN,PURCHASE,10,\n" +
+                fabric.getId() + ",OUT,TRANSFER,4,\n" +
+                fabric.getId() + ",IN,TRANSFER,4," + UUID.randomUUID() + "\n";
+
+        BulkMovementResultDTO result = rawMaterialMovementBulkService.importCsv(tenantId, companyId, new StringReader(csv), "tester");
+
+        assertThat(result.getCommitted()).isFalse();
+        assertThat(result.getRejectedLines()).isEqualTo(2);
+        assertThat(result.getLines().get(1).getError()).contains("Transferências");
+        assertThat(result.getLines().get(2).getError()).contains("Transferências");
+        assertThat(rawMaterialStockRepository.findByCompanyId(companyId)).isEmpty();
+    }
+
+    private BigDecimal quantityOf(RawMaterial material) {
+        return rawMaterialStockRepository.findByCompanyIdAndRawMaterialIdAndWarehouseId(companyId, material.getId(), null)
+                .orElseThrow()
+                .getQuantity();
+    }
+
+    private RawMaterial material(String code) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        return rawMaterialRepository.save(material);
+    }
+
+    private CreateRawMaterialMovementDTO movement(RawMaterial material, StockMovementType type, String quantity) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(material.getId());
+        request.setMovementType(type);
+        request.setMovementOrigin(type == StockMovementType.IN ? MovementOrigin.PURCHASE : MovementOrigin.ADJUSTMENT);
+        request.setQuantity(new BigDecimal(quantity));
+        return request;
+    }
+}
@@ -0,0 +1,174 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.CursorPageDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementFilterDTO;
+import br.com.sigeve.sigeve_prodution.enums.ExportFormat;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Histórico paginado por keyset e exportação em streaming: 60 movimentos, três por dia em janeiro
+ * (vários na mesma data, para exercitar o desempate por ID), alternando tecido e linha.
+ */
+class RawMaterialMovementHistoryTest extends AbstractPostgresIntegrationTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+
+    @Autowired
+    private RawMaterialMovementService rawMaterialMovementService;
+
+    @Autowired
+    private RawMaterialMovementBulkService rawMaterialMovementBulkService;
+
+    @Autowired
+    private RawMaterialMovementExportService rawMaterialMovementExportService;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private RawMaterial fabric;
+    private RawMaterial thread;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        fabric = material("TEC");
+        thread = material("LIN");
+
+        List<CreateRawMaterialMovementDTO> requests = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+            request.setTenantId(tenantId);
+            request.setCompanyId(companyId);
+            request.setRawMaterialId(i % 2 == 0 ? fabric.getId() : thread.getId());
+            request.setMovementType(StockMovementType.IN);
+            request.setMovementOrigin(i % 3 == 0 ? MovementOrigin.ADJUSTMENT : MovementOrigin.PURCHASE);
+            request.setMovementDate(FIRST_DAY.plusDays(i / 3));
+            request.setQuantity(BigDecimal.ONE);
+            request.setNotes(i == 0 ? "conferência, \"lote A\"" : null);
+            requests.add(request);
+        }
+        rawMaterialMovementBulkService.importMovements(requests, "tester");
+    }
+
+    @Test
+    void keysetPagesVisitEveryMovementOnceNewestFirst() {
+        RawMaterialMovementFilterDTO filter = filter();
+        List<RawMaterialMovementDTO> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageDTO<RawMaterialMovementDTO> page = rawMaterialMovementService.findPage(filter, cursor, 7);
+            all.addAll(page.getContent());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(9);
+        assertThat(all).hasSize(60);
+        Set<UUID> ids = new HashSet<>();
+        all.forEach(movement -> ids.add(movement.getId()));
+        assertThat(ids).hasSize(60);
+        for (int i = 1; i < all.size(); i++) {
+            assertThat(all.get(i).getMovementDate()).isBeforeOrEqualTo(all.get(i - 1).getMovementDate());
+        }
+    }
+
+    @Test
+    void filtersByMaterialOriginAndInclusiveDateRange() {
+        RawMaterialMovementFilterDTO filter = filter();
+        filter.setRawMaterialId(fabric.getId());
+        filter.setMovementOrigin(MovementOrigin.PURCHASE);
+        filter.setDateFrom(FIRST_DAY.plusDays(2));
+        filter.setDateTo(FIRST_DAY.plusDays(5));
+
+        // Dias 3 a 6: movimentos 6..17; tecido (par) e compra (não múltiplo de 3) = 8, 10, 14, 16
+        List<RawMaterialMovementDTO> content = rawMaterialMovementService.findPage(filter, null, 100).getContent();
+
+        assertThat(content).hasSize(4).allSatisfy(movement -> {
+            assertThat(movement.getRawMaterialId()).isEqualTo(fabric.getId());
+            assertThat(movement.getMovementOrigin()).isEqualTo(MovementOrigin.PURCHASE);
+        });
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThatThrownBy(() -> rawMaterialMovementService.findPage(filter(), "não-é-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void csvExportStreamsEveryRowWithQuotedText() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = rawMaterialMovementExportService.export(filter(), ExportFormat.CSV, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(exported).isEqualTo(60);
+        assertThat(lines).hasSize(61);
+        assertThat(lines[0]).startsWith("id,movementDate,rawMaterialId");
+        assertThat(output.toString(StandardCharsets.UTF_8)).contains(",\"conferência, \"\"lote A\"\"\",");
+    }
+
+    @Test
+    void ndjsonExportWritesOneObjectPerLine() throws Exception {
+        RawMaterialMovementFilterDTO filter = filter();
+        filter.setRawMaterialId(thread.getId());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = rawMaterialMovementExportService.export(filter, ExportFormat.NDJSON, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(exported).isEqualTo(30);
+        assertThat(lines).hasSize(30);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("rawMaterialId").asText()).isEqualTo(thread.getId().toString());
+        assertThat(first.get("quantity").decimalValue()).isEqualByComparingTo("1");
+    }
+
+    private RawMaterialMovementFilterDTO filter() {
+        RawMaterialMovementFilterDTO filter = new RawMaterialMovementFilterDTO();
+        filter.setCompanyId(companyId);
+        return filter;
+    }
+
+    private RawMaterial material(String code) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        return rawMaterialRepository.save(material);
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialStock;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Saldo de estoque atualizado por upsert atômico: sem lançamento em dobro e sem perda de atualização.
+ */
+class RawMaterialStockServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private RawMaterialMovementService rawMaterialMovementService;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    @Autowired
+    private RawMaterialStockRepository rawMaterialStockRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private RawMaterial fabric;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+
+        fabric = new RawMaterial();
+        fabric.setTenantId(tenantId);
+        fabric.setCompanyId(companyId);
+        fabric.setCode("TEC");
+        fabric.setName("Tecido");
+        fabric.setUnitType(UnitType.M);
+        fabric = rawMaterialRepository.save(fabric);
+    }
+
+    @Test
+    void eachMovementIsPostedExactlyOnce() {
+        rawMaterialMovementService.create(movement(StockMovementType.IN, "10"), "tester");
+        rawMaterialMovementService.create(movement(StockMovementType.OUT, "3"), "tester");
+
+        assertThat(rawMaterialStockRepository.findByCompanyId(companyId)).hasSize(1);
+        RawMaterialStock stock = stock();
+        assertThat(stock.getQuantity()).isEqualByComparingTo("7");
+        assertThat(stock.getLastMovementDate()).isNotNull();
+    }
+
+    @Test
+    void concurrentMovementsKeepTheBalanceExact() throws Exception {
+        // 600 entradas de 2 m e 400 saídas de 1 m em paralelo: saldo final 800 m numa única linha
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            CreateRawMaterialMovementDTO request = i % 5 < 3
+                    ? movement(StockMovementType.IN, "2")
+                    : movement(StockMovementType.OUT, "1");
+            results.add(executor.submit(() -> rawMaterialMovementService.create(request, "tester")));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        assertThat(rawMaterialStockRepository.findByCompanyId(companyId)).hasSize(1);
+        assertThat(stock().getQuantity()).isEqualByComparingTo("800");
+    }
+
+    private RawMaterialStock stock() {
+        return rawMaterialStockRepository.findByCompanyIdAndRawMaterialIdAndWarehouseId(companyId, fabric.getId(), null)
+                .orElseThrow();
+    }
+
+    private CreateRawMaterialMovementDTO movement(StockMovementType type, String quantity) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(fabric.getId());
+        request.setMovementType(type);
+        request.setMovementOrigin(type == StockMovementType.IN ? MovementOrigin.PURCHASE : MovementOrigin.ADJUSTMENT);
+        request.setQuantity(new BigDecimal(quantity));
+        return request;
+    }
+}
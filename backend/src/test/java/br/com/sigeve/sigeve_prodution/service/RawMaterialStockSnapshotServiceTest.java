@@ -0,0 +1,163 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.StockBalanceDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialStockSnapshot;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Saldo em data: de janeiro a abril de 2026 entram 10 m de tecido (R$ 2/m) por dia e saem 4 m a cada
+ * dia 15; a linha só tem uma entrada de 100 m em março.
+ */
+class RawMaterialStockSnapshotServiceTest extends AbstractPostgresIntegrationTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+    private static final LocalDate LAST_DAY = LocalDate.of(2026, 4, 30);
+
+    @Autowired
+    private RawMaterialStockSnapshotService rawMaterialStockSnapshotService;
+
+    @Autowired
+    private RawMaterialMovementBulkService rawMaterialMovementBulkService;
+
+    @Autowired
+    private RawMaterialMovementService rawMaterialMovementService;
+
+    @Autowired
+    private RawMaterialStockSnapshotRepository rawMaterialStockSnapshotRepository;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private RawMaterial fabric;
+    private RawMaterial thread;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        fabric = material("TEC");
+        thread = material("LIN");
+
+        List<CreateRawMaterialMovementDTO> requests = new ArrayList<>();
+        for (LocalDate day = FIRST_DAY; !day.isAfter(LAST_DAY); day = day.plusDays(1)) {
+            requests.add(movement(fabric, StockMovementType.IN, "10", day));
+            if (day.getDayOfMonth() == 15) {
+                requests.add(movement(fabric, StockMovementType.OUT, "4", day));
+            }
+        }
+        requests.add(movement(thread, StockMovementType.IN, "100", LocalDate.of(2026, 3, 20)));
+        rawMaterialMovementBulkService.importMovements(requests, "tester");
+    }
+
+    @Test
+    void balanceWithoutSnapshotsSumsTheLedger() {
+        StockBalanceDTO balance = rawMaterialStockSnapshotService
+                .findBalanceAsOf(companyId, fabric.getId(), LocalDate.of(2026, 2, 15)).orElseThrow();
+
+        // 46 dias de entrada e duas saídas
+        assertThat(balance.getQuantity()).isEqualByComparingTo("452");
+        assertThat(balance.getTotalValue()).isEqualByComparingTo("904");
+        assertThat(balance.getBaseSnapshotDate()).isNull();
+        assertThat(balance.getMovementsAfterSnapshot()).isEqualTo(48);
+    }
+
+    @Test
+    void snapshotsAreWrittenIncrementallyAndUsedAsBase() {
+        int written = rawMaterialStockSnapshotService.createMissingSnapshots(companyId, LocalDate.of(2026, 5, 10));
+
+        // Tecido em jan, fev, mar e abr; linha a partir de março
+        assertThat(written).isEqualTo(6);
+        assertThat(rawMaterialStockSnapshotService.createMissingSnapshots(companyId, LocalDate.of(2026, 5, 10))).isZero();
+        assertThat(quantityOf(rawMaterialStockSnapshotRepository.findByCompanyIdAndSnapshotDate(companyId, LocalDate.of(2026, 4, 30)), fabric))
+                .isEqualByComparingTo("1184");
+
+        StockBalanceDTO balance = rawMaterialStockSnapshotService
+                .findBalanceAsOf(companyId, fabric.getId(), LocalDate.of(2026, 3, 16)).orElseThrow();
+        assertThat(balance.getBaseSnapshotDate()).isEqualTo(LocalDate.of(2026, 2, 28));
+        assertThat(balance.getMovementsAfterSnapshot()).isEqualTo(17);
+        assertThat(balance.getQuantity()).isEqualByComparingTo(expectedFabric(LocalDate.of(2026, 3, 16)));
+
+        List<StockBalanceDTO> all = rawMaterialStockSnapshotService.findBalancesAsOf(companyId, LocalDate.of(2026, 6, 1));
+        assertThat(all).extracting(StockBalanceDTO::getRawMaterialCode).containsExactly("LIN", "TEC");
+        assertThat(all.get(0).getQuantity()).isEqualByComparingTo("100");
+        assertThat(all.get(1).getQuantity()).isEqualByComparingTo("1184");
+    }
+
+    @Test
+    void backdatedMovementDiscardsLaterSnapshotsUntilTheyAreRebuilt() {
+        rawMaterialStockSnapshotService.createMissingSnapshots(companyId, LocalDate.of(2026, 5, 10));
+
+        rawMaterialMovementService.create(movement(fabric, StockMovementType.OUT, "50", LocalDate.of(2026, 2, 10)), "tester");
+
+        assertThat(rawMaterialStockSnapshotRepository.findLatestSnapshotDate(companyId)).contains(LocalDate.of(2026, 1, 31));
+        StockBalanceDTO balance = rawMaterialStockSnapshotService
+                .findBalanceAsOf(companyId, fabric.getId(), LocalDate.of(2026, 4, 30)).orElseThrow();
+        assertThat(balance.getQuantity()).isEqualByComparingTo("1134");
+
+        rawMaterialStockSnapshotService.createMissingSnapshots(companyId, LocalDate.of(2026, 5, 10));
+        assertThat(quantityOf(rawMaterialStockSnapshotRepository.findByCompanyIdAndSnapshotDate(companyId, LocalDate.of(2026, 4, 30)), fabric))
+                .isEqualByComparingTo("1134");
+    }
+
+    private static BigDecimal expectedFabric(LocalDate asOf) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (LocalDate day = FIRST_DAY; !day.isAfter(asOf); day = day.plusDays(1)) {
+            total = total.add(BigDecimal.TEN);
+            if (day.getDayOfMonth() == 15) {
+                total = total.subtract(BigDecimal.valueOf(4));
+            }
+        }
+        return total;
+    }
+
+    private static BigDecimal quantityOf(List<RawMaterialStockSnapshot> snapshots, RawMaterial material) {
+        return snapshots.stream()
+                .filter(snapshot -> snapshot.getRawMaterialId().equals(material.getId()))
+                .findFirst()
+                .orElseThrow()
+                .getQuantity();
+    }
+
+    private RawMaterial material(String code) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        return rawMaterialRepository.save(material);
+    }
+
+    private CreateRawMaterialMovementDTO movement(RawMaterial material, StockMovementType type, String quantity, LocalDate date) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(material.getId());
+        request.setMovementType(type);
+        request.setMovementOrigin(type == StockMovementType.IN ? MovementOrigin.PURCHASE : MovementOrigin.PRODUCTION);
+        request.setMovementDate(date);
+        request.setQuantity(new BigDecimal(quantity));
+        request.setUnitCost(new BigDecimal("2"));
+        return request;
+    }
+}
@@ -0,0 +1,189 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialStockDTO;
+import br.com.sigeve.sigeve_prodution.dto.RawMaterialStockTotalDTO;
+import br.com.sigeve.sigeve_prodution.dto.TransferRawMaterialDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Estoque por depósito: dois cortes (A e B) além do estoque padrão, transferências em par e saldo consolidado.
+ */
+class RawMaterialWarehouseStockTest extends AbstractPostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RawMaterialWarehouseStockTest.class);
+
+    @Autowired
+    private RawMaterialMovementService rawMaterialMovementService;
+
+    @Autowired
+    private RawMaterialStockService rawMaterialStockService;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private UUID cuttingRoomA;
+    private UUID cuttingRoomB;
+    private RawMaterial fabric;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        cuttingRoomA = UUID.randomUUID();
+        cuttingRoomB = UUID.randomUUID();
+        fabric = material("TEC");
+    }
+
+    @Test
+    void movementsArePostedPerWarehouseAndRolledUpPerCompany() {
+        receive(null, "10", "2");
+        receive(cuttingRoomA, "30", "2");
+        receive(cuttingRoomB, "20", "2");
+        issue(cuttingRoomA, "5");
+
+        assertThat(quantity(cuttingRoomA)).isEqualByComparingTo("25");
+        assertThat(quantity(cuttingRoomB)).isEqualByComparingTo("20");
+        assertThat(rawMaterialStockService.findByRawMaterialPerWarehouse(fabric.getId())).hasSize(3);
+
+        RawMaterialStockDTO consolidated = rawMaterialStockService.findByRawMaterial(fabric.getId()).orElseThrow();
+        assertThat(consolidated.getWarehouseId()).isNull();
+        assertThat(consolidated.getQuantity()).isEqualByComparingTo("55");
+
+        RawMaterialStockTotalDTO total = rawMaterialStockService.findTotals(companyId).get(0);
+        assertThat(total.getQuantity()).isEqualByComparingTo("55");
+        assertThat(total.getLocationCount()).isEqualTo(3);
+    }
+
+    @Test
+    void transferPostsAPairedMovementAndKeepsTheAverageCost() {
+        receive(cuttingRoomA, "30", "2");
+        receive(null, "10", "5");
+
+        List<RawMaterialMovementDTO> movements = rawMaterialMovementService.transfer(transfer(cuttingRoomA, cuttingRoomB, "12"), "tester");
+
+        assertThat(movements).extracting(RawMaterialMovementDTO::getMovementType)
+                .containsExactly(StockMovementType.OUT, StockMovementType.IN);
+        assertThat(movements).extracting(RawMaterialMovementDTO::getMovementOrigin).containsOnly(MovementOrigin.TRANSFER);
+        assertThat(movements.get(0).getOriginId()).isNotNull().isEqualTo(movements.get(1).getOriginId());
+        assertThat(quantity(cuttingRoomA)).isEqualByComparingTo("18");
+        assertThat(quantity(cuttingRoomB)).isEqualByComparingTo("12");
+        // (30 x 2 + 10 x 5) / 40; a transferência não altera o custo
+        assertThat(rawMaterialRepository.findById(fabric.getId()).orElseThrow().getAverageCost()).isEqualByComparingTo("2.75");
+    }
+
+    @Test
+    void transferWithoutAvailableStockIsRejectedAsAWhole() {
+        receive(cuttingRoomA, "5", "2");
+
+        assertThatThrownBy(() -> rawMaterialMovementService.transfer(transfer(cuttingRoomA, cuttingRoomB, "8"), "tester"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> rawMaterialMovementService.transfer(transfer(cuttingRoomA, cuttingRoomA, "1"), "tester"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(quantity(cuttingRoomA)).isEqualByComparingTo("5");
+        assertThat(rawMaterialStockService.findByWarehouse(companyId, cuttingRoomB)).isEmpty();
+    }
+
+    @Test
+    void concurrentOppositeTransfersDoNotDeadlock() throws Exception {
+        receive(cuttingRoomA, "1000", "2");
+        receive(cuttingRoomB, "1000", "2");
+
+        int transfers = 400;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < transfers; i++) {
+            TransferRawMaterialDTO request = i % 2 == 0
+                    ? transfer(cuttingRoomA, cuttingRoomB, "1")
+                    : transfer(cuttingRoomB, cuttingRoomA, "1");
+            results.add(executor.submit(() -> rawMaterialMovementService.transfer(request, "tester")));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        executor.shutdown();
+        log.info("{} transferências concorrentes em sentidos opostos: {} ms", transfers, elapsedMillis);
+
+        assertThat(quantity(cuttingRoomA)).isEqualByComparingTo("1000");
+        assertThat(quantity(cuttingRoomB)).isEqualByComparingTo("1000");
+    }
+
+    private BigDecimal quantity(UUID warehouseId) {
+        return rawMaterialStockService.findByWarehouse(companyId, warehouseId).stream()
+                .filter(stock -> stock.getRawMaterialId().equals(fabric.getId()))
+                .map(RawMaterialStockDTO::getQuantity)
+                .findFirst()
+                .orElse(BigDecimal.ZERO);
+    }
+
+    private void receive(UUID warehouseId, String quantity, String unitCost) {
+        CreateRawMaterialMovementDTO request = movement(warehouseId, StockMovementType.IN, MovementOrigin.PURCHASE, quantity);
+        request.setUnitCost(new BigDecimal(unitCost));
+        rawMaterialMovementService.create(request, "tester");
+    }
+
+    private void issue(UUID warehouseId, String quantity) {
+        rawMaterialMovementService.create(movement(warehouseId, StockMovementType.OUT, MovementOrigin.PRODUCTION, quantity), "tester");
+    }
+
+    private CreateRawMaterialMovementDTO movement(UUID warehouseId, StockMovementType type, MovementOrigin origin, String quantity) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(fabric.getId());
+        request.setWarehouseId(warehouseId);
+        request.setMovementType(type);
+        request.setMovementOrigin(origin);
+        request.setQuantity(new BigDecimal(quantity));
+        return request;
+    }
+
+    private TransferRawMaterialDTO transfer(UUID from, UUID to, String quantity) {
+        TransferRawMaterialDTO request = new TransferRawMaterialDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(fabric.getId());
+        request.setFromWarehouseId(from);
+        request.setToWarehouseId(to);
+        request.setQuantity(new BigDecimal(quantity));
+        return request;
+    }
+
+    private RawMaterial material(String code) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        return rawMaterialRepository.save(material);
+    }
+}
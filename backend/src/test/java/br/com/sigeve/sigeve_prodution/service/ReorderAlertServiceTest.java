@@ -0,0 +1,101 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.ReorderAlertDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Alertas de ponto de pedido: tecido com ponto de pedido 20 (mínimo 10), botão só com mínimo 5
+ * e linha sem limites, que nunca entra em alerta.
+ */
+class ReorderAlertServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private ReorderAlertService reorderAlertService;
+
+    @Autowired
+    private RawMaterialMovementService rawMaterialMovementService;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private RawMaterial fabric;
+    private RawMaterial button;
+    private RawMaterial thread;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        fabric = material("TEC", "20", "10");
+        button = material("BOT", null, "5");
+        thread = material("LIN", null, null);
+
+        post(fabric, StockMovementType.IN, "30");
+        post(button, StockMovementType.IN, "3");
+        post(thread, StockMovementType.IN, "1");
+    }
+
+    @Test
+    void initialLoadEvaluatesEachMaterialAgainstItsOwnThreshold() {
+        assertThat(reorderAlertService.findAlerts(companyId))
+                .extracting(ReorderAlertDTO::getRawMaterialCode)
+                .containsExactly("BOT");
+    }
+
+    @Test
+    void postedMovementsRaiseAndClearAlerts() {
+        reorderAlertService.findAlerts(companyId);
+
+        // 30 - 15 = 15, abaixo do ponto de pedido 20
+        post(fabric, StockMovementType.OUT, "15");
+        assertThat(reorderAlertService.findAlerts(companyId))
+                .extracting(ReorderAlertDTO::getRawMaterialCode)
+                .containsExactly("BOT", "TEC");
+        ReorderAlertDTO alert = reorderAlertService.findAlerts(companyId).get(1);
+        assertThat(alert.getAvailableQuantity()).isEqualByComparingTo("15");
+        assertThat(alert.getReorderPoint()).isEqualByComparingTo("20");
+
+        post(fabric, StockMovementType.IN, "10");
+        post(button, StockMovementType.IN, "10");
+        assertThat(reorderAlertService.findAlerts(companyId)).isEmpty();
+    }
+
+    private void post(RawMaterial material, StockMovementType type, String quantity) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(material.getId());
+        request.setMovementType(type);
+        request.setMovementOrigin(type == StockMovementType.IN ? MovementOrigin.PURCHASE : MovementOrigin.PRODUCTION);
+        request.setQuantity(new BigDecimal(quantity));
+        rawMaterialMovementService.create(request, "tester");
+    }
+
+    private RawMaterial material(String code, String reorderPoint, String minStock) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        material.setReorderPoint(reorderPoint != null ? new BigDecimal(reorderPoint) : null);
+        material.setMinStock(minStock != null ? new BigDecimal(minStock) : null);
+        return rawMaterialRepository.save(material);
+    }
+}
@@ -0,0 +1,308 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionOrderDTO;
+import br.com.sigeve.sigeve_prodution.enums.CompositionItemType;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.enums.ReservationStatus;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.Composition;
+import br.com.sigeve.sigeve_prodution.model.CompositionItem;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialMovement;
+import br.com.sigeve.sigeve_prodution.model.RawMaterialStock;
+import br.com.sigeve.sigeve_prodution.model.StockReservation;
+import br.com.sigeve.sigeve_prodution.repository.CompositionItemRepository;
+import br.com.sigeve.sigeve_prodution.repository.CompositionRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialMovementRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialStockRepository;
+import br.com.sigeve.sigeve_prodution.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Reservas no ciclo de vida da ordem: cada camisa consome 2 m de tecido e 10 m de linha.
+ */
+class StockReservationServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private ProductionOrderService productionOrderService;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private CompositionRepository compositionRepository;
+
+    @Autowired
+    private CompositionItemRepository compositionItemRepository;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    @Autowired
+    private RawMaterialStockRepository rawMaterialStockRepository;
+
+    @Autowired
+    private RawMaterialMovementRepository rawMaterialMovementRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private ProductionProduct shirt;
+    private RawMaterial fabric;
+    private RawMaterial thread;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+
+        fabric = material("TEC");
+        thread = material("LIN");
+        stock(fabric, "100");
+        stock(thread, "1000");
+
+        shirt = new ProductionProduct();
+        shirt.setTenantId(tenantId);
+        shirt.setCompanyId(companyId);
+        shirt.setDescription("Camisa");
+        shirt = productionProductRepository.save(shirt);
+
+        Composition composition = new Composition();
+        composition.setTenantId(tenantId);
+        composition.setCompanyId(companyId);
+        composition.setProductionProductId(shirt.getId());
+        composition.setName("Camisa");
+        composition = compositionRepository.save(composition);
+        item(composition, fabric, "2");
+        item(composition, thread, "10");
+    }
+
+    @Test
+    void startReservesAndFinishConvertsReservationsIntoMovements() {
+        ProductionOrder order = order("OP-1", "30");
+
+        productionOrderService.start(order.getId(), "tester");
+
+        assertThat(stockOf(fabric).getReservedQuantity()).isEqualByComparingTo("60");
+        assertThat(stockOf(thread).getReservedQuantity()).isEqualByComparingTo("300");
+        assertThat(stockReservationRepository.findByProductionOrderIdAndStatus(order.getId(), ReservationStatus.ACTIVE)).hasSize(2);
+
+        productionOrderService.finish(order.getId(), "tester");
+
+        RawMaterialStock fabricStock = stockOf(fabric);
+        assertThat(fabricStock.getQuantity()).isEqualByComparingTo("40");
+        assertThat(fabricStock.getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(stockOf(thread).getQuantity()).isEqualByComparingTo("700");
+        assertThat(stockReservationRepository.findByProductionOrderIdAndStatus(order.getId(), ReservationStatus.CONSUMED)).hasSize(2);
+
+        List<RawMaterialMovement> movements = rawMaterialMovementRepository.findByOriginId(order.getId());
+        assertThat(movements).hasSize(2).allSatisfy(movement -> {
+            assertThat(movement.getMovementType()).isEqualTo(StockMovementType.OUT);
+            assertThat(movement.getMovementOrigin()).isEqualTo(MovementOrigin.PRODUCTION);
+        });
+    }
+
+    @Test
+    void reservationSpansWarehousesAndFinishPostsOneMovementPerLocation() {
+        UUID warehouseId = UUID.randomUUID();
+        stock(fabric, warehouseId, "50");
+        ProductionOrder order = order("OP-1", "60");
+
+        productionOrderService.start(order.getId(), "tester");
+
+        // 120 m de tecido: os 100 do estoque padrão e 20 do depósito
+        assertThat(stockOf(fabric).getReservedQuantity()).isEqualByComparingTo("100");
+        assertThat(stockOf(fabric, warehouseId).getReservedQuantity()).isEqualByComparingTo("20");
+        assertThat(stockReservationRepository.findByProductionOrderIdAndStatus(order.getId(), ReservationStatus.ACTIVE))
+                .extracting(StockReservation::getWarehouseId)
+                .containsExactlyInAnyOrder(null, warehouseId, null);
+
+        productionOrderService.finish(order.getId(), "tester");
+
+        assertThat(stockOf(fabric).getQuantity()).isEqualByComparingTo("0");
+        assertThat(stockOf(fabric).getReservedQuantity()).isEqualByComparingTo("0");
+        RawMaterialStock warehouseStock = stockOf(fabric, warehouseId);
+        assertThat(warehouseStock.getQuantity()).isEqualByComparingTo("30");
+        assertThat(warehouseStock.getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(warehouseStock.getLastMovementDate()).isNotNull();
+        assertThat(rawMaterialMovementRepository.findByOriginId(order.getId()))
+                .extracting(RawMaterialMovement::getRawMaterialId, RawMaterialMovement::getWarehouseId)
+                .containsExactlyInAnyOrder(
+                        tuple(fabric.getId(), null), tuple(fabric.getId(), warehouseId), tuple(thread.getId(), null));
+    }
+
+    @Test
+    void approveThenStartReservesOnlyOnceAndCancelReleases() {
+        ProductionOrder order = order("OP-1", "10");
+
+        productionOrderService.approve(order.getId(), "tester");
+        productionOrderService.start(order.getId(), "tester");
+
+        assertThat(stockOf(fabric).getReservedQuantity()).isEqualByComparingTo("20");
+
+        productionOrderService.cancel(order.getId(), "teste", "tester");
+
+        assertThat(stockOf(fabric).getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(stockOf(thread).getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(stockReservationRepository.findByProductionOrderIdAndStatus(order.getId(), ReservationStatus.RELEASED)).hasSize(2);
+    }
+
+    @Test
+    void updateReReservesChangedQuantityAndDeleteReleases() {
+        ProductionOrder order = order("OP-1", "10");
+        productionOrderService.approve(order.getId(), "tester");
+
+        UpdateProductionOrderDTO update = new UpdateProductionOrderDTO();
+        update.setQuantityPlanned(new BigDecimal("25"));
+        productionOrderService.update(order.getId(), update, "tester");
+
+        assertThat(stockOf(fabric).getReservedQuantity()).isEqualByComparingTo("50");
+        assertThat(stockOf(thread).getReservedQuantity()).isEqualByComparingTo("250");
+        assertThat(stockReservationRepository.findByProductionOrderIdAndStatus(order.getId(), ReservationStatus.ACTIVE)).hasSize(2);
+        assertThat(stockReservationRepository.findByProductionOrderIdAndStatus(order.getId(), ReservationStatus.RELEASED)).hasSize(2);
+
+        UpdateProductionOrderDTO statusChange = new UpdateProductionOrderDTO();
+        statusChange.setStatus(ProductionOrderStatus.FINISHED);
+        assertThatThrownBy(() -> productionOrderService.update(order.getId(), statusChange, "tester"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(productionOrderRepository.findById(order.getId()).orElseThrow().getStatus())
+                .isEqualTo(ProductionOrderStatus.PLANNED);
+
+        productionOrderService.delete(order.getId(), "tester");
+
+        assertThat(stockOf(fabric).getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(stockOf(thread).getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(stockReservationRepository.findByProductionOrderIdAndStatus(order.getId(), ReservationStatus.ACTIVE)).isEmpty();
+    }
+
+    @Test
+    void insufficientStockRejectsTheWholeReservation() {
+        ProductionOrder order = order("OP-1", "51");
+
+        assertThatThrownBy(() -> productionOrderService.start(order.getId(), "tester"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(fabric.getId().toString());
+
+        assertThat(stockOf(thread).getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(productionOrderRepository.findById(order.getId()).orElseThrow().getStatus())
+                .isEqualTo(ProductionOrderStatus.PLANNED);
+    }
+
+    @Test
+    void concurrentStartsNeverOversubscribeStock() throws Exception {
+        // 20 ordens de 10 camisas disputam 100 m de tecido: apenas 5 podem iniciar
+        List<ProductionOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            orders.add(order("OP-" + i, "10"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (ProductionOrder order : orders) {
+            results.add(executor.submit(() -> {
+                try {
+                    productionOrderService.start(order.getId(), "tester");
+                    return true;
+                } catch (IllegalStateException e) {
+                    return false;
+                }
+            }));
+        }
+        int started = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                started++;
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        assertThat(started).isEqualTo(5);
+        assertThat(stockOf(fabric).getReservedQuantity()).isEqualByComparingTo("100");
+        assertThat(stockOf(thread).getReservedQuantity()).isEqualByComparingTo("500");
+    }
+
+    private RawMaterialStock stockOf(RawMaterial material) {
+        return stockOf(material, null);
+    }
+
+    private RawMaterialStock stockOf(RawMaterial material, UUID warehouseId) {
+        return rawMaterialStockRepository.findByCompanyIdAndRawMaterialIdAndWarehouseId(companyId, material.getId(), warehouseId)
+                .orElseThrow();
+    }
+
+    private RawMaterial material(String code) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        return rawMaterialRepository.save(material);
+    }
+
+    private void stock(RawMaterial material, String quantity) {
+        stock(material, null, quantity);
+    }
+
+    private void stock(RawMaterial material, UUID warehouseId, String quantity) {
+        RawMaterialStock stock = new RawMaterialStock();
+        stock.setTenantId(tenantId);
+        stock.setCompanyId(companyId);
+        stock.setRawMaterialId(material.getId());
+        stock.setWarehouseId(warehouseId);
+        stock.setQuantity(new BigDecimal(quantity));
+        rawMaterialStockRepository.save(stock);
+    }
+
+    private void item(Composition composition, RawMaterial material, String quantity) {
+        CompositionItem item = new CompositionItem();
+        item.setTenantId(tenantId);
+        item.setCompanyId(companyId);
+        item.setCompositionId(composition.getId());
+        item.setItemType(CompositionItemType.RAW_MATERIAL);
+        item.setReferenceId(material.getId());
+        item.setUnitType(UnitType.M);
+        item.setQuantity(new BigDecimal(quantity));
+        compositionItemRepository.save(item);
+    }
+
+    private ProductionOrder order(String code, String quantity) {
+        ProductionOrder order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode(code);
+        order.setProductId(shirt.getId());
+        order.setQuantityPlanned(new BigDecimal(quantity));
+        order.setStatus(ProductionOrderStatus.PLANNED);
+        return productionOrderRepository.save(order);
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateRawMaterialMovementDTO;
+import br.com.sigeve.sigeve_prodution.dto.StockValuationDTO;
+import br.com.sigeve.sigeve_prodution.dto.StockValuationGroupDTO;
+import br.com.sigeve.sigeve_prodution.enums.MovementOrigin;
+import br.com.sigeve.sigeve_prodution.enums.StockMovementType;
+import br.com.sigeve.sigeve_prodution.enums.UnitType;
+import br.com.sigeve.sigeve_prodution.model.RawMaterial;
+import br.com.sigeve.sigeve_prodution.repository.RawMaterialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Valorização: tecido (categoria A, fornecedor X) 100 m a R$ 4, linha (categoria A, sem fornecedor)
+ * 50 un a R$ 1 e botão (categoria B, fornecedor X) 200 un a R$ 0,50.
+ */
+class StockValuationServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private StockValuationService stockValuationService;
+
+    @Autowired
+    private RawMaterialMovementBulkService rawMaterialMovementBulkService;
+
+    @Autowired
+    private RawMaterialMovementService rawMaterialMovementService;
+
+    @Autowired
+    private RawMaterialRepository rawMaterialRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private UUID categoryA;
+    private UUID categoryB;
+    private UUID supplierX;
+    private RawMaterial fabric;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+        categoryA = UUID.randomUUID();
+        categoryB = UUID.randomUUID();
+        supplierX = UUID.randomUUID();
+
+        fabric = material("TEC", categoryA, supplierX);
+        RawMaterial thread = material("LIN", categoryA, null);
+        RawMaterial button = material("BOT", categoryB, supplierX);
+
+        rawMaterialMovementBulkService.importMovements(List.of(
+                receipt(fabric, "100", "4"),
+                receipt(thread, "50", "1"),
+                receipt(button, "200", "0.5")), "tester");
+    }
+
+    @Test
+    void totalsAreGroupedByCategoryAndSupplierInOneQuery() {
+        StockValuationDTO valuation = stockValuationService.getValuation(companyId, false);
+
+        assertThat(valuation.getMaterialCount()).isEqualTo(3);
+        assertThat(valuation.getQuantity()).isEqualByComparingTo("350");
+        assertThat(valuation.getTotalValue()).isEqualByComparingTo("550");
+
+        assertThat(group(valuation.getByCategory(), categoryA).getTotalValue()).isEqualByComparingTo("450");
+        assertThat(group(valuation.getByCategory(), categoryA).getMaterialCount()).isEqualTo(2);
+        assertThat(group(valuation.getByCategory(), categoryB).getTotalValue()).isEqualByComparingTo("100");
+        assertThat(group(valuation.getBySupplier(), supplierX).getTotalValue()).isEqualByComparingTo("500");
+        assertThat(group(valuation.getBySupplier(), null).getTotalValue()).isEqualByComparingTo("50");
+    }
+
+    @Test
+    void cachedValuationIsDiscardedAfterAMovementIsPosted() {
+        StockValuationDTO first = stockValuationService.getValuation(companyId, false);
+        assertThat(stockValuationService.getValuation(companyId, false)).isSameAs(first);
+
+        CreateRawMaterialMovementDTO issue = receipt(fabric, "25", "4");
+        issue.setMovementType(StockMovementType.OUT);
+        issue.setMovementOrigin(MovementOrigin.PRODUCTION);
+        rawMaterialMovementService.create(issue, "tester");
+
+        StockValuationDTO after = stockValuationService.getValuation(companyId, false);
+        assertThat(after).isNotSameAs(first);
+        assertThat(after.getTotalValue()).isEqualByComparingTo("450");
+    }
+
+    private static StockValuationGroupDTO group(List<StockValuationGroupDTO> groups, UUID groupId) {
+        return groups.stream()
+                .filter(group -> groupId == null ? group.getGroupId() == null : groupId.equals(group.getGroupId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private RawMaterial material(String code, UUID categoryId, UUID supplierId) {
+        RawMaterial material = new RawMaterial();
+        material.setTenantId(tenantId);
+        material.setCompanyId(companyId);
+        material.setCode(code);
+        material.setName(code);
+        material.setUnitType(UnitType.M);
+        material.setCategoryId(categoryId);
+        material.setSupplierId(supplierId);
+        return rawMaterialRepository.save(material);
+    }
+
+    private CreateRawMaterialMovementDTO receipt(RawMaterial material, String quantity, String unitCost) {
+        CreateRawMaterialMovementDTO request = new CreateRawMaterialMovementDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setRawMaterialId(material.getId());
+        request.setMovementType(StockMovementType.IN);
+        request.setMovementOrigin(MovementOrigin.PURCHASE);
+        request.setQuantity(new BigDecimal(quantity));
+        request.setUnitCost(new BigDecimal(unitCost));
+        return request;
+    }
+}
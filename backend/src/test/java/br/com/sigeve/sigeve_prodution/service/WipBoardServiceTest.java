@@ -0,0 +1,161 @@
+package br.com.sigeve.sigeve_prodution.service;
+
+import br.com.sigeve.sigeve_prodution.AbstractPostgresIntegrationTest;
+import br.com.sigeve.sigeve_prodution.dto.CreateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.ProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.UpdateProductionExecutionDTO;
+import br.com.sigeve.sigeve_prodution.dto.WipBoardDTO;
+import br.com.sigeve.sigeve_prodution.dto.WipStepDTO;
+import br.com.sigeve.sigeve_prodution.enums.ProductionOrderStatus;
+import br.com.sigeve.sigeve_prodution.event.ProductionStepChangedEvent;
+import br.com.sigeve.sigeve_prodution.model.ProductionOrder;
+import br.com.sigeve.sigeve_prodution.model.ProductionProduct;
+import br.com.sigeve.sigeve_prodution.model.ProductionStep;
+import br.com.sigeve.sigeve_prodution.repository.ProductionOrderRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionProductRepository;
+import br.com.sigeve.sigeve_prodution.repository.ProductionStepRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Roteiro corte -> costura. A ordem em andamento tem 100 peças; a planejada só entra no quadro ao ser iniciada.
+ */
+class WipBoardServiceTest extends AbstractPostgresIntegrationTest {
+
+    @Autowired
+    private WipBoardService wipBoardService;
+
+    @Autowired
+    private ProductionExecutionService productionExecutionService;
+
+    @Autowired
+    private ProductionOrderService productionOrderService;
+
+    @Autowired
+    private ProductionOrderRepository productionOrderRepository;
+
+    @Autowired
+    private ProductionProductRepository productionProductRepository;
+
+    @Autowired
+    private ProductionStepRepository productionStepRepository;
+
+    private UUID tenantId;
+    private UUID companyId;
+    private ProductionProduct product;
+    private ProductionStep cutting;
+    private ProductionStep sewing;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = UUID.randomUUID();
+        companyId = UUID.randomUUID();
+
+        product = new ProductionProduct();
+        product.setTenantId(tenantId);
+        product.setCompanyId(companyId);
+        product.setDescription("Camisa");
+        product = productionProductRepository.save(product);
+
+        cutting = step("Corte", 1);
+        sewing = step("Costura", 2);
+    }
+
+    @Test
+    void boardFollowsExecutionsAndOrderStatusIncrementally() {
+        ProductionOrder running = order("OP-1", "100", ProductionOrderStatus.IN_PROGRESS);
+        ProductionOrder planned = order("OP-2", "40", ProductionOrderStatus.PLANNED);
+
+        WipBoardDTO initial = wipBoardService.findBoard(companyId);
+        assertThat(initial.getOpenOrders()).isEqualTo(1);
+        assertStep(initial.getSteps().get(0), "100", "0", "0", 1, 0);
+        assertStep(initial.getSteps().get(1), "0", "0", "0", 0, 0);
+        // Sem alterações a mesma resposta é reaproveitada
+        assertThat(wipBoardService.findBoard(companyId)).isSameAs(initial);
+
+        execution(running, cutting, "60", "2", true);
+        ProductionExecutionDTO sewingNow = execution(running, sewing, "20", "0", false);
+
+        WipBoardDTO board = wipBoardService.findBoard(companyId);
+        assertStep(board.getSteps().get(0), "40", "0", "58", 1, 0);
+        assertStep(board.getSteps().get(1), "38", "20", "0", 1, 1);
+
+        UpdateProductionExecutionDTO finished = new UpdateProductionExecutionDTO();
+        finished.setEndTime(OffsetDateTime.now());
+        finished.setLossQuantity(BigDecimal.ONE);
+        productionExecutionService.update(sewingNow.getId(), finished, "tester");
+        productionOrderService.start(planned.getId(), "tester");
+
+        board = wipBoardService.findBoard(companyId);
+        assertThat(board.getOpenOrders()).isEqualTo(2);
+        assertStep(board.getSteps().get(0), "80", "0", "58", 2, 0);
+        assertStep(board.getSteps().get(1), "38", "0", "19", 1, 0);
+
+        // O quadro mantido por eventos é igual a uma carga completa
+        wipBoardService.onProductionStepChanged(new ProductionStepChangedEvent(companyId));
+        assertThat(wipBoardService.findBoard(companyId).getSteps()).isEqualTo(board.getSteps());
+    }
+
+    @Test
+    void finishedOrdersLeaveTheBoard() {
+        ProductionOrder running = order("OP-1", "10", ProductionOrderStatus.IN_PROGRESS);
+        execution(running, cutting, "10", "0", true);
+        execution(running, sewing, "10", "0", true);
+        assertStep(wipBoardService.findBoard(companyId).getSteps().get(1), "0", "0", "10", 0, 0);
+
+        productionOrderService.finish(running.getId(), "tester");
+
+        WipBoardDTO board = wipBoardService.findBoard(companyId);
+        assertThat(board.getOpenOrders()).isZero();
+        assertThat(board.getSteps()).allSatisfy(step -> assertStep(step, "0", "0", "0", 0, 0));
+    }
+
+    private static void assertStep(WipStepDTO step, String queue, String inProcess, String done,
+                                   int ordersInQueue, int ordersInProcess) {
+        assertThat(step.getQueueQuantity()).isEqualByComparingTo(queue);
+        assertThat(step.getInProcessQuantity()).isEqualByComparingTo(inProcess);
+        assertThat(step.getDoneQuantity()).isEqualByComparingTo(done);
+        assertThat(step.getOrdersInQueue()).isEqualTo(ordersInQueue);
+        assertThat(step.getOrdersInProcess()).isEqualTo(ordersInProcess);
+    }
+
+    private ProductionExecutionDTO execution(ProductionOrder order, ProductionStep step, String done, String loss, boolean ended) {
+        CreateProductionExecutionDTO request = new CreateProductionExecutionDTO();
+        request.setTenantId(tenantId);
+        request.setCompanyId(companyId);
+        request.setProductionOrderId(order.getId());
+        request.setStepId(step.getId());
+        request.setStartTime(OffsetDateTime.now().minusHours(1));
+        request.setEndTime(ended ? OffsetDateTime.now() : null);
+        request.setQuantityDone(new BigDecimal(done));
+        request.setLossQuantity(new BigDecimal(loss));
+        return productionExecutionService.create(request, "tester");
+    }
+
+    private ProductionOrder order(String code, String quantity, ProductionOrderStatus status) {
+        ProductionOrder order = new ProductionOrder();
+        order.setTenantId(tenantId);
+        order.setCompanyId(companyId);
+        order.setCode(code);
+        order.setProductId(product.getId());
+        order.setQuantityPlanned(new BigDecimal(quantity));
+        order.setStatus(status);
+        return productionOrderRepository.save(order);
+    }
+
+    private ProductionStep step(String name, int sequence) {
+        ProductionStep step = new ProductionStep();
+        step.setTenantId(tenantId);
+        step.setCompanyId(companyId);
+        step.setName(name);
+        step.setSequence(sequence);
+        return productionStepRepository.save(step);
+    }
+}